@@ -0,0 +1,99 @@
+package stocker.benchmark;
+
+import java.util.LinkedList;
+
+import stocker.simulator.SimulatedSymbol;
+import stocker.util.Candle;
+
+/**
+ * Provides reproducible input data for the benchmarks. Prices are taken from the price model of the
+ * {@link stocker.simulator.MarketSimulator}, so the benchmarks work on realistic, but deterministic data.
+ *
+ * @author Marc S. Schneider
+ */
+public final class BenchmarkData {
+
+	/**
+	 * Fixed start time of all generated data (2021-06-01 00:00 UTC), so results don't depend on the current date
+	 */
+	public static final long START_TIME = 1622505600L;
+
+	private BenchmarkData() {
+		// private constructor in order to prevent instantiation
+	}
+
+	/**
+	 * Create a simulated symbol with the given number.
+	 * @param i the number of the symbol
+	 * @return the simulated symbol
+	 */
+	public static SimulatedSymbol symbol(int i) {
+		return new SimulatedSymbol(String.format("SIM%04d", i), "Simulierte Aktie " + i, 3254631L * 31L + i);
+	}
+
+	/**
+	 * Create a list of consecutive candles.
+	 * @param n the number of candles
+	 * @param length the length of each candle in seconds
+	 * @return the list of candles
+	 */
+	public static LinkedList<Candle> candles(int n, long length) {
+		SimulatedSymbol s = symbol(1);
+		LinkedList<Candle> candles = new LinkedList<Candle>();
+		for (int i = 0; i < n; i++) {
+			long start = START_TIME + i * length;
+			candles.add(s.candle(start, length, start + length));
+		}
+		return candles;
+	}
+
+	/**
+	 * Create the answer of a candle pull request (in the format of finnhub.io) for consecutive candles.
+	 * @param n the number of candles
+	 * @param length the length of each candle in seconds
+	 * @return the answer as a JSON string
+	 */
+	public static String candleJson(int n, long length) {
+		StringBuilder c = new StringBuilder("\"c\":[");
+		StringBuilder h = new StringBuilder("\"h\":[");
+		StringBuilder l = new StringBuilder("\"l\":[");
+		StringBuilder o = new StringBuilder("\"o\":[");
+		StringBuilder t = new StringBuilder("\"t\":[");
+		StringBuilder v = new StringBuilder("\"v\":[");
+		int i = 0;
+		for (Candle candle : candles(n, length)) {
+			String sep = (i++ == 0 ? "" : ",");
+			c.append(sep).append(candle.close);
+			h.append(sep).append(candle.high);
+			l.append(sep).append(candle.low);
+			o.append(sep).append(candle.open);
+			t.append(sep).append(candle.time);
+			v.append(sep).append((long) candle.volume);
+		}
+		return new StringBuilder("{").append(c).append("],").append(h).append("],").append(l).append("],")
+				.append(o).append("],\"s\":\"ok\",").append(t).append("],").append(v).append("]}").toString();
+	}
+
+	/**
+	 * Create trade messages as sent by the push API (in the format of finnhub.io), cycling over several symbols.
+	 * @param n the number of messages
+	 * @param nSymbols the number of different symbols
+	 * @return the messages
+	 */
+	public static String[] tradeMessages(int n, int nSymbols) {
+		SimulatedSymbol[] symbols = new SimulatedSymbol[nSymbols];
+		for (int k = 0; k < nSymbols; k++) {
+			symbols[k] = symbol(k + 1);
+		}
+		String[] messages = new String[n];
+		for (int i = 0; i < n; i++) {
+			SimulatedSymbol s = symbols[i % nSymbols];
+			long timeMillis = START_TIME * 1000L + i * 250L;
+			double t = timeMillis / 1000.0;
+			messages[i] = new StringBuilder("{\"data\":[{\"c\":null,\"p\":").append(s.priceAt(t)).append(",\"s\":\"")
+					.append(s.getSymbol()).append("\",\"t\":").append(timeMillis).append(",\"v\":")
+					.append(s.tradeVolumeAt(t)).append("}],\"type\":\"trade\"}").toString();
+		}
+		return messages;
+	}
+}
@@ -0,0 +1,74 @@
+package stocker.control;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import stocker.model.ChartAlarm;
+
+/**
+ * Benchmarks {@link AlarmManager#onPushUpdate(String, long, double)} for a growing number of alarms per symbol.
+ * The alarms are set outside of the range of the pushed prices, so no alarm is ever triggered and every update
+ * measures the cost of the (empty) range query in the price index of a symbol.
+ *
+ * @author Marc S. Schneider
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class AlarmManagerBenchmark {
+
+	private static final int N_SYMBOLS = 64;     // power of two, see below
+	private static final int N_PRICES = 1024;    // power of two, see below
+
+	@Param({ "1", "10", "100", "1000" })
+	public int alarmsPerSymbol;
+
+	private AlarmManager am;
+	private String[] symbols;
+	private double[] prices;
+	private int next = 0;
+
+	/**
+	 * Register the symbols and alarms and create the prices to be pushed (between 90 and 110).
+	 */
+	@Setup
+	public void setup() {
+		am = new AlarmManager(null);
+		symbols = new String[N_SYMBOLS];
+		for (int s = 0; s < N_SYMBOLS; s++) {
+			symbols[s] = String.format("SIM%04d", s + 1);
+			am.registerAlarmListener(null, symbols[s]);
+			for (int a = 0; a < alarmsPerSymbol; a++) { // half of them below, half of them above the price range
+				double value = (a % 2 == 0 ? 50.0 + a * 0.01 : 150.0 + a * 0.01);
+				am.addAlarm(new ChartAlarm(value), symbols[s], null);
+			}
+		}
+		prices = new double[N_PRICES];
+		for (int i = 0; i < N_PRICES; i++) {
+			prices[i] = 100.0 + 10.0 * Math.sin(i * 0.1);
+		}
+	}
+
+	/**
+	 * Process one push update.
+	 */
+	@Benchmark
+	public void onPushUpdate() {
+		int i = next++;
+		am.onPushUpdate(symbols[i & (N_SYMBOLS - 1)], i, prices[i & (N_PRICES - 1)]);
+	}
+}
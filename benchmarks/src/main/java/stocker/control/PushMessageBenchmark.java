@@ -0,0 +1,55 @@
+package stocker.control;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import stocker.benchmark.BenchmarkData;
+
+/**
+ * Benchmarks the processing of incoming push messages in {@link StockerDataManager#pushMessageIncoming(String)}
+ * (parsing plus dispatching to an alarm manager without alarms; no watchlists or charts are listening).
+ *
+ * @author Marc S. Schneider
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PushMessageBenchmark {
+
+	private static final int N_MESSAGES = 1024; // power of two, see below
+
+	private StockerDataManager dm;
+	private String[] messages;
+	private int next = 0;
+
+	/**
+	 * Create a data manager without push connection and the messages to be processed.
+	 */
+	@Setup
+	public void setup() {
+		dm = new StockerDataManager(null, false);
+		dm.setAlarmManager(new AlarmManager(null));
+		messages = BenchmarkData.tradeMessages(N_MESSAGES, 50);
+	}
+
+	/**
+	 * Process one push message.
+	 */
+	@Benchmark
+	public void pushMessageIncoming() {
+		dm.pushMessageIncoming(messages[next++ & (N_MESSAGES - 1)]);
+	}
+}
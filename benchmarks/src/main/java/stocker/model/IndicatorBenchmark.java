@@ -0,0 +1,74 @@
+package stocker.model;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import stocker.benchmark.BenchmarkData;
+import stocker.util.Candle;
+import stocker.util.EChartInterval;
+
+/**
+ * Benchmarks a full recalculation of the chart indicators ({@link ChartIndicatorSMA#calculate()} and
+ * {@link ChartIndicatorBollingerBands#calculate()}), as it happens on every data update of a chart.
+ *
+ * @author Marc S. Schneider
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class IndicatorBenchmark {
+
+	@Param({ "250", "1000", "5000" })
+	public int nCandles;
+
+	@Param({ "20", "200" })
+	public int nPoints;
+
+	private ChartIndicatorSMA sma;
+	private ChartIndicatorBollingerBands bb;
+
+	/**
+	 * Create the indicators on the candles.
+	 */
+	@Setup
+	public void setup() {
+		LinkedList<Candle> candles = BenchmarkData.candles(nCandles, EChartInterval.I5MIN.inSeconds());
+		sma = new ChartIndicatorSMA(candles, nPoints);
+		bb = new ChartIndicatorBollingerBands(candles, nPoints, nPoints, 2.0);
+	}
+
+	/**
+	 * Recalculate the simple moving average.
+	 * @return the values
+	 */
+	@Benchmark
+	public LinkedList<Double> sma() {
+		sma.calculate();
+		return sma.getValues(0);
+	}
+
+	/**
+	 * Recalculate the Bollinger bands.
+	 * @return the values
+	 */
+	@Benchmark
+	public LinkedList<LinkedList<Double>> bollingerBands() {
+		bb.calculate();
+		return bb.getAllValues();
+	}
+}
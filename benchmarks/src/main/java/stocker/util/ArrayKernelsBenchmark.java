@@ -0,0 +1,168 @@
+package stocker.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import stocker.benchmark.BenchmarkData;
+
+/**
+ * Compares the scalar and the vector {@link IArrayKernels} on the close prices of 1-minute candles: a day, a year
+ * (252 trading days of 390 minutes) and five years. Both calculate the rolling windows in one pass with the same
+ * code; {@link #rollingSumPerWindow(Window)} and {@link #rollingVariancePerWindow(Window)} are the reference of
+ * adding up each window from scratch. The vector kernels are only available if the module has been
+ * built with the profile {@code vector} (active on JDK 17 and later, see pom.xml); the forks add the module
+ * {@code jdk.incubator.vector} in any case, so the benchmark requires JDK 17 or later.
+ *
+ * @author Marc S. Schneider
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ArrayKernelsBenchmark {
+
+	@Param({ "scalar", "vector" })
+	public String kernels;
+
+	@Param({ "390", "98280", "491400" })
+	public int nValues;
+
+	private IArrayKernels k;
+	private double[] closes;
+	private int[] scaled;
+
+	/**
+	 * Create the close prices and select the kernels.
+	 * @throws IllegalStateException if the vector kernels are requested, but not available
+	 */
+	@Setup
+	public void setup() {
+		k = ("vector".equals(kernels) ? ArrayKernels.vector() : ArrayKernels.scalar());
+		if (k == null) {
+			throw new IllegalStateException("Vector kernels not available (build on JDK 17 or later, see pom.xml)");
+		}
+		closes = ArrayKernels.closes(BenchmarkData.candles(nValues, EChartInterval.I1MIN.inSeconds()));
+		scaled = new int[nValues];
+	}
+
+	/**
+	 * The length of the rolling windows, and the arrays for their results.
+	 */
+	@State(Scope.Thread)
+	public static class Window {
+
+		@Param({ "20", "200" })
+		public int n;
+
+		private double[] sums;
+		private double[] means;
+		private double[] variances;
+
+		/**
+		 * Create the arrays, and the means for the variances.
+		 * @param b the state of the benchmark
+		 */
+		@Setup
+		public void setup(ArrayKernelsBenchmark b) {
+			sums = new double[b.nValues];
+			means = new double[b.nValues];
+			variances = new double[b.nValues];
+			ArrayKernels.scalar().rollingSum(b.closes, n, means);
+			for (int i = 0; i < means.length; i++) {
+				means[i] /= n;
+			}
+		}
+	}
+
+	/**
+	 * Calculate the rolling sums (as for a moving average).
+	 * @param w the window
+	 * @return the sums
+	 */
+	@Benchmark
+	public double[] rollingSum(Window w) {
+		k.rollingSum(closes, w.n, w.sums);
+		return w.sums;
+	}
+
+	/**
+	 * Calculate the rolling variances around the moving average (as for the Bollinger Bands).
+	 * @param w the window
+	 * @return the variances
+	 */
+	@Benchmark
+	public double[] rollingVariance(Window w) {
+		k.rollingVariance(closes, w.n, w.means, w.variances);
+		return w.variances;
+	}
+
+	/**
+	 * Calculate the rolling sums by adding up each window (the reference for {@link #rollingSum(Window)}).
+	 * @param w the window
+	 * @return the sums
+	 */
+	@Benchmark
+	public double[] rollingSumPerWindow(Window w) {
+		for (int i = w.n - 1; i < closes.length; i++) {
+			double sum = 0.0;
+			for (int k = 0; k < w.n; k++) {
+				sum += closes[i - k];
+			}
+			w.sums[i] = sum;
+		}
+		return w.sums;
+	}
+
+	/**
+	 * Calculate the rolling variances by adding up the squares of each window (the reference for
+	 * {@link #rollingVariance(Window)}).
+	 * @param w the window
+	 * @return the variances
+	 */
+	@Benchmark
+	public double[] rollingVariancePerWindow(Window w) {
+		for (int i = w.n - 1; i < closes.length; i++) {
+			double sum = 0.0;
+			for (int k = 0; k < w.n; k++) {
+				double d = closes[i - k] - w.means[i];
+				sum += d * d;
+			}
+			w.variances[i] = sum / w.n;
+		}
+		return w.variances;
+	}
+
+	/**
+	 * Get the minimum and the maximum of all values (as for the scaling of a chart).
+	 * @param bh the blackhole which consumes the results
+	 */
+	@Benchmark
+	public void minMax(Blackhole bh) {
+		bh.consume(k.min(closes, 0, closes.length));
+		bh.consume(k.max(closes, 0, closes.length));
+	}
+
+	/**
+	 * Scale all values to the coordinates of a panel.
+	 * @return the scaled values
+	 */
+	@Benchmark
+	public int[] scale() {
+		k.scale(closes, 0, closes.length, 100.0, 700.0, 50.0, scaled);
+		return scaled;
+	}
+}
@@ -0,0 +1,69 @@
+package stocker.util;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import stocker.benchmark.BenchmarkData;
+
+/**
+ * Benchmarks parsing of candle pull answers with {@link CandleParser#parseCandlesFromJsonObject(JsonObject)}, once
+ * from an already parsed JsonObject and once including the JSON parsing of the answer string.
+ *
+ * @author Marc S. Schneider
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandleParserBenchmark {
+
+	@Param({ "250", "1000", "5000" })
+	public int nCandles;
+
+	private String json;
+	private JsonObject jo;
+
+	/**
+	 * Create the answer to be parsed.
+	 */
+	@Setup
+	public void setup() {
+		json = BenchmarkData.candleJson(nCandles, EChartInterval.I5MIN.inSeconds());
+		jo = JsonParser.parseString(json).getAsJsonObject();
+	}
+
+	/**
+	 * Parse the candles from an already parsed JsonObject.
+	 * @return the candles
+	 */
+	@Benchmark
+	public LinkedList<Candle> parseCandles() {
+		return CandleParser.parseCandlesFromJsonObject(jo);
+	}
+
+	/**
+	 * Parse the candles from the answer string, like StockerDataManager does after a pull request.
+	 * @return the candles
+	 */
+	@Benchmark
+	public LinkedList<Candle> parseCandlesFromString() {
+		return CandleParser.parseCandlesFromJsonObject(JsonParser.parseString(json).getAsJsonObject());
+	}
+}
@@ -0,0 +1,72 @@
+package stocker.view;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import stocker.benchmark.BenchmarkData;
+import stocker.model.ChartWatchItem;
+import stocker.util.ECandleScheme;
+import stocker.util.EChartInterval;
+import stocker.util.EChartType;
+
+/**
+ * Benchmarks the scaling ({@link ChartPanel#calculateScaledValues()}) and the drawing of the buffer image
+ * ({@link ChartPanel#paintImage()}) of a chart panel, headless and without a parent chart.
+ *
+ * @author Marc S. Schneider
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ChartPanelBenchmark {
+
+	@Param({ "CANDLE", "LINE" })
+	public EChartType chartType;
+
+	private ChartPanel panel;
+
+	/**
+	 * Create a panel of 1000 x 700 pixels showing 1000 candles (of which the panel draws the latest 100).
+	 */
+	@Setup
+	public void setup() {
+		ChartWatchItem w = new ChartWatchItem("SIM0001", "Simulierte Aktie 1", EChartInterval.I5MIN);
+		panel = new ChartPanel(null, w, chartType); // empty at first, just like in StockerChart
+		panel.setCandleScheme(ECandleScheme.REDGREEN);
+		panel.setAlarmColor(Color.RED);
+		panel.setSize(1000, 700);
+		w.setCandles(BenchmarkData.candles(1000, EChartInterval.I5MIN.inSeconds()), EChartInterval.I5MIN);
+		panel.setData(w);
+	}
+
+	/**
+	 * Scale the candle data to the panel size.
+	 */
+	@Benchmark
+	public void calculateScaledValues() {
+		panel.calculateScaledValues();
+	}
+
+	/**
+	 * Draw the complete buffer image.
+	 */
+	@Benchmark
+	public void paintImage() {
+		panel.paintImage();
+	}
+}
@@ -0,0 +1,102 @@
+package stocker.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The implementation of the {@link IArrayKernels} with the Vector API ({@code jdk.incubator.vector}, JDK 17 and
+ * later), which processes as many values at once as fit into the widest SIMD registers of the CPU.
+ * <p>
+ * The rolling windows are calculated in one pass, each from the previous one, as by {@link ScalarKernels}: that is a
+ * chain of dependent additions, which does not profit from SIMD, but it is faster than any vectorized calculation of
+ * each window from scratch for all but the shortest windows. Scaling uses the scalar loop as well, which the JIT
+ * compiler vectorizes itself (the conversion of double to int lanes is not compiled to SIMD instructions yet).
+ * <p>
+ * This class is in a source folder of its own ({@code src-vector}), as it requires
+ * {@code --add-modules jdk.incubator.vector} for compilation and at runtime. It is loaded by reflection (see
+ * {@link ArrayKernels}), so Stocker works without it.
+ *
+ * @author Marc S. Schneider
+ */
+final class VectorKernels implements IArrayKernels {
+
+	private static final VectorSpecies<Double> DS = DoubleVector.SPECIES_PREFERRED;
+	private static final int L = DS.length();
+
+	/**
+	 * Construct the kernels.
+	 * @throws UnsupportedOperationException if the CPU does not process more than one double at once
+	 */
+	VectorKernels() {
+		if (L < 2) {
+			throw new UnsupportedOperationException("No SIMD support for doubles");
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void rollingSum(double[] x, int n, double[] out) {
+		ScalarKernels.runningSum(x, n, out);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void rollingVariance(double[] x, int n, double[] mean, double[] out) {
+		ScalarKernels.runningVariance(x, n, mean, out);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double min(double[] x, int from, int to) {
+		DoubleVector min = DoubleVector.broadcast(DS, Double.POSITIVE_INFINITY);
+		int i = from;
+		for (; i + L <= to; i += L) {
+			min = min.min(DoubleVector.fromArray(DS, x, i));
+		}
+		double result = min.reduceLanes(VectorOperators.MIN);
+		for (; i < to; i++) { // the rest
+			result = Math.min(result, x[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double max(double[] x, int from, int to) {
+		DoubleVector max = DoubleVector.broadcast(DS, Double.NEGATIVE_INFINITY);
+		int i = from;
+		for (; i + L <= to; i += L) {
+			max = max.max(DoubleVector.fromArray(DS, x, i));
+		}
+		double result = max.reduceLanes(VectorOperators.MAX);
+		for (; i < to; i++) { // the rest
+			result = Math.max(result, x[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void scale(double[] x, int from, int to, double offset, double ref, double range, int[] out) {
+		ScalarKernels.scaleLinearly(x, from, to, offset, ref, range, out);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return "Vector API, " + L + " lanes";
+	}
+}
@@ -1,21 +1,42 @@
 package stocker;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 import javax.swing.SwingUtilities;
 
 import stocker.control.StockerControl;
+import stocker.control.StockerDaemon;
+import stocker.simulator.MarketSimulator;
 
 /**
  * The main class containing the main method which executes the Stocker application.
- * 
+ *
  * @author Marc S. Schneider
  */
 public class Stocker_3254631_Schneider_Marc {
 
 	/**
 	 * The main method for execution of the application.
-	 * @param args the command line arguments (not used)
+	 * @param args the command line arguments: if the first argument is <code>--simulator</code>, an embedded
+	 *        {@link MarketSimulator} is started for the "Kursdatengenerator" data provider; all further arguments
+	 *        are passed to the simulator (see {@link MarketSimulator#parseArgs(String[])}); if it is
+	 *        <code>--daemon</code>, the alarms are monitored without GUI and all further arguments are passed to 
+	 *        the daemon (see {@link StockerDaemon#main(String[])})
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0 && args[0].equals("--daemon")) {
+			StockerDaemon.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--simulator")) {
+			MarketSimulator sim = new MarketSimulator(MarketSimulator.parseArgs(Arrays.copyOfRange(args, 1, args.length)));
+			try {
+				sim.start();
+			} catch (IOException e) {
+				System.err.println("Embedded market simulator could not be started: " + e.getMessage());
+			}
+		}
 		SwingUtilities.invokeLater(new Runnable() {
 			public void run() {
 				@SuppressWarnings("unused")
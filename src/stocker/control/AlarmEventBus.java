@@ -0,0 +1,304 @@
+package stocker.control;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import stocker.metrics.MetricsRegistry;
+import stocker.model.AlarmEvent;
+
+/**
+ * Delivers alarm events from the push thread to the GUI without blocking either of them. Events are put into a
+ * bounded queue, taken by a dispatcher thread, de-duplicated (the same alarm of the same symbol is delivered at most
+ * once within {@value #DEDUP_MILLIS} ms), rate-limited (at most {@value #MAX_EVENTS_PER_SYMBOL} events per symbol
+ * within {@value #RATE_WINDOW_MILLIS} ms) and handed to the registered {@link IAlarmEventListener}s in batches on
+ * the event dispatch thread (or, without a GUI, directly on the dispatcher thread).
+ * <p>
+ * As the alarms are removed when they are triggered, no event is lost: the events which are suppressed (or do not
+ * fit into the queue) are counted per symbol and delivered as one summary ("3 weitere Alarme") when the rate window
+ * or the de-duplication of the symbol has ended; a single suppressed event is delivered as it is.
+ *
+ * @author Marc S. Schneider
+ */
+public class AlarmEventBus {
+
+	private static final int QUEUE_CAPACITY = 256;
+	private static final int MAX_BATCH = 64;
+	/** Time within which a repeated event of the same alarm is suppressed */
+	public static final long DEDUP_MILLIS = 5000L;
+	/** Length of the window for the rate limit per symbol */
+	public static final long RATE_WINDOW_MILLIS = 10000L;
+	/** Maximum number of events per symbol within the rate window */
+	public static final int MAX_EVENTS_PER_SYMBOL = 5;
+
+	private final ArrayBlockingQueue<AlarmEvent> queue = new ArrayBlockingQueue<AlarmEvent>(QUEUE_CAPACITY);
+	private final CopyOnWriteArrayList<IAlarmEventListener> listeners = new CopyOnWriteArrayList<IAlarmEventListener>();
+	private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+	private final boolean isDeliveredOnEDT;
+
+	// Only accessed by the dispatcher thread
+	private final HashMap<String, Long> lastDelivered = new HashMap<String, Long>(); // per alarm key
+	private final HashMap<String, long[]> rateWindows = new HashMap<String, long[]>(); // per symbol: start, count
+	private final HashMap<String, Summary> pending = new HashMap<String, Summary>();   // per symbol
+	// Events which did not fit into the queue, per symbol (guarded by its own lock, written by the publishers)
+	private final HashMap<String, Summary> dropped = new HashMap<String, Summary>();
+	private volatile boolean hasDropped = false;
+
+	/**
+	 * Construct a new AlarmEventBus which delivers the events on the event dispatch thread and start its
+	 * dispatcher thread.
+	 */
+	public AlarmEventBus() {
+		this(true);
+	}
+
+	/**
+	 * Construct a new AlarmEventBus and start its dispatcher thread.
+	 * @param isDeliveredOnEDT true if the events are to be delivered on the event dispatch thread, false if they
+	 * 		  are to be delivered on the dispatcher thread (headless mode, where there is no GUI to update)
+	 */
+	public AlarmEventBus(boolean isDeliveredOnEDT) {
+		this.isDeliveredOnEDT = isDeliveredOnEDT;
+		Thread dispatcher = new Thread("AlarmEventBus dispatcher") {
+			@Override
+			public void run() {
+				ArrayList<AlarmEvent> batch = new ArrayList<AlarmEvent>(MAX_BATCH);
+				while (true) {
+					try {
+						long due = getNextDue(); // wake up for the pending summaries
+						AlarmEvent e = (due == Long.MAX_VALUE ? queue.take()
+								: queue.poll(Math.max(due - System.currentTimeMillis(), 0L), TimeUnit.MILLISECONDS));
+						if (e != null) {
+							batch.add(e);
+						}
+					} catch (InterruptedException e) {
+						return;
+					}
+					queue.drainTo(batch, MAX_BATCH - batch.size());
+					dispatch(batch);
+					batch.clear();
+				}
+			}
+		};
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+
+	/**
+	 * Register a listener which is to be notified about alarm events.
+	 * @param l the listener
+	 */
+	public void addListener(IAlarmEventListener l) {
+		listeners.add(l);
+	}
+
+	/**
+	 * Unregister a listener.
+	 * @param l the listener
+	 */
+	public void removeListener(IAlarmEventListener l) {
+		listeners.remove(l);
+	}
+
+	/**
+	 * Publish an alarm event. Never blocks; if the queue is full, the event is only counted for the summary of its
+	 * symbol.
+	 * @param event the event
+	 * @return true if the event has been queued, false if it has only been counted
+	 */
+	public boolean publish(AlarmEvent event) {
+		if (queue.offer(event)) {
+			return true;
+		}
+		metrics.counter(MetricsRegistry.ALARM_EVENTS_SUPPRESSED).increment();
+		synchronized (dropped) {
+			Summary sum = dropped.get(event.getSymbol());
+			if (sum == null) {
+				sum = new Summary();
+				dropped.put(event.getSymbol(), sum);
+			}
+			sum.add(event, 1L);
+			hasDropped = true;
+		}
+		return false;
+	}
+
+	/**
+	 * Filter a batch of events and deliver the remaining ones to the listeners (on the event dispatch thread).
+	 * @param batch the events taken from the queue
+	 */
+	private void dispatch(ArrayList<AlarmEvent> batch) {
+		long now = System.currentTimeMillis();
+		if (hasDropped) { // take over the events which did not fit into the queue
+			synchronized (dropped) {
+				for (Summary d : dropped.values()) {
+					suppress(d.last, now).addAll(d);
+				}
+				dropped.clear();
+				hasDropped = false;
+			}
+		}
+		ArrayList<AlarmEvent> accepted = new ArrayList<AlarmEvent>(batch.size());
+		for (AlarmEvent e : batch) {
+			if (accept(e, now)) {
+				accepted.add(e);
+			} else {
+				metrics.counter(MetricsRegistry.ALARM_EVENTS_SUPPRESSED).increment();
+				suppress(e, now).add(e, 1L);
+			}
+		}
+		ArrayList<AlarmEvent> deliver = new ArrayList<AlarmEvent>(accepted.size());
+		Iterator<Summary> itPending = pending.values().iterator();
+		while (itPending.hasNext()) { // the summaries are older than the events just accepted
+			Summary sum = itPending.next();
+			if (sum.due <= now) {
+				deliver.add(sum.toEvent());
+				itPending.remove();
+			}
+		}
+		deliver.addAll(accepted);
+		if (lastDelivered.size() > QUEUE_CAPACITY) { // forget entries which cannot suppress anything any more
+			Iterator<Map.Entry<String, Long>> it = lastDelivered.entrySet().iterator();
+			while (it.hasNext()) {
+				if (now - it.next().getValue() > DEDUP_MILLIS) {
+					it.remove();
+				}
+			}
+			Iterator<Map.Entry<String, long[]>> itRate = rateWindows.entrySet().iterator();
+			while (itRate.hasNext()) {
+				if (now - itRate.next().getValue()[0] > RATE_WINDOW_MILLIS) {
+					itRate.remove();
+				}
+			}
+		}
+		if (deliver.isEmpty()) {
+			return;
+		}
+		metrics.counter(MetricsRegistry.ALARM_EVENTS).add(deliver.size());
+		if (!isDeliveredOnEDT) {
+			for (IAlarmEventListener l : listeners) {
+				l.alarmEventsOccurred(deliver);
+			}
+			return;
+		}
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				for (IAlarmEventListener l : listeners) {
+					l.alarmEventsOccurred(deliver);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Decide whether an event passes the de-duplication and the rate limit, and update the book keeping if it does.
+	 * @param e the event
+	 * @param now the current time in milliseconds
+	 * @return true if the event is to be delivered, false if it is to be suppressed
+	 */
+	private boolean accept(AlarmEvent e, long now) {
+		if (pending.containsKey(e.getSymbol())) { // keep the order: after the summary of the symbol
+			return false;
+		}
+		Long last = lastDelivered.get(e.getKey());
+		if (last != null && now - last < DEDUP_MILLIS) {
+			return false;
+		}
+		long[] window = rateWindows.get(e.getSymbol());
+		if (window == null || now - window[0] >= RATE_WINDOW_MILLIS) {
+			window = new long[] { now, 0L };
+			rateWindows.put(e.getSymbol(), window);
+		}
+		if (window[1] >= MAX_EVENTS_PER_SYMBOL) {
+			return false;
+		}
+		window[1]++;
+		lastDelivered.put(e.getKey(), now);
+		return true;
+	}
+
+	/**
+	 * Get the summary of the suppressed events of the symbol of the given event (created if necessary), and defer it
+	 * until the rate window of the symbol and the de-duplication of the event have ended.
+	 * @param e the suppressed event
+	 * @param now the current time in milliseconds
+	 * @return the summary
+	 */
+	private Summary suppress(AlarmEvent e, long now) {
+		Summary sum = pending.get(e.getSymbol());
+		if (sum == null) {
+			sum = new Summary();
+			sum.due = now;
+			pending.put(e.getSymbol(), sum);
+		}
+		long[] window = rateWindows.get(e.getSymbol());
+		if (window != null && window[1] >= MAX_EVENTS_PER_SYMBOL) {
+			sum.due = Math.max(sum.due, window[0] + RATE_WINDOW_MILLIS);
+		}
+		Long last = lastDelivered.get(e.getKey());
+		if (last != null) {
+			sum.due = Math.max(sum.due, last + DEDUP_MILLIS);
+		}
+		return sum;
+	}
+
+	/**
+	 * Get the time at which the next summary is due.
+	 * @return the time in milliseconds, or Long.MAX_VALUE if there is no summary
+	 */
+	private long getNextDue() {
+		long due = Long.MAX_VALUE;
+		for (Summary sum : pending.values()) {
+			due = Math.min(due, sum.due);
+		}
+		return due;
+	}
+
+	/**
+	 * The suppressed events of one symbol.
+	 */
+	private static class Summary {
+		private long count = 0L;
+		private AlarmEvent last;   // the latest suppressed event
+		private long due = 0L;     // the time at which the summary is delivered
+
+		/**
+		 * Count a suppressed event.
+		 * @param e the event
+		 * @param n the number of events it stands for
+		 */
+		private void add(AlarmEvent e, long n) {
+			count += n;
+			if (last == null || e.getTime() >= last.getTime()) {
+				last = e;
+			}
+		}
+
+		/**
+		 * Count the events of another summary.
+		 * @param other the other summary
+		 */
+		private void addAll(Summary other) {
+			add(other.last, other.count);
+		}
+
+		/**
+		 * Get the event to be delivered: the event itself if only one has been suppressed, otherwise a summary.
+		 * @return the event
+		 */
+		private AlarmEvent toEvent() {
+			if (count == 1L) {
+				return last;
+			}
+			return new AlarmEvent(last.getSymbol(), count + " weitere Alarme (zuletzt: " + last.getDescription() + ")",
+					last.getPrice(), last.getTime());
+		}
+	}
+}
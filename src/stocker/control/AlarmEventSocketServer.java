@@ -0,0 +1,151 @@
+package stocker.control;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import stocker.model.AlarmEvent;
+import stocker.util.StockerLogger;
+
+/**
+ * Publishes alarm events on a local TCP port (bound to the loopback address only): Every connected client receives
+ * all events which occur while it is connected, as lines of Json (see {@link AlarmEventWriter#toJsonLine(AlarmEvent)}).
+ * Every client has its own bounded queue and writer thread, so a client which stops reading cannot block the caller:
+ * Clients whose queue overflows or which cannot be written to any more are dropped. Used as a sink of the 
+ * {@link StockerDaemon}.
+ *
+ * @author Marc S. Schneider
+ */
+public class AlarmEventSocketServer implements IAlarmEventListener, Closeable {
+
+	private static final StockerLogger log = StockerLogger.getLogger(AlarmEventSocketServer.class);
+	private static final int CLIENT_QUEUE_CAPACITY = 1024; // lines queued for a client before it is dropped
+
+	private final ServerSocket serverSocket;
+	private final CopyOnWriteArrayList<Client> clients = new CopyOnWriteArrayList<Client>();
+
+	/**
+	 * Construct a new AlarmEventSocketServer and start accepting clients.
+	 * @param port the local port to listen on
+	 * @throws IOException if the port cannot be bound
+	 */
+	public AlarmEventSocketServer(int port) throws IOException {
+		this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		Thread acceptor = new Thread("AlarmEventSocketServer acceptor") {
+			@Override
+			public void run() {
+				while (!serverSocket.isClosed()) {
+					try {
+						Socket s = serverSocket.accept();
+						s.shutdownInput(); // the clients only listen
+						Client client = new Client(s);
+						clients.add(client);
+						client.start();
+						log.info("Alarm client connected: {}", s.getRemoteSocketAddress());
+					} catch (IOException e) {
+						if (!serverSocket.isClosed()) {
+							log.warn("Problem while accepting alarm client: {}", e.getMessage());
+						}
+					}
+				}
+			}
+		};
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Queue the events, one line each, for all connected clients (does not block). A client whose queue is full is
+	 * disconnected.
+	 * @param events the alarm events, oldest first
+	 */
+	@Override
+	public void alarmEventsOccurred(List<AlarmEvent> events) {
+		for (Client client : clients) {
+			for (AlarmEvent e : events) {
+				if (!client.queue.offer(AlarmEventWriter.toJsonLine(e))) {
+					log.warn("Alarm client does not read fast enough, disconnecting: {}", client.address);
+					client.close();
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop accepting clients and disconnect all connected clients.
+	 */
+	@Override
+	public void close() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) { } // closing anyway
+		for (Client client : clients) {
+			client.close();
+		}
+		clients.clear();
+	}
+
+	/**
+	 * A connected client: its queued lines are written by its own thread.
+	 */
+	private class Client extends Thread {
+		private final Socket socket;
+		private final Object address;
+		private final ArrayBlockingQueue<String> queue = new ArrayBlockingQueue<String>(CLIENT_QUEUE_CAPACITY);
+		private volatile boolean closed = false;
+
+		/**
+		 * Construct a new client (the thread still has to be started).
+		 * @param socket the socket of the client
+		 */
+		private Client(Socket socket) {
+			super("AlarmEventSocketServer client " + socket.getRemoteSocketAddress());
+			this.socket = socket;
+			this.address = socket.getRemoteSocketAddress();
+			setDaemon(true);
+		}
+
+		/**
+		 * Write the queued lines to the client until it is closed or cannot be written to any more.
+		 */
+		@Override
+		public void run() {
+			try {
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+				while (!closed) {
+					out.println(queue.take());
+					if (queue.isEmpty()) {
+						out.flush();
+					}
+					if (out.checkError()) { // the client has disconnected
+						break;
+					}
+				}
+			} catch (IOException e) {
+				log.warn("Problem while writing to alarm client {}: {}", address, e.getMessage());
+			} catch (InterruptedException e) { } // closed
+			close();
+		}
+
+		/**
+		 * Disconnect the client (unblocks a pending write) and stop its thread.
+		 */
+		private void close() {
+			closed = true;
+			clients.remove(this);
+			try {
+				socket.close();
+			} catch (IOException e) { } // closing anyway
+			interrupt();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package stocker.control;
+
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+
+import stocker.model.AlarmEvent;
+
+/**
+ * Writes alarm events as lines of Json (one object per event, with the members "time" (in milliseconds since the
+ * epoch), "symbol", "alarm" and "price") to a character stream, e.g. the console or a file. Used as a sink of the
+ * {@link StockerDaemon}.
+ *
+ * @author Marc S. Schneider
+ */
+public class AlarmEventWriter implements IAlarmEventListener, Closeable {
+
+	private final PrintWriter out;
+	private final boolean isClosingStream;
+
+	/**
+	 * Construct a new AlarmEventWriter.
+	 * @param out the stream to be written to
+	 * @param isClosingStream true if the stream is to be closed with this writer (e.g. a file), false otherwise 
+	 * 		  (e.g. System.out)
+	 */
+	public AlarmEventWriter(Writer out, boolean isClosingStream) {
+		this.out = new PrintWriter(out);
+		this.isClosingStream = isClosingStream;
+	}
+
+	/**
+	 * Convert an alarm event into a line of Json.
+	 * @param e the alarm event
+	 * @return a Json object in a single line (without line separator)
+	 */
+	public static String toJsonLine(AlarmEvent e) {
+		JsonObject jo = new JsonObject();
+		jo.addProperty("time", e.getTime());
+		jo.addProperty("symbol", e.getSymbol());
+		jo.addProperty("alarm", e.getDescription());
+		jo.addProperty("price", e.getPrice());
+		return jo.toString();
+	}
+
+	/**
+	 * Write the events, one line each, and flush the stream.
+	 * @param events the alarm events, oldest first
+	 */
+	@Override
+	public synchronized void alarmEventsOccurred(List<AlarmEvent> events) {
+		for (AlarmEvent e : events) {
+			out.println(toJsonLine(e));
+		}
+		out.flush();
+	}
+
+	/**
+	 * Flush the stream and close it if it is owned by this writer.
+	 */
+	@Override
+	public synchronized void close() {
+		out.flush();
+		if (isClosingStream) {
+			out.close();
+		}
+	}
+}
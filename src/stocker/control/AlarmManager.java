@@ -1,16 +1,26 @@
 package stocker.control;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
+import stocker.dialog.StockerAlarmNotificationDialog;
+import stocker.model.AlarmEvent;
+import stocker.model.AlarmIndex;
 import stocker.model.ChartAlarm;
+import stocker.model.ChartWatchItem;
+import stocker.model.ConditionAlarm;
+import stocker.util.EAlarmCondition;
+import stocker.util.EChartInterval;
+import stocker.util.StockerDataManagerException;
+import stocker.util.StockerLogger;
 import stocker.view.IStockerDataListener;
 import stocker.view.StockerChart;
 import stocker.view.StockerFrame;
@@ -18,32 +28,109 @@ import stocker.view.StockerFrame;
 /** 
  * Central alarm manager which registers alarm listeners (Watchlists, StockerCharts) and alarms per symbol.
  * Listens to push updates and informs all stake holders when an alarm is triggered, added or removed.
+ * <p>
+ * The state is striped per symbol: Each symbol has its own {@link SymbolAlarms} in a concurrent map, holding the
+ * price index, the listener count and copy-on-write lists of the listening charts and the conditional alarms.
+ * Modifications lock only the symbol's stripe; push updates take no lock of the manager at all (the price index
+ * and the conditional alarms synchronize themselves), so ticks of different symbols are evaluated in parallel.
  * 
  * @author Marc S. Schneider
  */
 public class AlarmManager implements IStockerDataListener {
+	private static final StockerLogger log = StockerLogger.getLogger(AlarmManager.class);
+
 	/**
-	 * HashMap storing the alarm lists for different symbols (each list containing all the alarms for one symbol)
-	 */
-	private HashMap<String, ArrayList<ChartAlarm>> alarms = new HashMap<String, ArrayList<ChartAlarm>>(10);
-	/**
-	 * Counts the number of listeners (Integer) which are listening to this symbol (String); alarm can be removed from
-	 * model if nobody is listening any more
+	 * The alarm state per symbol (one stripe per symbol)
 	 */
-	private HashMap<String, Integer> listenerCount = new HashMap<String, Integer>();
+	private ConcurrentHashMap<String, SymbolAlarms> symbols = new ConcurrentHashMap<String, SymbolAlarms>();
+	
 	/**
-	 * Provides an ArrayList with references to all charts which listen to the given symbol (String)
+	 * Receives the alarms triggered by one push update (one list per push thread)
 	 */
-	private HashMap<String, ArrayList<StockerChart>> listeningCharts = new HashMap<String, ArrayList<StockerChart>>();
+	private ThreadLocal<ArrayList<ChartAlarm>> triggeredAlarms = new ThreadLocal<ArrayList<ChartAlarm>>() {
+		@Override
+		protected ArrayList<ChartAlarm> initialValue() {
+			return new ArrayList<ChartAlarm>();
+		}
+	};
 	
-	private StockerFrame frame;
+	private AlarmEventBus eventBus; // delivers alarm notifications to the GUI (or to the sinks of a StockerDaemon)
+	private StockerAlarmNotificationDialog notificationDialog;
+	private StockerDataManager dm; // used to subscribe and seed conditional alarms
 	
 	/**
 	 * Construct a new alarm manager.
-	 * @param frame the main frame of the application, used as the parent for alarm notifications
+	 * @param frame the main frame of the application, used as the parent for alarm notifications (may be null, 
+	 * 		  e.g. for benchmarks or in headless mode; then no notification panel is created and the alarm events
+	 * 		  are delivered on the dispatcher thread of the event bus instead of the event dispatch thread)
 	 */
 	public AlarmManager(StockerFrame frame) {
-		this.frame = frame;
+		eventBus = new AlarmEventBus(frame != null);
+		if (frame != null) {
+			notificationDialog = new StockerAlarmNotificationDialog(frame);
+			eventBus.addListener(notificationDialog);
+		}
+	}
+	
+	/**
+	 * Show the panel listing the triggered alarms.
+	 */
+	public void showAlarmNotifications() {
+		if (notificationDialog != null) {
+			notificationDialog.showPanel();
+		}
+	}
+	
+	/**
+	 * Register a listener which is to be notified (on the event dispatch thread) when alarms have been triggered.
+	 * @param l the listener
+	 */
+	public void addAlarmEventListener(IAlarmEventListener l) {
+		eventBus.addListener(l);
+	}
+	
+	/**
+	 * Unregister a listener for alarm events.
+	 * @param l the listener
+	 */
+	public void removeAlarmEventListener(IAlarmEventListener l) {
+		eventBus.removeListener(l);
+	}
+	
+	/**
+	 * Set the data manager which is used to subscribe conditional alarms to push updates and to seed them with
+	 * historic data.
+	 * @param dm the data manager
+	 */
+	public void setDataManager(StockerDataManager dm) {
+		this.dm = dm;
+	}
+	
+	/**
+	 * Get the stripe of the given symbol, creating it if necessary. The caller has to synchronize on the stripe
+	 * and to retry if it has been retired in the meantime (see {@link #retireIfUnused(SymbolAlarms)}).
+	 * @param symbol the symbol
+	 * @return the stripe of the symbol
+	 */
+	private SymbolAlarms getOrCreate(String symbol) {
+		SymbolAlarms sa = symbols.get(symbol);
+		if (sa == null) {
+			symbols.putIfAbsent(symbol, new SymbolAlarms(symbol));
+			sa = symbols.get(symbol);
+		}
+		return sa;
+	}
+	
+	/**
+	 * Remove the stripe from the map if nothing refers to its symbol any more. The caller has to hold the lock of
+	 * the stripe.
+	 * @param sa the stripe
+	 */
+	private void retireIfUnused(SymbolAlarms sa) {
+		if (sa.listenerCount == 0 && sa.index.size() == 0 && sa.conditionAlarms.isEmpty()) {
+			sa.isRetired = true;
+			symbols.remove(sa.symbol, sa);
+		}
 	}
 	
 	/**
@@ -52,22 +139,22 @@ public class AlarmManager implements IStockerDataListener {
 	 * each symbol they represent. StockerCharts represent only one symbol, so they need to register only once.
 	 * @param listener the data listener
 	 * @param symbol the ticker symbol in which this listener is interested
-	 * @return
+	 * @return a list of the alarms which are currently registered for this symbol
 	 */
 	public ArrayList<ChartAlarm> registerAlarmListener(IStockerDataListener listener, String symbol) {
-		if (listenerCount.get(symbol) == null) { // nobody is currently listening to that symbol
-			listenerCount.put(symbol, 1);
-			listeningCharts.put(symbol, new ArrayList<StockerChart>(5)); // create and add a new charts list
-			alarms.put(symbol, new ArrayList<ChartAlarm>(5));
-		}
-		else { // there is already someone listening -> increment the listener count 
-			listenerCount.put(symbol, listenerCount.get(symbol) + 1);
-		}
-		if (listener instanceof StockerChart) { // if we are registering a StockerChart, add it to the new list
-			listeningCharts.get(symbol).add((StockerChart)listener);
+		while (true) {
+			SymbolAlarms sa = getOrCreate(symbol);
+			synchronized (sa) {
+				if (sa.isRetired) { // removed concurrently: try again with a new stripe
+					continue;
+				}
+				sa.listenerCount++;
+				if (listener instanceof StockerChart) { // if we are registering a StockerChart, add it to the list
+					sa.charts.add((StockerChart)listener);
+				}
+				return sa.index.getAlarms();
+			}
 		}
-		
-		return alarms.get(symbol);
 	}
 		
 	/**
@@ -78,11 +165,21 @@ public class AlarmManager implements IStockerDataListener {
 	 * @param symbol the symbol that this listeners was registered for
 	 */
 	public void unregisterAlarmListener(IStockerDataListener listener, String symbol) {
-		listenerCount.put(symbol, listenerCount.get(symbol) - 1);
-		if (listenerCount.get(symbol) < 1) { // this is the last one listening to that symbol -> Remove all alarms!
-			listenerCount.remove(symbol);
-			listeningCharts.remove(symbol);
-			alarms.remove(symbol);
+		SymbolAlarms sa = symbols.get(symbol);
+		if (sa == null) {
+			return;
+		}
+		synchronized (sa) {
+			if (listener instanceof StockerChart) {
+				sa.charts.remove(listener);
+			}
+			sa.listenerCount--;
+			if (sa.listenerCount < 1) { // this is the last one listening to that symbol -> Remove all alarms!
+				sa.listenerCount = 0;
+				sa.charts.clear();
+				sa.index.clear();
+				retireIfUnused(sa);
+			}
 		}
 	}
 	
@@ -95,20 +192,22 @@ public class AlarmManager implements IStockerDataListener {
 	 * this alarm has been added)
 	 */
 	public void addAlarm(ChartAlarm ca, String symbol, StockerChart submittingChart) {
-		ArrayList<ChartAlarm> al = alarms.get(symbol);
-		boolean addAlarm = true;
-		for (ChartAlarm a : al) {
-			if (a.getValue() == ca.getValue()) {
-				addAlarm = false;
+		SymbolAlarms sa;
+		while (true) { // nobody might be listening to this symbol (yet), e.g. while a session is being restored
+			sa = getOrCreate(symbol);
+			synchronized (sa) {
+				if (sa.isRetired) {
+					continue;
+				}
+				if (!sa.index.add(ca)) {
+					return;
+				}
 				break;
 			}
 		}
-		if (addAlarm) {
-			al.add(ca);
-			for (StockerChart sc : listeningCharts.get(symbol)) {
-				if (!sc.equals(submittingChart)) {
-					sc.addChartAlarm(ca, false);
-				}
+		for (StockerChart sc : sa.charts) { // notify outside of the lock
+			if (!sc.equals(submittingChart)) {
+				sc.addChartAlarm(ca, false);
 			}
 		}
 	}
@@ -122,16 +221,20 @@ public class AlarmManager implements IStockerDataListener {
 	 * this alarm has been removed)
 	 */
 	public void removeAlarm(String symbol, double value, StockerChart submittingChart) {
-		ArrayList<ChartAlarm> al = alarms.get(symbol);
-		for (ChartAlarm a : al) {
-			if (a.getValue() == value) {
-				al.remove(a);
-				for (StockerChart sc : listeningCharts.get(symbol)) {
-					if (!sc.equals(submittingChart)) {
-						sc.removeChartAlarm(a, false);
-					}
+		SymbolAlarms sa = symbols.get(symbol);
+		if (sa == null) {
+			return;
+		}
+		ChartAlarm a;
+		synchronized (sa) {
+			a = sa.index.remove(value);
+			retireIfUnused(sa);
+		}
+		if (a != null) {
+			for (StockerChart sc : sa.charts) {
+				if (!sc.equals(submittingChart)) {
+					sc.removeChartAlarm(a, false);
 				}
-				break;
 			}
 		}
 	}
@@ -141,17 +244,30 @@ public class AlarmManager implements IStockerDataListener {
 	 * @param symbol the symbol for which the alarms should be cleared
 	 */
 	public void clearAlarms(String symbol) {
-		alarms.get(symbol).clear();
-		alarms.remove(symbol);
+		SymbolAlarms sa = symbols.get(symbol);
+		if (sa != null) {
+			synchronized (sa) {
+				sa.index.clear();
+				retireIfUnused(sa);
+			}
+		}
 	}
 	
 	/**
 	 * Clear all alarms for all symbols.
 	 */
 	public void clearAllAlarms() {
-		alarms.clear();
-		listenerCount.clear();   // clear listeners too in order to have a completely clean alarm manager
-		listeningCharts.clear(); // (required e.g. for session reset)
+		for (SymbolAlarms sa : symbols.values()) {
+			for (ConditionAlarm ca : sa.conditionAlarms) {
+				removeConditionAlarm(ca);
+			}
+			synchronized (sa) { // clear listeners too in order to have a completely clean alarm manager
+				sa.index.clear(); // (required e.g. for session reset)
+				sa.charts.clear();
+				sa.listenerCount = 0;
+				retireIfUnused(sa);
+			}
+		}
 	}
 	
 	/**
@@ -159,21 +275,29 @@ public class AlarmManager implements IStockerDataListener {
 	 * @param symbol the symbol for which the alarms are requested
 	 */
 	public ArrayList<ChartAlarm> getAlarmsForSymbol(String symbol) {
-		ArrayList<ChartAlarm> al = alarms.get(symbol);
-		if (al == null) {
+		SymbolAlarms sa = symbols.get(symbol);
+		if (sa == null) {
 			return new ArrayList<ChartAlarm>();
 		}
 		else {
-			return al;
+			return sa.index.getAlarms();
 		}
 	}
 	
 	/**
 	 * Get the symbols of all registered alarms. Only used for StockerTesterImpl.
-	 * @return a Set of Strings representing all symbols for which alarms are registered. 
+	 * @return a Set of Strings representing all symbols for which alarms are registered or which are listened to
 	 */
 	public Set<String> getAlarmSymbols() {
-		return alarms.keySet();
+		HashSet<String> result = new HashSet<String>();
+		for (SymbolAlarms sa : symbols.values()) {
+			synchronized (sa) {
+				if (sa.listenerCount > 0 || sa.index.size() > 0) {
+					result.add(sa.symbol);
+				}
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -181,28 +305,162 @@ public class AlarmManager implements IStockerDataListener {
 	 */
 	@Override
 	public void onPushUpdate(String key, long time, double price) {
-		ArrayList<ChartAlarm> al = alarms.get(key);
-		if (al != null) { 
-			for (int i = 0; i < al.size(); i++) {
-				ChartAlarm a = al.get(i);
-				double alarmCheck = a.check(price);
-				if (alarmCheck != 0.0) {
-					al.remove(a); // remove this alarm so it won't be fired again
-					SwingUtilities.invokeLater(
-					new Thread() {
-						@Override
-						public void run() {
-							JOptionPane.showMessageDialog(frame,
-									"Alarm erreicht für " + key + ":\n" + a.getValue() + ", " + (alarmCheck > 0.0 ? "steigend" : "fallend"),
-									"Alarm erreicht!", JOptionPane.INFORMATION_MESSAGE);
-							// after acknowledging notification: notify all listening StockerCharts
-							ArrayList<StockerChart> charts = listeningCharts.get(key);
-							for (StockerChart c : charts) {
-								c.removeChartAlarm(a, false);
-							}
-						};
-					});
+		onPushUpdate(key, time, price, 0.0);
+	}
+	
+	/**
+	 * Process a push update including the traded volume: Check the price alarms and evaluate the conditional alarms
+	 * for the given symbol. Takes no lock of the manager, so it may be called concurrently for different symbols.
+	 * @param key the symbol
+	 * @param time the unix timestamp of the update
+	 * @param price the price
+	 * @param volume the traded volume (0.0 if unknown)
+	 */
+	public void onPushUpdate(String key, long time, double price, double volume) {
+		SymbolAlarms sa = symbols.get(key);
+		if (sa == null) {
+			return;
+		}
+		for (ConditionAlarm ca : sa.conditionAlarms) {
+			if (ca.onTick(time, price, volume)) {
+				conditionAlarmTriggered(ca);
+			}
+		}
+		ArrayList<ChartAlarm> triggered = triggeredAlarms.get();
+		if (sa.index.update(price, triggered) > 0) { // the index has removed the triggered alarms
+			long now = System.currentTimeMillis();
+			for (int i = 0; i < triggered.size(); i++) {
+				ChartAlarm a = triggered.get(i);
+				eventBus.publish(new AlarmEvent(key, a.getValue() + ", " + (a.getTriggerChange() > 0.0 ? "steigend" : "fallend"),
+						price, now));
+			}
+			// propagate the removal to the charts right away (not only after the user has seen the notification)
+			final ArrayList<ChartAlarm> removed = new ArrayList<ChartAlarm>(triggered);
+			triggered.clear();
+			if (sa.charts.isEmpty()) { // e.g. in headless mode
+				return;
+			}
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					for (StockerChart c : sa.charts) {
+						for (ChartAlarm a : removed) {
+							c.removeChartAlarm(a, false);
+						}
+					}
+				}
+			});
+		}
+	}
+	
+	////////////////////
+	// Conditional alarms
+	////////////////////
+	/**
+	 * Add a conditional alarm. The alarm's symbol is subscribed for push updates, and the alarm is seeded with
+	 * historic candles (in a separate thread), so that it can be evaluated right away.
+	 * @param ca the alarm to be added
+	 */
+	public void addConditionAlarm(ConditionAlarm ca) {
+		while (true) {
+			SymbolAlarms sa = getOrCreate(ca.getSymbol());
+			synchronized (sa) {
+				if (sa.isRetired) {
+					continue;
 				}
+				sa.conditionAlarms.add(ca);
+				break;
+			}
+		}
+		if (dm == null) {
+			return;
+		}
+		dm.addSymbolToPush(ca.getSymbol());
+		new Thread() {
+			@Override
+			public void run() {
+				ChartWatchItem w = new ChartWatchItem(ca.getSymbol(), ca.getSymbol(), ca.getInterval());
+				try {
+					dm.getPlotData(w);
+					ca.seed(w.getCandles());
+				} catch (StockerDataManagerException e) { // the alarm still works, it just needs n candles first
+					log.info("History for conditional alarm {} could not be pulled: {}", ca.getSymbol(), e.getMessage());
+				}
+			}
+		}.start();
+	}
+	
+	/**
+	 * Remove a conditional alarm and unsubscribe its symbol from push updates.
+	 * @param ca the alarm to be removed
+	 */
+	public void removeConditionAlarm(ConditionAlarm ca) {
+		SymbolAlarms sa = symbols.get(ca.getSymbol());
+		if (sa == null) {
+			return;
+		}
+		boolean isRemoved;
+		synchronized (sa) {
+			isRemoved = sa.conditionAlarms.remove(ca);
+			retireIfUnused(sa);
+		}
+		if (isRemoved && dm != null) {
+			dm.removeSymbolFromPush(ca.getSymbol());
+		}
+	}
+	
+	/**
+	 * Get all conditional alarms for the specified symbol.
+	 * @param symbol the symbol for which the alarms are requested
+	 * @return a new list containing the conditional alarms for the symbol
+	 */
+	public ArrayList<ConditionAlarm> getConditionAlarms(String symbol) {
+		SymbolAlarms sa = symbols.get(symbol);
+		if (sa == null) {
+			return new ArrayList<ConditionAlarm>();
+		}
+		return new ArrayList<ConditionAlarm>(sa.conditionAlarms);
+	}
+	
+	/**
+	 * Remove a conditional alarm which has been triggered, and notify the user.
+	 * @param ca the triggered alarm
+	 */
+	private void conditionAlarmTriggered(ConditionAlarm ca) {
+		removeConditionAlarm(ca);
+		eventBus.publish(new AlarmEvent(ca.getSymbol(), ca.toString(), ca.getTriggerPrice(), System.currentTimeMillis()));
+	}
+	
+	/**
+	 * Serialize the conditional alarms into a {@link JsonArray}.
+	 * @return a JsonArray containing all information required to restore the conditional alarms at a later time
+	 */
+	public JsonArray serializeConditionAlarmsToJson() {
+		JsonArray ja = new JsonArray();
+		for (SymbolAlarms sa : symbols.values()) {
+			for (ConditionAlarm ca : sa.conditionAlarms) {
+				if (!ca.isTriggered()) {
+					ja.add(ca.serializeToJson());
+				}
+			}
+		}
+		return ja;
+	}
+	
+	/**
+	 * Deserializes and restores conditional alarms from a {@link JsonArray}.
+	 * @param ja the {@link JsonArray} to be read
+	 */
+	public void deserializeConditionAlarmsFromJson(JsonArray ja) {
+		for (int i = 0; i < ja.size(); i++) {
+			JsonObject jo = ja.get(i).getAsJsonObject();
+			try {
+				addConditionAlarm(new ConditionAlarm(jo.get("symbol").getAsString(), 
+						EAlarmCondition.valueOf(jo.get("condition").getAsString()),
+						EChartInterval.valueOf(jo.get("interval").getAsString()),
+						jo.get("n").getAsInt(), jo.get("x").getAsDouble(), jo.get("onClose").getAsBoolean()));
+			} catch (RuntimeException e) { // skip invalid entries, e.g. from a newer version
+				log.warn("Invalid conditional alarm in session: {}", jo);
 			}
 		}
 	}
@@ -213,17 +471,21 @@ public class AlarmManager implements IStockerDataListener {
 	 */
 	public JsonArray serializeToJson() {
 		JsonArray ja = new JsonArray();
-		for (String symbol : alarms.keySet()) {
-			ArrayList<ChartAlarm> al = alarms.get(symbol);
+		for (SymbolAlarms sa : symbols.values()) {
+			AlarmIndex idx = sa.index;
+			if (idx.size() == 0) {
+				continue;
+			}
+			double lastPrice = idx.getLastPrice(); // the alarms' own lastPrice is only updated when triggered
 			JsonArray jaAlarms = new JsonArray();
-			for (ChartAlarm a : al) {
+			for (ChartAlarm a : idx.getAlarms()) {
 				JsonObject joAlarm = new JsonObject();
 				joAlarm.addProperty("value", a.getValue());
-				joAlarm.addProperty("lastPrice", a.getLastPrice());
+				joAlarm.addProperty("lastPrice", (lastPrice != 0.0 ? lastPrice : a.getLastPrice()));
 				jaAlarms.add(joAlarm);
 			}
 			JsonObject jo = new JsonObject();
-			jo.addProperty("symbol", symbol);
+			jo.addProperty("symbol", sa.symbol);
 			jo.add("values", jaAlarms);
 			ja.add(jo);
 		}
@@ -246,4 +508,26 @@ public class AlarmManager implements IStockerDataListener {
 			}
 		}
 	}
+	
+	/**
+	 * The alarm state of one symbol (one stripe of the manager's state). The listener count and the retired flag
+	 * are guarded by the stripe's lock; the index and the lists are thread-safe themselves, so that push updates
+	 * can read them without locking.
+	 */
+	private static class SymbolAlarms {
+		private final String symbol;
+		private final AlarmIndex index = new AlarmIndex();
+		private final CopyOnWriteArrayList<StockerChart> charts = new CopyOnWriteArrayList<StockerChart>();
+		private final CopyOnWriteArrayList<ConditionAlarm> conditionAlarms = new CopyOnWriteArrayList<ConditionAlarm>();
+		private int listenerCount = 0;
+		private boolean isRetired = false; // removed from the map; must not be modified any more
+
+		/**
+		 * Construct a new, empty stripe.
+		 * @param symbol the symbol
+		 */
+		private SymbolAlarms(String symbol) {
+			this.symbol = symbol;
+		}
+	}
 }
@@ -0,0 +1,296 @@
+package stocker.control;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+
+import stocker.util.Candle;
+import stocker.util.EChartInterval;
+
+/**
+ * Keeps copies of the most recently pulled (or prefetched) bars per symbol and interval, so that a chart which opens
+ * or switches its interval can get its bars from memory: either the bars of that interval itself, or, for intraday
+ * intervals up to {@link EChartInterval#I1H}, bars derived by aggregating the bars of a finer interval whose 
+ * duration divides the requested one (e.g. 5 min from 1 min). The cached bars are kept up to date with the bars of the {@link CandleAggregator}.
+ * As that is only complete while the symbol is subscribed for push updates, the data manager has to invalidate the
+ * bars of a symbol when its subscription ends or the push connection is lost.
+ * <p>
+ * The number of cached series is limited; the least recently used one is dropped first.
+ *
+ * @author Marc S. Schneider
+ */
+public class BarCache implements IBarListener {
+
+	private static final int MAX_ENTRIES = 32;      // maximum number of cached series (symbol and interval)
+	private static final int MAX_CANDLES = 2000;    // maximum number of candles per series
+
+	private final CandleAggregator aggregator;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true); // LRU
+
+	/**
+	 * Construct a new, empty BarCache.
+	 * @param aggregator the aggregator which provides the live bars
+	 */
+	public BarCache(CandleAggregator aggregator) {
+		this.aggregator = aggregator;
+	}
+
+	/**
+	 * Returns whether the bars of the given interval can be derived from the bars of finer intervals (daily and 
+	 * longer bars depend on the trading hours of the exchange, so they are not derived).
+	 * @param interval the interval
+	 * @return true for intraday intervals up to one hour, false otherwise
+	 */
+	public static boolean isDerivable(EChartInterval interval) {
+		return interval.inSeconds() <= EChartInterval.I1H.inSeconds();
+	}
+
+	/**
+	 * Store a copy of pulled bars (replaces the bars which have been cached for the same symbol and interval).
+	 * @param symbol the symbol
+	 * @param interval the interval of the bars
+	 * @param candles the bars, sorted by time
+	 */
+	public void put(String symbol, EChartInterval interval, LinkedList<Candle> candles) {
+		if (candles.isEmpty()) {
+			return;
+		}
+		LinkedList<Candle> copy = new LinkedList<Candle>();
+		Iterator<Candle> it = candles.descendingIterator();
+		while (it.hasNext() && copy.size() < MAX_CANDLES) {
+			Candle c = it.next();
+			copy.addFirst(new Candle(c.time, c.low, c.high, c.open, c.close, c.volume));
+		}
+		Entry newEntry = new Entry(symbol, interval, copy);
+		Entry old, eldest = null;
+		synchronized (entries) {
+			old = entries.put(key(symbol, interval), newEntry);
+			if (entries.size() > MAX_ENTRIES) {
+				Iterator<Entry> eit = entries.values().iterator();
+				eldest = eit.next();
+				eit.remove();
+			}
+		}
+		if (old == null) {
+			aggregator.subscribe(symbol, interval, this);
+		}
+		if (eldest != null) {
+			aggregator.unsubscribe(eldest.symbol, eldest.interval, this);
+		}
+	}
+
+	/**
+	 * Get the bars of the given symbol and interval from the cache: The cached bars of that interval if available,
+	 * otherwise (for intraday intervals) the bars aggregated from the cached bars of the finer interval which reaches 
+	 * back the furthest. A leading aggregated bar for which the finer bars are only partly cached is left out.
+	 * @param symbol the symbol
+	 * @param interval the requested interval
+	 * @return a new list of bars (may be modified), or null if nothing suitable is cached
+	 */
+	public LinkedList<Candle> get(String symbol, EChartInterval interval) {
+		Entry best = null;
+		synchronized (entries) {
+			best = entries.get(key(symbol, interval));
+			if (best == null && isDerivable(interval)) {
+				for (EChartInterval fine : EChartInterval.values()) {
+					if (fine.inSeconds() >= interval.inSeconds() || interval.inSeconds() % fine.inSeconds() != 0) {
+						continue;
+					}
+					Entry e = entries.get(key(symbol, fine));
+					if (e != null && (best == null || e.getFirstTime() < best.getFirstTime())) {
+						best = e;
+					}
+				}
+			}
+		}
+		if (best == null) {
+			return null;
+		}
+		synchronized (best) {
+			if (best.interval == interval) {
+				LinkedList<Candle> copy = new LinkedList<Candle>();
+				for (Candle c : best.candles) {
+					copy.add(new Candle(c.time, c.low, c.high, c.open, c.close, c.volume));
+				}
+				return copy;
+			}
+			LinkedList<Candle> derived = aggregate(best.candles, best.interval, interval);
+			return derived.isEmpty() ? null : derived;
+		}
+	}
+
+	/**
+	 * Returns whether the bars of the given symbol and interval themselves are cached (not only finer ones).
+	 * @param symbol the symbol
+	 * @param interval the interval
+	 * @return true if cached, false otherwise
+	 */
+	public boolean contains(String symbol, EChartInterval interval) {
+		synchronized (entries) {
+			return entries.containsKey(key(symbol, interval));
+		}
+	}
+
+	/**
+	 * Drop all cached bars of the given symbol (e.g. because its push subscription has ended, so the bars would not
+	 * be kept up to date any more).
+	 * @param symbol the symbol
+	 */
+	public void invalidate(String symbol) {
+		LinkedList<Entry> removed = new LinkedList<Entry>();
+		synchronized (entries) {
+			Iterator<Entry> it = entries.values().iterator();
+			while (it.hasNext()) {
+				Entry e = it.next();
+				if (e.symbol.equals(symbol)) {
+					removed.add(e);
+					it.remove();
+				}
+			}
+		}
+		for (Entry e : removed) {
+			aggregator.unsubscribe(e.symbol, e.interval, this);
+		}
+	}
+
+	/**
+	 * Drop all cached bars (e.g. because the push connection has been lost or the data provider has changed).
+	 */
+	public void clear() {
+		LinkedList<Entry> removed;
+		synchronized (entries) {
+			removed = new LinkedList<Entry>(entries.values());
+			entries.clear();
+		}
+		for (Entry e : removed) {
+			aggregator.unsubscribe(e.symbol, e.interval, this);
+		}
+	}
+
+	/**
+	 * Apply a live bar to the cached bars: Update the last one or append a new one.
+	 * @param symbol the symbol
+	 * @param interval the interval of the bar
+	 * @param bar the current bar
+	 */
+	@Override
+	public void onBarUpdate(String symbol, EChartInterval interval, Candle bar) {
+		Entry e;
+		synchronized (entries) {
+			e = entries.get(key(symbol, interval));
+		}
+		if (e == null) {
+			return;
+		}
+		synchronized (e) {
+			Candle last = e.candles.getLast();
+			long lastStart = CandleAggregator.barStart(last.time, interval); // pulled candles might not be aligned
+			if (bar.time > lastStart) {
+				e.candles.add(new Candle(bar.time, bar.low, bar.high, bar.open, bar.close, bar.volume)); // shared bar
+				if (e.candles.size() > MAX_CANDLES) {
+					e.candles.removeFirst();
+				}
+				e.volumeBarTime = bar.time;
+				e.volumeBarSeen = bar.volume;
+			}
+			else if (bar.time == lastStart) {
+				last.close = bar.close;
+				if (bar.low < last.low) {
+					last.low = bar.low;
+				}
+				if (bar.high > last.high) {
+					last.high = bar.high;
+				}
+				// the pulled candle already contains the volume up to the first bar we see for it, so add only the
+				// volume of the ticks since then
+				if (e.volumeBarTime == bar.time) {
+					last.volume += bar.volume - e.volumeBarSeen;
+				}
+				e.volumeBarTime = bar.time;
+				e.volumeBarSeen = bar.volume;
+			}
+		}
+	}
+
+	/**
+	 * Nothing to do, the completed bar has already been applied with its last update.
+	 * @param symbol the symbol
+	 * @param interval the interval of the bar
+	 * @param bar the completed bar
+	 */
+	@Override
+	public void onBarClose(String symbol, EChartInterval interval, Candle bar) { }
+
+	/**
+	 * Aggregate bars into bars of a coarser interval. If the first bar does not start at the beginning of its coarser
+	 * bar, that coarser bar would be incomplete and is left out.
+	 * @param candles the bars, sorted by time
+	 * @param fine the interval of the bars
+	 * @param interval the interval of the result (the duration of the bars' interval has to divide it)
+	 * @return a new list of new bars (may be empty)
+	 */
+	static LinkedList<Candle> aggregate(LinkedList<Candle> candles, EChartInterval fine, EChartInterval interval) {
+		LinkedList<Candle> result = new LinkedList<Candle>();
+		Candle current = null;
+		long end = 0L;
+		for (Candle c : candles) {
+			if (current == null || c.time >= end) {
+				long start = CandleAggregator.barStart(c.time, interval);
+				current = new Candle(start, c.low, c.high, c.open, c.close, c.volume);
+				end = CandleAggregator.barEnd(start, interval);
+				result.add(current);
+			}
+			else {
+				current.close = c.close;
+				current.volume += c.volume;
+				if (c.low < current.low) {
+					current.low = c.low;
+				}
+				if (c.high > current.high) {
+					current.high = c.high;
+				}
+			}
+		}
+		if (!candles.isEmpty() && CandleAggregator.barStart(candles.getFirst().time, fine) 
+				> CandleAggregator.barStart(candles.getFirst().time, interval)) {
+			result.removeFirst();
+		}
+		return result;
+	}
+
+	// helper function
+	private static String key(String symbol, EChartInterval interval) {
+		return symbol + "@" + interval.toObjectString();
+	}
+
+	/**
+	 * The cached bars of one symbol and interval (the list is guarded by the lock of the entry).
+	 */
+	private static class Entry {
+		private final String symbol;
+		private final EChartInterval interval;
+		private final LinkedList<Candle> candles;
+		private long volumeBarTime = -1L; // start time of the last bar applied to the last candle, and its volume then
+		private double volumeBarSeen;
+
+		/**
+		 * Construct a new entry.
+		 * @param symbol the symbol
+		 * @param interval the interval
+		 * @param candles the bars (not empty)
+		 */
+		private Entry(String symbol, EChartInterval interval, LinkedList<Candle> candles) {
+			this.symbol = symbol;
+			this.interval = interval;
+			this.candles = candles;
+		}
+
+		/**
+		 * Get the time of the first cached bar.
+		 * @return the unix timestamp of the first bar
+		 */
+		private synchronized long getFirstTime() {
+			return candles.getFirst().time;
+		}
+	}
+}
@@ -0,0 +1,222 @@
+package stocker.control;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import stocker.util.Candle;
+import stocker.util.EChartInterval;
+
+/**
+ * Builds OHLCV bars for all {@link EChartInterval}s at once from the push ticks of each subscribed symbol, so that
+ * the work per tick is done once per symbol, regardless of how many charts (or other {@link IBarListener}s) are
+ * subscribed to which intervals. The bars are aligned to the start of their interval (UTC; weeks start on Monday,
+ * months are calendar months). A bar is closed by the first tick after the end of its interval.
+ * <p>
+ * Only symbols with at least one subscriber are aggregated. The state is kept per symbol, so ticks of different
+ * symbols can be processed concurrently; the listeners are notified outside of any lock.
+ *
+ * @author Marc S. Schneider
+ */
+public class CandleAggregator {
+
+	private static final EChartInterval[] intervals = EChartInterval.values();
+	private static final long DAY = 24L * 60L * 60L;
+	private static final long MONDAY_OFFSET = 3L * DAY; // the epoch (1970-01-01) was a Thursday
+
+	private ConcurrentHashMap<String, SymbolBars> symbols = new ConcurrentHashMap<String, SymbolBars>();
+
+	/**
+	 * Subscribe to the bars of the given symbol and interval. The symbol still has to be subscribed for push
+	 * updates at the data manager.
+	 * @param symbol the symbol
+	 * @param interval the interval
+	 * @param l the listener
+	 */
+	public void subscribe(String symbol, EChartInterval interval, IBarListener l) {
+		while (true) {
+			SymbolBars sb = symbols.get(symbol);
+			if (sb == null) {
+				symbols.putIfAbsent(symbol, new SymbolBars());
+				sb = symbols.get(symbol);
+			}
+			synchronized (sb) {
+				if (sb.isRetired) { // removed concurrently: try again with a new one
+					continue;
+				}
+				sb.listeners.get(interval.ordinal()).add(l);
+				sb.listenerCount++;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Unsubscribe from the bars of the given symbol and interval. When the last listener of a symbol has
+	 * unsubscribed, its bars are discarded.
+	 * @param symbol the symbol
+	 * @param interval the interval
+	 * @param l the listener
+	 */
+	public void unsubscribe(String symbol, EChartInterval interval, IBarListener l) {
+		SymbolBars sb = symbols.get(symbol);
+		if (sb == null) {
+			return;
+		}
+		synchronized (sb) {
+			if (sb.listeners.get(interval.ordinal()).remove(l)) {
+				sb.listenerCount--;
+			}
+			if (sb.listenerCount == 0) {
+				sb.isRetired = true;
+				symbols.remove(symbol, sb);
+			}
+		}
+	}
+
+	/**
+	 * Get the bar which is currently being built for the given symbol and interval.
+	 * @param symbol the symbol
+	 * @param interval the interval
+	 * @return a copy of the current bar, or null if the symbol is not subscribed or has not received a tick yet
+	 */
+	public Candle getCurrentBar(String symbol, EChartInterval interval) {
+		SymbolBars sb = symbols.get(symbol);
+		if (sb == null) {
+			return null;
+		}
+		synchronized (sb) {
+			Candle b = sb.bars[interval.ordinal()];
+			return (b == null ? null : copy(b));
+		}
+	}
+
+	/**
+	 * Process a push update: Update the bars of all intervals of the symbol and notify the listeners about closed
+	 * and updated bars. Ticks which are older than the current bar of an interval are ignored for that interval.
+	 * @param symbol the symbol
+	 * @param time the unix timestamp of the update
+	 * @param price the price
+	 * @param volume the traded volume (0.0 if unknown)
+	 */
+	public void onTick(String symbol, long time, double price, double volume) {
+		SymbolBars sb = symbols.get(symbol);
+		if (sb == null) {
+			return;
+		}
+		Candle[] closed = null;
+		Candle[] updated = new Candle[intervals.length];
+		synchronized (sb) {
+			for (int i = 0; i < intervals.length; i++) {
+				Candle b = sb.bars[i];
+				boolean hasListeners = !sb.listeners.get(i).isEmpty();
+				if (b != null && time >= sb.ends[i]) { // the tick belongs to the next bar
+					if (hasListeners) {
+						if (closed == null) {
+							closed = new Candle[intervals.length];
+						}
+						closed[i] = b; // not modified any more, so no copy required
+					}
+					b = null;
+				}
+				if (b == null) {
+					long start = barStart(time, intervals[i]);
+					b = new Candle(start, price, price, price, price, volume);
+					sb.bars[i] = b;
+					sb.ends[i] = barEnd(start, intervals[i]);
+				}
+				else if (time < b.time) { // out of order
+					continue;
+				}
+				else {
+					b.close = price;
+					b.volume += volume;
+					if (price < b.low) {
+						b.low = price;
+					}
+					else if (price > b.high) {
+						b.high = price;
+					}
+				}
+				if (hasListeners) {
+					updated[i] = copy(b);
+				}
+			}
+		}
+		for (int i = 0; i < intervals.length; i++) {
+			if (closed != null && closed[i] != null) {
+				for (IBarListener l : sb.listeners.get(i)) {
+					l.onBarClose(symbol, intervals[i], closed[i]);
+				}
+			}
+			if (updated[i] != null) {
+				for (IBarListener l : sb.listeners.get(i)) {
+					l.onBarUpdate(symbol, intervals[i], updated[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the start of the bar of the given interval which contains the given time.
+	 * @param time the unix timestamp
+	 * @param interval the interval
+	 * @return the unix timestamp of the start of the bar
+	 */
+	public static long barStart(long time, EChartInterval interval) {
+		switch (interval) {
+		case I1WEEK:
+			long shifted = time + MONDAY_OFFSET;
+			return shifted - Math.floorMod(shifted, interval.inSeconds()) - MONDAY_OFFSET;
+		case I1MONTH:
+			LocalDate d = LocalDateTime.ofEpochSecond(time, 0, ZoneOffset.UTC).toLocalDate().withDayOfMonth(1);
+			return d.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+		default:
+			return time - Math.floorMod(time, interval.inSeconds());
+		}
+	}
+
+	/**
+	 * Get the end of the bar of the given interval which starts at the given time.
+	 * @param start the unix timestamp of the start of the bar (see {@link #barStart(long, EChartInterval)})
+	 * @param interval the interval
+	 * @return the unix timestamp of the end of the bar (exclusive, i.e. the start of the next bar)
+	 */
+	public static long barEnd(long start, EChartInterval interval) {
+		if (interval == EChartInterval.I1MONTH) {
+			LocalDate d = LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC).toLocalDate().plusMonths(1);
+			return d.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+		}
+		return start + interval.inSeconds();
+	}
+
+	// helper function
+	private static Candle copy(Candle c) {
+		return new Candle(c.time, c.low, c.high, c.open, c.close, c.volume);
+	}
+
+	/**
+	 * The bars and the listeners of one symbol. The bars, the listener count and the retired flag are guarded by the
+	 * lock of this object; the listener lists are thread-safe themselves.
+	 */
+	private static class SymbolBars {
+		private final Candle[] bars = new Candle[intervals.length]; // current bar per interval (null: no tick yet)
+		private final long[] ends = new long[intervals.length];     // end of the current bar per interval
+		private final ArrayList<CopyOnWriteArrayList<IBarListener>> listeners;
+		private int listenerCount = 0;
+		private boolean isRetired = false; // removed from the map; must not be modified any more
+
+		/**
+		 * Construct new, empty bars.
+		 */
+		private SymbolBars() {
+			listeners = new ArrayList<CopyOnWriteArrayList<IBarListener>>(intervals.length);
+			for (int i = 0; i < intervals.length; i++) {
+				listeners.add(new CopyOnWriteArrayList<IBarListener>());
+			}
+		}
+	}
+}
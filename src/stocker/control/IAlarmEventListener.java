@@ -0,0 +1,19 @@
+package stocker.control;
+
+import java.util.List;
+
+import stocker.model.AlarmEvent;
+
+/**
+ * An interface defining an object which is notified by the {@link AlarmEventBus} when alarms have been triggered.
+ * 
+ * @author Marc S. Schneider
+ */
+public interface IAlarmEventListener {
+	/**
+	 * Accepts a batch of alarm events (already de-duplicated and rate-limited). Called on the event dispatch thread
+	 * (in headless mode, see {@link StockerDaemon}, on the dispatcher thread of the bus).
+	 * @param events the alarm events, oldest first
+	 */
+	public void alarmEventsOccurred(List<AlarmEvent> events);
+}
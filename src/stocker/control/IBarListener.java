@@ -0,0 +1,29 @@
+package stocker.control;
+
+import stocker.util.Candle;
+import stocker.util.EChartInterval;
+
+/**
+ * An interface defining an object which subscribes to the bars of one symbol and interval at the
+ * {@link CandleAggregator}.
+ * 
+ * @author Marc S. Schneider
+ */
+public interface IBarListener {
+	/**
+	 * Accepts the current state of the bar which is being built, after each tick. Called on the push thread.
+	 * @param symbol the symbol
+	 * @param interval the interval of the bar
+	 * @param bar a copy of the bar (may be kept, but is not updated any more)
+	 */
+	public void onBarUpdate(String symbol, EChartInterval interval, Candle bar);
+
+	/**
+	 * Accepts a completed bar. Called on the push thread, with the first tick after the end of the bar's interval
+	 * (before the first {@link #onBarUpdate(String, EChartInterval, Candle)} of the next bar).
+	 * @param symbol the symbol
+	 * @param interval the interval of the bar
+	 * @param bar a copy of the completed bar
+	 */
+	public void onBarClose(String symbol, EChartInterval interval, Candle bar);
+}
@@ -0,0 +1,24 @@
+package stocker.control;
+
+import stocker.model.ScreenerResult;
+
+/**
+ * An interface defining an object which receives the results of a screen (see {@link Screener}).
+ *
+ * @author Marc S. Schneider
+ */
+public interface IScreenerListener {
+	/**
+	 * Accepts the result of one symbol, as soon as it has been screened. Called on a thread of the screener, by
+	 * several threads concurrently.
+	 * @param result the result
+	 */
+	public void screenerResult(ScreenerResult result);
+
+	/**
+	 * Called on a thread of the screener when all symbols have been screened or the screen has been cancelled
+	 * (after the last call of {@link #screenerResult(ScreenerResult)}).
+	 * @param cancelled true if the screen has been cancelled, false otherwise
+	 */
+	public void screenerFinished(boolean cancelled);
+}
@@ -0,0 +1,376 @@
+package stocker.control;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import stocker.model.ChartIndicator;
+import stocker.model.ChartIndicatorRegistry;
+import stocker.util.Candle;
+import stocker.util.EChartInterval;
+import stocker.util.StockerLogger;
+
+/**
+ * Shares the computed values of chart indicators between charts: There is one series per symbol, interval, type of
+ * indicator and parameters, no matter how many charts show it. A chart gets a {@link SharedIndicator} from
+ * {@link #acquire(String, EChartInterval, ChartIndicator)}, which has its own color and activity flag, but whose
+ * values are those of the shared series; the series is dropped when the last chart has released it.
+ * <p>
+ * Each series keeps its own copy of the candles. The charts pass their candles on every calculation request, and
+ * the series is only brought up to date with them: updates of the last candle and new candles are applied
+ * incrementally (see {@link ChartIndicator#calculateLast()}), so the cost per bar does not depend on the number of
+ * charts; a full recalculation is only done if the candles of a chart do not match the series (e.g. after a new
+ * pull with different data). Memory and computation thus scale with the number of distinct series.
+ * <p>
+ * Views are acquired, rebound and released by the charts on any thread (these methods are synchronized), but the
+ * series are only calculated through the views, which is done by the one thread that updates all charts.
+ *
+ * @author Marc S. Schneider
+ */
+public class IndicatorCache {
+
+	private static final StockerLogger log = StockerLogger.getLogger(IndicatorCache.class);
+
+	private final HashMap<String, Series> series = new HashMap<String, Series>();
+
+	/**
+	 * Get a view of the shared series of the given indicator for a chart (the series is created if it does not
+	 * exist yet). The view has to be released with {@link #release(ChartIndicator)} when the chart does not need it
+	 * any more.
+	 * @param symbol the symbol of the chart
+	 * @param interval the interval of the chart
+	 * @param ci the parametrized indicator (its type and parameters define the series; its color and activity flag
+	 *        are taken over by the view)
+	 * @return the view, which is to be used by the chart instead of ci
+	 */
+	public synchronized SharedIndicator acquire(String symbol, EChartInterval interval, ChartIndicator ci) {
+		SharedIndicator view = new SharedIndicator(ci);
+		bind(view, symbol, interval, ci);
+		return view;
+	}
+
+	/**
+	 * Bind a view to the series of another interval (e.g. because its chart has switched the interval). The previous
+	 * series is released (it is kept if the interval has not changed).
+	 * @param ci the view (other indicators are ignored)
+	 * @param symbol the symbol of the chart
+	 * @param interval the new interval of the chart
+	 */
+	public synchronized void rebind(ChartIndicator ci, String symbol, EChartInterval interval) {
+		if (ci instanceof SharedIndicator) {
+			SharedIndicator view = (SharedIndicator) ci;
+			Series previous = view.series;
+			boolean wasReleased = view.isReleased;
+			bind(view, symbol, interval, previous.compute);
+			if (!wasReleased) {
+				unref(previous);
+			}
+		}
+	}
+
+	/**
+	 * Release a view: its series is dropped if no other view uses it any more.
+	 * @param ci the view (other indicators are ignored)
+	 */
+	public synchronized void release(ChartIndicator ci) {
+		if (ci instanceof SharedIndicator && !((SharedIndicator) ci).isReleased) {
+			((SharedIndicator) ci).isReleased = true;
+			unref(((SharedIndicator) ci).series);
+		}
+	}
+
+	/**
+	 * Get the number of distinct series.
+	 * @return the number of series
+	 */
+	public synchronized int size() {
+		return series.size();
+	}
+
+	// helper function: drop the series if it is not used any more
+	private void unref(Series s) {
+		if (--s.refs == 0) {
+			series.remove(s.key);
+			log.debug("Indicator series {} dropped", s.key);
+		}
+	}
+
+	// helper function: bind a view to the series of the given symbol and interval (create it if required)
+	private void bind(SharedIndicator view, String symbol, EChartInterval interval, ChartIndicator template) {
+		String key = new StringBuilder().append(symbol).append('|').append(interval).append('|')
+				.append(template.getType()).append(Arrays.toString(template.getParameters())).toString();
+		Series s = series.get(key);
+		if (s == null) { // a compute instance of its own, as the template might be used by other series
+			ChartIndicator compute = ChartIndicatorRegistry.create(template.getType());
+			if (compute == null) {
+				compute = template;
+			}
+			else {
+				compute.setParameters(template.getParameters());
+			}
+			s = new Series(key, compute);
+			series.put(key, s);
+		}
+		s.refs++;
+		view.series = s;
+		view.isReleased = false;
+	}
+
+	/**
+	 * A shared series: the compute instance of the indicator, its candles and the number of views.
+	 */
+	private static class Series {
+		private final String key;
+		private final ChartIndicator compute;
+		private final LinkedList<Candle> candles = new LinkedList<Candle>();
+		private int refs = 0;
+		private boolean isComputed = false;
+
+		/**
+		 * Construct a new series, which is not computed yet.
+		 * @param key the key of the series
+		 * @param compute the compute instance
+		 */
+		private Series(String key, ChartIndicator compute) {
+			this.key = key;
+			this.compute = compute;
+			compute.setCandles(candles);
+		}
+
+		/**
+		 * Bring the series up to date with the candles of a chart.
+		 * @param src the candles of the chart
+		 * @param validate true if all candles are to be checked (a full calculation has been requested), false if
+		 *        only the last candles have changed
+		 */
+		private void sync(LinkedList<Candle> src, boolean validate) {
+			if (src == null || src.isEmpty()) {
+				return;
+			}
+			if (!isComputed || candles.isEmpty()) {
+				replace(src);
+				return;
+			}
+			long srcLast = src.getLast().time;
+			long last = candles.getLast().time;
+			if (srcLast < last) { // the chart has not seen the latest candle yet
+				return;
+			}
+			if (srcLast == last) { // the last candle has been updated
+				copyValues(src.getLast(), candles.getLast());
+				if (validate && !matches(src)) {
+					replace(src);
+					return;
+				}
+				compute.calculateLast();
+			}
+			else if (src.size() >= 2 && src.get(src.size() - 2).time == last) { // one new candle (O(1) near the end)
+				copyValues(src.get(src.size() - 2), candles.getLast()); // the final values of the former last one
+				compute.calculateLast();
+				Candle c = src.getLast();
+				candles.add(new Candle(c.time, c.low, c.high, c.open, c.close, c.volume));
+				candles.removeFirst();
+				compute.removeFirstValue();
+				compute.calculateLast();
+				if (validate && !matches(src)) {
+					replace(src);
+				}
+			}
+			else { // a gap: start over
+				replace(src);
+			}
+		}
+
+		// helper function: whether the given candles are the last candles of the series (time and prices)
+		private boolean matches(LinkedList<Candle> src) {
+			if (src.size() > candles.size()) { // the chart has more history, so the series needs to be longer
+				return false;
+			}
+			Iterator<Candle> srcIt = src.descendingIterator();
+			Iterator<Candle> it = candles.descendingIterator();
+			while (srcIt.hasNext()) {
+				Candle a = srcIt.next();
+				Candle b = it.next();
+				if (a.time != b.time || a.close != b.close || a.open != b.open || a.high != b.high || a.low != b.low) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// helper function: replace the candles by a copy of the given ones and calculate everything
+		private void replace(LinkedList<Candle> src) {
+			candles.clear();
+			for (Candle c : src) {
+				candles.add(new Candle(c.time, c.low, c.high, c.open, c.close, c.volume));
+			}
+			compute.setCandles(candles);
+			compute.calculate();
+			isComputed = true;
+		}
+
+		// helper function
+		private static void copyValues(Candle from, Candle to) {
+			to.open = from.open;
+			to.close = from.close;
+			to.low = from.low;
+			to.high = from.high;
+			to.volume = from.volume;
+		}
+	}
+
+	/**
+	 * The view of a chart on a shared series. It has its own color and activity flag, but its values are those of
+	 * the series; calculation requests bring the series up to date with the candles of the chart (see
+	 * {@link IndicatorCache}). The parameters cannot be changed (acquire a view of another series instead).
+	 */
+	public static class SharedIndicator extends ChartIndicator {
+
+		// volatile: views are rebound and released on other threads than the one which calculates through them
+		private volatile Series series;
+		private volatile boolean isReleased = true; // the values of a released view are not updated any more
+		private LinkedList<Candle> chartCandles;
+
+		/**
+		 * Construct a new view which takes over the color and the activity flag of the given indicator.
+		 * @param ci the indicator
+		 */
+		private SharedIndicator(ChartIndicator ci) {
+			super();
+			setColor(ci.getColor());
+			setActive(ci.isActive());
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public LinkedList<LinkedList<Double>> getAllValues() {
+			return compute().getAllValues();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public LinkedList<Double> getValues(int i) {
+			return compute().getValues(i);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Iterator<Double> getValueIterator(int i) {
+			return compute().getValueIterator(i);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Iterator<Long> getTimeIterator() {
+			return compute().getTimeIterator();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int getNrOfValues() {
+			return compute().getNrOfValues();
+		}
+
+		/**
+		 * Set the candles of the chart, with which the shared series is brought up to date on calculation requests.
+		 * @param candles the candles of the chart
+		 */
+		@Override
+		public void setCandles(LinkedList<Candle> candles) {
+			this.chartCandles = candles;
+		}
+
+		/**
+		 * Bring the shared series up to date with the candles of the chart, checking all of them: the series is
+		 * only calculated completely if they do not match.
+		 */
+		@Override
+		public void calculate() {
+			if (!isReleased) {
+				series.sync(chartCandles, true);
+			}
+		}
+
+		/**
+		 * Bring the shared series up to date with the last candles of the chart (O(1)).
+		 */
+		@Override
+		public void calculateLast() {
+			if (!isReleased) {
+				series.sync(chartCandles, false);
+			}
+		}
+
+		/**
+		 * Nothing to do: the series removes its first value itself when it is brought up to date.
+		 */
+		@Override
+		public void removeFirstValue() { }
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean isOverlay() {
+			return compute().isOverlay();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean isHistogram(int i) {
+			return compute().isHistogram(i);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString() {
+			return compute().toString();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getType() {
+			return compute().getType();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int[] getParameters() {
+			return compute().getParameters();
+		}
+
+		/**
+		 * Not supported, as the series is shared.
+		 * @param params not used
+		 * @throws UnsupportedOperationException always
+		 */
+		@Override
+		public void setParameters(int[] params) {
+			throw new UnsupportedOperationException("The parameters of a shared indicator cannot be changed");
+		}
+
+		// helper function: the compute instance of the series
+		private ChartIndicator compute() {
+			return series.compute;
+		}
+	}
+}
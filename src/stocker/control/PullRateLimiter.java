@@ -0,0 +1,57 @@
+package stocker.control;
+
+import java.util.ArrayDeque;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Limits the HTTP requests of a background client of the {@link StockerDataManager} (e.g. the
+ * {@link SeriesPrefetcher} or the {@link Screener}) to a share of the rate limit of the data provider: Every single
+ * request is charged, so a load of plot data which needs several requests (see
+ * {@link StockerDataManager#getPlotDataInBackground(stocker.model.ChartWatchItem, PullRateLimiter, BooleanSupplier)})
+ * counts several times. The limiter can be shared by several threads.
+ *
+ * @author Marc S. Schneider
+ */
+public class PullRateLimiter {
+
+	private static final long WINDOW_MILLIS = 60000L;
+	private static final long MAX_SLEEP_MILLIS = 500L; // wake up in between to notice a cancellation
+
+	private final int maxPullsPerMinute;
+	private final ArrayDeque<Long> pullTimes = new ArrayDeque<Long>(); // of the last requests, guarded by itself
+
+	/**
+	 * Construct a new PullRateLimiter.
+	 * @param maxPullsPerMinute the maximum number of requests per minute
+	 */
+	public PullRateLimiter(int maxPullsPerMinute) {
+		this.maxPullsPerMinute = maxPullsPerMinute;
+	}
+
+	/**
+	 * Wait until the rate limit allows another request, then count it.
+	 * @param cancelled returns true if waiting should be given up, may be null if it cannot be cancelled
+	 * @return true if the request may be made, false if cancelled while waiting
+	 * @throws InterruptedException if the thread has been interrupted while waiting
+	 */
+	public boolean acquire(BooleanSupplier cancelled) throws InterruptedException {
+		while (true) {
+			long wait;
+			synchronized (pullTimes) {
+				long now = System.currentTimeMillis();
+				while (!pullTimes.isEmpty() && pullTimes.peekFirst() + WINDOW_MILLIS <= now) {
+					pullTimes.pollFirst();
+				}
+				if (pullTimes.size() < maxPullsPerMinute) {
+					pullTimes.addLast(now);
+					return true;
+				}
+				wait = pullTimes.peekFirst() + WINDOW_MILLIS - now;
+			}
+			if (cancelled != null && cancelled.getAsBoolean()) {
+				return false;
+			}
+			Thread.sleep(Math.min(wait, MAX_SLEEP_MILLIS));
+		}
+	}
+}
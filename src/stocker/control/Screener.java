@@ -0,0 +1,370 @@
+package stocker.control;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import stocker.metrics.MetricsRegistry;
+import stocker.model.ChartWatchItem;
+import stocker.model.ScreenerQuery;
+import stocker.model.ScreenerResult;
+import stocker.util.Candle;
+import stocker.util.EChartInterval;
+import stocker.util.StockerDataManagerException;
+import stocker.util.StockerLogger;
+
+/**
+ * Screens many symbols with a {@link ScreenerQuery}, without GUI: the candles of the symbols are pulled in the
+ * background with {@link StockerDataManager#getPlotDataInBackground(ChartWatchItem, PullRateLimiter, BooleanSupplier)}
+ * (so the {@link SeriesPrefetcher} does not pause for a whole screen), the indicators of the query are calculated on them, and
+ * the result of each symbol is passed to an {@link IScreenerListener} as soon as it is available.
+ * <p>
+ * The symbols are split recursively into fork-join tasks, so the indicators of different symbols are calculated
+ * in parallel on all cores. The pulls block their thread, which is announced to the pool (see
+ * {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}), so other threads calculate meanwhile; at most
+ * {@value #MAX_BLOCKED_THREADS} additional threads are started for that. All screens of a screener share a rate
+ * limit of {@value #MAX_PULLS_PER_MINUTE} HTTP requests per minute (see {@link PullRateLimiter}), which leaves part of the rate limit of the data provider
+ * to the charts and the {@link SeriesPrefetcher}.
+ * <p>
+ * Pulled candles are kept for {@value #CACHE_MILLIS} ms, so screening the same symbols again (e.g. with another
+ * query) does not pull them again. Symbols which are subscribed for push updates are served from the
+ * {@link BarCache} anyway, which is kept up to date.
+ *
+ * @author Marc S. Schneider
+ */
+public class Screener {
+
+	private static final StockerLogger log = StockerLogger.getLogger(Screener.class);
+
+	/** Maximum number of HTTP requests of the screener per minute */
+	public static final int MAX_PULLS_PER_MINUTE = 30;
+	/** How long pulled candles are reused by later screens (in milliseconds) */
+	public static final long CACHE_MILLIS = 5L * 60L * 1000L;
+	/** Maximum number of threads which are started in addition to the parallelism while threads wait for pulls */
+	public static final int MAX_BLOCKED_THREADS = 4;
+
+	private final StockerDataManager dm;
+	private final ForkJoinPool pool;
+	private final ConcurrentHashMap<String, CachedSeries> cache = new ConcurrentHashMap<String, CachedSeries>();
+	private final PullRateLimiter limiter = new PullRateLimiter(MAX_PULLS_PER_MINUTE);
+	private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+	/**
+	 * Construct a new Screener which calculates on all cores.
+	 * @param dm the data manager which pulls the candles
+	 */
+	public Screener(StockerDataManager dm) {
+		this(dm, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Construct a new Screener.
+	 * @param dm the data manager which pulls the candles
+	 * @param parallelism the number of threads which calculate the indicators
+	 */
+	public Screener(StockerDataManager dm, int parallelism) {
+		this.dm = dm;
+		this.pool = new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			@Override
+			public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+				ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				t.setName("Screener-" + t.getPoolIndex());
+				t.setDaemon(true);
+				return t;
+			}
+		}, null, false, 0, parallelism + MAX_BLOCKED_THREADS, 1, new Predicate<ForkJoinPool>() {
+			@Override
+			public boolean test(ForkJoinPool p) {
+				return true; // all threads are started: keep on blocking without compensation
+			}
+		}, 60L, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Start screening the given symbols. The results are passed to the listener as they become available (in no
+	 * particular order), and the listener is notified when all symbols have been screened.
+	 * @param symbols the symbols (duplicates are screened once)
+	 * @param interval the interval of the candles
+	 * @param query the query
+	 * @param listener the listener for the results
+	 * @return the running screen, which can be cancelled
+	 */
+	public Run screen(List<String> symbols, EChartInterval interval, ScreenerQuery query, IScreenerListener listener) {
+		long now = System.currentTimeMillis();
+		Iterator<CachedSeries> it = cache.values().iterator();
+		while (it.hasNext()) { // drop the expired candles
+			if (it.next().isExpired(now)) {
+				it.remove();
+			}
+		}
+		final Run run = new Run(new ArrayList<String>(new LinkedHashSet<String>(symbols)), interval, query, listener);
+		log.info("Screening {} symbols ({}): {}", run.symbols.size(), interval, query);
+		pool.execute(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				try {
+					new ScreenTask(run, 0, run.symbols.size()).invoke();
+				} finally {
+					log.info("Screening finished: {} symbols{}", run.symbols.size(), run.isCancelled ? " (cancelled)" : "");
+					run.isDone = true;
+					run.listener.screenerFinished(run.isCancelled);
+				}
+			}
+		});
+		return run;
+	}
+
+	/**
+	 * Forget all pulled candles, so the next screens pull them again.
+	 */
+	public void clearCache() {
+		cache.clear();
+	}
+
+	/**
+	 * Stop all threads of this screener (running screens are not finished).
+	 */
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+	// helper function: screen one symbol
+	private void screen(Run run, String symbol) {
+		ScreenerQuery q = run.query;
+		ScreenerResult result;
+		SeriesLoader loader = new SeriesLoader(run, symbol);
+		try {
+			ForkJoinPool.managedBlock(loader);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		if (run.isCancelled) {
+			return;
+		}
+		if (loader.error != null) {
+			result = new ScreenerResult(symbol, q.getColumnNames().length, q.getNrOfCriteria(), loader.error);
+		}
+		else {
+			try {
+				result = q.evaluate(symbol, loader.candles);
+			} catch (RuntimeException e) { // e.g. a defective indicator of a plug-in: the other symbols go on
+				log.warn("Screening {} failed", symbol, e);
+				result = new ScreenerResult(symbol, q.getColumnNames().length, q.getNrOfCriteria(),
+						"Berechnung fehlgeschlagen");
+			}
+		}
+		run.listener.screenerResult(result);
+	}
+
+	// helper function
+	private static String key(String symbol, EChartInterval interval) {
+		return symbol + "|" + interval.toObjectString();
+	}
+
+	/**
+	 * A running screen, which can be cancelled.
+	 */
+	public static class Run {
+		private final ArrayList<String> symbols;
+		private final EChartInterval interval;
+		private final ScreenerQuery query;
+		private final IScreenerListener listener;
+		private volatile boolean isCancelled = false;
+		private volatile boolean isDone = false;
+
+		/**
+		 * Construct a new screen.
+		 * @param symbols the distinct symbols
+		 * @param interval the interval of the candles
+		 * @param query the query
+		 * @param listener the listener for the results
+		 */
+		private Run(ArrayList<String> symbols, EChartInterval interval, ScreenerQuery query,
+				IScreenerListener listener) {
+			this.symbols = symbols;
+			this.interval = interval;
+			this.query = query;
+			this.listener = listener;
+		}
+
+		/**
+		 * Cancel this screen: symbols which have not been screened yet are skipped, and no further results are
+		 * passed to the listener (a request to the data provider which is already running is completed).
+		 */
+		public void cancel() {
+			isCancelled = true;
+		}
+
+		/**
+		 * Returns whether this screen has been cancelled.
+		 * @return true if cancelled, false otherwise
+		 */
+		public boolean isCancelled() {
+			return isCancelled;
+		}
+
+		/**
+		 * Returns whether this screen is finished (all symbols have been screened, or it has been cancelled and
+		 * the listener has been notified).
+		 * @return true if finished, false otherwise
+		 */
+		public boolean isDone() {
+			return isDone;
+		}
+
+		/**
+		 * Get the number of distinct symbols of this screen.
+		 * @return the number of symbols
+		 */
+		public int getNrOfSymbols() {
+			return symbols.size();
+		}
+	}
+
+	/**
+	 * Screens a range of the symbols of a screen: splits it in halves until one symbol is left.
+	 */
+	private class ScreenTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Run run;
+		private final int from, to;
+
+		/**
+		 * Construct a new task.
+		 * @param run the screen
+		 * @param from the index of the first symbol
+		 * @param to the index after the last symbol
+		 */
+		private ScreenTask(Run run, int from, int to) {
+			this.run = run;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			if (run.isCancelled) {
+				return;
+			}
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ScreenTask(run, from, mid), new ScreenTask(run, mid, to));
+			}
+			else if (to > from) {
+				screen(run, run.symbols.get(from));
+			}
+		}
+	}
+
+	/**
+	 * Gets the candles of one symbol from the cache of the screener, or pulls them (blocking, announced to the
+	 * fork-join pool).
+	 */
+	private class SeriesLoader implements ForkJoinPool.ManagedBlocker {
+		private final Run run;
+		private final String symbol;
+		private LinkedList<Candle> candles = null;
+		private String error = null;
+
+		/**
+		 * Construct a new loader.
+		 * @param run the screen
+		 * @param symbol the symbol
+		 */
+		private SeriesLoader(Run run, String symbol) {
+			this.run = run;
+			this.symbol = symbol;
+		}
+
+		/**
+		 * Take the candles from the cache if possible.
+		 * @return true if the candles are available (or the screen has been cancelled), false if they need to be
+		 *         pulled
+		 */
+		@Override
+		public boolean isReleasable() {
+			if (candles != null || error != null || run.isCancelled) {
+				return true;
+			}
+			CachedSeries cached = cache.get(key(symbol, run.interval));
+			if (cached != null && !cached.isExpired(System.currentTimeMillis())
+					&& cached.warmup >= run.query.getWarmup()) {
+				metrics.counter(MetricsRegistry.SCREENER_CACHE_HITS).increment();
+				candles = cached.candles;
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Pull the candles (every request waits for the rate limit, unless the screen is cancelled meanwhile).
+		 * @return true
+		 */
+		@Override
+		public boolean block() {
+			if (isReleasable()) {
+				return true;
+			}
+			ChartWatchItem w = new ChartWatchItem(symbol, symbol, run.interval);
+			w.setWarmup(run.query.getWarmup());
+			try {
+				dm.getPlotDataInBackground(w, limiter, new BooleanSupplier() {
+					@Override
+					public boolean getAsBoolean() {
+						return run.isCancelled;
+					}
+				});
+				metrics.counter(MetricsRegistry.SCREENER_PULLS).increment();
+				candles = w.getCandles();
+				cache.put(key(symbol, run.interval), new CachedSeries(candles, run.query.getWarmup()));
+			} catch (StockerDataManagerException e) {
+				log.debug("Screening {}: pull failed: {}", symbol, e.getMessage());
+				error = e.getMessage();
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Candles of one symbol and interval which have been pulled by the screener (only read, never modified).
+	 */
+	private static class CachedSeries {
+		private final LinkedList<Candle> candles;
+		private final int warmup; // the warm-up length which they have been pulled for
+		private final long time = System.currentTimeMillis();
+
+		/**
+		 * Construct a new entry of the cache.
+		 * @param candles the candles
+		 * @param warmup the warm-up length which they have been pulled for
+		 */
+		private CachedSeries(LinkedList<Candle> candles, int warmup) {
+			this.candles = candles;
+			this.warmup = warmup;
+		}
+
+		/**
+		 * Returns whether the candles are too old to be used.
+		 * @param now the current time in milliseconds
+		 * @return true if they are too old, false otherwise
+		 */
+		private boolean isExpired(long now) {
+			return now - time >= CACHE_MILLIS;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package stocker.control;
+
+import java.util.Iterator;
+import java.util.concurrent.LinkedBlockingDeque;
+
+import stocker.metrics.MetricsRegistry;
+import stocker.model.ChartWatchItem;
+import stocker.util.EChartInterval;
+import stocker.util.StockerDataManagerException;
+import stocker.util.StockerLogger;
+
+/**
+ * Warms the {@link BarCache} in the background with series which are likely to be requested soon, e.g. the bars
+ * for the chart of a watchlist row which is selected or hovered, or the adjacent intervals of an open chart, so that
+ * opening a chart or switching its interval does not have to wait for a pull.
+ * <p>
+ * The requests are processed one after another by a low priority thread, the most recent request first (older ones
+ * are dropped when too many are waiting). The prefetcher gives way to pulls which a chart is waiting for, and it
+ * uses at most {@value #MAX_PULLS_PER_MINUTE} HTTP requests per minute (see {@link PullRateLimiter}), so most of the rate limit of the data provider is
+ * left to the interactive requests. Waiting requests can be cancelled per symbol.
+ *
+ * @author Marc S. Schneider
+ */
+public class SeriesPrefetcher {
+
+	private static final StockerLogger log = StockerLogger.getLogger(SeriesPrefetcher.class);
+
+	/** Maximum number of HTTP requests of the prefetcher per minute */
+	public static final int MAX_PULLS_PER_MINUTE = 15;
+	private static final int MAX_QUEUED = 32;
+
+	private final StockerDataManager dm;
+	private final LinkedBlockingDeque<Request> queue = new LinkedBlockingDeque<Request>();
+	private final PullRateLimiter limiter = new PullRateLimiter(MAX_PULLS_PER_MINUTE);
+	private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+	/**
+	 * Construct a new SeriesPrefetcher and start its worker thread.
+	 * @param dm the data manager which pulls the bars and caches them
+	 */
+	public SeriesPrefetcher(StockerDataManager dm) {
+		this.dm = dm;
+		Thread worker = new Thread("SeriesPrefetcher") {
+			@Override
+			public void run() {
+				while (true) {
+					try {
+						process(queue.takeFirst());
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		};
+		worker.setDaemon(true);
+		worker.setPriority(Thread.MIN_PRIORITY);
+		worker.start();
+	}
+
+	/**
+	 * Request the bars of the given symbol and intervals to be prefetched (ahead of all earlier requests).
+	 * Requests for series which are already cached are ignored when they are processed.
+	 * @param symbol the symbol
+	 * @param intervals the intervals
+	 */
+	public void prefetch(String symbol, EChartInterval... intervals) {
+		for (int i = intervals.length - 1; i >= 0; i--) { // the first interval will be processed first
+			Request r = new Request(symbol, intervals[i]);
+			queue.remove(r); // move to the front if already waiting
+			queue.offerFirst(r);
+		}
+		while (queue.size() > MAX_QUEUED) {
+			queue.pollLast();
+		}
+	}
+
+	/**
+	 * Cancel all waiting requests of the given symbol (a pull which is already running is completed).
+	 * @param symbol the symbol
+	 */
+	public void cancel(String symbol) {
+		Iterator<Request> it = queue.iterator();
+		while (it.hasNext()) {
+			if (it.next().symbol.equals(symbol)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Cancel all waiting requests.
+	 */
+	public void cancelAll() {
+		queue.clear();
+	}
+
+	/**
+	 * Process one request: Wait until no chart is waiting for a pull, then pull the bars (unless prefetching them has
+	 * become useless in the meantime). Every request to the data provider waits for the rate limit.
+	 * @param r the request
+	 * @throws InterruptedException if the worker has been interrupted
+	 */
+	private void process(Request r) throws InterruptedException {
+		if (!dm.isPrefetchUseful(r.symbol, r.interval)) {
+			return;
+		}
+		while (dm.isForegroundPullActive()) {
+			Thread.sleep(200L);
+		}
+		if (!dm.isPrefetchUseful(r.symbol, r.interval)) { // cached or unsubscribed while waiting
+			return;
+		}
+		try {
+			dm.getPlotDataInBackground(new ChartWatchItem(r.symbol, r.symbol, r.interval), limiter, null);
+			metrics.counter(MetricsRegistry.PLOT_PREFETCHES).increment();
+			log.debug("Prefetched {} {}", r.symbol, r.interval);
+		} catch (StockerDataManagerException e) {
+			log.debug("Prefetching {} {} failed: {}", r.symbol, r.interval, e.getMessage());
+		}
+	}
+
+	/**
+	 * A request to prefetch the bars of one symbol and interval.
+	 */
+	private static class Request {
+		private final String symbol;
+		private final EChartInterval interval;
+
+		/**
+		 * Construct a new request.
+		 * @param symbol the symbol
+		 * @param interval the interval
+		 */
+		private Request(String symbol, EChartInterval interval) {
+			this.symbol = symbol;
+			this.interval = interval;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Request)) {
+				return false;
+			}
+			Request r = (Request) o;
+			return symbol.equals(r.symbol) && interval == r.interval;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			return symbol.hashCode() * 31 + interval.hashCode();
+		}
+	}
+}
@@ -0,0 +1,423 @@
+package stocker.control;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import stocker.util.StockerLogger;
+
+/**
+ * Persists the sessions in a directory: a small index file with the names of the sessions and the name of the
+ * active session, and one file per session with a compact binary encoding of its {@link JsonObject} (deflated).
+ * All files start with a magic number and a format version.
+ * <p>
+ * The sessions are loaded lazily: opening the store only reads the index, a session itself is read when it is
+ * requested by {@link #get(String)}. {@link #write()} only writes the sessions which have changed since they have
+ * been read or written, and every file is written atomically (to a temporary file which then replaces the old one),
+ * so a crash while writing cannot leave a broken session behind. The index is written last, so it only refers to
+ * complete session files.
+ *
+ * @author Marc S. Schneider
+ */
+public class SessionStore {
+
+	private static final StockerLogger log = StockerLogger.getLogger(SessionStore.class);
+
+	private static final int MAGIC = 0x53544b53; // "STKS"
+	private static final int FORMAT_VERSION = 1;
+	private static final String INDEX_FILE = "index.bin";
+
+	// type tags of the binary encoding of the JsonElements
+	private static final byte T_NULL = 0, T_OBJECT = 1, T_ARRAY = 2, T_STRING = 3, T_TRUE = 4, T_FALSE = 5,
+			T_LONG = 6, T_DOUBLE = 7;
+
+	private final Path dir;
+	private final LinkedHashMap<String, Integer> fileIds = new LinkedHashMap<String, Integer>(); // name -> file id
+	private final HashMap<String, JsonObject> loaded = new HashMap<String, JsonObject>();
+	private final HashSet<String> dirty = new HashSet<String>();
+	private final HashSet<Integer> obsoleteFileIds = new HashSet<Integer>(); // of removed sessions
+	private String activeSession = null;
+	private boolean isIndexDirty = false;
+	private int nextFileId = 0;
+
+	/**
+	 * Construct a new SessionStore for the given directory (call {@link #open()} to read its index).
+	 * @param dir the directory of the store (created on the first write)
+	 */
+	public SessionStore(Path dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * Read the index of the store.
+	 * @return true if the index has been read, false if the store does not exist yet
+	 * @throws IOException if the index cannot be read or has an unknown format
+	 */
+	public synchronized boolean open() throws IOException {
+		Path index = dir.resolve(INDEX_FILE);
+		if (!Files.exists(index)) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+			readHeader(in, index);
+			activeSession = readString(in);
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String name = readString(in);
+				int id = in.readInt();
+				fileIds.put(name, id);
+				nextFileId = Math.max(nextFileId, id + 1);
+			}
+		}
+		if (activeSession.isEmpty()) {
+			activeSession = null;
+		}
+		return true;
+	}
+
+	/**
+	 * Take over all sessions from a session {@link JsonObject} of the former Json session file (which has one member
+	 * per session, and the member <code>activeSession</code>). They are written with the next {@link #write()}.
+	 * @param legacy the sessions
+	 */
+	public synchronized void importJson(JsonObject legacy) {
+		for (Map.Entry<String, JsonElement> e : legacy.entrySet()) {
+			if (e.getKey().equals("activeSession")) {
+				setActiveSession(e.getValue().getAsString());
+			}
+			else if (e.getValue().isJsonObject()) {
+				put(e.getKey(), e.getValue().getAsJsonObject());
+			}
+		}
+	}
+
+	/**
+	 * Get the names of all sessions.
+	 * @return a new set with the names, in the order in which the sessions have been added
+	 */
+	public synchronized Set<String> getNames() {
+		return new LinkedHashSet<String>(fileIds.keySet());
+	}
+
+	/**
+	 * Returns whether a session with the given name exists.
+	 * @param name the name of the session
+	 * @return true if it exists, false otherwise
+	 */
+	public synchronized boolean contains(String name) {
+		return fileIds.containsKey(name);
+	}
+
+	/**
+	 * Get the number of sessions.
+	 * @return the number of sessions
+	 */
+	public synchronized int size() {
+		return fileIds.size();
+	}
+
+	/**
+	 * Get a session (it is read from its file on the first request).
+	 * @param name the name of the session
+	 * @return the session (not to be modified; use {@link #put(String, JsonObject)} to change it), or null if it
+	 * 		   does not exist
+	 * @throws IOException if the session file cannot be read
+	 */
+	public synchronized JsonObject get(String name) throws IOException {
+		JsonObject jo = loaded.get(name);
+		Integer id = fileIds.get(name);
+		if (jo != null || id == null) {
+			return jo;
+		}
+		Path file = sessionFile(id);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			readHeader(in, file);
+			DataInputStream body = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in)));
+			JsonElement e = readElement(body);
+			if (!e.isJsonObject()) {
+				throw new IOException("Invalid session in " + file);
+			}
+			jo = e.getAsJsonObject();
+		}
+		loaded.put(name, jo);
+		return jo;
+	}
+
+	/**
+	 * Add or replace a session. It is only written by the next {@link #write()} if it differs from the stored one.
+	 * @param name the name of the session
+	 * @param jo the session
+	 */
+	public synchronized void put(String name, JsonObject jo) {
+		if (!fileIds.containsKey(name)) {
+			fileIds.put(name, nextFileId++);
+			isIndexDirty = true;
+		}
+		else if (jo.equals(loaded.get(name))) {
+			return;
+		}
+		loaded.put(name, jo);
+		dirty.add(name);
+	}
+
+	/**
+	 * Remove a session (its file is deleted by the next {@link #write()}).
+	 * @param name the name of the session
+	 */
+	public synchronized void remove(String name) {
+		Integer id = fileIds.remove(name);
+		if (id != null) {
+			obsoleteFileIds.add(id);
+			loaded.remove(name);
+			dirty.remove(name);
+			isIndexDirty = true;
+		}
+	}
+
+	/**
+	 * Get the name of the active session, i.e. the one to be restored at startup.
+	 * @return the name, or null if none has been set
+	 */
+	public synchronized String getActiveSession() {
+		return activeSession;
+	}
+
+	/**
+	 * Set the name of the active session.
+	 * @param name the name of the session
+	 */
+	public synchronized void setActiveSession(String name) {
+		if (!name.equals(activeSession)) {
+			activeSession = name;
+			isIndexDirty = true;
+		}
+	}
+
+	/**
+	 * Write the changes: the changed sessions, then the index (if the set of sessions or the active one has changed),
+	 * then delete the files of removed sessions.
+	 * @throws IOException if a file cannot be written
+	 */
+	public synchronized void write() throws IOException {
+		if (dirty.isEmpty() && !isIndexDirty && obsoleteFileIds.isEmpty()) {
+			return;
+		}
+		Files.createDirectories(dir);
+		for (String name : dirty) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			writeHeader(out);
+			DeflaterOutputStream deflater = new DeflaterOutputStream(out);
+			DataOutputStream body = new DataOutputStream(new BufferedOutputStream(deflater));
+			writeElement(body, loaded.get(name));
+			body.flush();
+			deflater.finish();
+			writeAtomically(sessionFile(fileIds.get(name)), bytes.toByteArray());
+		}
+		log.debug("Wrote {} of {} sessions", dirty.size(), fileIds.size());
+		dirty.clear();
+
+		if (isIndexDirty) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			writeHeader(out);
+			writeString(out, activeSession == null ? "" : activeSession);
+			out.writeInt(fileIds.size());
+			for (Map.Entry<String, Integer> e : fileIds.entrySet()) {
+				writeString(out, e.getKey());
+				out.writeInt(e.getValue());
+			}
+			out.flush();
+			writeAtomically(dir.resolve(INDEX_FILE), bytes.toByteArray());
+			isIndexDirty = false;
+		}
+
+		for (Integer id : obsoleteFileIds) {
+			Files.deleteIfExists(sessionFile(id));
+		}
+		obsoleteFileIds.clear();
+	}
+
+	/**
+	 * Write a file atomically: write a temporary file in the same directory and force it to the disk, then replace
+	 * the file with it (otherwise the rename might reach the disk before the data, and a power loss would leave an
+	 * empty file).
+	 * @param file the file
+	 * @param content the new content of the file
+	 * @throws IOException if the file cannot be written
+	 */
+	static void writeAtomically(Path file, byte[] content) throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buf = ByteBuffer.wrap(content);
+			while (buf.hasRemaining()) {
+				ch.write(buf);
+			}
+			ch.force(true);
+		}
+		try {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+		Path dir = file.toAbsolutePath().getParent();
+		try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) { // persist the rename, too
+			ch.force(true);
+		} catch (IOException e) { // directories cannot be opened on every platform (e.g. Windows); the data is safe
+		}
+	}
+
+	// helper function
+	private Path sessionFile(int id) {
+		return dir.resolve("session" + id + ".bin");
+	}
+
+	// helper function
+	private static void writeHeader(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+	}
+
+	// helper function
+	private static void readHeader(DataInputStream in, Path file) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a session file: " + file);
+		}
+		int version = in.readInt();
+		if (version != FORMAT_VERSION) {
+			throw new IOException("Unsupported format version " + version + " of " + file);
+		}
+	}
+
+	// helper function (writeUTF is limited to 64 KB)
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(b.length);
+		out.write(b);
+	}
+
+	// helper function
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] b = new byte[in.readInt()];
+		in.readFully(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Write a {@link JsonElement} in the binary encoding: a type tag, followed by the value (the number of members
+	 * and the members for objects and arrays).
+	 * @param out the stream to write to
+	 * @param e the element
+	 * @throws IOException if writing fails
+	 */
+	private static void writeElement(DataOutputStream out, JsonElement e) throws IOException {
+		if (e == null || e.isJsonNull()) {
+			out.writeByte(T_NULL);
+		}
+		else if (e.isJsonObject()) {
+			Set<Map.Entry<String, JsonElement>> members = e.getAsJsonObject().entrySet();
+			out.writeByte(T_OBJECT);
+			out.writeInt(members.size());
+			for (Map.Entry<String, JsonElement> m : members) {
+				writeString(out, m.getKey());
+				writeElement(out, m.getValue());
+			}
+		}
+		else if (e.isJsonArray()) {
+			JsonArray ja = e.getAsJsonArray();
+			out.writeByte(T_ARRAY);
+			out.writeInt(ja.size());
+			for (JsonElement m : ja) {
+				writeElement(out, m);
+			}
+		}
+		else {
+			JsonPrimitive p = e.getAsJsonPrimitive();
+			if (p.isBoolean()) {
+				out.writeByte(p.getAsBoolean() ? T_TRUE : T_FALSE);
+			}
+			else if (p.isNumber()) {
+				double d = p.getAsDouble();
+				if (d == Math.rint(d) && Math.abs(d) < 1e15) { // integral (e.g. sizes, positions, parameters)
+					out.writeByte(T_LONG);
+					out.writeLong(p.getAsLong());
+				}
+				else {
+					out.writeByte(T_DOUBLE);
+					out.writeDouble(d);
+				}
+			}
+			else {
+				out.writeByte(T_STRING);
+				writeString(out, p.getAsString());
+			}
+		}
+	}
+
+	/**
+	 * Read a {@link JsonElement} in the binary encoding (see {@link #writeElement(DataOutputStream, JsonElement)}).
+	 * @param in the stream to read from
+	 * @return the element
+	 * @throws IOException if reading fails or the encoding is invalid
+	 */
+	private static JsonElement readElement(DataInputStream in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case T_NULL:
+			return JsonNull.INSTANCE;
+		case T_OBJECT:
+			JsonObject jo = new JsonObject();
+			int members = in.readInt();
+			for (int i = 0; i < members; i++) {
+				String key = readString(in);
+				jo.add(key, readElement(in));
+			}
+			return jo;
+		case T_ARRAY:
+			int size = in.readInt();
+			JsonArray ja = new JsonArray(size);
+			for (int i = 0; i < size; i++) {
+				ja.add(readElement(in));
+			}
+			return ja;
+		case T_STRING:
+			return new JsonPrimitive(readString(in));
+		case T_TRUE:
+			return new JsonPrimitive(true);
+		case T_FALSE:
+			return new JsonPrimitive(false);
+		case T_LONG:
+			return new JsonPrimitive(in.readLong());
+		case T_DOUBLE:
+			return new JsonPrimitive(in.readDouble());
+		default:
+			throw new IOException("Invalid type tag " + tag);
+		}
+	}
+}
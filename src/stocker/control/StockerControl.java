@@ -4,15 +4,22 @@ import java.awt.Dimension;
 import java.awt.Point;
 import java.beans.PropertyVetoException;
 import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.swing.JInternalFrame;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
@@ -20,11 +27,17 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 
 import stocker.dialog.ISearchDataReceiver;
+import stocker.dialog.StockerDiagnosticsDialog;
 import stocker.dialog.StockerPropertyDialog;
+import stocker.dialog.StockerScreenerDialog;
 import stocker.dialog.StockerSearchDialog;
+import stocker.metrics.MetricsPublisher;
+import stocker.metrics.MetricsRegistry;
 import stocker.model.ChartAlarm;
 import stocker.model.ChartIndicator;
+import stocker.model.ChartIndicatorRegistry;
 import stocker.model.ChartWatchItem;
+import stocker.model.ConditionAlarm;
 import stocker.model.WatchlistItem;
 import stocker.view.IStockerDataListener;
 import stocker.view.StockerChart;
@@ -41,34 +54,62 @@ import stocker.util.*;
  */
 public class StockerControl {
 
+	private static final StockerLogger log = StockerLogger.getLogger(StockerControl.class);
+	private static final long RESTORE_PULL_TIMEOUT = 30L; // seconds to wait for a restored chart before the next one
+
 	private StockerFrame frame;    // the main frame (view)
 	private StockerDataManager dm; // the data manager, who builds and maintains the model (and is itself a part of
 								   // the controller)
 
 	private JsonObject props = new JsonObject();
-	private JsonObject sessions = new JsonObject();
+	private String writtenProps = null; // the properties as they are in the file (to skip unchanged writes)
+	private SessionStore sessions;
 	private String propFilename = "stocker_3254631.json";
-	private String sessionFilename = "stocker_3254631_session.json";
+	private String sessionDirname = "stocker_3254631_sessions";
+	private String sessionFilename = "stocker_3254631_session.json"; // of older versions, imported once
 	private String currentSessionName = "default";
 	private AlarmManager alarmManager;
+	private final IndicatorCache indicatorCache = new IndicatorCache(); // indicator series shared by the charts
+	private Screener screener = null; // created on first use
+	private final boolean isHeadless; // no GUI at all (alarm daemon mode, see StockerDaemon)
 
 	/**
 	 * Construct a new StockerControl instance. Reads the properties, intializes data manager and main frame
 	 * and restores the previous session. 
 	 */
 	public StockerControl() {
+		this(false);
+	}
+
+	/**
+	 * Construct a new StockerControl instance, optionally without any GUI (default visibility, as the headless mode 
+	 * is only intended for the {@link StockerDaemon}). In headless mode, no Swing component is constructed, problems
+	 * are logged instead of shown in dialogs, and the session is not restored here, but by the daemon 
+	 * (see {@link #restoreSessionHeadless(String)}).
+	 * @param isHeadless true to run without GUI, false to construct and show the main frame
+	 */
+	StockerControl(boolean isHeadless) {
 		System.setProperty(org.slf4j.impl.SimpleLogger.DEFAULT_LOG_LEVEL_KEY, "ERROR"); // disable the verbose logging of the WebSocket client
+		this.isHeadless = isHeadless;
 		
 		readProperties(propFilename);
+		MetricsPublisher.publish(MetricsRegistry.getInstance()); // JMX and JFR
 
 		this.dm = new StockerDataManager(this);
-		this.frame = new StockerFrame(this);
+		if (!isHeadless) {
+			this.frame = new StockerFrame(this);
+		}
 		this.alarmManager = new AlarmManager(frame);
 		dm.setAlarmManager(alarmManager);
+		alarmManager.setDataManager(dm);
 
+		if (isHeadless) {
+			readSessions(sessionDirname);
+			return;
+		}
 		this.frame.setVisible(true);
 
-		readSessions(sessionFilename);
+		readSessions(sessionDirname);
 		restoreSession(currentSessionName);
 	}
 
@@ -80,6 +121,25 @@ public class StockerControl {
 		return this.frame;
 	}
 
+	/**
+	 * Get the cache of the indicator series, which are shared by all charts of the same symbol and interval.
+	 * @return the indicator cache
+	 */
+	public IndicatorCache getIndicatorCache() {
+		return this.indicatorCache;
+	}
+
+	/**
+	 * Get the screener, which screens many symbols with indicator conditions (created on first use).
+	 * @return the screener
+	 */
+	public synchronized Screener getScreener() {
+		if (screener == null) {
+			screener = new Screener(dm);
+		}
+		return screener;
+	}
+
 	/**
 	 * Get the number of the currently active data provider from the properties.
 	 * @return the index of the currently active data provider, w.r.t. the order that they are defined in the 
@@ -115,30 +175,37 @@ public class StockerControl {
 			initializeProperties();
 			writeProperties(filepath);
 		} else {
+			String s = null;
 			try {
-				String s = Files.readString(Paths.get(filepath));
+				s = Files.readString(Paths.get(filepath));
 				newProps = gson.fromJson(s, JsonObject.class);
 			} catch (Exception e) {
-				JOptionPane.showMessageDialog(frame, "Problem beim Lesen von " + filepath, "Warnung",
-						JOptionPane.WARNING_MESSAGE);
+				showWarning("Problem beim Lesen von " + filepath, "Warnung");
 			}
 			if (newProps != null) {
 				this.props = newProps;
+				this.writtenProps = s;
 			}
 		}
 	}
 
 	/**
 	 * Writes the properties for this application from the internal {@link JsonObject} into a Json file on the disk.
+	 * The properties stay human-readable (e.g. to enter an API key), but the file is written atomically, and only if
+	 * the properties have changed.
 	 * @param filepath the path to the properties file, including file name and file extension 
 	 */
 	public void writeProperties(String filepath) {
 		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		String s = gson.toJson(this.props);
+		if (s.equals(writtenProps) && new File(filepath).exists()) {
+			return;
+		}
 		try {
-			Files.writeString(Paths.get(filepath), gson.toJson(this.props));
+			SessionStore.writeAtomically(Paths.get(filepath), s.getBytes(StandardCharsets.UTF_8));
+			writtenProps = s;
 		} catch (Exception e) {
-			JOptionPane.showMessageDialog(frame, "Problem beim Schreiben von " + filepath, "Warnung",
-					JOptionPane.WARNING_MESSAGE);
+			showWarning("Problem beim Schreiben von " + filepath, "Warnung");
 		}
 	}
 
@@ -293,9 +360,9 @@ public class StockerControl {
 		
 		// Finally, the alarms
 		jo.add("alarms", alarmManager.serializeToJson());
+		jo.add("conditionAlarms", alarmManager.serializeConditionAlarmsToJson());
 
-		sessions.remove(name);
-		sessions.add(name, jo);
+		sessions.put(name, jo);
 		currentSessionName = name;
 	}
 	
@@ -311,19 +378,17 @@ public class StockerControl {
 	}
 
 	/**
-	 * Write the sessions from the sessions JsonObject of this application into a Json file.
-	 * @param filepath the full path to the session file, including file name and extension
+	 * Write the sessions of this application into the {@link SessionStore} (only the changed ones are written).
+	 * @param filepath the path to the session directory
 	 */
 	private void writeSessions(String filepath) {
 		saveCurrentSession(); // save the current session under its name
-		sessions.addProperty("activeSession", currentSessionName);
+		sessions.setActiveSession(currentSessionName);
 
-		Gson gson = new GsonBuilder().setPrettyPrinting().create();
 		try {
-			Files.writeString(Paths.get(filepath), gson.toJson(this.sessions));
+			sessions.write();
 		} catch (Exception e) {
-			JOptionPane.showMessageDialog(frame, "Problem beim Schreiben der Session in " + filepath, "Warnung",
-					JOptionPane.WARNING_MESSAGE);
+			showWarning("Problem beim Schreiben der Session in " + filepath, "Warnung");
 		}
 	}
 
@@ -344,46 +409,59 @@ public class StockerControl {
 	}
 
 	/**
-	 * Read the sessions from a Json file into the sessions JsonObject of this application. In addition, this
-	 * asks for an API key for the data provider if no one is available.
-	 * @param filepath the full path to the session file, including file name and extension
+	 * Open the {@link SessionStore} of this application (only its index is read, the sessions are read when they 
+	 * are restored). If it does not exist yet, the sessions of the Json session file of older versions are imported.
+	 * In addition, this asks for an API key for the data provider if no one is available.
+	 * @param filepath the path to the session directory
 	 * @return true if reading the sessions was successful, false otherwise
 	 */
 	private boolean readSessions(String filepath) {
-		Gson gson = new Gson();
-		JsonObject jo = null;
-
-		if (new File(filepath).exists()) {
-			try {
-				String s = Files.readString(Paths.get(filepath));
-				jo = gson.fromJson(s, JsonObject.class);
-			} catch (Exception e) {
-				JOptionPane.showMessageDialog(frame, "Problem beim Lesen von " + filepath, "Warnung",
-						JOptionPane.WARNING_MESSAGE);
+		sessions = new SessionStore(Paths.get(filepath));
+		boolean isRead = false;
+		try {
+			isRead = sessions.open();
+			if (!isRead && new File(sessionFilename).exists()) {
+				String s = Files.readString(Paths.get(sessionFilename));
+				sessions.importJson(new Gson().fromJson(s, JsonObject.class));
+				log.info("Imported the sessions of {}", sessionFilename);
+				isRead = true;
 			}
-		} else {
-			System.out.println("No session file found, starting from scratch");
+			else if (!isRead) {
+				log.info("No session file found, starting from scratch");
+			}
+		} catch (Exception e) {
+			sessions = new SessionStore(Paths.get(filepath)); // don't keep a partially read index
+			isRead = false;
+			showWarning("Problem beim Lesen von " + filepath, "Warnung");
 		}
 		
 		// if no API key for the data provider is set, ask for it! (this is an appropriate time to do this,
 		// because the main frame is already visible, but no data has been tried to pull yet)
 		JsonObject currentDataProvider = props.get("DataProviders").getAsJsonArray()
 				.get(StockerControl.this.getActiveDataProvider()).getAsJsonObject();
-		if (currentDataProvider.get("token").getAsString().isBlank()) {
+		if (currentDataProvider.get("token").getAsString().isBlank() && isHeadless) {
+			log.error("No API key for data provider {}, please set it in {}", currentDataProvider.get("name").getAsString(),
+					propFilename);
+		}
+		else if (currentDataProvider.get("token").getAsString().isBlank()) {
 			String apiKey = JOptionPane.showInputDialog("Für den Standard-Datenanbieter " 
 					+ currentDataProvider.get("name").getAsString() + " ist ein API-Key "
 					+ "erforderlich.\nBitte hier eingeben:");
 			currentDataProvider.addProperty("token", apiKey);
 		}
 
-		if (jo != null) {
-			this.sessions = jo;
-			this.currentSessionName = jo.get("activeSession").getAsString();
-			for (String sessionName : jo.keySet()) {
-				if (sessionName.equals(currentSessionName)) {
+		if (isRead) {
+			if (sessions.getActiveSession() != null) {
+				this.currentSessionName = sessions.getActiveSession();
+			}
+			for (String sessionName : sessions.getNames()) {
+				if (isHeadless) { // there is no session menu
+					break;
+				}
+				else if (sessionName.equals(currentSessionName)) {
 					frame.addSessionMenuEntry(sessionName).setSelected(true);
 				}
-				else if (!sessionName.equals("activeSession")) {
+				else {
 					frame.addSessionMenuEntry(sessionName);
 				}
 			}	
@@ -395,10 +473,14 @@ public class StockerControl {
 	
 	/**
 	 * Restores the session to the state that was saved under the given name.
-	 * The session data is read from this applications {@link JsonObject} for sessions, which has likely been
-	 * read previously from a Json file using {@link #readSessions(String)}.
+	 * The session data is taken from the {@link SessionStore} opened by {@link #readSessions(String)}, which reads
+	 * it from its file on the first restore.
 	 * A session contains all window positions and sizes and all information required to restore the currently 
 	 * shown data.
+	 * The chart windows are created at once, but their data is pulled lazily: the visible charts one after another
+	 * in the order of {@link #loadRestoredCharts(ArrayList)}, the iconified ones only when they are deiconified (see
+	 * {@link StockerChart#initializeDeferredData()}), so the time until the session is shown does not depend on the
+	 * number of charts.
 	 * @param sessionName the name of the session to be restored
 	 */
 	public void restoreSession(String sessionName) {
@@ -409,10 +491,12 @@ public class StockerControl {
 			public void run() {
 				JsonObject jo = null;
 				try {
-					jo = sessions.get(sessionName).getAsJsonObject();
-				} catch (Exception e) { } // will be handled in the following "if" as jo is null
+					jo = sessions.get(sessionName);
+				} catch (Exception e) { // will be handled in the following "if" as jo is null
+					log.error("Session {} could not be read: {}", sessionName, e.getMessage());
+				}
 				if (jo == null) {
-					System.out.println("Session " + sessionName + " not found!");
+					log.warn("Session {} not found!", sessionName);
 					return;
 				}
 
@@ -423,10 +507,8 @@ public class StockerControl {
 				frame.setSize(deserializeDimension(joParent.get("size").getAsJsonObject()));
 				frame.setLocation(deserializePoint(joParent.get("position").getAsJsonObject()));
 				
-				// then the children
-				// use two separate for loops: The outer one creates the children asap without keeping a reference to them,
-				// the second one get a reference and completes the setup (this speeds up appearance of the windows; they
-				// don't have to wait for the pull requests to complete in order to show up)
+				// then the children (the charts are created without pulling their data, see loadRestoredCharts())
+				ArrayList<StockerChart> charts = new ArrayList<StockerChart>();
 				JsonArray jaChildren = jo.get("children").getAsJsonArray();
 				for (int i = 0; i < jaChildren.size(); i++) {
 					JsonObject child = jaChildren.get(i).getAsJsonObject();
@@ -449,12 +531,15 @@ public class StockerControl {
 
 						// get indicators
 						JsonArray jaIndicators = child.get("indicators").getAsJsonArray();
-						ChartIndicator[] ciarr = new ChartIndicator[jaIndicators.size()];
+						ArrayList<ChartIndicator> ciarr = new ArrayList<ChartIndicator>(jaIndicators.size());
 						for (int j = 0; j < jaIndicators.size(); j++) {
 							JsonObject joind = jaIndicators.get(j).getAsJsonObject();
 							String indtype = joind.get("type").getAsString();
-							EChartIndicator eci = EChartIndicator.valueOf(indtype);
-							ChartIndicator ci = eci.getIndicator(); // use EChartIndicator as Factory
+							ChartIndicator ci = ChartIndicatorRegistry.create(indtype); // the provider is the factory
+							if (ci == null) { // e.g. the plugin of this indicator is not installed any more
+								log.warn("Unknown indicator type {} in session {}, ignored", indtype, sessionName);
+								continue;
+							}
 							ci.setActive(joind.get("active").getAsBoolean());
 							JsonArray params = joind.get("params").getAsJsonArray();
 							int[] parr = new int[params.size()];
@@ -463,66 +548,161 @@ public class StockerControl {
 							}
 							ci.setParameters(parr);
 							ci.setColor(EChartColors.valueOf(joind.get("color").getAsString()));
-							ciarr[j] = ci;
+							ciarr.add(ci);
+							w.setWarmup(Math.max(w.getWarmup(), ChartIndicatorRegistry.getWarmup(ci)));
 						}
 						
-						StockerChart chart = frame.openChartWindow(w, type, location, dim, gridlinesShown); 
+						StockerChart chart = frame.openChartWindow(w, type, location, dim, gridlinesShown, true); 
 						
 						try {
 							chart.setMaximum(isMaximized);
 							chart.setIcon(isIconified);
 						} catch (PropertyVetoException e) { } // doesn't want to comply, so leave it as it is
 						
-						// Thread to wait unit the chart window is properly initalized (data pulled etc), 
-						// which might take a while. Then, add chart indicators
-						new Thread() {
+						// add the chart indicators as soon as the data is there
+						chart.whenInitialized(new Runnable() {
+							@Override
 							public void run() {
-								while (!chart.isInitialized()) {
-									try {
-										Thread.sleep(500);
-									} catch (InterruptedException e) { }
+								for (ChartIndicator ci : ciarr) {
+									chart.addChartIndicator(ci);
 								}
-								// when ready, schedule adding of the chart indicators to Swing
-								SwingUtilities.invokeLater(new Runnable() { 
-									@Override
-									public void run() {
-										for (ChartIndicator ci : ciarr) {
-											chart.addChartIndicator(ci);
-										}
-									}
-								});
-								
-							};
-						}.start();
+							}
+						});
+						charts.add(chart);
 					}
 				}
 				
-				// Deserialize watchlist entries (we call this after the chart stuff so that the thread (called within
-				// the method) is enqueued behind the chart stuff and doesn't block appearance of the chart windows
-				frame.deserializeWatchlistSymbolsFromJson(jo.get("watchlist").getAsJsonArray());
-				
-				// Finally, the alarms
-				// Do this with a delay and then via Swing so that it's done after the other the other swing threads above 
-				// (and so that the chart windows and the watchlist are already registered at the AlarmManager)
+				// The alarms: the chart windows are already registered at the AlarmManager, the watchlist items get 
+				// the alarms of their symbol when they register
 				JsonArray jaAlarms = jo.get("alarms").getAsJsonArray();
-				new Thread() {
-					@Override
-					public void run() {
-						try {
-							Thread.sleep(1000);
-						} catch (InterruptedException e) { }
-						SwingUtilities.invokeLater(new Runnable() {
+				JsonArray jaConditionAlarms = (jo.has("conditionAlarms") ? jo.get("conditionAlarms").getAsJsonArray()
+						: new JsonArray()); // not present in sessions of older versions
+				alarmManager.deserializeFromJson(jaAlarms);
+				alarmManager.deserializeConditionAlarmsFromJson(jaConditionAlarms);
+				
+				// Pull the data of the visible charts first, then deserialize the watchlist entries (which pulls 
+				// quotes in its own thread)
+				loadRestoredCharts(charts);
+				frame.deserializeWatchlistSymbolsFromJson(jo.get("watchlist").getAsJsonArray());
+			}
+		});
+	}
+
+	/**
+	 * Pull the data of the visible (i.e. not iconified) restored charts, one after another so that they don't
+	 * compete for the rate limit of the data provider: a maximized chart first, then in the order of the windows
+	 * on the desktop (front to back). The data comes from the {@link BarCache} where possible. Iconified charts
+	 * are left deferred, and a chart which the user activates in the meantime is initialized immediately.
+	 * Has to be called on the EDT.
+	 * @param charts the restored charts (deferred, see {@link StockerFrame#openChartWindow(ChartWatchItem,
+	 * 		  EChartType, Point, Dimension, boolean, boolean)})
+	 */
+	private void loadRestoredCharts(ArrayList<StockerChart> charts) {
+		ArrayList<StockerChart> queue = new ArrayList<StockerChart>(charts.size());
+		for (JInternalFrame f : frame.getChildWindows()) { // front to back
+			if (f instanceof StockerChart && charts.contains(f) && !f.isIcon()) {
+				if (f.isMaximum()) {
+					queue.add(0, (StockerChart) f);
+				}
+				else {
+					queue.add((StockerChart) f);
+				}
+			}
+		}
+		if (queue.isEmpty()) {
+			return;
+		}
+		Thread loader = new Thread("SessionRestore") {
+			@Override
+			public void run() {
+				for (StockerChart chart : queue) {
+					// start the initialization on the EDT (like all other callers), only wait for it here
+					final ArrayList<SwingWorker<ChartWatchItem, Object>> started =
+							new ArrayList<SwingWorker<ChartWatchItem, Object>>(1);
+					try {
+						SwingUtilities.invokeAndWait(new Runnable() {
 							@Override
 							public void run() {
-								alarmManager.deserializeFromJson(jaAlarms);
+								started.add(chart.initializeDeferredData());
 							}
 						});
+					} catch (InvocationTargetException e) {
+						log.warn("Restored chart could not be initialized: {}", e.getCause().toString());
+						continue;
+					} catch (InterruptedException e) {
+						return;
+					}
+					SwingWorker<ChartWatchItem, Object> worker = started.get(0);
+					if (worker == null) { // already initialized on demand, or closed
+						continue;
+					}
+					try {
+						worker.get(RESTORE_PULL_TIMEOUT, TimeUnit.SECONDS);
+					} catch (TimeoutException | ExecutionException e) { // go on with the next one
+					} catch (InterruptedException e) {
+						return;
 					}
-				}.start();
+				}
 			}
-		});
+		};
+		loader.setDaemon(true);
+		loader.start();
 	}		
 	
+	/**
+	 * Restores only the monitoring relevant part of the session with the given name, without any GUI: The alarms
+	 * and the conditional alarms are added to the alarm manager, and the symbols of the watchlist and of the alarms
+	 * are subscribed for push updates. Only to be used in headless mode (see {@link StockerDaemon}).
+	 * @param sessionName the name of the session to be restored
+	 * @return the symbols which are being monitored, or null if the session does not exist
+	 */
+	Set<String> restoreSessionHeadless(String sessionName) {
+		JsonObject jo = null;
+		try {
+			jo = sessions.get(sessionName);
+		} catch (Exception e) { // will be handled in the following "if" as jo is null
+			log.error("Session {} could not be read: {}", sessionName, e.getMessage());
+		}
+		if (jo == null) {
+			log.warn("Session {} not found!", sessionName);
+			return null;
+		}
+		this.currentSessionName = sessionName;
+		
+		alarmManager.deserializeFromJson(jo.get("alarms").getAsJsonArray());
+		if (jo.has("conditionAlarms")) { // not present in sessions of older versions
+			alarmManager.deserializeConditionAlarmsFromJson(jo.get("conditionAlarms").getAsJsonArray());
+		}
+		
+		// the watchlist symbols are registered like a watchlist would do it, so that alarms can be added for them
+		Set<String> symbols = new TreeSet<String>(alarmManager.getAlarmSymbols());
+		JsonArray jaWatchlist = jo.get("watchlist").getAsJsonArray();
+		for (int i = 0; i < jaWatchlist.size(); i++) {
+			String key = jaWatchlist.get(i).getAsJsonObject().get("key").getAsString();
+			if (symbols.add(key)) {
+				alarmManager.registerAlarmListener(null, key);
+			}
+		}
+		for (String symbol : symbols) {
+			dm.addSymbolToPush(symbol);
+		}
+		return symbols;
+	}
+	
+	/**
+	 * Show a warning to the user, or log it in headless mode.
+	 * @param message the message
+	 * @param title the title of the message dialog
+	 */
+	private void showWarning(String message, String title) {
+		if (isHeadless) {
+			log.warn("{}: {}", title, message.replace('\n', ' '));
+		}
+		else {
+			JOptionPane.showMessageDialog(frame, message, title, JOptionPane.WARNING_MESSAGE);
+		}
+	}
+	
 	// helper function
 	private Point deserializePoint(JsonObject jo) {
 		int x = jo.get("x").getAsInt();
@@ -545,11 +725,7 @@ public class StockerControl {
 	public String removeCurrentSession() {
 		String oldSessionName = new String(currentSessionName);
 		sessions.remove(currentSessionName);
-		Iterator<String> sessionIt = sessions.keySet().iterator();
-		currentSessionName = sessionIt.next();
-		while (currentSessionName.equals("activeSession")) { // not an actual session name
-			currentSessionName = sessionIt.next(); 
-		}
+		currentSessionName = sessions.getNames().iterator().next();
 		resetSession();
 		restoreSession(currentSessionName);
 		return oldSessionName;
@@ -576,7 +752,7 @@ public class StockerControl {
 	 * @return true if it is the name of an actual session, false otherwise
 	 */
 	public boolean verifySessionName(String name) {
-		return sessions.keySet().contains(name);
+		return sessions.contains(name);
 	}
 	
 	/**
@@ -584,7 +760,7 @@ public class StockerControl {
 	 * @return the number of currently defined sessions
 	 */
 	public int getSessionCount() {
-		return sessions.size() - 1; // 1 element is always the activeSession property, so subtract that
+		return sessions.size();
 	}
 	
 	/**
@@ -614,6 +790,29 @@ public class StockerControl {
 		pd.setVisible(true);
 	}
 	
+	/**
+	 * Open a (non-modal) diagnostics dialog showing the latencies of the push data.
+	 */
+	public void showDiagnosticsDialog() {
+		StockerDiagnosticsDialog dd = new StockerDiagnosticsDialog(frame);
+		dd.setVisible(true);
+	}
+	
+	/**
+	 * Open a (non-modal) screener dialog for the symbols of the watchlist and further symbols.
+	 */
+	public void showScreenerDialog() {
+		StockerScreenerDialog sd = new StockerScreenerDialog(frame, this);
+		sd.setVisible(true);
+	}
+	
+	/**
+	 * Show the (non-modal) panel listing the triggered alarms.
+	 */
+	public void showAlarmNotifications() {
+		alarmManager.showAlarmNotifications();
+	}
+	
 	////////
 	// Search (used by search dialog)
 	///////
@@ -683,6 +882,37 @@ public class StockerControl {
 		dm.removeChartListener(c);
 	}
 	
+	/**
+	 * Subscribe to the bars of the given symbol and interval, which are built from the push updates (see 
+	 * {@link CandleAggregator}).
+	 * @param symbol the symbol
+	 * @param interval the interval
+	 * @param l the listener
+	 */
+	public void subscribeBars(String symbol, EChartInterval interval, IBarListener l) {
+		dm.getCandleAggregator().subscribe(symbol, interval, l);
+	}
+	
+	/**
+	 * Unsubscribe from the bars of the given symbol and interval.
+	 * @param symbol the symbol
+	 * @param interval the interval
+	 * @param l the listener
+	 */
+	public void unsubscribeBars(String symbol, EChartInterval interval, IBarListener l) {
+		dm.getCandleAggregator().unsubscribe(symbol, interval, l);
+	}
+	
+	/**
+	 * Request the bars of the given symbol and intervals to be prefetched in the background (see 
+	 * {@link SeriesPrefetcher}).
+	 * @param symbol the symbol
+	 * @param intervals the intervals, the most likely one first
+	 */
+	public void prefetchPlotData(String symbol, EChartInterval... intervals) {
+		dm.getPrefetcher().prefetch(symbol, intervals);
+	}
+	
 	/**
 	 * Adds a {@link Watchlist} to the data manager's list of listeners (which will be notified in the case
 	 * of a relevant data change).
@@ -731,9 +961,8 @@ public class StockerControl {
 	 * @param symbol the symbol for which the subscription failed
 	 */
 	public void onPushSubscriptonFailed(String symbol) {
-		JOptionPane.showMessageDialog(frame, 
-				"Der Wert " + symbol + " konnte nicht für Push-Benachrichtigungen\nangemeldet werden beim Datenlieferanten.\nEvtl. Verbindung prüfen und nochmal neu hinzufügen!", 
-				"Keine Push-Daten", JOptionPane.WARNING_MESSAGE);
+		showWarning("Der Wert " + symbol + " konnte nicht für Push-Benachrichtigungen\nangemeldet werden beim Datenlieferanten.\nEvtl. Verbindung prüfen und nochmal neu hinzufügen!", 
+				"Keine Push-Daten");
 	}
 	
 	/**
@@ -824,6 +1053,39 @@ public class StockerControl {
 	public Set<String> getAlarmSymbols() {
 		return alarmManager.getAlarmSymbols();
 	}
+	
+	/**
+	 * Register a listener which is to be notified when alarms have been triggered.
+	 * @param l the listener
+	 */
+	public void addAlarmEventListener(IAlarmEventListener l) {
+		alarmManager.addAlarmEventListener(l);
+	}
+	
+	/**
+	 * Add a conditional alarm (which is evaluated on push updates, no matter whether a chart is open or not).
+	 * @param ca the alarm to be added
+	 */
+	public void addConditionAlarm(ConditionAlarm ca) {
+		alarmManager.addConditionAlarm(ca);
+	}
+	
+	/**
+	 * Remove a conditional alarm.
+	 * @param ca the alarm to be removed
+	 */
+	public void removeConditionAlarm(ConditionAlarm ca) {
+		alarmManager.removeConditionAlarm(ca);
+	}
+	
+	/**
+	 * Get all conditional alarms for the specified symbol.
+	 * @param symbol the symbol for which the alarms are requested
+	 * @return a list containing the conditional alarms for the symbol
+	 */
+	public ArrayList<ConditionAlarm> getConditionAlarms(String symbol) {
+		return alarmManager.getConditionAlarms(symbol);
+	}
 		
 	/////////////
 	// Methods for property access (to avoid handing out the whole property JsonObject, which would cause unnecessary 
@@ -883,12 +1145,22 @@ public class StockerControl {
 	///////////////
 	/**
 	 * Shutdown the application: Stop the push connection, write the properties and session information and exit.
+	 * In headless mode, nothing is written (the sessions belong to the GUI, which might be running at the same time).
+	 * @param callExit true to call System.exit() when done
 	 */
 	public void shutdown(boolean callExit) {
 		dm.stopPush();
-		writeProperties(propFilename);
-		writeSessions(sessionFilename);
-		System.out.println("Shutting down...");
+		synchronized (this) {
+			if (screener != null) {
+				screener.shutdown();
+			}
+		}
+		if (!isHeadless) {
+			writeProperties(propFilename);
+			writeSessions(sessionDirname);
+		}
+		log.info("Shutting down...");
+		StockerLogger.flush(1000L); // the appender thread is a daemon, so write the pending messages before exiting
 		if (callExit) {
 			System.exit(0);
 		}
@@ -0,0 +1,132 @@
+package stocker.control;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import stocker.util.StockerLogger;
+
+/**
+ * Headless alarm monitoring: Runs the {@link StockerControl}, the {@link StockerDataManager} and the
+ * {@link AlarmManager} without any GUI. The alarms, conditional alarms and watchlist symbols of a session are
+ * loaded, the push connection is kept alive and the triggered alarms are emitted to one or more sinks (the console,
+ * a file or a local socket; see {@link AlarmEventWriter} and {@link AlarmEventSocketServer}). No Swing component
+ * is constructed, so this can run on a server JVM (e.g. with <code>-Djava.awt.headless=true</code>).
+ * The sessions are only read, never written.
+ *
+ * @author Marc S. Schneider
+ */
+public class StockerDaemon {
+
+	private static final StockerLogger log = StockerLogger.getLogger(StockerDaemon.class);
+
+	private StockerControl control;
+	private ArrayList<IAlarmEventListener> sinks = new ArrayList<IAlarmEventListener>();
+	private CountDownLatch stopped = new CountDownLatch(1);
+
+	/**
+	 * Construct a new StockerDaemon: Create the sinks and the headless controller.
+	 * @param outputs the sinks for the alarm events: <code>stdout</code>, <code>file:&lt;path&gt;</code> (appended)
+	 * 		  or <code>socket:&lt;port&gt;</code> (local clients connect to this port)
+	 * @throws IOException if a file cannot be opened or a port cannot be bound
+	 */
+	public StockerDaemon(ArrayList<String> outputs) throws IOException {
+		for (String output : outputs) {
+			if (output.equals("stdout")) {
+				sinks.add(new AlarmEventWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), false));
+			}
+			else if (output.startsWith("file:")) {
+				sinks.add(new AlarmEventWriter(new OutputStreamWriter(
+						new FileOutputStream(output.substring(5), true), StandardCharsets.UTF_8), true));
+			}
+			else if (output.startsWith("socket:")) {
+				try {
+					sinks.add(new AlarmEventSocketServer(Integer.parseInt(output.substring(7))));
+				} catch (NumberFormatException e) {
+					throw new IOException("Invalid port: " + output.substring(7));
+				}
+			}
+			else {
+				throw new IOException("Unknown output: " + output);
+			}
+		}
+		this.control = new StockerControl(true);
+		for (IAlarmEventListener sink : sinks) {
+			control.addAlarmEventListener(sink);
+		}
+	}
+
+	/**
+	 * Load the session and monitor its alarms until the JVM is shut down (e.g. by Ctrl+C or SIGTERM).
+	 * @param sessionName the name of the session to be monitored, or null for the active session
+	 * @return false if the session does not exist, true after the daemon has been stopped
+	 */
+	public boolean run(String sessionName) {
+		Set<String> symbols = control.restoreSessionHeadless(sessionName == null ? control.getCurrentSessionName()
+				: sessionName);
+		if (symbols == null) {
+			close();
+			return false;
+		}
+		log.info("Monitoring {} symbols of session {}", symbols.size(), control.getCurrentSessionName());
+
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				close();
+				stopped.countDown();
+			}
+		});
+		try {
+			stopped.await();
+		} catch (InterruptedException e) { } // stop
+		return true;
+	}
+
+	/**
+	 * Stop the push connection and close the sinks.
+	 */
+	private void close() {
+		control.shutdown(false);
+		for (IAlarmEventListener sink : sinks) {
+			try {
+				((Closeable) sink).close();
+			} catch (IOException e) { } // closing anyway
+		}
+	}
+
+	/**
+	 * Run the daemon.
+	 * @param args the configuration: <code>session=&lt;name&gt;</code> (default: the active session) and any number
+	 * 		  of <code>out=&lt;sink&gt;</code> (default: <code>out=stdout</code>; see {@link #StockerDaemon(ArrayList)})
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		String sessionName = null;
+		ArrayList<String> outputs = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.startsWith("session=")) {
+				sessionName = arg.substring(8);
+			}
+			else if (arg.startsWith("out=")) {
+				outputs.add(arg.substring(4));
+			}
+		}
+		if (outputs.isEmpty()) {
+			outputs.add("stdout");
+		}
+		try {
+			if (!new StockerDaemon(outputs).run(sessionName)) {
+				System.exit(1);
+			}
+		} catch (IOException e) {
+			System.err.println("StockerDaemon could not be started: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -9,6 +9,11 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.time.Instant;
 import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -17,12 +22,20 @@ import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 
 import stocker.dialog.ISearchDataReceiver;
+import stocker.metrics.HttpRequestEvent;
+import stocker.metrics.LatencyHistogram;
+import stocker.metrics.LatencyMonitor;
+import stocker.metrics.MetricsRegistry;
+import stocker.metrics.PushReconnectEvent;
+import stocker.metrics.RateMeter;
 import stocker.model.ChartWatchItem;
 import stocker.model.WatchlistItem;
 import stocker.util.Candle;
 import stocker.util.CandleParser;
+import stocker.util.ELatencyStage;
 import stocker.util.EChartInterval;
 import stocker.util.StockerDataManagerException;
+import stocker.util.StockerLogger;
 import stocker.view.StockerChart;
 import stocker.view.Watchlist;
 
@@ -34,6 +47,8 @@ import stocker.view.Watchlist;
  */
 public class StockerDataManager implements IPushReceiver {
 
+	private static final StockerLogger log = StockerLogger.getLogger(StockerDataManager.class);
+
 	private StockerControl control;
 	private WSPushClient pushClient;
 	private volatile boolean pushInitialized = false;
@@ -42,7 +57,20 @@ public class StockerDataManager implements IPushReceiver {
 	private LinkedList<Watchlist> listeningWatchlists;
 	private LinkedList<StockerChart> listeningCharts;
 	private AlarmManager alarmManager;
-	private LinkedList<String> pushSymbols;
+	private CandleAggregator aggregator = new CandleAggregator(); // builds the bars for the charts
+	private BarCache barCache = new BarCache(aggregator); // recently pulled bars, kept up to date
+	private SeriesPrefetcher prefetcher = new SeriesPrefetcher(this);
+	private AtomicInteger foregroundPulls = new AtomicInteger(); // pulls for charts which are waiting for them
+	private final LinkedList<String> pushSymbols = new LinkedList<String>(); // guarded by its own lock
+	private MetricsRegistry metrics = MetricsRegistry.getInstance();
+	// the metrics of the push path are looked up once, not per tick
+	private final LongAdder pushFrames = metrics.counter(MetricsRegistry.PUSH_FRAMES);
+	private final LongAdder pushFramesInvalid = metrics.counter(MetricsRegistry.PUSH_FRAMES_INVALID);
+	private final LatencyHistogram pushParse = metrics.timer(MetricsRegistry.PUSH_PARSE);
+	private final RateMeter pushTicks = metrics.meter(MetricsRegistry.PUSH_TICKS);
+	// the tick meters of the subscribed symbols, added and removed together with their subscription
+	private final ConcurrentHashMap<String, RateMeter> symbolTickMeters = new ConcurrentHashMap<String, RateMeter>();
+	private final ConcurrentHashMap<String, HttpMetrics> httpMetrics = new ConcurrentHashMap<String, HttpMetrics>();
 	
 	private final int minCandles = 250; // minimum number of candles to be pulled
 
@@ -51,11 +79,31 @@ public class StockerDataManager implements IPushReceiver {
 	 * @param control a reference to the {@link StockerControl} that this data manager is meant to service
 	 */
 	public StockerDataManager(StockerControl control) {
+		this(control, true);
+	}
+
+	/** 
+	 * Construct a new StockerDataManager, optionally without connecting for push notifications (default visibility,
+	 * as this is only intended for standalone use, e.g. in benchmarks).
+	 * @param control a reference to the {@link StockerControl} that this data manager is meant to service
+	 * @param initializePush true to initialize the push connection, false to skip it
+	 */
+	StockerDataManager(StockerControl control, boolean initializePush) {
 		this.control = control;
 		this.listeningWatchlists = new LinkedList<Watchlist>();
 		this.listeningCharts = new LinkedList<StockerChart>();
-		this.pushSymbols = new LinkedList<String>();
+		metrics.registerGauge(MetricsRegistry.PUSH_SUBSCRIPTIONS, new LongSupplier() {
+			@Override
+			public long getAsLong() {
+				synchronized (pushSymbols) {
+					return pushSymbols.size();
+				}
+			}
+		});
 		
+		if (!initializePush) {
+			return;
+		}
 		// do the push initialization in a separate thread so it won't block main window appearance
 		new Thread() {
 			@Override
@@ -63,7 +111,7 @@ public class StockerDataManager implements IPushReceiver {
 				try {
 					initializePush();
 				} catch (StockerDataManagerException e) { 
-					System.err.println("Problem while initalizing push connection: " + e.getMessage());
+					log.warn("Problem while initializing push connection: {}", e.getMessage());
 				}
 			};
 		}.start();
@@ -109,6 +157,14 @@ public class StockerDataManager implements IPushReceiver {
 		this.alarmManager = am;
 	}
 	
+	/**
+	 * Get the aggregator which builds the bars of all intervals from the push updates.
+	 * @return the {@link CandleAggregator}
+	 */
+	public CandleAggregator getCandleAggregator() {
+		return aggregator;
+	}
+	
 	////////////////////
 	// Searching for symbols
 	////////////////////
@@ -128,10 +184,10 @@ public class StockerDataManager implements IPushReceiver {
 		sb.append(control.getPullURL()).append("/").append("search").append("/");
 		sb.append("?q=").append(qString).append("&token=").append(control.getAPIToken());
 		String query = sb.toString();
-		System.out.println("query = " + query);
+		log.debug("search: query = {}", query);
 
 		try {
-			JsonObject jo = httpRequest(query);
+			JsonObject jo = httpRequest(query, "search");
 			int count = jo.get("count").getAsInt();
 			JsonArray data = jo.get("result").getAsJsonArray();
 			String[][] result = new String[count][2];
@@ -158,14 +214,14 @@ public class StockerDataManager implements IPushReceiver {
 		URI uri = null;
 		try {
 			while (control.getAPIToken().isBlank()) {
-				System.out.println("initializePush: Waiting for API key");
+				log.info("initializePush: Waiting for API key");
 				try {
 					Thread.sleep(5000L);
 				} catch (InterruptedException e) { }
 			}
 			String url = new StringBuilder().append(control.getPushURL()).append("/?token=")
 					.append(control.getAPIToken()).toString();
-			System.out.println("dm, initializePush: URL = " + url);
+			log.debug("initializePush: URL = {}", url);
 			uri = new URI(url);
 		} catch (URISyntaxException e) {
 			throw new StockerDataManagerException("Fehler beim Initialisieren der Push-Verbindung zu " + control.getPullURL() + ":\n" + e.getMessage());
@@ -185,19 +241,20 @@ public class StockerDataManager implements IPushReceiver {
 		new Thread() {
 			@Override
 			public void run() {
-				System.out.println("Reconnect thread, stopConnect: " + stopConnectThread);
+				log.debug("Reconnect thread, stopConnect: {}", stopConnectThread);
 				while (!pushClient.isConnected() && !stopConnectThread) {
-					System.out.println("(Re)trying to connect push...");
+					log.info("(Re)trying to connect push...");
+					metrics.counter(MetricsRegistry.PUSH_CONNECT_ATTEMPTS).increment();
 					try {
 						Thread.sleep(5000L);
 						pushClient.closeBlocking();  // close gracefully - likely with no effect
 						pushClient = new WSPushClient(reconnectURI, StockerDataManager.this); // Clients are not reusable, so get a new one
 						if (pushClient.connectBlocking()) {
 							pushInitialized = true;
-							System.out.println("Reconnect thread, SUCCESS!");
+							log.info("Push connection re-established");
 						}
 					} catch (InterruptedException iex) { 
-						System.out.println("Reconnect thread, EXCEPTION!");
+						log.debug("Reconnect thread interrupted");
 					}
 				}
 			};
@@ -213,12 +270,18 @@ public class StockerDataManager implements IPushReceiver {
 		new Thread() { // this is neither GUI-related nor time-critical, so do it entirely in a separate thread
 			@Override
 			public void run() {
-				boolean alreadySubscribed = pushSymbols.contains(symbol);
-				pushSymbols.add(symbol); // we add it even if it's already there, so that it is known that it's now used one more time
+				boolean alreadySubscribed;
+				synchronized (pushSymbols) {
+					alreadySubscribed = pushSymbols.contains(symbol);
+					pushSymbols.add(symbol); // we add it even if it's already there, so that it is known that it's now used one more time
+					if (!alreadySubscribed) {
+						symbolTickMeters.put(symbol, metrics.meter(MetricsRegistry.PUSH_TICKS_SYMBOL + symbol));
+					}
+				}
 				
 				if (!alreadySubscribed) { // we send the request do the data provider only if we aren't subscribed yet
 					while (!pushInitialized) { // if initialization on construction has failed: try again now!
-						System.out.println("add symbol to push: (re)trying...");
+						log.debug("add symbol to push: (re)trying...");
 						try {
 							Thread.sleep(5000); // wait until push connection has been initialized (done in constructor)
 						} catch (InterruptedException e) { }
@@ -228,7 +291,7 @@ public class StockerDataManager implements IPushReceiver {
 							.append("\"\n}").toString();
 					try {
 						pushClient.send(query);
-						System.out.println("Added to push: " + query);
+						log.debug("Added to push: {}", symbol);
 					} catch (Exception e) { // likely because connection doesn't exist anymore
 						// Notify controller (which should show a warning message to the user)
 						control.onPushSubscriptonFailed(symbol);
@@ -243,17 +306,29 @@ public class StockerDataManager implements IPushReceiver {
 	 * @param symbol the ticker symbol for which push notifications should be stopped
 	 */
 	public void removeSymbolFromPush(String symbol) {
-		pushSymbols.remove(symbol);
-		if (pushInitialized && !pushSymbols.contains(symbol)) {
+		boolean isUnused;
+		synchronized (pushSymbols) {
+			pushSymbols.remove(symbol);
+			isUnused = !pushSymbols.contains(symbol);
+			if (isUnused) {
+				symbolTickMeters.remove(symbol);
+				metrics.removeMeter(MetricsRegistry.PUSH_TICKS_SYMBOL + symbol);
+			}
+		}
+		if (isUnused) {
+			prefetcher.cancel(symbol);
+			barCache.invalidate(symbol); // would not be kept up to date any more
+		}
+		if (pushInitialized && isUnused) {
 			// remove only if it's actually no longer in the push symbols. It might have been in there multiple
 			// times because several plots and the watchlist have added it. In that case, someone still needs it.
 			String query = new StringBuilder().append("{\n\"type\": \"unsubscribe\",\n\"symbol\": \"").append(symbol)
 					.append("\"\n}").toString();
 			try {
 				this.pushClient.send(query);
-				System.out.println("Removed from push: " + query);
+				log.debug("Removed from push: {}", symbol);
 			} catch (Exception e) { // possibly because push is not connected any more due to whatever reason
-				System.out.println("Symbol " + symbol + " couldn't be removed from push: Maybe push connection is interrupted?");
+				log.info("Symbol {} couldn't be removed from push: Maybe push connection is interrupted?", symbol);
 				// There is no need to notify the user via JOptionPane as there is no action required.
 				// When the push connection is re-established, we will only re-subscribe to this symbol 
 				// if a listener (watchlist or chart) is present.
@@ -268,6 +343,27 @@ public class StockerDataManager implements IPushReceiver {
 	public boolean isPushInitialized() {
 		return pushInitialized;
 	}
+
+	/**
+	 * Returns whether the given symbol is subscribed for push notifications (may be called from any thread).
+	 * @param symbol the ticker symbol
+	 * @return true if subscribed, false otherwise
+	 */
+	private boolean isPushSymbol(String symbol) {
+		synchronized (pushSymbols) {
+			return pushSymbols.contains(symbol);
+		}
+	}
+
+	/**
+	 * Get a copy of the symbols which are subscribed for push notifications (may be called from any thread).
+	 * @return a new list of the symbols, each as often as it has been subscribed
+	 */
+	private LinkedList<String> getPushSymbols() {
+		synchronized (pushSymbols) {
+			return new LinkedList<String>(pushSymbols);
+		}
+	}
 	
 	/**
 	 * Gracefully close the push connection to the data provider (e.g. if the application is shut down or 
@@ -276,7 +372,7 @@ public class StockerDataManager implements IPushReceiver {
 	public void stopPush() { 
 		if (pushClient != null && pushClient.isConnected()) {
 			// Unsubscribe from all symbols (probably not really necessary)
-			LinkedList<String> pushSymbolsCopy = new LinkedList<String>(pushSymbols);
+			LinkedList<String> pushSymbolsCopy = getPushSymbols();
 			for (String s : pushSymbolsCopy) {
 				removeSymbolFromPush(s);
 			}
@@ -294,32 +390,45 @@ public class StockerDataManager implements IPushReceiver {
 	 */
 	@Override
 	public void pushMessageIncoming(String message) {
+		long parseStart = System.nanoTime();
+		pushFrames.increment();
 		JsonObject jo = null;
 		JsonObject data = null;
 		try {
 			jo = JsonParser.parseString(message).getAsJsonObject();
 			data = (JsonObject) ((JsonArray) jo.get("data")).get(0);
 		} catch (Exception e) { // No point in throwing an error as this is only called by WSPushClient
+			pushFramesInvalid.increment();
 			if (e.getMessage() != null) { 
-				System.err.println("Error while parsing push message: " + e.getMessage());
+				log.warn("Error while parsing push message: {}", e.getMessage());
 			}
 			return;
 		}
 
 		//System.out.println(data);
 		String symbol = data.get("s").getAsString();
-		long time = data.get("t").getAsLong() / 1000; // real time data is in ms instead of s!
+		long timeMillis = data.get("t").getAsLong();
+		long time = timeMillis / 1000; // real time data is in ms instead of s!
 		double price = data.get("p").getAsDouble();
+		JsonElement v = data.get("v");
+		double volume = (v == null || v.isJsonNull() ? 0.0 : v.getAsDouble());
+		pushParse.record(System.nanoTime() - parseStart);
+		pushTicks.mark();
+		RateMeter symbolTicks = symbolTickMeters.get(symbol); // null if a tick arrives after the unsubscription
+		if (symbolTicks != null) {
+			symbolTicks.mark();
+		}
+		LatencyMonitor.record(ELatencyStage.DECODE);
+		LatencyMonitor.recordLatency(ELatencyStage.RECEIVE, (System.currentTimeMillis() - timeMillis) * 1000000L);
 		
 		for (Watchlist w : listeningWatchlists) {
 			w.onPushUpdate(symbol, time, price);
 		}
 		
-		for (StockerChart w : listeningCharts) {
-			w.onPushUpdate(symbol, time, price);
-		}
+		aggregator.onTick(symbol, time, price, volume); // the charts get their bars from here
 		
-		alarmManager.onPushUpdate(symbol, time, price);
+		alarmManager.onPushUpdate(symbol, time, price, volume);
+		LatencyMonitor.record(ELatencyStage.DISPATCH);
 	}
 	
 	/**
@@ -327,7 +436,14 @@ public class StockerDataManager implements IPushReceiver {
 	 */
 	@Override
 	public void websocketConnectionClosedWithError() {
-		System.out.println("Push Connection closed with error, trying to connect again...");
+		log.warn("Push connection closed with error, trying to connect again...");
+		metrics.counter(MetricsRegistry.PUSH_RECONNECTS).increment();
+		barCache.clear(); // ticks are missed until the connection is back
+		PushReconnectEvent event = new PushReconnectEvent();
+		if (event.shouldCommit()) {
+			event.subscriptions = getPushSymbols().size();
+			event.commit();
+		}
 		
 		// Try to reconnect (non-blocking in a separate thread)
 		new Thread() {
@@ -336,20 +452,20 @@ public class StockerDataManager implements IPushReceiver {
 				pushInitialized = false;
 				try {
 					initializePush();
-					System.out.println("push established!");
+					log.info("Push connection established");
 				} catch (Exception e) {
 					// called from WSPushClient only, so there is no point in throwing an error
-					System.out.println("Push connection could not be initialized: " + e.getMessage());
+					log.warn("Push connection could not be initialized: {}", e.getMessage());
 				}
 				// re-subscribe to all previously active push symbols
-				System.out.println("push initialized: " + pushInitialized);
+				log.debug("push initialized: {}", pushInitialized);
 		
 				while (!pushInitialized) { // wait until initializePush() has a new connection established
 					try {
 						Thread.sleep(5000);
 					} catch (InterruptedException e) { }
 				}
-				LinkedList<String> pushSymbolsCopy = new LinkedList<String>(pushSymbols); 
+				LinkedList<String> pushSymbolsCopy = getPushSymbols(); 
 				for (String s : pushSymbolsCopy) { // remove first to be sure that no subscription is present any more 
 					removeSymbolFromPush(s);
 				}
@@ -369,6 +485,7 @@ public class StockerDataManager implements IPushReceiver {
 	 */
 	public void switchDataProvider() {
 		this.pushInitialized = false;
+		barCache.clear();
 		
 		// Ask watchlist(s) to pull new quotes
 		for (Watchlist wl : listeningWatchlists) {
@@ -395,7 +512,7 @@ public class StockerDataManager implements IPushReceiver {
 					Thread.sleep(6000); // give any other running connection thread from initializePush() some time to quit
 				} catch (InterruptedException e2) { } 
 				stopConnectThread = false;
-				LinkedList<String> pushSymbolsCopy = new LinkedList<String>(pushSymbols); 
+				LinkedList<String> pushSymbolsCopy = getPushSymbols(); 
 				for (String s : pushSymbolsCopy) { 
 					removeSymbolFromPush(s);
 				}
@@ -405,7 +522,7 @@ public class StockerDataManager implements IPushReceiver {
 				try {
 					initializePush();
 				} catch (StockerDataManagerException e) {
-					e.printStackTrace();
+					log.error("Push connection could not be re-initialized: {}", e.getMessage());
 				}
 				while(!pushInitialized) {
 					try {
@@ -425,12 +542,73 @@ public class StockerDataManager implements IPushReceiver {
 	////////////////////
 	/**
 	 * Pulls plot data according to the properties of the provider {@link ChartWatchItem}, and writes the 
-	 * result into the same {@link ChartWatchItem}.
+	 * result into the same {@link ChartWatchItem}. The bars are taken from the cache if possible (see 
+	 * {@link BarCache}). The {@link SeriesPrefetcher} pauses while this is running.
 	 * @param w the {@link ChartWatchItem} which contains information about the data to be pulled; the result
 	 *        will be written into that same {@link ChartWatchItem}
 	 * @throws StockerDataManagerException
 	 */
 	public void getPlotData(ChartWatchItem w) throws StockerDataManagerException {
+		foregroundPulls.incrementAndGet();
+		try {
+			loadPlotData(w, null, null);
+		} finally {
+			foregroundPulls.decrementAndGet();
+		}
+	}
+	
+	/**
+	 * Get the prefetcher which warms the bar cache in the background.
+	 * @return the {@link SeriesPrefetcher}
+	 */
+	public SeriesPrefetcher getPrefetcher() {
+		return prefetcher;
+	}
+	
+	/**
+	 * Returns whether a chart is currently waiting for a pull (used by the {@link SeriesPrefetcher} to give way).
+	 * @return true if a pull for a chart is running, false otherwise
+	 */
+	boolean isForegroundPullActive() {
+		return foregroundPulls.get() > 0;
+	}
+	
+	/**
+	 * Returns whether prefetching the bars of the given symbol and interval would warm the cache: They must not be
+	 * cached yet, and the symbol must be subscribed for push updates (otherwise they would not be cached).
+	 * @param symbol the symbol
+	 * @param interval the interval
+	 * @return true if prefetching is useful, false otherwise
+	 */
+	boolean isPrefetchUseful(String symbol, EChartInterval interval) {
+		return pushInitialized && isPushSymbol(symbol) && !barCache.contains(symbol, interval);
+	}
+	
+	/**
+	 * Get plot data for a background client (e.g. the {@link SeriesPrefetcher} or the {@link Screener}) like 
+	 * {@link #getPlotData(ChartWatchItem)}, but without making the {@link SeriesPrefetcher} give way. Every HTTP 
+	 * request of the load is charged to the given limiter.
+	 * @param w the {@link ChartWatchItem} which contains information about the data to be pulled; the result
+	 *        will be written into that same {@link ChartWatchItem}
+	 * @param limiter the rate limit of the client
+	 * @param cancelled returns true if waiting for the rate limit should be given up, may be null
+	 * @throws StockerDataManagerException also if cancelled or interrupted while waiting for the rate limit
+	 */
+	void getPlotDataInBackground(ChartWatchItem w, PullRateLimiter limiter, BooleanSupplier cancelled) 
+			throws StockerDataManagerException {
+		loadPlotData(w, limiter, cancelled);
+	}
+	
+	/**
+	 * Get the plot data from the cache or pull them (see {@link #getPlotData(ChartWatchItem)}).
+	 * @param w the {@link ChartWatchItem} which contains information about the data to be pulled; the result
+	 *        will be written into that same {@link ChartWatchItem}
+	 * @param limiter the rate limit which every request is charged to, or null for the pulls of a chart
+	 * @param cancelled returns true if waiting for the rate limit should be given up, may be null
+	 * @throws StockerDataManagerException
+	 */
+	private void loadPlotData(ChartWatchItem w, PullRateLimiter limiter, BooleanSupplier cancelled) 
+			throws StockerDataManagerException {
 		// Calculate start and end times
 		long timeTo = Instant.now().getEpochSecond();
 		long timeFrom = 0L;
@@ -463,21 +641,62 @@ public class StockerDataManager implements IPushReceiver {
 			timeFrom = timeTo - 450L * 60L;
 			break;
 		}
+		// the indicators of the chart need some more candles before the first shown one: extend the period accordingly
+		int needed = minCandles + w.getWarmup();
+		timeFrom = timeTo - (timeTo - timeFrom) * needed / minCandles;
 
-		pullData(w, control.getPullURL(), w.getKey(), w.getInterval(), timeFrom, timeTo, control.getAPIToken());
-		System.out.println(w.getKey() + ": Got " + w.getCandles().size() + " candles, timeFrom = " + timeFrom + ", timeTo = " + timeTo);
+		// The bars might be available (or derivable from finer ones) in memory: then pull only the gap before them
+		LinkedList<Candle> cached = barCache.get(w.getKey(), w.getInterval());
+		if (cached != null && (cached.size() >= needed 
+				|| (needed <= minCandles && barCache.contains(w.getKey(), w.getInterval())))) {
+			metrics.counter(MetricsRegistry.PLOT_CACHE_HITS).increment();
+			w.setCandles(cached, w.getInterval());
+			log.debug("{}: Got {} candles from the cache", w.getKey(), cached.size());
+			return;
+		}
+		int cachedSize = 0;
+		long pullTo = timeTo;
+		if (cached != null) {
+			metrics.counter(MetricsRegistry.PLOT_CACHE_PARTIAL_HITS).increment();
+			cachedSize = cached.size();
+			pullTo = cached.getFirst().time - 1;
+		}
+		
+		try {
+			pullData(w, control.getPullURL(), w.getKey(), w.getInterval(), timeFrom, pullTo, control.getAPIToken(),
+					limiter, cancelled);
+			log.debug("{}: Got {} candles, timeFrom = {}, timeTo = {}", w.getKey(), w.getCandles().size(), timeFrom, pullTo);
+			
+			// if not enough candles and interval smaller than "day", re-pull from an earlier time
+			if (w.getCandles().size() + cachedSize < needed && w.getInterval().inSeconds() < 60L*60L*23L) { 
+				timeFrom -= (long)(1.8*(timeTo-timeFrom)); // pull twice the interval we haven't got enough
+				pullData(w, control.getPullURL(), w.getKey(), w.getInterval(), Math.max(timeFrom, 0L), pullTo, 
+						control.getAPIToken(), limiter, cancelled);
+				log.debug("Re-pulled larger time frame: {}, size: {}", Math.max(timeFrom, 0L), w.getCandles().size());
+				int i = 0;
+				while (w.getCandles().size() + cachedSize < needed && i++ < 2) { // if still not enough candles
+					timeFrom -= 60L*60L*24L; // subtract a whole day (e.g. a weekend day)
+					pullData(w, control.getPullURL(), w.getKey(), w.getInterval(), Math.max(timeFrom, 0L), pullTo, 
+							control.getAPIToken(), limiter, cancelled);
+					log.debug("Re-pulled larger time frame: {}, size: {}", Math.max(timeFrom, 0L), w.getCandles().size());
+				}
+			}
+		} catch (StockerDataManagerException e) {
+			if (cached == null) {
+				throw e;
+			}
+			w.setCandles(new LinkedList<Candle>(), w.getInterval()); // e.g. no data in the gap: use the cached bars only
+		}
 		
-		// if not enough candles and interval smaller than "day", re-pull from an earlier time
-		if (w.getCandles().size() < minCandles && w.getInterval().inSeconds() < 60L*60L*23L) { 
-			timeFrom -= (long)(1.8*(timeTo-timeFrom)); // pull twice the interval we haven't got enough
-			pullData(w, control.getPullURL(), w.getKey(), w.getInterval(), Math.max(timeFrom, 0L), timeTo, control.getAPIToken());
-			System.out.println("Re-pulled larger time frame: " + Math.max(timeFrom, 0L) + ", size: " + w.getCandles().size());
-			int i = 0;
-			while (w.getCandles().size() < minCandles && i++ < 2) { // if still not enough candles
-				timeFrom -= 60L*60L*24L; // subtract a whole day (e.g. a weekend day)
-				pullData(w, control.getPullURL(), w.getKey(), w.getInterval(), Math.max(timeFrom, 0L), timeTo, control.getAPIToken());
-				System.out.println("Re-pulled larger time frame: " + Math.max(timeFrom, 0L) + ", size: " + w.getCandles().size());
+		if (cached != null) { // append the cached bars behind the pulled gap
+			LinkedList<Candle> candles = w.getCandles();
+			while (!candles.isEmpty() && candles.getLast().time >= cached.getFirst().time) {
+				candles.removeLast();
 			}
+			candles.addAll(cached);
+		}
+		if (pushInitialized && isPushSymbol(w.getKey())) { // otherwise the cache would not be kept up to date
+			barCache.put(w.getKey(), w.getInterval(), w.getCandles());
 		}
 	}
 	
@@ -490,10 +709,21 @@ public class StockerDataManager implements IPushReceiver {
 	 * @param from
 	 * @param to
 	 * @param token
+	 * @param limiter the rate limit which the request is charged to, or null
+	 * @param cancelled returns true if waiting for the rate limit should be given up, may be null
 	 * @throws StockerDataManagerException
 	 */
 	private void pullData(ChartWatchItem w, String source, String symbol, EChartInterval interval,
-			long from, long to, String token) throws StockerDataManagerException {
+			long from, long to, String token, PullRateLimiter limiter, BooleanSupplier cancelled) 
+			throws StockerDataManagerException {
+		try {
+			if (limiter != null && !limiter.acquire(cancelled)) {
+				throw new StockerDataManagerException("Pull cancelled");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new StockerDataManagerException("Interrupted while waiting for the rate limit");
+		}
 		// this assumes that a WatchItem for the pulled data already exists!
 		StringBuilder sb = new StringBuilder();
 		String category = "stock"; // no need to distinguish for crypto or forex
@@ -501,9 +731,9 @@ public class StockerDataManager implements IPushReceiver {
 		sb.append("?symbol=").append(symbol).append("&resolution=").append(interval.toPullString());
 		sb.append("&from=").append(from).append("&to=").append(to).append("&token=").append(token);
 		String query = sb.toString();
-		System.out.println("pull data: query = " + query);
+		log.debug("pull data: query = {}", query);
 
-		JsonObject jo = httpRequest(query);
+		JsonObject jo = httpRequest(query, "stock/candle");
 
 		String s = jo.get("s").getAsString();
 		if (!s.equals("ok")) {
@@ -524,9 +754,9 @@ public class StockerDataManager implements IPushReceiver {
 		sb.append(control.getPullURL()).append("/").append("quote");
 		sb.append("?symbol=").append(w.getKey()).append("&token=").append(control.getAPIToken());
 		String query = sb.toString();
-		System.out.println("pull quote: query = " + query);
+		log.debug("pull quote: query = {}", query);
 
-		JsonObject jo = httpRequest(query);
+		JsonObject jo = httpRequest(query, "quote");
 		
 		double c = jo.get("c").getAsDouble();
 		if (c == 0.0) {
@@ -540,45 +770,118 @@ public class StockerDataManager implements IPushReceiver {
 	}
 
 	/**
-	 * Perform an actual HTTP request.
-	 * @param query
-	 * @return
+	 * Perform an actual HTTP request. Counts the request, its status and size and measures its duration in the
+	 * {@link MetricsRegistry}, and emits a {@link HttpRequestEvent} if a flight recording is running.
+	 * @param query the complete URL of the request
+	 * @param endpoint the endpoint of the request (e.g. quote or stock/candle), used for the metrics
+	 * @return the answer as a JsonObject (arrays are packed into an object with an empty name)
 	 * @throws StockerDataManagerException
 	 */
-	private JsonObject httpRequest(String query) throws StockerDataManagerException {
-		String data = "";
+	private JsonObject httpRequest(String query, String endpoint) throws StockerDataManagerException {
+		HttpMetrics hm = httpMetrics.get(endpoint);
+		if (hm == null) {
+			hm = new HttpMetrics(metrics, endpoint);
+			HttpMetrics existing = httpMetrics.putIfAbsent(endpoint, hm); // someone else might have been faster
+			if (existing != null) {
+				hm = existing;
+			}
+		}
+		HttpRequestEvent event = new HttpRequestEvent();
+		event.begin();
+		event.endpoint = endpoint;
+		event.status = -1;
 		try {
-			HttpURLConnection conn = (HttpURLConnection) new URL(query).openConnection();
-			conn.setRequestMethod("GET");
-			conn.connect();
-			int code = conn.getResponseCode();
-			if (code >= 400) {
-				throw new StockerDataManagerException("HTTP-Anfrage fehlgeschlagen, Status: " + code);
+			long start = System.nanoTime();
+			String data = "";
+			try {
+				HttpURLConnection conn = (HttpURLConnection) new URL(query).openConnection();
+				conn.setRequestMethod("GET");
+				conn.connect();
+				int code = conn.getResponseCode();
+				event.status = code;
+				hm.status(code).increment();
+				if (code >= 400) {
+					throw new StockerDataManagerException("HTTP-Anfrage fehlgeschlagen, Status: " + code);
+				}
+				try (BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
+					data = in.readLine();
+					if (data == null) {
+						data = "";
+					}
+					event.bytes = data.length(); // answers are plain ASCII, so chars are bytes
+					hm.bytes.add(data.length());
+					if (data.equals("<!DOCTYPE html>")) {
+						throw new StockerDataManagerException("Fehler: HTML-Daten empfangen, möglicherweise falsche Parameter bei Anfrage");
+					}
+				}
+			} catch (IOException ex) {
+				hm.errors.increment();
+				throw new StockerDataManagerException("IOException: " + ex.getMessage());
+			} finally {
+				hm.time.record(System.nanoTime() - start);
 			}
-			try (BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-				data = in.readLine();
-				if (data.equals("<!DOCTYPE html>")) {
-					throw new StockerDataManagerException("Fehler: HTML-Daten empfangen, möglicherweise falsche Parameter bei Anfrage");
+	
+			long parseStart = System.nanoTime();
+			JsonObject jo = null;
+			try {
+				JsonElement el = JsonParser.parseString(data);
+				if (el.isJsonObject()) {
+					jo = el.getAsJsonObject();
+				} else { // if it's not an object, it's (likely) an array
+					JsonArray jarr = JsonParser.parseString(data).getAsJsonArray();
+					jo = new JsonObject();
+					jo.add("", jarr); // pack the array into an object (beacause this is expected as return value)
 				}
+			} catch (JsonParseException | IllegalStateException e) {
+				throw new StockerDataManagerException("Error while reading JSON file: " + e.getMessage());
+			} finally {
+				hm.parse.record(System.nanoTime() - parseStart);
 			}
-		} catch (IOException ex) {
-			throw new StockerDataManagerException("IOException: " + ex.getMessage());
+			return jo;
+		} finally {
+			event.commit(); // only has an effect if a flight recording is running
 		}
+	}
 
-		JsonObject jo = null;
-		try {
-			JsonElement el = JsonParser.parseString(data);
-			if (el.isJsonObject()) {
-				jo = el.getAsJsonObject();
-			} else { // if it's not an object, it's (likely) an array
-				JsonArray jarr = JsonParser.parseString(data).getAsJsonArray();
-				jo = new JsonObject();
-				jo.add("", jarr); // pack the array into an object (beacause this is expected as return value)
+	/**
+	 * The metrics of the requests to one endpoint (see {@link #httpRequest(String, String)}), looked up once per
+	 * endpoint and status instead of once per request.
+	 */
+	private static class HttpMetrics {
+		private final MetricsRegistry metrics;
+		private final String endpoint;
+		private final LongAdder bytes;
+		private final LongAdder errors;
+		private final LatencyHistogram time;
+		private final LatencyHistogram parse;
+		private final ConcurrentHashMap<Integer, LongAdder> statusCounters = new ConcurrentHashMap<Integer, LongAdder>();
+
+		/**
+		 * Look up the metrics of an endpoint.
+		 * @param metrics the registry
+		 * @param endpoint the endpoint (e.g. quote or stock/candle)
+		 */
+		private HttpMetrics(MetricsRegistry metrics, String endpoint) {
+			this.metrics = metrics;
+			this.endpoint = endpoint;
+			this.bytes = metrics.counter(MetricsRegistry.HTTP_BYTES + endpoint);
+			this.errors = metrics.counter(MetricsRegistry.HTTP_REQUESTS + endpoint + ".error");
+			this.time = metrics.timer(MetricsRegistry.HTTP_TIME + endpoint);
+			this.parse = metrics.timer(MetricsRegistry.HTTP_PARSE + endpoint);
+		}
+
+		/**
+		 * Get the counter of the requests which have been answered with the given status.
+		 * @param code the HTTP status code
+		 * @return the counter
+		 */
+		private LongAdder status(int code) {
+			LongAdder c = statusCounters.get(code);
+			if (c == null) {
+				c = metrics.counter(MetricsRegistry.HTTP_REQUESTS + endpoint + "." + code);
+				statusCounters.putIfAbsent(code, c); // the registry returns the same counter to everybody
 			}
-		} catch (JsonParseException | IllegalStateException e) {
-			throw new StockerDataManagerException("Error while reading JSON file: " + e.getMessage());
+			return c;
 		}
-		return jo;
 	}
-
 }
@@ -5,6 +5,9 @@ import java.net.URI;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 
+import stocker.metrics.LatencyMonitor;
+import stocker.util.StockerLogger;
+
 /**
  * A {@link WebSocketClient} to receive push updates for the registered symbols.
  * 
@@ -12,6 +15,8 @@ import org.java_websocket.handshake.ServerHandshake;
  */
 public class WSPushClient extends WebSocketClient {
 
+	private static final StockerLogger log = StockerLogger.getLogger(WSPushClient.class);
+
 	private boolean isConnected = false;
 	private IPushReceiver receiver;
 
@@ -32,7 +37,7 @@ public class WSPushClient extends WebSocketClient {
 	@Override
 	public void onOpen(ServerHandshake handshakedata) {
 		this.isConnected = true;
-		System.out.println("WSPushClient: Connection open");
+		log.info("Push connection open");
 	}
 
 	/**
@@ -41,11 +46,15 @@ public class WSPushClient extends WebSocketClient {
 	 */
 	@Override
 	public void onMessage(String message) {
-		if (message == null)
-			System.out.println("null message!");
+		if (message == null) {
+			log.warn("null message!");
+			return;
+		}
+		LatencyMonitor.frameReceived(); // all latencies of this frame are measured from here
 		if (!message.contains("\"type\":\"ping\"")) {
 			receiver.pushMessageIncoming(message);
 		}
+		LatencyMonitor.frameDone();
 	}
 
 	/**
@@ -57,8 +66,7 @@ public class WSPushClient extends WebSocketClient {
 	 */
 	@Override
 	public void onClose(int code, String reason, boolean remote) {
-		System.out.println(
-				"Connection was closed by " + (remote ? "Server" : "Client") + " Code: " + code + " Reason: " + reason);
+		log.info("Connection was closed by {}, code: {}, reason: {}", (remote ? "server" : "client"), code, reason);
 		isConnected = false;
 	}
 
@@ -71,12 +79,12 @@ public class WSPushClient extends WebSocketClient {
 	@Override
 	public void onError(Exception ex) {
 		if (ex != null) {
-			System.err.println("Error in WSPushClient: " + ex.getClass() + ": " + ex.getMessage());
+			log.warn("Error in push connection: {}: {}", ex.getClass().getName(), ex.getMessage());
 			if (ex.getMessage() != null && ex.getMessage().contains("Socket closed")) {
 				receiver.websocketConnectionClosedWithError();
 			}
 		} else {
-			System.err.println("Unknown error in WSPushClient");
+			log.warn("Unknown error in push connection");
 		}
 	}
 
@@ -0,0 +1,81 @@
+package stocker.dialog;
+
+import javax.swing.JComboBox;
+import javax.swing.JTextField;
+
+import stocker.model.ChartIndicator;
+import stocker.model.IChartIndicatorProvider;
+import stocker.model.IndicatorParameter;
+import stocker.util.EChartColors;
+import stocker.util.TextfieldIntValidatorOnFocusLost;
+
+/**
+ * The user interface to edit the parameters and the color of a chart indicator, built from the parameter schema of
+ * the indicator's {@link IChartIndicatorProvider}. Separate from the indicators themselves, which are pure compute
+ * objects (see {@link ChartIndicator}).
+ *
+ * @author Marc S. Schneider
+ */
+class IndicatorParameterEditor {
+
+	private final IndicatorParameter[] schema;
+	private final JTextField[] textFields;
+	private final JComboBox<EChartColors> comboColors = new JComboBox<EChartColors>(EChartColors.values());
+
+	/**
+	 * Construct a new editor with the default values of the parameters.
+	 * @param provider the provider of the type of indicator to be edited
+	 * @param color the color to be pre-selected
+	 */
+	IndicatorParameterEditor(IChartIndicatorProvider provider, EChartColors color) {
+		this.schema = provider.getParameterSchema();
+		this.textFields = new JTextField[schema.length];
+		for (int i = 0; i < schema.length; i++) {
+			IndicatorParameter p = schema[i];
+			textFields[i] = new JTextField(3);
+			textFields[i].setText(String.valueOf(p.getDefaultValue()));
+			textFields[i].addFocusListener(new TextfieldIntValidatorOnFocusLost(textFields[i], p.getMin(), p.getMax(),
+					p.getDefaultValue()));
+		}
+		comboColors.setSelectedItem(color);
+	}
+
+	/**
+	 * Get an object array containing Strings, JTextFields and the color combo box, from which the parameters can be
+	 * requested with a JOptionPane.showConfirmDialog.
+	 * @return an array containing the components of the dialog to enter the parameter values
+	 */
+	Object[] getMessage() {
+		Object[] msg = new Object[2 * schema.length + 2];
+		for (int i = 0; i < schema.length; i++) {
+			msg[2 * i] = schema[i].getLabel();
+			msg[2 * i + 1] = textFields[i];
+		}
+		msg[2 * schema.length] = "Farbe";
+		msg[2 * schema.length + 1] = comboColors;
+		return msg;
+	}
+
+	/**
+	 * Apply the entered parameters and the selected color to the given indicator (to be called after the dialog
+	 * has been confirmed).
+	 * @param ci the indicator, of the type of the provider of this editor
+	 */
+	void applyTo(ChartIndicator ci) {
+		int[] params = new int[schema.length];
+		for (int i = 0; i < schema.length; i++) {
+			params[i] = parse(schema[i], textFields[i].getText());
+		}
+		ci.setParameters(params);
+		ci.setColor(comboColors.getItemAt(comboColors.getSelectedIndex()));
+	}
+
+	// helper function: the text field is only validated on focus lost, which might not have happened yet on confirm
+	private static int parse(IndicatorParameter p, String text) {
+		try {
+			return Math.min(Math.max(Integer.parseInt(text.trim()), p.getMin()), p.getMax());
+		} catch (NumberFormatException e) {
+			return p.getDefaultValue();
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package stocker.dialog;
+
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.WindowConstants;
+import javax.swing.table.DefaultTableModel;
+
+import stocker.control.IAlarmEventListener;
+import stocker.model.AlarmEvent;
+import stocker.view.StockerFrame;
+
+/**
+ * A non-modal panel listing the triggered alarms, newest first. It replaces one modal message dialog per alarm:
+ * it pops up (without taking the focus) when new alarms arrive, and it can be closed at any time without
+ * acknowledging the single alarms.
+ *
+ * @author Marc S. Schneider
+ */
+public class StockerAlarmNotificationDialog extends JDialog implements ActionListener, IAlarmEventListener {
+
+	private static final long serialVersionUID = 5120893375120978122L;
+	private static final int MAX_ROWS = 200;
+	private static final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+	private DefaultTableModel tableModel;
+	private StockerFrame parent;
+	private boolean isPlaced = false;
+
+	/**
+	 * Construct a new (initially invisible) alarm notification panel.
+	 * @param parent the parent window (i.e. the main frame, a {@link StockerFrame})
+	 */
+	public StockerAlarmNotificationDialog(StockerFrame parent) {
+		super(parent);
+		this.parent = parent;
+		this.setDefaultCloseOperation(WindowConstants.HIDE_ON_CLOSE);
+		this.setTitle("Alarme");
+		this.setAutoRequestFocus(false); // don't interrupt the user when popping up
+
+		getContentPane().setLayout(new BoxLayout(getContentPane(), BoxLayout.Y_AXIS));
+		this.setPreferredSize(new Dimension(480, 260));
+		this.setMinimumSize(new Dimension(350, 180));
+
+		this.tableModel = new DefaultTableModel(0, 4);
+		tableModel.setColumnIdentifiers(new String[] { "Zeit", "Symbol", "Alarm", "Kurs" });
+		JTable table = new JTable(tableModel);
+		table.setDefaultEditor(Object.class, null);
+		table.getColumnModel().getColumn(2).setPreferredWidth(220);
+		JScrollPane scrollPane = new JScrollPane(table);
+		scrollPane.setPreferredSize(new Dimension(460, 180));
+		add(scrollPane);
+
+		JButton btnClear = new JButton("Leeren");
+		JButton btnClose = new JButton("Schließen");
+		JPanel lowerBtnPanel = new JPanel();
+		lowerBtnPanel.setLayout(new FlowLayout());
+		lowerBtnPanel.add(btnClear);
+		lowerBtnPanel.add(btnClose);
+		add(lowerBtnPanel);
+		btnClear.addActionListener(this);
+		btnClose.addActionListener(this);
+
+		pack();
+	}
+
+	/**
+	 * Show the panel (e.g. from the menu), placed relative to the main frame when it is shown for the first time.
+	 */
+	public void showPanel() {
+		if (!isPlaced) {
+			setLocationRelativeTo(parent);
+			isPlaced = true;
+		}
+		if (!isVisible()) {
+			setVisible(true);
+		}
+	}
+
+	/**
+	 * Add the new alarm events at the top of the list and show the panel if it is hidden.
+	 * @param events the alarm events, oldest first
+	 */
+	@Override
+	public void alarmEventsOccurred(List<AlarmEvent> events) {
+		for (AlarmEvent e : events) {
+			tableModel.insertRow(0, new String[] { dtf.format(Instant.ofEpochMilli(e.getTime())), e.getSymbol(),
+					e.getDescription(), String.format("%.2f", e.getPrice()) });
+		}
+		while (tableModel.getRowCount() > MAX_ROWS) {
+			tableModel.removeRow(tableModel.getRowCount() - 1);
+		}
+		showPanel();
+	}
+
+	/**
+	 * Action handler which reacts on any button presses.
+	 */
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		if (e.getActionCommand().equals("Leeren")) {
+			tableModel.setRowCount(0);
+		} else if (e.getActionCommand().equals("Schließen")) {
+			this.setVisible(false);
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package stocker.dialog;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dialog;
+import java.awt.Dimension;
+import java.awt.GridLayout;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Iterator;
+
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
+import javax.swing.DefaultListModel;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+
+import stocker.control.StockerControl;
+import stocker.model.ConditionAlarm;
+import stocker.util.EAlarmCondition;
+import stocker.util.EChartInterval;
+import stocker.util.TextfieldIntValidatorOnFocusLost;
+
+/**
+ * A dialog in which the user can create and remove conditional alarms (see {@link ConditionAlarm}) for a symbol.
+ *
+ * @author Marc S. Schneider
+ */
+public class StockerConditionAlarmDialog extends JDialog implements ActionListener {
+
+	private static final long serialVersionUID = -2861937410276445530L;
+	private StockerControl control;
+	private String symbol;
+	private JButton btnAdd, btnRemove, btnClose;
+	private JComboBox<EAlarmCondition> comboCondition;
+	private JComboBox<EChartInterval> comboInterval;
+	private JTextField tn, tx;
+	private JLabel lx;
+	private JCheckBox cbOnClose;
+	private JList<ConditionAlarm> listRemove;
+
+	/**
+	 * Constructs a new StockerConditionAlarmDialog.
+	 * @param owner the parent window of this dialog
+	 * @param control the {@link StockerControl} which manages the alarms
+	 * @param symbol the symbol for which the alarms are to be managed
+	 */
+	public StockerConditionAlarmDialog(Window owner, StockerControl control, String symbol) {
+		super(owner, Dialog.ModalityType.APPLICATION_MODAL);
+		this.control = control;
+		this.symbol = symbol;
+
+		this.setTitle("Bedingte Alarme für " + symbol);
+		this.setPreferredSize(new Dimension(420, 400));
+		this.setMinimumSize(new Dimension(350, 350));
+
+		getContentPane().setLayout(new BoxLayout(getContentPane(), BoxLayout.Y_AXIS));
+
+		// Panel to add a new alarm
+		JPanel panelAdd = new JPanel(new BorderLayout());
+		panelAdd.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(new Color(100, 100, 100)),
+				"Neuer Alarm"));
+		JPanel panelParams = new JPanel(new GridLayout(5, 2, 5, 2));
+		comboCondition = new JComboBox<EAlarmCondition>(EAlarmCondition.values());
+		comboCondition.addActionListener(this);
+		panelParams.add(new JLabel("Bedingung"));
+		panelParams.add(comboCondition);
+		comboInterval = new JComboBox<EChartInterval>(EChartInterval.values());
+		panelParams.add(new JLabel("Intervall"));
+		panelParams.add(comboInterval);
+		tn = new JTextField(4);
+		tn.setText("20");
+		tn.addFocusListener(new TextfieldIntValidatorOnFocusLost(tn, 1, 10000, 20));
+		panelParams.add(new JLabel("n (Anz. Kerzen)"));
+		panelParams.add(tn);
+		tx = new JTextField(4);
+		lx = new JLabel();
+		panelParams.add(lx);
+		panelParams.add(tx);
+		cbOnClose = new JCheckBox("nur bei Kerzenschluss prüfen");
+		panelParams.add(cbOnClose);
+		panelAdd.add(panelParams, BorderLayout.CENTER);
+		btnAdd = new JButton("Hinzufügen");
+		btnAdd.setMnemonic('h');
+		btnAdd.setPreferredSize(new Dimension(100, 30));
+		btnAdd.addActionListener(this);
+		JPanel btnAddPanel = new JPanel(new BorderLayout());
+		btnAddPanel.add(btnAdd, BorderLayout.SOUTH);
+		panelAdd.add(btnAddPanel, BorderLayout.EAST);
+		updateThresholdField();
+
+		add(panelAdd);
+
+		// Panel to remove an existing alarm
+		JPanel panelRemove = new JPanel(new BorderLayout());
+		panelRemove.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(new Color(100, 100, 100)),
+				"Aktive Alarme"));
+		listRemove = new JList<ConditionAlarm>(new DefaultListModel<ConditionAlarm>());
+		writeRemoveList();
+		listRemove.setVisibleRowCount(6);
+		panelRemove.add(new JScrollPane(listRemove), BorderLayout.CENTER);
+
+		btnRemove = new JButton("Entfernen");
+		btnRemove.setMnemonic('e');
+		btnRemove.setPreferredSize(new Dimension(100, 30));
+		btnRemove.addActionListener(this);
+		JPanel btnRemovePanel = new JPanel(new BorderLayout());
+		btnRemovePanel.add(btnRemove, BorderLayout.SOUTH);
+		panelRemove.add(btnRemovePanel, BorderLayout.EAST);
+
+		add(panelRemove);
+
+		JPanel panelBtn = new JPanel();
+		btnClose = new JButton("Schließen");
+		btnClose.setMnemonic('s');
+		btnClose.addActionListener(this);
+		panelBtn.add(btnClose);
+		add(panelBtn);
+
+		pack();
+		setLocationRelativeTo(owner);
+
+		setVisible(true);
+	}
+
+	/**
+	 * Fill the list of active alarms.
+	 */
+	private void writeRemoveList() {
+		Iterator<ConditionAlarm> caIt = control.getConditionAlarms(symbol).iterator();
+		DefaultListModel<ConditionAlarm> listRemoveModel = (DefaultListModel<ConditionAlarm>) listRemove.getModel();
+		listRemoveModel.clear();
+		while (caIt.hasNext()) {
+			listRemoveModel.addElement(caIt.next());
+		}
+	}
+
+	/**
+	 * Adapt the label and the default value of the threshold field to the selected condition.
+	 */
+	private void updateThresholdField() {
+		EAlarmCondition c = comboCondition.getItemAt(comboCondition.getSelectedIndex());
+		lx.setText("x (" + c.getThresholdName() + ")");
+		tx.setEnabled(c != EAlarmCondition.CROSSES_SMA);
+		switch (c) {
+		case LEAVES_BOLLINGER:
+			tx.setText("2");
+			break;
+		case CHANGE_PERCENT:
+			tx.setText("3");
+			break;
+		case VOLUME_SPIKE:
+			tx.setText("3");
+			break;
+		default:
+			tx.setText("");
+		}
+	}
+
+	/**
+	 * Event listener: Handles clicks on all buttons and the selection of a condition in this dialog
+	 * @param e the {@link ActionEvent} describing the action
+	 */
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		if (e.getSource() == comboCondition) {
+			updateThresholdField();
+			return;
+		}
+		JButton btn = ((JButton) e.getSource());
+		if (btn == btnClose) {
+			setVisible(false);
+			dispose();
+		} else if (btn == btnAdd) {
+			EAlarmCondition c = comboCondition.getItemAt(comboCondition.getSelectedIndex());
+			try {
+				double x = (tx.isEnabled() ? Double.parseDouble(tx.getText().replace(',', '.')) : 0.0);
+				control.addConditionAlarm(new ConditionAlarm(symbol, c,
+						comboInterval.getItemAt(comboInterval.getSelectedIndex()), Integer.parseInt(tn.getText()), x,
+						cbOnClose.isSelected()));
+				writeRemoveList();
+			} catch (NumberFormatException nfe) {
+				JOptionPane.showMessageDialog(this, "Ungültige Eingabe beim Schwellwert,\nbitte korrigieren!",
+						"Ungültige Eingabe", JOptionPane.WARNING_MESSAGE);
+			}
+		} else if (btn == btnRemove) {
+			Iterator<ConditionAlarm> removeIt = listRemove.getSelectedValuesList().iterator();
+			while (removeIt.hasNext()) {
+				control.removeConditionAlarm(removeIt.next());
+			}
+			writeRemoveList();
+		}
+	}
+}
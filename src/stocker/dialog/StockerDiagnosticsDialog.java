@@ -0,0 +1,133 @@
+package stocker.dialog;
+
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.DefaultTableModel;
+
+import stocker.metrics.LatencyMonitor;
+import stocker.metrics.LatencySnapshot;
+import stocker.util.ELatencyStage;
+import stocker.view.StockerFrame;
+
+/**
+ * A non-modal dialog showing the latencies of pushed trades per stage (from the websocket frame to the screen),
+ * as recorded by the {@link LatencyMonitor}. The values are refreshed every second.
+ *
+ * @author Marc S. Schneider
+ */
+public class StockerDiagnosticsDialog extends JDialog implements ActionListener {
+
+	private static final long serialVersionUID = -3290147331584178412L;
+	private static final int REFRESH_MILLIS = 1000;
+	private DefaultTableModel tableModel;
+	private JLabel infoLabel;
+	private Timer refreshTimer;
+
+	/**
+	 * Construct a new diagnostics dialog.
+	 * @param parent the parent window (i.e. the main frame, a {@link StockerFrame})
+	 */
+	public StockerDiagnosticsDialog(StockerFrame parent) {
+		super(parent);
+		this.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+		this.setTitle("Diagnose: Latenzen der Push-Daten");
+
+		getContentPane().setLayout(new BoxLayout(getContentPane(), BoxLayout.Y_AXIS));
+		this.setPreferredSize(new Dimension(620, 260));
+		this.setMinimumSize(new Dimension(450, 200));
+
+		this.tableModel = new DefaultTableModel(0, 6);
+		tableModel.setColumnIdentifiers(new String[] { "Stufe", "Anzahl", "p50 [ms]", "p99 [ms]", "p99,9 [ms]", "max [ms]" });
+		JTable table = new JTable(tableModel);
+		table.setDefaultEditor(Object.class, null);
+		table.setRowSelectionAllowed(false);
+		JScrollPane scrollPane = new JScrollPane(table);
+		scrollPane.setPreferredSize(new Dimension(600, 130));
+		add(scrollPane);
+
+		infoLabel = new JLabel("Alle Stufen außer Empfang gemessen ab Eingang des Pakets");
+		JPanel infoPanel = new JPanel();
+		infoPanel.setLayout(new FlowLayout());
+		infoPanel.add(infoLabel);
+		add(infoPanel);
+
+		JButton btnReset = new JButton("Zurücksetzen");
+		JButton btnClose = new JButton("Schließen");
+		JPanel lowerBtnPanel = new JPanel();
+		lowerBtnPanel.setLayout(new FlowLayout());
+		lowerBtnPanel.add(btnReset);
+		lowerBtnPanel.add(btnClose);
+		add(lowerBtnPanel);
+		btnReset.addActionListener(this);
+		btnClose.addActionListener(this);
+
+		refresh();
+		refreshTimer = new Timer(REFRESH_MILLIS, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				refresh();
+			}
+		});
+		refreshTimer.start();
+		addWindowListener(new WindowAdapter() { // stop refreshing as soon as the dialog is gone
+			@Override
+			public void windowClosed(WindowEvent e) {
+				refreshTimer.stop();
+			}
+		});
+
+		pack();
+		setLocationRelativeTo(parent);
+	}
+
+	/**
+	 * Action handler which reacts on any button presses.
+	 */
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		if (e.getActionCommand().equals("Zurücksetzen")) {
+			LatencyMonitor.reset();
+			refresh();
+		} else if (e.getActionCommand().equals("Schließen")) {
+			refreshTimer.stop();
+			this.setVisible(false);
+			this.dispose();
+		}
+	}
+
+	/**
+	 * Take a new snapshot from the {@link LatencyMonitor} and show it in the table.
+	 */
+	private void refresh() {
+		LatencySnapshot s = LatencyMonitor.snapshot();
+		tableModel.setRowCount(0);
+		for (ELatencyStage stage : ELatencyStage.values()) {
+			tableModel.addRow(new String[] { stage.toString(), String.valueOf(s.getCount(stage)),
+					toMillis(s.getP50(stage)), toMillis(s.getP99(stage)), toMillis(s.getP999(stage)),
+					toMillis(s.getMax(stage)) });
+		}
+	}
+
+	/**
+	 * Format a latency for display.
+	 * @param nanos the latency in nanoseconds
+	 * @return the latency in milliseconds as a String
+	 */
+	private String toMillis(long nanos) {
+		return String.format("%.3f", nanos / 1e6);
+	}
+}
@@ -2,6 +2,7 @@ package stocker.dialog;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dialog;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
@@ -14,6 +15,7 @@ import java.util.Iterator;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
+import javax.swing.DefaultListCellRenderer;
 import javax.swing.DefaultListModel;
 import javax.swing.JButton;
 import javax.swing.JDialog;
@@ -25,8 +27,9 @@ import javax.swing.ListSelectionModel;
 import javax.swing.SwingUtilities;
 
 import stocker.model.ChartIndicator;
+import stocker.model.ChartIndicatorRegistry;
+import stocker.model.IChartIndicatorProvider;
 import stocker.util.EChartColors;
-import stocker.util.EChartIndicator;
 import stocker.view.StockerChart;
 
 /**
@@ -39,7 +42,7 @@ public class StockerIndicatorDialog extends JDialog implements ActionListener {
 	private static final long serialVersionUID = -1764621622351060877L;
 	private StockerChart parent;
 	private JButton btnAdd, btnRemove, btnClose;
-	private JList<EChartIndicator> listAdd;
+	private JList<IChartIndicatorProvider> listAdd;
 	private JList<ChartIndicator> listRemove;
 	private EChartColors defaultColor;
 
@@ -62,12 +65,21 @@ public class StockerIndicatorDialog extends JDialog implements ActionListener {
 		JPanel panelAdd = new JPanel(new BorderLayout());
 		panelAdd.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(new Color(100, 100, 100)),
 				"Verfügbare Indikatortypen"));
-		DefaultListModel<EChartIndicator> listAddModel = new DefaultListModel<EChartIndicator>();
-		listAdd = new JList<EChartIndicator>(listAddModel);
-		EChartIndicator[] vals = EChartIndicator.values();
-		for (int i = 0; i < vals.length; i++) {
-			listAddModel.addElement(vals[i]);
+		DefaultListModel<IChartIndicatorProvider> listAddModel = new DefaultListModel<IChartIndicatorProvider>();
+		listAdd = new JList<IChartIndicatorProvider>(listAddModel);
+		for (IChartIndicatorProvider p : ChartIndicatorRegistry.getProviders()) {
+			listAddModel.addElement(p);
 		}
+		listAdd.setCellRenderer(new DefaultListCellRenderer() { // show the names of the indicator types
+			private static final long serialVersionUID = 4417232470188914338L;
+
+			@Override
+			public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
+					boolean cellHasFocus) {
+				return super.getListCellRendererComponent(list, ((IChartIndicatorProvider) value).getName(), index,
+						isSelected, cellHasFocus);
+			}
+		});
 		listAdd.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 		listAdd.addMouseListener(new MouseAdapter() { // select by double-click
 			@Override
@@ -151,18 +163,18 @@ public class StockerIndicatorDialog extends JDialog implements ActionListener {
 			setVisible(false);
 			dispose();
 		} else if (btn == btnAdd) {
-			// The enum kind of works like a Factory for ChartIndicators
-			EChartIndicator ciToAdd = listAdd.getSelectedValue();
+			// The providers are the factories for ChartIndicators
+			IChartIndicatorProvider ciToAdd = listAdd.getSelectedValue();
 			if (ciToAdd == null) {
 				JOptionPane.showMessageDialog(this, "Bitte einen Indikatortypen auswählen", "Typ auswählen",
 						JOptionPane.WARNING_MESSAGE);
 			} else {
-				ChartIndicator ci = ciToAdd.getIndicator();
-				ci.setColor(defaultColor);
 				// get the parameters by a JOptionPane
-				if (JOptionPane.showConfirmDialog(this, ci.getParametersMessage(), "Parameter angeben",
+				IndicatorParameterEditor editor = new IndicatorParameterEditor(ciToAdd, defaultColor);
+				if (JOptionPane.showConfirmDialog(this, editor.getMessage(), "Parameter angeben",
 						JOptionPane.OK_CANCEL_OPTION) == 0) {
-					ci.parametrizeFromTextfields();
+					ChartIndicator ci = ciToAdd.create();
+					editor.applyTo(ci);
 					parent.addChartIndicator(ci); // add indicator to StockerChart
 				}
 				writeRemoveList(); // after adding, reload the currently present indicators
@@ -0,0 +1,406 @@
+package stocker.dialog;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
+
+import stocker.control.IScreenerListener;
+import stocker.control.Screener;
+import stocker.control.StockerControl;
+import stocker.model.ChartIndicatorRegistry;
+import stocker.model.ChartWatchItem;
+import stocker.model.IChartIndicatorProvider;
+import stocker.model.ScreenerQuery;
+import stocker.model.ScreenerResult;
+import stocker.model.WatchlistItem;
+import stocker.util.EChartInterval;
+import stocker.view.StockerFrame;
+
+/**
+ * A dialog for screening many symbols (by default those of the watchlist) with indicator conditions, e.g.
+ * "Kurs &gt; SMA(200) und RSI(14) &lt; 30" (see {@link ScreenerQuery}). The screen runs in the background (see
+ * {@link Screener}); the results are added to a sortable table as they arrive, ranked by the number of fulfilled
+ * criteria. Charts can be opened and symbols added to the watchlist from the table.
+ *
+ * @author Marc S. Schneider
+ */
+public class StockerScreenerDialog extends JDialog implements ActionListener {
+
+	private static final long serialVersionUID = -3326519872546385620L;
+	private StockerFrame parent;
+	private StockerControl control;
+	private JTextArea symbolText;
+	private JComboBox<EChartInterval> comboInterval;
+	private JTextField queryText;
+	private JButton btnStart;
+	private JLabel statusLabel;
+	private JTable resultTable;
+	private ResultTableModel resultTableModel = new ResultTableModel();
+	private TableRowSorter<ResultTableModel> sorter = new TableRowSorter<ResultTableModel>(resultTableModel);
+	private Screener.Run run = null;       // the current screen
+	private EChartInterval runInterval;    // the interval of the current screen
+	private int runNumber = 0;             // to ignore results of previous screens
+	private int nMatches = 0;
+
+	/**
+	 * Construct a new screener dialog.
+	 * @param parent the parent window (i.e. the main frame, a {@link StockerFrame})
+	 * @param control the {@link StockerControl} which is controlling this application
+	 */
+	public StockerScreenerDialog(StockerFrame parent, StockerControl control) {
+		super(parent);
+		this.setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+		this.parent = parent;
+		this.control = control;
+		this.setTitle("Screener");
+
+		getContentPane().setLayout(new BoxLayout(getContentPane(), BoxLayout.Y_AXIS));
+		this.setPreferredSize(new Dimension(700, 550));
+		this.setMinimumSize(new Dimension(500, 400));
+
+		// the symbols (those of the watchlist by default)
+		JPanel symbolPanel = new JPanel(new BorderLayout());
+		symbolPanel.add(new JLabel("Symbole (durch Leerzeichen oder Komma getrennt)"), BorderLayout.NORTH);
+		this.symbolText = new JTextArea(String.join(", ", control.getWatchlist().getAllKeys()), 3, 40);
+		symbolText.setLineWrap(true);
+		symbolPanel.add(new JScrollPane(symbolText), BorderLayout.CENTER);
+		add(symbolPanel);
+
+		// the query
+		JPanel queryPanel = new JPanel(new FlowLayout());
+		queryPanel.add(new JLabel("Intervall"));
+		this.comboInterval = new JComboBox<EChartInterval>(EChartInterval.values());
+		comboInterval.setSelectedItem(ChartWatchItem.DEFAULT_INTERVAL);
+		queryPanel.add(comboInterval);
+		queryPanel.add(new JLabel("Kriterien"));
+		this.queryText = new JTextField("Kurs > SMA(200) und RSI(14) < 30", 28);
+		queryPanel.add(queryText);
+		this.btnStart = new JButton("Starten");
+		queryPanel.add(btnStart);
+		add(queryPanel);
+		btnStart.addActionListener(this);
+		queryText.addActionListener(new ActionListener() { // start after enter key pressed in text field
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (run == null || run.isDone()) {
+					btnStart.doClick();
+				}
+			}
+		});
+		StringBuilder types = new StringBuilder("Indikatoren: ");
+		for (IChartIndicatorProvider p : ChartIndicatorRegistry.getProviders()) {
+			types.append(p.getType()).append(", ");
+		}
+		JPanel hintPanel = new JPanel(new FlowLayout());
+		hintPanel.add(new JLabel(types.append("Kurs; Vergleiche <, <=, >, >=; verknüpft mit \"und\"").toString()));
+		add(hintPanel);
+
+		// the results
+		this.resultTable = new JTable(resultTableModel);
+		resultTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+		resultTable.setRowSorter(sorter);
+		resultTable.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) { // double click: open the chart
+				if (e.getClickCount() == 2 && resultTable.rowAtPoint(e.getPoint()) >= 0) {
+					openCharts();
+				}
+			}
+		});
+		JScrollPane scrollPane = new JScrollPane(resultTable);
+		scrollPane.setPreferredSize(new Dimension(650, 300));
+		add(scrollPane);
+
+		this.statusLabel = new JLabel(" ");
+		JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		statusPanel.add(statusLabel);
+		add(statusPanel);
+
+		JButton btnChart = new JButton("Chart öffnen");
+		JButton btnAdd = new JButton("In die Watchlist");
+		JButton btnClose = new JButton("Schließen");
+		JPanel lowerBtnPanel = new JPanel(new FlowLayout());
+		lowerBtnPanel.add(btnChart);
+		lowerBtnPanel.add(btnAdd);
+		lowerBtnPanel.add(btnClose);
+		add(lowerBtnPanel);
+		btnChart.addActionListener(this);
+		btnAdd.addActionListener(this);
+		btnClose.addActionListener(this);
+
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowOpened(WindowEvent e) {
+				queryText.requestFocus();
+			}
+
+			@Override
+			public void windowClosed(WindowEvent e) { // no need to go on without anybody looking at the results
+				stop();
+			}
+		});
+
+		pack();
+		setLocationRelativeTo(parent);
+	}
+
+	/**
+	 * Action handler which reacts on any button presses.
+	 */
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		if (e.getActionCommand().equals("Starten")) {
+			start();
+		} else if (e.getActionCommand().equals("Stoppen")) {
+			stop();
+		} else if (e.getActionCommand().equals("Chart öffnen")) {
+			openCharts();
+		} else if (e.getActionCommand().equals("In die Watchlist")) {
+			int[] selectedRows = resultTable.getSelectedRows();
+			if (selectedRows.length == 0) {
+				JOptionPane.showMessageDialog(this, "Zum Hinzufügen, bitte Werte aus der Ergebnisliste auswählen");
+			}
+			for (int row : selectedRows) {
+				String key = resultTableModel.getSymbol(resultTable.convertRowIndexToModel(row));
+				parent.addToWatchlist(new WatchlistItem(key, key));
+			}
+		} else if (e.getActionCommand().equals("Schließen")) {
+			this.setVisible(false);
+			this.dispose();
+		}
+	}
+
+	/**
+	 * Start a new screen with the entered symbols, interval and criteria (a running screen is cancelled).
+	 */
+	private void start() {
+		ScreenerQuery query;
+		try {
+			query = ScreenerQuery.parse(queryText.getText());
+		} catch (IllegalArgumentException ex) {
+			JOptionPane.showMessageDialog(this, ex.getMessage(), "Ungültige Kriterien", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		ArrayList<String> symbols = new ArrayList<String>();
+		for (String s : symbolText.getText().split("[\\s,;]+")) {
+			if (!s.isEmpty()) {
+				symbols.add(s.toUpperCase(Locale.ROOT));
+			}
+		}
+		if (symbols.isEmpty()) {
+			JOptionPane.showMessageDialog(this, "Bitte Symbole angeben", "Keine Symbole", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		stop();
+		final int number = ++runNumber;
+		nMatches = 0;
+		runInterval = comboInterval.getItemAt(comboInterval.getSelectedIndex());
+		resultTableModel.setQuery(query);
+		ArrayList<RowSorter.SortKey> keys = new ArrayList<RowSorter.SortKey>();
+		keys.add(new RowSorter.SortKey(ResultTableModel.FULFILLED_COLUMN, SortOrder.DESCENDING)); // rank by matches
+		sorter.setSortKeys(keys);
+		run = control.getScreener().screen(symbols, runInterval, query, new IScreenerListener() {
+			@Override
+			public void screenerResult(final ScreenerResult result) {
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (number == runNumber) {
+							resultTableModel.add(result);
+							nMatches += (result.isMatch() ? 1 : 0);
+							updateStatus(false, false);
+						}
+					}
+				});
+			}
+
+			@Override
+			public void screenerFinished(final boolean cancelled) {
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (number == runNumber) {
+							updateStatus(true, cancelled);
+						}
+					}
+				});
+			}
+		});
+		btnStart.setText("Stoppen");
+		updateStatus(false, false);
+	}
+
+	/**
+	 * Cancel the running screen (if any).
+	 */
+	private void stop() {
+		if (run != null && !run.isDone()) {
+			run.cancel();
+		}
+	}
+
+	/**
+	 * Show the progress of the current screen.
+	 * @param finished true if the screen is finished
+	 * @param cancelled true if it has been cancelled
+	 */
+	private void updateStatus(boolean finished, boolean cancelled) {
+		StringBuilder sb = new StringBuilder();
+		if (finished) {
+			sb.append(cancelled ? "Abgebrochen: " : "Fertig: ");
+			btnStart.setText("Starten");
+		}
+		sb.append(resultTableModel.getRowCount()).append(" von ").append(run.getNrOfSymbols())
+				.append(" Symbolen geprüft, ").append(nMatches).append(" Treffer");
+		statusLabel.setText(sb.toString());
+	}
+
+	/**
+	 * Open a chart for each selected row.
+	 */
+	private void openCharts() {
+		int[] selectedRows = resultTable.getSelectedRows();
+		if (selectedRows.length == 0) {
+			JOptionPane.showMessageDialog(this, "Bitte Werte aus der Ergebnisliste auswählen");
+		}
+		for (int row : selectedRows) {
+			String key = resultTableModel.getSymbol(resultTable.convertRowIndexToModel(row));
+			parent.openChartWindow(new ChartWatchItem(key, key, runInterval), null, null, null, true);
+		}
+	}
+
+	/**
+	 * The results of a screen: one row per symbol, with the price, the number of fulfilled criteria and the values
+	 * of the indicators of the query. Values which are not available are null, so they are sorted apart.
+	 */
+	private static class ResultTableModel extends AbstractTableModel {
+
+		private static final long serialVersionUID = 1L;
+		private static final int FULFILLED_COLUMN = 2;
+		private ArrayList<ScreenerResult> rows = new ArrayList<ScreenerResult>();
+		private String[] indicatorNames = new String[0];
+		private int nCriteria = 0;
+
+		/**
+		 * Remove all rows and set the columns for the results of the given query.
+		 * @param query the query
+		 */
+		private void setQuery(ScreenerQuery query) {
+			rows.clear();
+			indicatorNames = query.getColumnNames();
+			nCriteria = query.getNrOfCriteria();
+			fireTableStructureChanged();
+		}
+
+		/**
+		 * Add the result of a symbol.
+		 * @param r the result
+		 */
+		private void add(ScreenerResult r) {
+			rows.add(r);
+			fireTableRowsInserted(rows.size() - 1, rows.size() - 1);
+		}
+
+		/**
+		 * Get the symbol of a row.
+		 * @param row the index of the row in the model
+		 * @return the symbol
+		 */
+		private String getSymbol(int row) {
+			return rows.get(row).getSymbol();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int getRowCount() {
+			return rows.size();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int getColumnCount() {
+			return indicatorNames.length + 4;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getColumnName(int col) {
+			if (col == 0) {
+				return "Symbol";
+			} else if (col == 1) {
+				return "Kurs";
+			} else if (col == FULFILLED_COLUMN) {
+				return "Erfüllt (von " + nCriteria + ")";
+			} else if (col < getColumnCount() - 1) {
+				return indicatorNames[col - 3];
+			}
+			return "Hinweis";
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Class<?> getColumnClass(int col) { // the numbers are sorted numerically
+			if (col == 0 || col == getColumnCount() - 1) {
+				return String.class;
+			}
+			return (col == FULFILLED_COLUMN ? Integer.class : Double.class);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Object getValueAt(int row, int col) {
+			ScreenerResult r = rows.get(row);
+			if (col == 0) {
+				return r.getSymbol();
+			} else if (col == 1) {
+				return valueOf(r.getPrice());
+			} else if (col == FULFILLED_COLUMN) {
+				return r.getFulfilled();
+			} else if (col < getColumnCount() - 1) {
+				return valueOf(r.getValue(col - 3));
+			}
+			return r.getError();
+		}
+
+		// helper function: round to the precision of the prices, null if not available
+		private static Double valueOf(double v) {
+			return (Double.isNaN(v) ? null : Math.round(v * 100.0) / 100.0);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package stocker.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * Periodic JFR event with the most important figures of the data manager, emitted once per second while a
+ * recording is running (see {@link MetricsPublisher}).
+ *
+ * @author Marc S. Schneider
+ */
+@Name("stocker.DataManagerStatistics")
+@Label("Data Manager Statistics")
+@Category({ "Stocker", "Data Manager" })
+@Description("Counters and rates of the data manager")
+@Period("1 s")
+@StackTrace(false)
+public class DataManagerStatisticsEvent extends Event {
+
+	/**
+	 * Total number of pull requests
+	 */
+	@Label("HTTP Requests")
+	public long httpRequests;
+
+	/**
+	 * Total number of received push frames
+	 */
+	@Label("Push Frames")
+	public long pushFrames;
+
+	/**
+	 * Received push ticks per second (all symbols)
+	 */
+	@Label("Ticks per Second")
+	public double ticksPerSecond;
+
+	/**
+	 * Number of push subscriptions
+	 */
+	@Label("Subscriptions")
+	public long subscriptions;
+
+	/**
+	 * Total number of lost push connections
+	 */
+	@Label("Reconnects")
+	public long reconnects;
+
+	/**
+	 * Total number of ticks which have been dropped (invalid frames, throttled chart updates)
+	 */
+	@Label("Dropped Ticks")
+	public long droppedTicks;
+}
@@ -0,0 +1,41 @@
+package stocker.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a pull request to the data provider (duration from connecting until the answer has been parsed).
+ *
+ * @author Marc S. Schneider
+ */
+@Name("stocker.HttpRequest")
+@Label("HTTP Request")
+@Category({ "Stocker", "Data Manager" })
+@Description("A pull request to the data provider")
+@StackTrace(false)
+public class HttpRequestEvent extends Event {
+
+	/**
+	 * The endpoint, e.g. quote or stock/candle
+	 */
+	@Label("Endpoint")
+	public String endpoint;
+
+	/**
+	 * The HTTP status code, or -1 if the request failed without a status
+	 */
+	@Label("Status")
+	public int status;
+
+	/**
+	 * The size of the answer
+	 */
+	@Label("Bytes")
+	@DataAmount
+	public long bytes;
+}
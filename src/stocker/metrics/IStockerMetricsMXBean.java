@@ -0,0 +1,46 @@
+package stocker.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface under which the metrics of Stocker are published via JMX (object name
+ * {@value MetricsPublisher#OBJECT_NAME}), e.g. for JConsole or Java Mission Control.
+ *
+ * @author Marc S. Schneider
+ */
+public interface IStockerMetricsMXBean {
+	/**
+	 * Get the values of all counters.
+	 * @return a map from the counter names to their values
+	 */
+	public Map<String, Long> getCounters();
+
+	/**
+	 * Get the current rates of all meters (e.g. push ticks per second and symbol).
+	 * @return a map from the meter names to their rates per second
+	 */
+	public Map<String, Double> getRates();
+
+	/**
+	 * Get the current values of all gauges (e.g. the number of push subscriptions).
+	 * @return a map from the gauge names to their values
+	 */
+	public Map<String, Long> getGauges();
+
+	/**
+	 * Get summaries of all timers.
+	 * @return a map from the timer names to their summaries
+	 */
+	public Map<String, TimerSummary> getTimers();
+
+	/**
+	 * Get the latencies of pushed trades per stage (see {@link LatencyMonitor}).
+	 * @return a map from the names of the stages to their summaries
+	 */
+	public Map<String, TimerSummary> getPushLatencies();
+
+	/**
+	 * Reset all counters, timers, meters and push latencies.
+	 */
+	public void reset();
+}
@@ -0,0 +1,161 @@
+package stocker.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds with log-linear buckets (in the style of an HdrHistogram): values below
+ * {@value #SUB_BUCKETS} are counted exactly, larger values in buckets whose width grows with the magnitude of the
+ * value, so the relative error of a reported percentile is below 1/{@value #HALF_SUB_BUCKETS} (about 1.6%) over the
+ * whole range of long values. Recording is lock-free and may happen concurrently from several threads; the memory
+ * footprint is constant (about 30 KB).
+ *
+ * @author Marc S. Schneider
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;     // 128
+	private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;     // 64
+	private static final int N_BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+	private final AtomicLongArray counts;
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Construct a new, empty histogram.
+	 */
+	public LatencyHistogram() {
+		this.counts = new AtomicLongArray(N_BUCKETS);
+	}
+
+	/**
+	 * Record a value. Negative values are recorded as 0.
+	 * @param nanos the value (usually a latency in nanoseconds)
+	 */
+	public void record(long nanos) {
+		long v = Math.max(0L, nanos);
+		counts.incrementAndGet(bucketIndex(v));
+		totalCount.incrementAndGet();
+		sum.addAndGet(v);
+		long m = max.get();
+		while (v > m && !max.compareAndSet(m, v)) {
+			m = max.get();
+		}
+	}
+
+	/**
+	 * Remove all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < N_BUCKETS; i++) {
+			counts.set(i, 0L);
+		}
+		totalCount.set(0L);
+		sum.set(0L);
+		max.set(0L);
+	}
+
+	/**
+	 * Create a copy of this histogram (which is not affected by values recorded to this histogram afterwards).
+	 * If values are recorded concurrently, the copy may be off by these values.
+	 * @return a copy of this histogram
+	 */
+	public LatencyHistogram copy() {
+		LatencyHistogram h = new LatencyHistogram();
+		long n = 0L;
+		for (int i = 0; i < N_BUCKETS; i++) {
+			long c = counts.get(i);
+			if (c != 0L) {
+				h.counts.set(i, c);
+				n += c;
+			}
+		}
+		h.totalCount.set(n); // consistent with the copied buckets
+		h.sum.set(sum.get());
+		h.max.set(max.get());
+		return h;
+	}
+
+	/**
+	 * Get the number of recorded values.
+	 * @return the number of recorded values
+	 */
+	public long getCount() {
+		return totalCount.get();
+	}
+
+	/**
+	 * Get the largest recorded value.
+	 * @return the largest recorded value, or 0 if there is none
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Get the mean of the recorded values.
+	 * @return the mean, or 0.0 if there are no values
+	 */
+	public double getMean() {
+		long n = totalCount.get();
+		return (n == 0L ? 0.0 : (double) sum.get() / n);
+	}
+
+	/**
+	 * Get the value below or at which the given percentage of the recorded values lie (within the precision of
+	 * the buckets).
+	 * @param percentile the percentile, between 0.0 and 100.0 (e.g. 99.9)
+	 * @return the value at the given percentile, or 0 if there are no values
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long n = 0L;
+		for (int i = 0; i < N_BUCKETS; i++) { // count again to be consistent with the buckets
+			n += counts.get(i);
+		}
+		if (n == 0L) {
+			return 0L;
+		}
+		long rank = Math.max(1L, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * n));
+		long cumulated = 0L;
+		for (int i = 0; i < N_BUCKETS; i++) {
+			cumulated += counts.get(i);
+			if (cumulated >= rank) {
+				return Math.min(highestValueInBucket(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Get the index of the bucket which counts the given value.
+	 * @param v the (non-negative) value
+	 * @return the bucket index
+	 */
+	private static int bucketIndex(long v) {
+		if (v < SUB_BUCKETS) {
+			return (int) v;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(v);  // >= SUB_BUCKET_BITS
+		int shift = exponent - SUB_BUCKET_BITS + 1;
+		int sub = (int) (v >>> shift);                      // between HALF_SUB_BUCKETS and SUB_BUCKETS - 1
+		return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (sub - HALF_SUB_BUCKETS);
+	}
+
+	/**
+	 * Get the highest value which is counted by the given bucket.
+	 * @param index the bucket index
+	 * @return the highest value of this bucket
+	 */
+	private static long highestValueInBucket(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+		long sub = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+		long lowest = sub << shift;
+		return lowest + (1L << shift) - 1L;
+	}
+}
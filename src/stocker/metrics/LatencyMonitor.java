@@ -0,0 +1,118 @@
+package stocker.metrics;
+
+import java.util.EnumMap;
+
+import stocker.util.ELatencyStage;
+
+/**
+ * Service class providing static methods to measure the latency of pushed trades on their way from the websocket
+ * frame to the screen. The receiving thread marks the start of a frame with {@link #frameReceived()}; all later
+ * stages are recorded with {@link #record(ELatencyStage, long)} relative to this start, into one
+ * {@link LatencyHistogram} per {@link ELatencyStage}. Work which is handed over to another thread (e.g. to the event
+ * dispatch thread) has to take the start time of the frame with it (see {@link #currentFrame()}).
+ *
+ * @author Marc S. Schneider
+ */
+public final class LatencyMonitor {
+
+	private static final EnumMap<ELatencyStage, LatencyHistogram> histograms = createHistograms();
+	/**
+	 * Start of the frame which is currently processed by a thread (System.nanoTime(), 0 if there is none)
+	 */
+	private static final ThreadLocal<long[]> currentFrame = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[1];
+		}
+	};
+
+	private LatencyMonitor() {
+		// private constructor in order to prevent instantiation
+	}
+
+	/**
+	 * Mark the reception of a new frame by the calling thread.
+	 * @return the start time of the frame (System.nanoTime())
+	 */
+	public static long frameReceived() {
+		long start = System.nanoTime();
+		currentFrame.get()[0] = start;
+		return start;
+	}
+
+	/**
+	 * Mark the end of the processing of the current frame by the calling thread.
+	 */
+	public static void frameDone() {
+		currentFrame.get()[0] = 0L;
+	}
+
+	/**
+	 * Get the start time of the frame which is currently processed by the calling thread.
+	 * @return the start time of the frame (System.nanoTime()), or 0 if the calling thread is not processing a frame
+	 */
+	public static long currentFrame() {
+		return currentFrame.get()[0];
+	}
+
+	/**
+	 * Record that a stage has been reached for the frame that started at the given time.
+	 * @param stage the stage which has been reached
+	 * @param frameStart the start time of the frame (System.nanoTime()); nothing is recorded if this is 0
+	 */
+	public static void record(ELatencyStage stage, long frameStart) {
+		if (frameStart != 0L) {
+			histograms.get(stage).record(System.nanoTime() - frameStart);
+		}
+	}
+
+	/**
+	 * Record that a stage has been reached for the frame which is currently processed by the calling thread.
+	 * @param stage the stage which has been reached
+	 */
+	public static void record(ELatencyStage stage) {
+		record(stage, currentFrame());
+	}
+
+	/**
+	 * Record a latency which has been measured directly.
+	 * @param stage the stage to which the latency belongs
+	 * @param nanos the latency in nanoseconds
+	 */
+	public static void recordLatency(ELatencyStage stage, long nanos) {
+		histograms.get(stage).record(nanos);
+	}
+
+	/**
+	 * Get a snapshot of the histograms of all stages.
+	 * @return the snapshot
+	 */
+	public static LatencySnapshot snapshot() {
+		EnumMap<ELatencyStage, LatencyHistogram> copies = new EnumMap<ELatencyStage, LatencyHistogram>(ELatencyStage.class);
+		for (ELatencyStage stage : ELatencyStage.values()) {
+			copies.put(stage, histograms.get(stage).copy());
+		}
+		return new LatencySnapshot(copies);
+	}
+
+	/**
+	 * Remove all values recorded so far.
+	 */
+	public static void reset() {
+		for (LatencyHistogram h : histograms.values()) {
+			h.reset();
+		}
+	}
+
+	/**
+	 * Create one empty histogram for each stage.
+	 * @return the histograms
+	 */
+	private static EnumMap<ELatencyStage, LatencyHistogram> createHistograms() {
+		EnumMap<ELatencyStage, LatencyHistogram> map = new EnumMap<ELatencyStage, LatencyHistogram>(ELatencyStage.class);
+		for (ELatencyStage stage : ELatencyStage.values()) {
+			map.put(stage, new LatencyHistogram());
+		}
+		return map;
+	}
+}
@@ -0,0 +1,123 @@
+package stocker.metrics;
+
+import java.time.Instant;
+import java.util.EnumMap;
+
+import stocker.util.ELatencyStage;
+
+/**
+ * An immutable snapshot of the latency histograms of all stages, as created by {@link LatencyMonitor#snapshot()}.
+ * All values are in nanoseconds.
+ *
+ * @author Marc S. Schneider
+ */
+public class LatencySnapshot {
+
+	private final Instant time;
+	private final EnumMap<ELatencyStage, LatencyHistogram> histograms;
+
+	/**
+	 * Construct a new snapshot (default visibility, snapshots are created by the {@link LatencyMonitor}).
+	 * @param histograms copies of the histograms of all stages, which must not be modified afterwards
+	 */
+	LatencySnapshot(EnumMap<ELatencyStage, LatencyHistogram> histograms) {
+		this.time = Instant.now();
+		this.histograms = histograms;
+	}
+
+	/**
+	 * Get the time at which this snapshot has been taken.
+	 * @return the time of this snapshot
+	 */
+	public Instant getTime() {
+		return time;
+	}
+
+	/**
+	 * Get the number of values recorded for a stage.
+	 * @param stage the stage
+	 * @return the number of values
+	 */
+	public long getCount(ELatencyStage stage) {
+		return histograms.get(stage).getCount();
+	}
+
+	/**
+	 * Get the latency of a stage at the given percentile.
+	 * @param stage the stage
+	 * @param percentile the percentile, between 0.0 and 100.0 (e.g. 99.9)
+	 * @return the latency in nanoseconds, or 0 if there are no values
+	 */
+	public long getPercentile(ELatencyStage stage, double percentile) {
+		return histograms.get(stage).getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * Get the median latency of a stage.
+	 * @param stage the stage
+	 * @return the latency in nanoseconds
+	 */
+	public long getP50(ELatencyStage stage) {
+		return getPercentile(stage, 50.0);
+	}
+
+	/**
+	 * Get the 99th percentile of the latency of a stage.
+	 * @param stage the stage
+	 * @return the latency in nanoseconds
+	 */
+	public long getP99(ELatencyStage stage) {
+		return getPercentile(stage, 99.0);
+	}
+
+	/**
+	 * Get the 99.9th percentile of the latency of a stage.
+	 * @param stage the stage
+	 * @return the latency in nanoseconds
+	 */
+	public long getP999(ELatencyStage stage) {
+		return getPercentile(stage, 99.9);
+	}
+
+	/**
+	 * Get the maximum latency of a stage.
+	 * @param stage the stage
+	 * @return the latency in nanoseconds
+	 */
+	public long getMax(ELatencyStage stage) {
+		return histograms.get(stage).getMax();
+	}
+
+	/**
+	 * Get the mean latency of a stage.
+	 * @param stage the stage
+	 * @return the latency in nanoseconds
+	 */
+	public double getMean(ELatencyStage stage) {
+		return histograms.get(stage).getMean();
+	}
+
+	/**
+	 * Get the histogram of a stage (default visibility, as histograms are mutable).
+	 * @param stage the stage
+	 * @return the histogram of this snapshot for the stage
+	 */
+	LatencyHistogram getHistogram(ELatencyStage stage) {
+		return histograms.get(stage);
+	}
+
+	/**
+	 * Returns a multi-line String representation of this snapshot with count, p50, p99, p99.9 and max (in
+	 * milliseconds) for each stage.
+	 * @return a String representation of this snapshot
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (ELatencyStage stage : ELatencyStage.values()) {
+			sb.append(String.format("%-12s n=%d p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms%n", stage.name(),
+					getCount(stage), getP50(stage) / 1e6, getP99(stage) / 1e6, getP999(stage) / 1e6, getMax(stage) / 1e6));
+		}
+		return sb.toString();
+	}
+}
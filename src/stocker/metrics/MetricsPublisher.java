@@ -0,0 +1,66 @@
+package stocker.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.FlightRecorder;
+import stocker.util.StockerLogger;
+
+/**
+ * Service class providing a static method to publish the application's metrics via JMX (as
+ * {@link IStockerMetricsMXBean}) and via JFR (as periodic {@link DataManagerStatisticsEvent}, in addition to the
+ * {@link HttpRequestEvent} and {@link PushReconnectEvent} which are emitted directly by the data manager).
+ * Publishing costs nothing as long as nobody reads the bean and no flight recording is running.
+ *
+ * @author Marc S. Schneider
+ */
+public final class MetricsPublisher {
+
+	/**
+	 * The JMX object name of the metrics bean
+	 */
+	public static final String OBJECT_NAME = "stocker:type=Metrics";
+
+	private static final StockerLogger log = StockerLogger.getLogger(MetricsPublisher.class);
+
+	private static boolean isPublished = false;
+
+	private MetricsPublisher() {
+		// private constructor in order to prevent instantiation
+	}
+
+	/**
+	 * Publish the given registry via JMX and JFR. Only the first call has an effect.
+	 * @param registry the registry to be published
+	 */
+	public static synchronized void publish(MetricsRegistry registry) {
+		if (isPublished) {
+			return;
+		}
+		isPublished = true;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(new StockerMetrics(registry), new ObjectName(OBJECT_NAME));
+		} catch (JMException | SecurityException e) {
+			log.warn("Metrics could not be published via JMX: {}", e.getMessage());
+		}
+		FlightRecorder.addPeriodicEvent(DataManagerStatisticsEvent.class, new Runnable() {
+			@Override
+			public void run() {
+				DataManagerStatisticsEvent event = new DataManagerStatisticsEvent();
+				event.httpRequests = registry.getCounterSum(MetricsRegistry.HTTP_REQUESTS);
+				event.pushFrames = registry.counter(MetricsRegistry.PUSH_FRAMES).sum();
+				event.ticksPerSecond = registry.meter(MetricsRegistry.PUSH_TICKS).getRate();
+				Long subscriptions = registry.getGaugeValues().get(MetricsRegistry.PUSH_SUBSCRIPTIONS);
+				event.subscriptions = (subscriptions == null ? 0L : subscriptions);
+				event.reconnects = registry.counter(MetricsRegistry.PUSH_RECONNECTS).sum();
+				event.droppedTicks = registry.counter(MetricsRegistry.PUSH_FRAMES_INVALID).sum()
+						+ registry.counter(MetricsRegistry.CHART_TICKS_THROTTLED).sum();
+				event.commit();
+			}
+		});
+	}
+}
@@ -0,0 +1,256 @@
+package stocker.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A registry of named metrics: counters, timers (latency histograms), rate meters and gauges. Metrics are created
+ * on first use, so recording to a metric only costs a map lookup plus the (lock-free) update, which makes it cheap
+ * enough for the push path. Names are dot-separated, e.g. <code>http.requests.quote.200</code>.
+ * <p>
+ * The application uses one shared registry ({@link #getInstance()}), which is published via JMX and JFR by the
+ * {@link MetricsPublisher}.
+ *
+ * @author Marc S. Schneider
+ */
+public class MetricsRegistry {
+
+	////////////////////
+	// Names of the metrics used by the application
+	////////////////////
+	/** Counter prefix of pull requests, continued by endpoint and status, e.g. http.requests.quote.200 */
+	public static final String HTTP_REQUESTS = "http.requests.";
+	/** Counter prefix of received bytes of pull requests, continued by endpoint */
+	public static final String HTTP_BYTES = "http.bytes.";
+	/** Timer prefix of pull requests (from connecting until the answer has been read), continued by endpoint */
+	public static final String HTTP_TIME = "http.time.";
+	/** Timer prefix of parsing the answers of pull requests, continued by endpoint */
+	public static final String HTTP_PARSE = "http.parse.";
+	/** Counter of received push frames (without pings) */
+	public static final String PUSH_FRAMES = "push.frames";
+	/** Counter of push frames which could not be parsed and have been dropped */
+	public static final String PUSH_FRAMES_INVALID = "push.frames.invalid";
+	/** Timer of parsing push frames */
+	public static final String PUSH_PARSE = "push.parse";
+	/** Meter of received ticks of all symbols */
+	public static final String PUSH_TICKS = "push.ticks";
+	/** Meter prefix of received ticks per symbol, continued by the symbol */
+	public static final String PUSH_TICKS_SYMBOL = "push.ticks.symbol.";
+	/** Counter of lost push connections */
+	public static final String PUSH_RECONNECTS = "push.reconnects";
+	/** Counter of attempts to (re)connect the push connection */
+	public static final String PUSH_CONNECT_ATTEMPTS = "push.connect.attempts";
+	/** Gauge of push subscriptions (one per listening watchlist or chart) */
+	public static final String PUSH_SUBSCRIPTIONS = "push.subscriptions";
+	/** Counter of bar updates which a chart did not repaint because of its update throttling */
+	public static final String CHART_TICKS_THROTTLED = "chart.ticks.throttled";
+	/** Counter of chart data requests which have been served from the bar cache without pulling */
+	public static final String PLOT_CACHE_HITS = "plot.cache.hits";
+	/** Counter of chart data requests for which only the gap before the cached bars has been pulled */
+	public static final String PLOT_CACHE_PARTIAL_HITS = "plot.cache.partial";
+	/** Counter of series which have been prefetched into the bar cache */
+	public static final String PLOT_PREFETCHES = "plot.prefetches";
+	/** Counter of series which have been pulled by the screener */
+	public static final String SCREENER_PULLS = "screener.pulls";
+	/** Counter of series which the screener has taken from its cache instead of pulling them */
+	public static final String SCREENER_CACHE_HITS = "screener.cache.hits";
+	/** Counter of alarm events which have been delivered to the notification panel */
+	public static final String ALARM_EVENTS = "alarm.events";
+	/** Counter of alarm events which have been suppressed (duplicates, rate limit per symbol, full queue) */
+	public static final String ALARM_EVENTS_SUPPRESSED = "alarm.events.suppressed";
+
+	private static final MetricsRegistry instance = new MetricsRegistry();
+
+	private ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<String, LongAdder>();
+	private ConcurrentHashMap<String, LatencyHistogram> timers = new ConcurrentHashMap<String, LatencyHistogram>();
+	private ConcurrentHashMap<String, RateMeter> meters = new ConcurrentHashMap<String, RateMeter>();
+	private ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<String, LongSupplier>();
+	private ScheduledExecutorService rateTicker;
+
+	/**
+	 * Construct a new, empty registry. Rates of its meters are updated once per second by a daemon thread.
+	 */
+	public MetricsRegistry() {
+		rateTicker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "MetricsRegistry rate ticker");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		rateTicker.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				long now = System.nanoTime();
+				for (RateMeter m : meters.values()) {
+					m.tick(now);
+				}
+			}
+		}, 1L, 1L, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Get the registry which is shared by the whole application.
+	 * @return the shared registry
+	 */
+	public static MetricsRegistry getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Get the counter with the given name (created if necessary).
+	 * @param name the name of the counter
+	 * @return the counter
+	 */
+	public LongAdder counter(String name) {
+		LongAdder c = counters.get(name);
+		if (c == null) {
+			c = new LongAdder();
+			LongAdder existing = counters.putIfAbsent(name, c); // someone else might have been faster
+			if (existing != null) {
+				c = existing;
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * Get the timer with the given name (created if necessary). Timers record durations in nanoseconds.
+	 * @param name the name of the timer
+	 * @return the timer
+	 */
+	public LatencyHistogram timer(String name) {
+		LatencyHistogram t = timers.get(name);
+		if (t == null) {
+			t = new LatencyHistogram();
+			LatencyHistogram existing = timers.putIfAbsent(name, t); // someone else might have been faster
+			if (existing != null) {
+				t = existing;
+			}
+		}
+		return t;
+	}
+
+	/**
+	 * Get the rate meter with the given name (created if necessary).
+	 * @param name the name of the meter
+	 * @return the meter
+	 */
+	public RateMeter meter(String name) {
+		RateMeter m = meters.get(name);
+		if (m == null) {
+			m = new RateMeter();
+			RateMeter existing = meters.putIfAbsent(name, m); // someone else might have been faster
+			if (existing != null) {
+				m = existing;
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * Remove the rate meter with the given name (e.g. when a symbol is no longer subscribed).
+	 * @param name the name of the meter
+	 */
+	public void removeMeter(String name) {
+		meters.remove(name);
+	}
+
+	/**
+	 * Register a gauge, i.e. a value which is sampled whenever the metrics are read. A gauge registered under
+	 * the same name before is replaced.
+	 * @param name the name of the gauge
+	 * @param gauge the function which samples the value
+	 */
+	public void registerGauge(String name, LongSupplier gauge) {
+		gauges.put(name, gauge);
+	}
+
+	/**
+	 * Get the values of all counters.
+	 * @return a map from the counter names (sorted) to their values
+	 */
+	public Map<String, Long> getCounterValues() {
+		TreeMap<String, Long> map = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> e : counters.entrySet()) {
+			map.put(e.getKey(), e.getValue().sum());
+		}
+		return map;
+	}
+
+	/**
+	 * Get the sum of all counters whose names start with the given prefix.
+	 * @param prefix the prefix, e.g. <code>http.requests.</code>
+	 * @return the sum
+	 */
+	public long getCounterSum(String prefix) {
+		long sum = 0L;
+		for (Map.Entry<String, LongAdder> e : counters.entrySet()) {
+			if (e.getKey().startsWith(prefix)) {
+				sum += e.getValue().sum();
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Get the current rates of all meters.
+	 * @return a map from the meter names (sorted) to their rates per second
+	 */
+	public Map<String, Double> getRates() {
+		TreeMap<String, Double> map = new TreeMap<String, Double>();
+		for (Map.Entry<String, RateMeter> e : meters.entrySet()) {
+			map.put(e.getKey(), e.getValue().getRate());
+		}
+		return map;
+	}
+
+	/**
+	 * Get the current values of all gauges. Gauges which fail to deliver a value are skipped.
+	 * @return a map from the gauge names (sorted) to their values
+	 */
+	public Map<String, Long> getGaugeValues() {
+		TreeMap<String, Long> map = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongSupplier> e : gauges.entrySet()) {
+			try {
+				map.put(e.getKey(), e.getValue().getAsLong());
+			} catch (RuntimeException ex) { } // e.g. concurrent modification of the sampled collection
+		}
+		return map;
+	}
+
+	/**
+	 * Get copies of all timers.
+	 * @return a map from the timer names (sorted) to copies of the timers
+	 */
+	public Map<String, LatencyHistogram> getTimerSnapshots() {
+		TreeMap<String, LatencyHistogram> map = new TreeMap<String, LatencyHistogram>();
+		for (Map.Entry<String, LatencyHistogram> e : timers.entrySet()) {
+			map.put(e.getKey(), e.getValue().copy());
+		}
+		return map;
+	}
+
+	/**
+	 * Reset all counters, timers and meters (gauges are not affected).
+	 */
+	public void reset() {
+		for (LongAdder c : counters.values()) {
+			c.reset();
+		}
+		for (LatencyHistogram t : timers.values()) {
+			t.reset();
+		}
+		for (RateMeter m : meters.values()) {
+			m.reset();
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package stocker.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a loss of the push connection, after which the data manager reconnects.
+ *
+ * @author Marc S. Schneider
+ */
+@Name("stocker.PushReconnect")
+@Label("Push Reconnect")
+@Category({ "Stocker", "Data Manager" })
+@Description("The push connection has been lost and is being re-established")
+@StackTrace(false)
+public class PushReconnectEvent extends Event {
+
+	/**
+	 * The number of symbols which have to be re-subscribed
+	 */
+	@Label("Subscriptions")
+	public int subscriptions;
+}
@@ -0,0 +1,72 @@
+package stocker.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events and determines their rate per second. The rate is updated once per second by the
+ * {@link MetricsRegistry} which owns this meter, so it always refers to the last completed second.
+ *
+ * @author Marc S. Schneider
+ */
+public class RateMeter {
+
+	private final LongAdder count = new LongAdder();
+	private long lastCount = 0L;
+	private long lastTick = System.nanoTime();
+	private volatile double rate = 0.0;
+
+	/**
+	 * Count one event.
+	 */
+	public void mark() {
+		count.increment();
+	}
+
+	/**
+	 * Count the given number of events.
+	 * @param n the number of events
+	 */
+	public void mark(long n) {
+		count.add(n);
+	}
+
+	/**
+	 * Get the number of events counted so far.
+	 * @return the number of events
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Get the rate of the events.
+	 * @return the number of events per second
+	 */
+	public double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Update the rate (default visibility, called periodically by the {@link MetricsRegistry}).
+	 * @param now the current time (System.nanoTime())
+	 */
+	synchronized void tick(long now) {
+		long c = count.sum();
+		long dt = now - lastTick;
+		if (dt > 0L) {
+			rate = (c - lastCount) * 1e9 / dt;
+		}
+		lastCount = c;
+		lastTick = now;
+	}
+
+	/**
+	 * Reset the count and the rate (default visibility, called by the {@link MetricsRegistry}).
+	 */
+	synchronized void reset() {
+		count.reset();
+		lastCount = 0L;
+		lastTick = System.nanoTime();
+		rate = 0.0;
+	}
+}
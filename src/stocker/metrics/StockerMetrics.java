@@ -0,0 +1,82 @@
+package stocker.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import stocker.util.ELatencyStage;
+
+/**
+ * Publishes a {@link MetricsRegistry} and the {@link LatencyMonitor} via JMX.
+ *
+ * @author Marc S. Schneider
+ */
+public class StockerMetrics implements IStockerMetricsMXBean {
+
+	private MetricsRegistry registry;
+
+	/**
+	 * Construct a new StockerMetrics bean for the given registry.
+	 * @param registry the registry to be published
+	 */
+	public StockerMetrics(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Long> getCounters() {
+		return registry.getCounterValues();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Double> getRates() {
+		return registry.getRates();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Long> getGauges() {
+		return registry.getGaugeValues();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, TimerSummary> getTimers() {
+		TreeMap<String, TimerSummary> map = new TreeMap<String, TimerSummary>();
+		for (Map.Entry<String, LatencyHistogram> e : registry.getTimerSnapshots().entrySet()) {
+			map.put(e.getKey(), new TimerSummary(e.getValue()));
+		}
+		return map;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, TimerSummary> getPushLatencies() {
+		LatencySnapshot s = LatencyMonitor.snapshot();
+		TreeMap<String, TimerSummary> map = new TreeMap<String, TimerSummary>();
+		for (ELatencyStage stage : ELatencyStage.values()) {
+			map.put(stage.name(), new TimerSummary(s.getHistogram(stage)));
+		}
+		return map;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset() {
+		registry.reset();
+		LatencyMonitor.reset();
+	}
+}
@@ -0,0 +1,95 @@
+package stocker.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A summary of a timer (count and latencies in microseconds), as published via JMX by {@link StockerMetrics}.
+ *
+ * @author Marc S. Schneider
+ */
+public class TimerSummary {
+
+	private final long count;
+	private final double meanMicros;
+	private final double p50Micros;
+	private final double p99Micros;
+	private final double p999Micros;
+	private final double maxMicros;
+
+	/**
+	 * Construct a new summary with the given values.
+	 * @param count the number of recorded durations
+	 * @param meanMicros the mean duration in microseconds
+	 * @param p50Micros the median duration in microseconds
+	 * @param p99Micros the 99th percentile in microseconds
+	 * @param p999Micros the 99.9th percentile in microseconds
+	 * @param maxMicros the maximum duration in microseconds
+	 */
+	@ConstructorProperties({ "count", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros" })
+	public TimerSummary(long count, double meanMicros, double p50Micros, double p99Micros, double p999Micros,
+			double maxMicros) {
+		this.count = count;
+		this.meanMicros = meanMicros;
+		this.p50Micros = p50Micros;
+		this.p99Micros = p99Micros;
+		this.p999Micros = p999Micros;
+		this.maxMicros = maxMicros;
+	}
+
+	/**
+	 * Construct a new summary of the given timer.
+	 * @param timer the timer
+	 */
+	public TimerSummary(LatencyHistogram timer) {
+		this(timer.getCount(), timer.getMean() / 1e3, timer.getValueAtPercentile(50.0) / 1e3,
+				timer.getValueAtPercentile(99.0) / 1e3, timer.getValueAtPercentile(99.9) / 1e3, timer.getMax() / 1e3);
+	}
+
+	/**
+	 * Get the number of recorded durations.
+	 * @return the number of recorded durations
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Get the mean duration.
+	 * @return the mean duration in microseconds
+	 */
+	public double getMeanMicros() {
+		return meanMicros;
+	}
+
+	/**
+	 * Get the median duration.
+	 * @return the median duration in microseconds
+	 */
+	public double getP50Micros() {
+		return p50Micros;
+	}
+
+	/**
+	 * Get the 99th percentile of the durations.
+	 * @return the 99th percentile in microseconds
+	 */
+	public double getP99Micros() {
+		return p99Micros;
+	}
+
+	/**
+	 * Get the 99.9th percentile of the durations.
+	 * @return the 99.9th percentile in microseconds
+	 */
+	public double getP999Micros() {
+		return p999Micros;
+	}
+
+	/**
+	 * Get the maximum duration.
+	 * @return the maximum duration in microseconds
+	 */
+	public double getMaxMicros() {
+		return maxMicros;
+	}
+}
@@ -0,0 +1,59 @@
+package stocker.model;
+
+/**
+ * Base class for {@link IChartIndicatorProvider}s, which holds the type, the name and the parameter schema.
+ * Subclasses only have to define the warm-up length and to create the indicators.
+ *
+ * @author Marc S. Schneider
+ */
+public abstract class AbstractChartIndicatorProvider implements IChartIndicatorProvider {
+
+	private final String type;
+	private final String name;
+	private final IndicatorParameter[] schema;
+
+	/**
+	 * Construct a new provider.
+	 * @param type the type of the indicators (see {@link IChartIndicatorProvider#getType()})
+	 * @param name the name of this type of indicator, suitable for direct display to the user
+	 * @param schema the parameters of the indicators
+	 */
+	protected AbstractChartIndicatorProvider(String type, String name, IndicatorParameter... schema) {
+		this.type = type;
+		this.name = name;
+		this.schema = schema;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IndicatorParameter[] getParameterSchema() {
+		return schema.clone();
+	}
+
+	/**
+	 * Get the name of this type of indicator.
+	 * @return the name
+	 */
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,77 @@
+package stocker.model;
+
+/**
+ * Represents the event that an alarm (a {@link ChartAlarm} or a {@link ConditionAlarm}) has been triggered.
+ * Immutable, so it can be handed from the push thread to the GUI without synchronization.
+ *
+ * @author Marc S. Schneider
+ */
+public class AlarmEvent {
+	private final String symbol;
+	private final String description;
+	private final double price;
+	private final long time;
+
+	/**
+	 * Constructs a new alarm event.
+	 * @param symbol the symbol for which the alarm has been triggered
+	 * @param description a human-readable description of the alarm (e.g. "105.0, steigend")
+	 * @param price the price which has triggered the alarm
+	 * @param time the time at which the alarm has been triggered (in milliseconds since the epoch)
+	 */
+	public AlarmEvent(String symbol, String description, double price, long time) {
+		this.symbol = symbol;
+		this.description = description;
+		this.price = price;
+		this.time = time;
+	}
+
+	/**
+	 * Get the symbol for which the alarm has been triggered.
+	 * @return the symbol
+	 */
+	public String getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * Get the human-readable description of the alarm.
+	 * @return the description
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Get the price which has triggered the alarm.
+	 * @return the price
+	 */
+	public double getPrice() {
+		return price;
+	}
+
+	/**
+	 * Get the time at which the alarm has been triggered.
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Get a key which is equal for events of the same alarm (used for de-duplication).
+	 * @return the symbol and the description of the alarm
+	 */
+	public String getKey() {
+		return symbol + "|" + description;
+	}
+
+	/**
+	 * Returns a String representation of this event.
+	 * @return a String containing the symbol and the description
+	 */
+	@Override
+	public String toString() {
+		return symbol + ": " + description;
+	}
+}
@@ -0,0 +1,124 @@
+package stocker.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Price index of the {@link ChartAlarm}s of one symbol. The alarms are kept sorted by their value, so that a
+ * price move from the last to the current price triggers exactly the alarms in between, which are found by a
+ * range query in O(log n + k) (n alarms, k of them triggered) instead of checking every alarm on every tick.
+ * Adding and removing an alarm by value is O(log n), too.
+ * <p>
+ * As long as the index has not seen a price yet, and for alarms which carry their own last price (e.g. restored
+ * from a previous session), the first tick is checked individually by {@link ChartAlarm#check(double)}, so an
+ * alarm which has been passed while the application was not running is still triggered.
+ * <p>
+ * All methods are synchronized, as the index is updated by the push thread and modified by the GUI.
+ *
+ * @author Marc S. Schneider
+ */
+public class AlarmIndex {
+
+	private final TreeMap<Double, ChartAlarm> alarms = new TreeMap<Double, ChartAlarm>();
+	private final ArrayList<ChartAlarm> unseeded = new ArrayList<ChartAlarm>(); // alarms with their own lastPrice
+	private double lastPrice = 0.0; // 0.0 = no price seen yet
+
+	/**
+	 * Add an alarm, unless there is already an alarm with the same value.
+	 * @param ca the alarm to be added
+	 * @return true if the alarm has been added, false if there already is an alarm with this value
+	 */
+	public synchronized boolean add(ChartAlarm ca) {
+		if (alarms.containsKey(ca.getValue())) {
+			return false;
+		}
+		alarms.put(ca.getValue(), ca);
+		if (ca.getLastPrice() != 0.0) {
+			unseeded.add(ca);
+		}
+		return true;
+	}
+
+	/**
+	 * Remove the alarm with the given value.
+	 * @param value the value of the alarm to be removed
+	 * @return the removed alarm, or null if there is no alarm with this value
+	 */
+	public synchronized ChartAlarm remove(double value) {
+		ChartAlarm ca = alarms.remove(value);
+		if (ca != null) {
+			unseeded.remove(ca);
+		}
+		return ca;
+	}
+
+	/**
+	 * Remove all alarms (the last price is kept).
+	 */
+	public synchronized void clear() {
+		alarms.clear();
+		unseeded.clear();
+	}
+
+	/**
+	 * Get the number of alarms in this index.
+	 * @return the number of alarms
+	 */
+	public synchronized int size() {
+		return alarms.size();
+	}
+
+	/**
+	 * Get the last price which has been passed to {@link #update(double, ArrayList)}.
+	 * @return the last price, or 0.0 if no price has been seen yet
+	 */
+	public synchronized double getLastPrice() {
+		return lastPrice;
+	}
+
+	/**
+	 * Get all alarms, sorted by their value.
+	 * @return a new list containing all alarms of this index
+	 */
+	public synchronized ArrayList<ChartAlarm> getAlarms() {
+		return new ArrayList<ChartAlarm>(alarms.values());
+	}
+
+	/**
+	 * Process a new price: Find all alarms whose value has been passed by the move from the last to the given
+	 * price, mark them as triggered, remove them from the index and add them to the given list. An alarm is
+	 * passed if its value lies in (lastPrice, price] for a rising or in [price, lastPrice) for a dropping price.
+	 * @param price the current price
+	 * @param triggered the list to which the triggered alarms are added
+	 * @return the number of triggered alarms
+	 */
+	public synchronized int update(double price, ArrayList<ChartAlarm> triggered) {
+		int n = 0;
+		if (!unseeded.isEmpty()) {
+			for (ChartAlarm ca : unseeded) {
+				if (ca.check(price) != 0.0) {
+					alarms.remove(ca.getValue());
+					triggered.add(ca);
+					n++;
+				}
+			}
+			unseeded.clear();
+		}
+		if (lastPrice != 0.0 && price != lastPrice && !alarms.isEmpty()) {
+			NavigableMap<Double, ChartAlarm> passed = (price > lastPrice ? alarms.subMap(lastPrice, false, price, true)
+					: alarms.subMap(price, true, lastPrice, false));
+			Iterator<ChartAlarm> it = passed.values().iterator();
+			while (it.hasNext()) {
+				ChartAlarm ca = it.next();
+				ca.trigger(lastPrice, price);
+				triggered.add(ca);
+				it.remove();
+				n++;
+			}
+		}
+		lastPrice = price;
+		return n;
+	}
+}
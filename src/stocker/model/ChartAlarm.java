@@ -11,6 +11,7 @@ public class ChartAlarm {
 	private double value;
 	private double lastPrice = 0.0;
 	private boolean hasBeenTriggered = false;
+	private double triggerChange = 0.0;
 
 	/**
 	 * Constructs a new chart alarm with the given value. 
@@ -62,12 +63,34 @@ public class ChartAlarm {
 			if (Math.signum(lastPrice-value) != Math.signum(price-value)) {
 				change = price - lastPrice;
 				hasBeenTriggered = true;
+				triggerChange = change;
 			}
 		}
 		lastPrice = price;
 		return change;
 	}
 
+	/**
+	 * Mark this alarm as triggered by a price move which has been detected outside of {@link #check(double)}
+	 * (e.g. by a range query of the {@link AlarmIndex}).
+	 * @param lastPrice the price before the move
+	 * @param price the price after the move
+	 */
+	public void trigger(double lastPrice, double price) {
+		this.lastPrice = price;
+		this.triggerChange = price - lastPrice;
+		this.hasBeenTriggered = true;
+	}
+
+	/**
+	 * Returns the price change which has triggered this alarm.
+	 * @return the (signed) difference between the price after and before the alarm value was passed, i.e. positive
+	 * 		   for a rising and negative for a dropping price; or 0.0 if the alarm has not been triggered yet
+	 */
+	public double getTriggerChange() {
+		return triggerChange;
+	}
+
 	/**
 	 * Returns the trigger value of this alarm as a String representation.
 	 * @return a string representation of this alarm, i.e. its trigger value
@@ -3,8 +3,6 @@ package stocker.model;
 import java.util.Iterator;
 import java.util.LinkedList;
 
-import javax.swing.JComboBox;
-
 import stocker.util.Candle;
 import stocker.util.EChartColors;
 
@@ -12,6 +10,12 @@ import stocker.util.EChartColors;
  * Represents a technical indicator for a chart. An indicator is described by a list of data candles that
  * the indicator is defined on, the values of the indicator, and a separate list of timestamps at which 
  * the candles are given (for more convenience when plotting this indicator to a chart).
+ * <p>
+ * Indicators are pure compute objects without any user interface (the parameters are edited by the dialogs, based
+ * on the parameter schema of the indicator's {@link IChartIndicatorProvider}), so they are cheap to create and can
+ * be used on any thread, e.g. headless for screening. An instance is not synchronized internally: it must only be 
+ * used by one thread at a time (for a chart: the event dispatch thread), but different instances can be computed 
+ * in parallel, as they share no state.
  * 
  * @author Marc S. Schneider
  * @see ChartIndicatorSMA
@@ -29,15 +33,12 @@ public abstract class ChartIndicator {
 	private LinkedList<Candle> candles; // the candles on which this indicator is calculated
 	private LinkedList<Long> times;     // for convenience during plotting; the time stamps are also in the candles
 	private boolean isParametrized = false;
-	private boolean isActive = true;
+	private volatile boolean isActive = true; // toggled on the EDT, read while the chart is rendered
 	private EChartColors color = EChartColors.BLUE;
-	private JComboBox<EChartColors> comboColors = new JComboBox<EChartColors>(EChartColors.values());
 
 	/** 
 	 * Constructs a new chart indicator without assigning data candles and without setting parameters.
-	 * These need to be set later via {@link #setParameters(int[])} and {@link #setCandles(LinkedList)},
-	 * or (for the parameters) interactively with a dialog via {@link #getParametersMessage()} and 
-	 * {@link #parametrizeFromTextfields()}.
+	 * These need to be set later via {@link #setParameters(int[])} and {@link #setCandles(LinkedList)}.
 	 */
 	public ChartIndicator() {
 		this.candles = new LinkedList<Candle>();
@@ -47,9 +48,7 @@ public abstract class ChartIndicator {
 
 	/**
 	 * Constructs a new chart indicator with data candles assigned, but without the parameters set. 
-	 * The parameters need to be set later via {@link #setParameters(int[])},
-	 * or interactively with a dialog via {@link #getParametersMessage()} and 
-	 * {@link #parametrizeFromTextfields()}.
+	 * The parameters need to be set later via {@link #setParameters(int[])}.
 	 * @param candles a LinkedList of candles representing the data that this indicator is defined on
 	 */
 	public ChartIndicator(LinkedList<Candle> candles) {
@@ -152,19 +151,49 @@ public abstract class ChartIndicator {
 	 */
 	public abstract void calculate();
 
-	/** 
-	 * Get an object array containing Strings and JTextFields from which the parameters can be requested with a
-	 * JOptionPane.showConfirmDialog. To be implemented by the subclasses.
-	 * @return an array containing the Strings and JTextFields required to construct a dialog to enter the parameter values
+	/**
+	 * Calculate only this indicator's value(s) at the last candle, for incremental use after the last candle has been
+	 * updated or a new candle has been appended (e.g. by push updates). The values at all other time stamps are
+	 * assumed to be up to date. The default implementation falls back to {@link #calculate()}; subclasses should
+	 * override it with an implementation whose cost does not depend on the number of candles.
+	 */
+	public void calculateLast() {
+		calculate();
+	}
+
+	/**
+	 * Remove the values and the time stamp at the first candle, for incremental use after the first candle has been
+	 * removed from a sliding window of candles (so the values stay aligned with the candles without recalculation).
+	 */
+	public void removeFirstValue() {
+		if (!times.isEmpty()) {
+			times.removeFirst();
+			for (LinkedList<Double> valueList : values) {
+				if (!valueList.isEmpty()) {
+					valueList.removeFirst();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether this indicator is drawn over the candles, with the scale of the prices (e.g. a moving average).
+	 * Indicators with a different range of values (e.g. oscillators) return false and are drawn in a separate pane
+	 * below the prices, with a scale of their own.
+	 * @return true (the default) for an overlay of the prices, false for a separate pane
 	 */
-	public abstract Object[] getParametersMessage();
+	public boolean isOverlay() {
+		return true;
+	}
 
 	/**
-	 * Determine the parameters from user input in text fields (to be used in conjunction wih
-	 * {@link #getParametersMessage()}). Call this method after the parameter selection dialog has been 
-	 * closed / confirmed. To be implemented by the subclasses.
+	 * Returns whether the i-th value list of this indicator is drawn as histogram (bars from zero) instead of a line.
+	 * @param i the index of the value list
+	 * @return false (the default) for a line, true for a histogram
 	 */
-	public abstract void parametrizeFromTextfields();
+	public boolean isHistogram(int i) {
+		return false;
+	}
 
 	/**
 	 * Get a String representing a human-readable name for this type (class) of indicator. 
@@ -200,22 +229,6 @@ public abstract class ChartIndicator {
 	 */
 	public void setColor(EChartColors c) {
 		this.color = c;
-		this.comboColors.setSelectedItem(c);
-	}
-	
-	/** 
-	 * Returns a combo box with the available colors, the active one pre-selected
-	 * @return a combo box with the available colors, the active one pre-selected
-	 */
-	protected JComboBox<EChartColors> getColorCombo() {
-		return comboColors;
-	}
-	
-	/** 
-	 * Sets the active indicator color from the combo (to be called after the combo has been used for a parametrization dialog).
-	 */
-	protected void setColorFromCombo() {
-		this.color = comboColors.getItemAt(comboColors.getSelectedIndex());
 	}
 	
 	/**
@@ -0,0 +1,113 @@
+package stocker.model;
+
+import stocker.util.Candle;
+
+/**
+ * Provides the Average True Range (after Wilder) as a technical indicator for a chart: the true range of a candle
+ * is its range from low to high, extended to the previous close price if the candle has opened with a gap; these
+ * are averaged with Wilder's smoothing. Updated in O(1) per candle (see {@link StreamingChartIndicator}); drawn in
+ * a pane of its own.
+ *
+ * @author Marc S. Schneider
+ */
+public class ChartIndicatorATR extends StreamingChartIndicator {
+
+	private EmaState avgRange;
+	private double prevClose;
+	private boolean hasPrevClose;
+
+	/**
+	 * Constructs a new Average True Range chart indicator without assigning data candles and without setting
+	 * parameters. These need to be set later via {@link #setParameters(int[])} and
+	 * {@link #setCandles(java.util.LinkedList)}.
+	 */
+	public ChartIndicatorATR() {
+		super("ATR", 1, Provider.SCHEMA);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void reset() {
+		avgRange = EmaState.wilder(getParameter(0));
+		hasPrevClose = false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void commit(Candle c, double[] out) {
+		out[0] = avgRange.commit(trueRange(c));
+		prevClose = c.close;
+		hasPrevClose = true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void evaluate(Candle c, double[] out) {
+		out[0] = avgRange.peek(trueRange(c));
+	}
+
+	// helper function
+	private double trueRange(Candle c) {
+		if (!hasPrevClose) { // the first candle has no previous close
+			return c.high - c.low;
+		}
+		return Math.max(c.high, prevClose) - Math.min(c.low, prevClose);
+	}
+
+	/**
+	 * The ATR is drawn in a pane of its own.
+	 * @return false
+	 */
+	@Override
+	public boolean isOverlay() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return "ATR";
+	}
+
+	/**
+	 * The provider of the Average True Range (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider extends AbstractChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = {
+				new IndicatorParameter("n (Anz. Punkte)", 1, 10000, 14) };
+
+		/**
+		 * Construct the provider.
+		 */
+		public Provider() {
+			super("ATR", "Average True Range (ATR)", SCHEMA);
+		}
+
+		/**
+		 * The average is seeded with the true ranges of the first n candles.
+		 * @param params the parameters (n)
+		 * @return n-1
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return Math.max(params[0] - 1, 0);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorATR();
+		}
+	}
+}
@@ -1,12 +1,10 @@
 package stocker.model;
 
+import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.ListIterator;
-
-import javax.swing.JTextField;
 
+import stocker.util.ArrayKernels;
 import stocker.util.Candle;
-import stocker.util.TextfieldIntValidatorOnFocusLost;
 
 /**
  * Provides the Bollinger Bands as a technical indicator for a chart. An indicator is described by a list of data 
@@ -24,27 +22,25 @@ public class ChartIndicatorBollingerBands extends ChartIndicator {
 	private LinkedList<Double> upper = new LinkedList<Double>();
 	private ChartIndicatorSMA indSMA; // for calculation of the Moving Average within this calculation
 	private LinkedList<Double> sma = new LinkedList<Double>();
-	private JTextField tn, tm, tf;
+	private double completedShift;                // the moving average when the last candle started, the sums of
+	private double completedSum;                  // the deviations of the m-1 closes before the last candle from
+	private double completedSquares;              // it and of their squares,
+	private long completedTime = Long.MIN_VALUE;  // and the time of that last candle (see calculateLast)
 
 	/** 
 	 * Constructs a new Bollinger Band chart indicator without assigning data candles and without setting parameters.
-	 * These need to be set later via {@link #setParameters(int[])} and {@link #setCandles(LinkedList)},
-	 * or (for the parameters) interactively with a dialog via {@link #getParametersMessage()} and 
-	 * {@link #parametrizeFromTextfields()}.
+	 * These need to be set later via {@link #setParameters(int[])} and {@link #setCandles(LinkedList)}.
 	 */
 	public ChartIndicatorBollingerBands() {
 		super();
 		addValueList(lower);
 		addValueList(sma);
 		addValueList(upper);
-		initializeTextFields();
 	}
 
 	/**
 	 * Constructs a new Bollinger Band chart indicator with data candles assigned, but without the parameters set. 
-	 * The parameters need to be set later via {@link #setParameters(int[])},
-	 * or interactively with a dialog via {@link #getParametersMessage()} and 
-	 * {@link #parametrizeFromTextfields()}.
+	 * The parameters need to be set later via {@link #setParameters(int[])}.
 	 * @param candles a LinkedList of candles representing the data that this indicator is defined on
 	 */
 	public ChartIndicatorBollingerBands(LinkedList<Candle> candles, int nPoints, int m, double f) {
@@ -59,19 +55,6 @@ public class ChartIndicatorBollingerBands extends ChartIndicator {
 		indSMA = new ChartIndicatorSMA(candles, nPoints);
 		sma = indSMA.getValues(0);
 		calculate();
-		initializeTextFields(); // just in case someone needs them later...
-	}
-
-	private void initializeTextFields() {
-		tn = new JTextField(3);
-		tn.setText("20");
-		tn.addFocusListener(new TextfieldIntValidatorOnFocusLost(tn, 1, 10000, 20));
-		tm = new JTextField(3);
-		tm.setText("20");
-		tm.addFocusListener(new TextfieldIntValidatorOnFocusLost(tm, 1, 10000, 20));
-		tf = new JTextField(3);
-		tf.setText("2");
-		tf.addFocusListener(new TextfieldIntValidatorOnFocusLost(tf, 1, 1000, 2));
 	}
 
 	/**
@@ -85,73 +68,107 @@ public class ChartIndicatorBollingerBands extends ChartIndicator {
 		indSMA.calculate(); // calculate the internal SMA 
 		LinkedList<Candle> candles = getCandles(); // get Candles (attribute belongs to super class)
 		LinkedList<Long> times = getTimes();       // get times (attribute belongs to super class)
-		ListIterator<Candle> candleIt = candles.listIterator();
-		ListIterator<Double> smaIt = sma.listIterator();
+		int size = candles.size();
+		double[] mean = new double[size];
+		int i = 0;
+		for (Double v : sma) {
+			mean[i++] = v;
+		}
+		double[] var = new double[size]; // 0 where there are fewer than m candles
+		if (m > 0) { // the variances of the windows around the SMA, computed on an array (see IArrayKernels)
+			ArrayKernels.get().rollingVariance(ArrayKernels.closes(candles), m, mean, var);
+		}
 		lower.clear();  // delete any previously present data
 		upper.clear();
 		times.clear();
+		completedTime = Long.MIN_VALUE;
 		
-		for (int i = 0; i < candles.size(); i++) { // iterate over this indicator's data points (times)
-			Double v = 0.0;
-			double sum = 0.0;
-			times.add(candleIt.next().time); // append next timestamp
-			smaIt.next();                    // proceed in the internal helper (SMA) indicator
-			if (i >= m-1) {
-				Candle c = candleIt.previous();
-				Double curSMA = smaIt.previous();
-				for (int k = 0; k <= m-1; k++) { // calculate sum of squares
-					sum += Math.pow(c.close - curSMA, 2);
-					if (candleIt.hasPrevious()) {
-						c = candleIt.previous();
-					}
-				}
-				if (m > 0) { // calculate square root (only if m > 0)
-					v = Math.sqrt(sum / m);
-				} else {
-					v = 0.0;
-				}
-				while (candleIt.nextIndex() <= i) {
-					candleIt.next();
-				}
-				smaIt.next();
-			}
-			lower.add(sma.get(i) - f * v);  // calculate the bands and add them to the result
-			upper.add(sma.get(i) + f * v);
+		i = 0;
+		for (Candle c : candles) { // iterate over this indicator's data points (times)
+			double v = Math.sqrt(var[i]);
+			times.add(c.time); // append next timestamp
+			lower.add(mean[i] - f * v);  // calculate the bands and add them to the result
+			upper.add(mean[i] + f * v);
+			i++;
 		}
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Calculate only the bands at the last candle, without iterating over all candles: the sums of the deviations of
+	 * the m-1 completed candles before it (from the moving average when the last candle started, which keeps them
+	 * small) and of their squares are calculated once per new last candle, so each update of the last candle only adds its
+	 * close.
 	 */
 	@Override
-	public void setCandles(LinkedList<Candle> candles) {
-		super.setCandles(candles);
-		indSMA = new ChartIndicatorSMA(candles, nPoints);
-		sma = indSMA.getValues(0);
-		setValuesList(1, sma);
+	public void calculateLast() {
+		if (!isParametrized() || indSMA == null) { // nothing can be calculated unless parameters and candles are set
+			return;
+		}
+		LinkedList<Candle> candles = getCandles();
+		LinkedList<Long> times = getTimes();
+		int size = candles.size();
+		if (size == 0 || times.size() < size - 1 || times.size() > size) { // not in sync with the candles
+			calculate();
+			return;
+		}
+		indSMA.calculateLast();
+		if (times.size() == size) { // the last candle has been updated: replace its values
+			times.removeLast();
+			lower.removeLast();
+			upper.removeLast();
+		}
+		times.add(candles.getLast().time);
+		double curSMA = sma.getLast();
+		double v = 0.0;
+		if (m > 0 && size >= m) {
+			Candle last = candles.getLast();
+			if (last.time != completedTime) { // a new last candle: the others in the window are completed
+				Iterator<Candle> candleIt = candles.descendingIterator();
+				candleIt.next();
+				completedShift = curSMA;
+				completedSum = 0.0;
+				completedSquares = 0.0;
+				for (int k = 1; k < m; k++) {
+					double d = candleIt.next().close - completedShift;
+					completedSum += d;
+					completedSquares += d * d;
+				}
+				completedTime = last.time;
+			}
+			// sum of squares around the SMA from the sums around the shift: sum (d - e)^2 with e = SMA - shift
+			double d = last.close - completedShift;
+			double e = curSMA - completedShift;
+			double sum = completedSquares + d * d - 2.0 * e * (completedSum + d) + m * e * e;
+			v = Math.sqrt(Math.max(sum, 0.0) / m);
+		}
+		lower.add(curSMA - f * v);
+		upper.add(curSMA + f * v);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Object[] getParametersMessage() {
-		Object[] msg = { "n (Anz. Punkte Mittelwert)", tn, "m (Anz. Punkte Stdabw.)", tm, "f (Breite Band)", tf, 
-						 "Farbe", super.getColorCombo()};
-		return msg;
+	public void removeFirstValue() {
+		if (!getTimes().isEmpty()) {
+			getTimes().removeFirst();
+			lower.removeFirst();
+			upper.removeFirst();
+		}
+		if (indSMA != null) { // the moving average belongs to the internal SMA indicator
+			indSMA.removeFirstValue();
+		}
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void parametrizeFromTextfields() {
-		// Text field input has been validated using TextfieldIntValidatorOnFocusLost, so no more checks needed
-		this.nPoints = Integer.parseInt(tn.getText());
-		this.m = Integer.parseInt(tm.getText());
-		this.f = Integer.parseInt(tf.getText());
-		super.setColorFromCombo();
-		setParametrized(true);
+	public void setCandles(LinkedList<Candle> candles) {
+		super.setCandles(candles);
+		indSMA = new ChartIndicatorSMA(candles, nPoints);
+		sma = indSMA.getValues(0);
+		setValuesList(1, sma);
 	}
 
 	/**
@@ -193,4 +210,65 @@ public class ChartIndicatorBollingerBands extends ChartIndicator {
 		this.f = (double)params[2];
 		setParametrized(true);
 	}
+
+	/**
+	 * The provider of the Bollinger Bands (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider implements IChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = { 
+				new IndicatorParameter("n (Anz. Punkte Mittelwert)", 1, 10000, 20),
+				new IndicatorParameter("m (Anz. Punkte Stdabw.)", 1, 10000, 20),
+				new IndicatorParameter("f (Breite Band)", 1, 1000, 2) };
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getType() {
+			return "BollingerBands";
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getName() {
+			return "Bollinger-Bänder";
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public IndicatorParameter[] getParameterSchema() {
+			return SCHEMA.clone();
+		}
+
+		/**
+		 * The bands need the average of n and the deviation of m candles.
+		 * @param params the parameters (n, m, f)
+		 * @return max(n, m)-1
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return Math.max(Math.max(params[0], params[1]) - 1, 0);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorBollingerBands();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString() {
+			return getName();
+		}
+	}
 }
@@ -0,0 +1,95 @@
+package stocker.model;
+
+import stocker.util.Candle;
+
+/**
+ * Provides the Double Exponential Moving Average as a technical indicator for a chart:
+ * <code>2 * EMA(close) - EMA(EMA(close))</code>, which lags less than the EMA. Updated in O(1) per candle
+ * (see {@link StreamingChartIndicator}).
+ *
+ * @author Marc S. Schneider
+ */
+public class ChartIndicatorDEMA extends StreamingChartIndicator {
+
+	private EmaState ema1, ema2;
+
+	/**
+	 * Constructs a new Double Exponential Moving Average chart indicator without assigning data candles and without
+	 * setting parameters. These need to be set later via {@link #setParameters(int[])} and
+	 * {@link #setCandles(java.util.LinkedList)}.
+	 */
+	public ChartIndicatorDEMA() {
+		super("DEMA", 1, Provider.SCHEMA);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void reset() {
+		ema1 = new EmaState(getParameter(0));
+		ema2 = new EmaState(getParameter(0));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void commit(Candle c, double[] out) {
+		double e1 = ema1.commit(c.close);
+		double e2 = (Double.isNaN(e1) ? Double.NaN : ema2.commit(e1));
+		out[0] = 2.0 * e1 - e2; // NaN until both are seeded
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void evaluate(Candle c, double[] out) {
+		double e1 = ema1.peek(c.close);
+		double e2 = (Double.isNaN(e1) ? Double.NaN : ema2.peek(e1));
+		out[0] = 2.0 * e1 - e2;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return "DEMA";
+	}
+
+	/**
+	 * The provider of the Double Exponential Moving Average (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider extends AbstractChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = {
+				new IndicatorParameter("n (Anz. Punkte Mittelwert)", 1, 10000, 20) };
+
+		/**
+		 * Construct the provider.
+		 */
+		public Provider() {
+			super("DEMA", "Doppelter exponentieller Mittelwert", SCHEMA);
+		}
+
+		/**
+		 * The second average is seeded with the first n values of the first one.
+		 * @param params the parameters (n)
+		 * @return 2(n-1)
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return 2 * Math.max(params[0] - 1, 0);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorDEMA();
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package stocker.model;
+
+import stocker.util.Candle;
+
+/**
+ * Provides the Exponential Moving Average of the close prices as a technical indicator for a chart. It is seeded
+ * with the simple average of the first n candles and updated in O(1) per candle (see {@link StreamingChartIndicator}).
+ *
+ * @author Marc S. Schneider
+ */
+public class ChartIndicatorEMA extends StreamingChartIndicator {
+
+	private EmaState ema;
+
+	/**
+	 * Constructs a new Exponential Moving Average chart indicator without assigning data candles and without setting
+	 * parameters. These need to be set later via {@link #setParameters(int[])} and
+	 * {@link #setCandles(java.util.LinkedList)}.
+	 */
+	public ChartIndicatorEMA() {
+		super("EMA", 1, Provider.SCHEMA);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void reset() {
+		ema = new EmaState(getParameter(0));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void commit(Candle c, double[] out) {
+		out[0] = ema.commit(c.close);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void evaluate(Candle c, double[] out) {
+		out[0] = ema.peek(c.close);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return "EMA";
+	}
+
+	/**
+	 * The provider of the Exponential Moving Average (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider extends AbstractChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = {
+				new IndicatorParameter("n (Anz. Punkte Mittelwert)", 1, 10000, 20) };
+
+		/**
+		 * Construct the provider.
+		 */
+		public Provider() {
+			super("EMA", "Exponentieller Mittelwert", SCHEMA);
+		}
+
+		/**
+		 * The average is seeded after n candles.
+		 * @param params the parameters (n)
+		 * @return n-1
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return Math.max(params[0] - 1, 0);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorEMA();
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package stocker.model;
+
+import stocker.util.Candle;
+
+/**
+ * Provides the Moving Average Convergence Divergence as a technical indicator for a chart: the MACD line (the fast
+ * minus the slow EMA of the close prices), the signal line (an EMA of the MACD line) and the histogram (MACD line
+ * minus signal line). Updated in O(1) per candle (see {@link StreamingChartIndicator}). As its values are price
+ * differences around zero, it is drawn in a pane of its own.
+ *
+ * @author Marc S. Schneider
+ */
+public class ChartIndicatorMACD extends StreamingChartIndicator {
+
+	private EmaState fast, slow, signal;
+
+	/**
+	 * Constructs a new MACD chart indicator without assigning data candles and without setting parameters. These need
+	 * to be set later via {@link #setParameters(int[])} and {@link #setCandles(java.util.LinkedList)}.
+	 */
+	public ChartIndicatorMACD() {
+		super("MACD", 3, Provider.SCHEMA);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void reset() {
+		fast = new EmaState(getParameter(0));
+		slow = new EmaState(getParameter(1));
+		signal = new EmaState(getParameter(2));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void commit(Candle c, double[] out) {
+		double macd = fast.commit(c.close) - slow.commit(c.close); // NaN until the slow average is seeded
+		double sig = (Double.isNaN(macd) ? Double.NaN : signal.commit(macd));
+		setValues(macd, sig, out);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void evaluate(Candle c, double[] out) {
+		double macd = fast.peek(c.close) - slow.peek(c.close);
+		double sig = (Double.isNaN(macd) ? Double.NaN : signal.peek(macd));
+		setValues(macd, sig, out);
+	}
+
+	// helper function
+	private static void setValues(double macd, double sig, double[] out) {
+		out[0] = macd;
+		out[1] = sig;
+		out[2] = macd - sig;
+	}
+
+	/**
+	 * The MACD is drawn in a pane of its own.
+	 * @return false
+	 */
+	@Override
+	public boolean isOverlay() {
+		return false;
+	}
+
+	/**
+	 * The third value list (MACD line minus signal line) is drawn as histogram.
+	 * @param i the index of the value list
+	 * @return true for the histogram, false for the MACD and the signal line
+	 */
+	@Override
+	public boolean isHistogram(int i) {
+		return i == 2;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return "MACD";
+	}
+
+	/**
+	 * The provider of the MACD (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider extends AbstractChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = {
+				new IndicatorParameter("Schneller Mittelwert (Anz. Punkte)", 1, 10000, 12),
+				new IndicatorParameter("Langsamer Mittelwert (Anz. Punkte)", 1, 10000, 26),
+				new IndicatorParameter("Signallinie (Anz. Punkte)", 1, 10000, 9) };
+
+		/**
+		 * Construct the provider.
+		 */
+		public Provider() {
+			super("MACD", "MACD", SCHEMA);
+		}
+
+		/**
+		 * The signal line is seeded with the first values of the MACD line, which needs the longer one of the two
+		 * averages.
+		 * @param params the parameters (fast, slow, signal)
+		 * @return max(fast, slow)-1 + signal-1
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return Math.max(Math.max(params[0], params[1]) - 1, 0) + Math.max(params[2] - 1, 0);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorMACD();
+		}
+	}
+}
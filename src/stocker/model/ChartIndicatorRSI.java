@@ -0,0 +1,126 @@
+package stocker.model;
+
+import stocker.util.Candle;
+
+/**
+ * Provides the Relative Strength Index (after Wilder) as a technical indicator for a chart:
+ * <code>100 - 100 / (1 + avgGain / avgLoss)</code>, where the gains and losses of the close prices from candle to
+ * candle are averaged with Wilder's smoothing. Updated in O(1) per candle (see {@link StreamingChartIndicator});
+ * drawn in a pane of its own.
+ *
+ * @author Marc S. Schneider
+ */
+public class ChartIndicatorRSI extends StreamingChartIndicator {
+
+	private EmaState avgGain, avgLoss;
+	private double prevClose;
+	private boolean hasPrevClose;
+
+	/**
+	 * Constructs a new Relative Strength Index chart indicator without assigning data candles and without setting
+	 * parameters. These need to be set later via {@link #setParameters(int[])} and
+	 * {@link #setCandles(java.util.LinkedList)}.
+	 */
+	public ChartIndicatorRSI() {
+		super("RSI", 1, Provider.SCHEMA);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void reset() {
+		avgGain = EmaState.wilder(getParameter(0));
+		avgLoss = EmaState.wilder(getParameter(0));
+		hasPrevClose = false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void commit(Candle c, double[] out) {
+		if (!hasPrevClose) { // no change yet at the first candle
+			out[0] = Double.NaN;
+		}
+		else {
+			double diff = c.close - prevClose;
+			out[0] = rsi(avgGain.commit(Math.max(diff, 0.0)), avgLoss.commit(Math.max(-diff, 0.0)));
+		}
+		prevClose = c.close;
+		hasPrevClose = true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void evaluate(Candle c, double[] out) {
+		if (!hasPrevClose) {
+			out[0] = Double.NaN;
+		}
+		else {
+			double diff = c.close - prevClose;
+			out[0] = rsi(avgGain.peek(Math.max(diff, 0.0)), avgLoss.peek(Math.max(-diff, 0.0)));
+		}
+	}
+
+	// helper function
+	private static double rsi(double gain, double loss) {
+		if (Double.isNaN(gain) || Double.isNaN(loss)) {
+			return Double.NaN;
+		}
+		return (loss == 0.0 ? 100.0 : 100.0 - 100.0 / (1.0 + gain / loss));
+	}
+
+	/**
+	 * The RSI is drawn in a pane of its own.
+	 * @return false
+	 */
+	@Override
+	public boolean isOverlay() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return "RSI";
+	}
+
+	/**
+	 * The provider of the Relative Strength Index (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider extends AbstractChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = {
+				new IndicatorParameter("n (Anz. Punkte)", 1, 10000, 14) };
+
+		/**
+		 * Construct the provider.
+		 */
+		public Provider() {
+			super("RSI", "Relative Stärke (RSI)", SCHEMA);
+		}
+
+		/**
+		 * The averages are seeded with the first n price changes, which need n+1 candles.
+		 * @param params the parameters (n)
+		 * @return n
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return Math.max(params[0], 0);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorRSI();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package stocker.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import stocker.util.StockerLogger;
+
+/**
+ * Registry of the available types of chart indicators, i.e. of the {@link IChartIndicatorProvider}s found by the
+ * {@link ServiceLoader}. The built-in indicators are registered even if their service file is not on the class path
+ * (e.g. when running from an IDE which does not copy it). If two providers declare the same type, the first one
+ * found is used.
+ *
+ * @author Marc S. Schneider
+ */
+public class ChartIndicatorRegistry {
+
+	private static final StockerLogger log = StockerLogger.getLogger(ChartIndicatorRegistry.class);
+
+	private static final IChartIndicatorProvider[] BUILT_IN = { new ChartIndicatorSMA.Provider(),
+			new ChartIndicatorBollingerBands.Provider(), new ChartIndicatorEMA.Provider(),
+			new ChartIndicatorDEMA.Provider(), new ChartIndicatorTEMA.Provider(), new ChartIndicatorMACD.Provider(),
+			new ChartIndicatorRSI.Provider(), new ChartIndicatorStochastic.Provider(), new ChartIndicatorWilliamsR.Provider(),
+			new ChartIndicatorATR.Provider(), new ChartIndicatorVolume.Provider(), new ChartIndicatorVWAP.Provider() };
+
+	private static LinkedHashMap<String, IChartIndicatorProvider> providers = null; // by type, loaded on first use
+
+	/**
+	 * Not to be instantiated.
+	 */
+	private ChartIndicatorRegistry() { }
+
+	/**
+	 * Get all available indicator providers.
+	 * @return an unmodifiable list of the providers (the built-in ones first)
+	 */
+	public static synchronized List<IChartIndicatorProvider> getProviders() {
+		return Collections.unmodifiableList(new ArrayList<IChartIndicatorProvider>(load().values()));
+	}
+
+	/**
+	 * Get the provider of the given type of indicator.
+	 * @param type the type (see {@link IChartIndicatorProvider#getType()})
+	 * @return the provider, or null if no provider of that type is available
+	 */
+	public static synchronized IChartIndicatorProvider getProvider(String type) {
+		return load().get(type);
+	}
+
+	/**
+	 * Create a new, not yet parametrized indicator of the given type.
+	 * @param type the type (see {@link IChartIndicatorProvider#getType()})
+	 * @return the new indicator, or null if no provider of that type is available
+	 */
+	public static ChartIndicator create(String type) {
+		IChartIndicatorProvider p = getProvider(type);
+		return (p == null ? null : p.create());
+	}
+
+	/**
+	 * Get the warm-up length of the given indicator (see {@link IChartIndicatorProvider#getWarmup(int[])}).
+	 * @param ci the indicator
+	 * @return the number of candles required before its first valid value (0 if its provider is unknown)
+	 */
+	public static int getWarmup(ChartIndicator ci) {
+		IChartIndicatorProvider p = getProvider(ci.getType());
+		return (p == null ? 0 : p.getWarmup(ci.getParameters()));
+	}
+
+	/**
+	 * Load the providers (only on the first call).
+	 * @return the providers by type
+	 */
+	private static LinkedHashMap<String, IChartIndicatorProvider> load() {
+		if (providers != null) {
+			return providers;
+		}
+		providers = new LinkedHashMap<String, IChartIndicatorProvider>();
+		for (IChartIndicatorProvider p : BUILT_IN) {
+			providers.put(p.getType(), p);
+		}
+		try {
+			for (IChartIndicatorProvider p : ServiceLoader.load(IChartIndicatorProvider.class)) {
+				if (providers.containsKey(p.getType()) && providers.get(p.getType()).getClass() != p.getClass()) {
+					log.warn("Indicator type {} of {} is already defined, ignored", p.getType(), p.getClass().getName());
+				}
+				else if (!providers.containsKey(p.getType())) {
+					providers.put(p.getType(), p);
+					log.info("Loaded indicator {} ({})", p.getType(), p.getClass().getName());
+				}
+			}
+		} catch (ServiceConfigurationError e) { // a broken plugin must not prevent the built-in indicators
+			log.error("Indicator plugins could not be loaded: {}", e.getMessage());
+		}
+		return providers;
+	}
+}
@@ -1,12 +1,10 @@
 package stocker.model;
 
+import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.ListIterator;
-
-import javax.swing.JTextField;
 
+import stocker.util.ArrayKernels;
 import stocker.util.Candle;
-import stocker.util.TextfieldIntValidatorOnFocusLost;
 
 /**
  * Provides the Simple Moving Average as a technical indicator for a chart. An indicator is described by a 
@@ -19,25 +17,21 @@ public class ChartIndicatorSMA extends ChartIndicator {
 
 	private int nPoints;
 	private LinkedList<Double> valuesSMA = new LinkedList<Double>();
-	private JTextField tn;
+	private double completedSum;                  // the sum of the n-1 closes before the last candle,
+	private long completedTime = Long.MIN_VALUE;  // and the time of that last candle (see calculateLast)
 
 	/** 
 	 * Constructs a new Simple Moving Average chart indicator without assigning data candles and without setting 
-	 * parameters. These need to be set later via {@link #setParameters(int[])} and {@link #setCandles(LinkedList)},
-	 * or (for the parameters) interactively with a dialog via {@link #getParametersMessage()} and 
-	 * {@link #parametrizeFromTextfields()}.
+	 * parameters. These need to be set later via {@link #setParameters(int[])} and {@link #setCandles(LinkedList)}.
 	 */
 	public ChartIndicatorSMA() {
 		super();
 		addValueList(valuesSMA);
-		initializeTextFields();
 	}
 
 	/**
 	 * Constructs a new Simple Moving Average chart indicator with data candles assigned, but without the 
-	 * parameters set. The parameters need to be set later via {@link #setParameters(int[])},
-	 * or interactively with a dialog via {@link #getParametersMessage()} and 
-	 * {@link #parametrizeFromTextfields()}.
+	 * parameters set. The parameters need to be set later via {@link #setParameters(int[])}.
 	 * @param candles A LinkedList of candles representing the data that this indicator is defined on
 	 * @param nPoints the number of recent points over which the average is calculated
 	 */
@@ -46,13 +40,6 @@ public class ChartIndicatorSMA extends ChartIndicator {
 		this.nPoints = nPoints;
 		addValueList(valuesSMA);
 		calculate();
-		initializeTextFields(); // just in case someone needs them later...
-	}
-
-	private void initializeTextFields() {
-		tn = new JTextField(3);
-		tn.setText("20");
-		tn.addFocusListener(new TextfieldIntValidatorOnFocusLost(tn, 1, 10000, 20));
 	}
 
 	/**
@@ -62,53 +49,56 @@ public class ChartIndicatorSMA extends ChartIndicator {
 	public void calculate() {
 		LinkedList<Candle> candles = getCandles();
 		LinkedList<Long> times = getTimes();
-		ListIterator<Candle> candleIt = candles.listIterator();
+		double[] sums = new double[candles.size()]; // 0 where there are fewer than nPoints candles
+		if (nPoints > 0) { // the sums of the windows, computed on an array (see IArrayKernels)
+			ArrayKernels.get().rollingSum(ArrayKernels.closes(candles), nPoints, sums);
+		}
 		
 		valuesSMA.clear();
 		times.clear();
-		for (int i = 0; i < candles.size(); i++) { // iterate over this indicator's data points (times)
-			Double v = 0.0;
-			double sum = 0.0;
-			times.add(candleIt.next().time); // add next timestamp
-			if (i >= nPoints - 1) { // calculate only if we are at least npoints-1 from the start
-				Candle c = candleIt.previous();
-				for (int k = 0; k < nPoints; k++) { // calculate sum
-					sum += c.close;
-					if (candleIt.hasPrevious()) { // it won't have a previous for i = k = nPoints-1
-						c = candleIt.previous();
-					}
-				}
-				if (nPoints > 0) { // divide by n if n > 0
-					v = sum / nPoints;
-				} else {
-					v = 0.0;
-				}
-				while (candleIt.nextIndex() <= i) {
-					candleIt.next();
-				}
-			}
-			valuesSMA.add(v);  // add value to results list
+		completedTime = Long.MIN_VALUE;
+		int i = 0;
+		for (Candle c : candles) { // iterate over this indicator's data points (times)
+			times.add(c.time);            // add next timestamp
+			valuesSMA.add(nPoints > 0 ? sums[i++] / nPoints : 0.0); // add value to results list
 		}
 	}
 
 	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public Object[] getParametersMessage() {
-		Object[] msg = { "n (Anz. Punkte Mittelwert)", tn, "Farbe", super.getColorCombo()};
-		return msg;
-	}
-
-	/**
-	 * {@inheritDoc}
+	 * Calculate only the moving average at the last candle, without iterating over all candles: the sum of the 
+	 * n-1 completed candles before it is calculated once per new last candle, so each update of the last candle 
+	 * only adds its close.
 	 */
 	@Override
-	public void parametrizeFromTextfields() {
-		// Text field input has been validated using TextfieldIntValidatorOnFocusLost, so no more checks needed
-		this.nPoints = Integer.parseInt(tn.getText());
-		super.setColorFromCombo();
-		setParametrized(true);
+	public void calculateLast() {
+		LinkedList<Candle> candles = getCandles();
+		LinkedList<Long> times = getTimes();
+		int size = candles.size();
+		if (size == 0 || times.size() < size - 1 || times.size() > size) { // not in sync with the candles
+			calculate();
+			return;
+		}
+		if (times.size() == size) { // the last candle has been updated: replace its value
+			times.removeLast();
+			valuesSMA.removeLast();
+		}
+		times.add(candles.getLast().time);
+		double v = 0.0;
+		if (nPoints > 0 && size >= nPoints) {
+			Candle last = candles.getLast();
+			if (last.time != completedTime) { // a new last candle: the others in the window are completed
+				double sum = 0.0;
+				Iterator<Candle> candleIt = candles.descendingIterator();
+				candleIt.next();
+				for (int k = 1; k < nPoints; k++) {
+					sum += candleIt.next().close;
+				}
+				completedSum = sum;
+				completedTime = last.time;
+			}
+			v = (completedSum + last.close) / nPoints;
+		}
+		valuesSMA.add(v);
 	}
 
 	/**
@@ -145,4 +135,63 @@ public class ChartIndicatorSMA extends ChartIndicator {
 		this.nPoints = params[0];
 		setParametrized(true);
 	}
+
+	/**
+	 * The provider of the Simple Moving Average (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider implements IChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = { 
+				new IndicatorParameter("n (Anz. Punkte Mittelwert)", 1, 10000, 20) };
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getType() {
+			return "SMA";
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getName() {
+			return "Gleitender Mittelwert";
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public IndicatorParameter[] getParameterSchema() {
+			return SCHEMA.clone();
+		}
+
+		/**
+		 * The average needs n candles, so the first n-1 candles have no valid value.
+		 * @param params the parameters (n)
+		 * @return n-1
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return Math.max(params[0] - 1, 0);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorSMA();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString() {
+			return getName();
+		}
+	}
 }
@@ -0,0 +1,115 @@
+package stocker.model;
+
+import stocker.util.Candle;
+
+/**
+ * Provides the Stochastic Oscillator as a technical indicator for a chart: %K is the position of the close price
+ * within the range from the lowest low to the highest high of the last n candles (in percent), %D is the simple
+ * average of the last m values of %K. The highs and lows of the window are maintained with monotonic deques (see
+ * {@link WindowExtrema}), so the indicator is updated in amortised O(1) per candle (see
+ * {@link StreamingChartIndicator}); drawn in a pane of its own.
+ *
+ * @author Marc S. Schneider
+ */
+public class ChartIndicatorStochastic extends StreamingChartIndicator {
+
+	private WindowExtrema highest, lowest;
+	private SmaState percentD;
+
+	/**
+	 * Constructs a new Stochastic Oscillator chart indicator without assigning data candles and without setting
+	 * parameters. These need to be set later via {@link #setParameters(int[])} and
+	 * {@link #setCandles(java.util.LinkedList)}.
+	 */
+	public ChartIndicatorStochastic() {
+		super("Stoch", 2, Provider.SCHEMA);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void reset() {
+		highest = new WindowExtrema(getParameter(0), true);
+		lowest = new WindowExtrema(getParameter(0), false);
+		percentD = new SmaState(getParameter(1));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void commit(Candle c, double[] out) {
+		out[0] = percentK(c.close, highest.commit(c.high), lowest.commit(c.low));
+		out[1] = (Double.isNaN(out[0]) ? Double.NaN : percentD.commit(out[0]));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void evaluate(Candle c, double[] out) {
+		out[0] = percentK(c.close, highest.peek(c.high), lowest.peek(c.low));
+		out[1] = (Double.isNaN(out[0]) ? Double.NaN : percentD.peek(out[0]));
+	}
+
+	// helper function
+	private static double percentK(double close, double high, double low) {
+		if (Double.isNaN(high) || Double.isNaN(low)) {
+			return Double.NaN;
+		}
+		return (high == low ? 50.0 : 100.0 * (close - low) / (high - low)); // flat window: in the middle
+	}
+
+	/**
+	 * The Stochastic Oscillator is drawn in a pane of its own.
+	 * @return false
+	 */
+	@Override
+	public boolean isOverlay() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return "Stochastic";
+	}
+
+	/**
+	 * The provider of the Stochastic Oscillator (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider extends AbstractChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = {
+				new IndicatorParameter("n (Anz. Punkte %K)", 1, 10000, 14),
+				new IndicatorParameter("m (Anz. Punkte %D)", 1, 10000, 3) };
+
+		/**
+		 * Construct the provider.
+		 */
+		public Provider() {
+			super("Stochastic", "Stochastik (%K, %D)", SCHEMA);
+		}
+
+		/**
+		 * %K needs n candles, and %D m values of %K.
+		 * @param params the parameters (n, m)
+		 * @return n-1 + m-1
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return Math.max(params[0] - 1, 0) + Math.max(params[1] - 1, 0);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorStochastic();
+		}
+	}
+}
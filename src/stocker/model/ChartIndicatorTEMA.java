@@ -0,0 +1,98 @@
+package stocker.model;
+
+import stocker.util.Candle;
+
+/**
+ * Provides the Triple Exponential Moving Average as a technical indicator for a chart:
+ * <code>3 * EMA1 - 3 * EMA2 + EMA3</code>, where EMA2 is the average of EMA1 and EMA3 the one of EMA2. Updated in
+ * O(1) per candle (see {@link StreamingChartIndicator}).
+ *
+ * @author Marc S. Schneider
+ */
+public class ChartIndicatorTEMA extends StreamingChartIndicator {
+
+	private EmaState ema1, ema2, ema3;
+
+	/**
+	 * Constructs a new Triple Exponential Moving Average chart indicator without assigning data candles and without
+	 * setting parameters. These need to be set later via {@link #setParameters(int[])} and
+	 * {@link #setCandles(java.util.LinkedList)}.
+	 */
+	public ChartIndicatorTEMA() {
+		super("TEMA", 1, Provider.SCHEMA);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void reset() {
+		ema1 = new EmaState(getParameter(0));
+		ema2 = new EmaState(getParameter(0));
+		ema3 = new EmaState(getParameter(0));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void commit(Candle c, double[] out) {
+		double e1 = ema1.commit(c.close);
+		double e2 = (Double.isNaN(e1) ? Double.NaN : ema2.commit(e1));
+		double e3 = (Double.isNaN(e2) ? Double.NaN : ema3.commit(e2));
+		out[0] = 3.0 * e1 - 3.0 * e2 + e3; // NaN until all are seeded
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void evaluate(Candle c, double[] out) {
+		double e1 = ema1.peek(c.close);
+		double e2 = (Double.isNaN(e1) ? Double.NaN : ema2.peek(e1));
+		double e3 = (Double.isNaN(e2) ? Double.NaN : ema3.peek(e2));
+		out[0] = 3.0 * e1 - 3.0 * e2 + e3;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return "TEMA";
+	}
+
+	/**
+	 * The provider of the Triple Exponential Moving Average (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider extends AbstractChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = {
+				new IndicatorParameter("n (Anz. Punkte Mittelwert)", 1, 10000, 20) };
+
+		/**
+		 * Construct the provider.
+		 */
+		public Provider() {
+			super("TEMA", "Dreifacher exponentieller Mittelwert", SCHEMA);
+		}
+
+		/**
+		 * Each of the three chained averages is seeded with n values.
+		 * @param params the parameters (n)
+		 * @return 3(n-1)
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return 3 * Math.max(params[0] - 1, 0);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorTEMA();
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package stocker.model;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+
+import stocker.util.Candle;
+
+/**
+ * Provides the intraday Volume Weighted Average Price as a technical indicator for a chart: the average of the
+ * typical prices <code>(high + low + close) / 3</code> of the candles since the start of the (local) day, weighted
+ * with their volumes. It is drawn over the prices and updated in O(1) per candle from running sums (see
+ * {@link StreamingChartIndicator}). If the data provider does not report volumes, the candles are weighted equally.
+ *
+ * @author Marc S. Schneider
+ */
+public class ChartIndicatorVWAP extends StreamingChartIndicator {
+
+	private final ZoneRules zoneRules = ZoneId.systemDefault().getRules();
+	private long day;              // the local day of the committed candles (days since the epoch)
+	private double sumPriceVolume; // running sums of the committed candles of this day
+	private double sumVolume;
+	private double sumPrice;
+	private int count;
+
+	/**
+	 * Constructs a new VWAP chart indicator without assigning data candles. It has no parameters, but it needs to be
+	 * parametrized anyway via {@link #setParameters(int[])} (with an empty array), and the candles need to be set 
+	 * later via {@link #setCandles(java.util.LinkedList)}.
+	 */
+	public ChartIndicatorVWAP() {
+		super("VWAP", 1, Provider.SCHEMA);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void reset() {
+		day = Long.MIN_VALUE;
+		count = 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void commit(Candle c, double[] out) {
+		long d = dayOf(c.time);
+		if (d != day) { // a new day starts a new average
+			day = d;
+			sumPriceVolume = 0.0;
+			sumVolume = 0.0;
+			sumPrice = 0.0;
+			count = 0;
+		}
+		double price = (c.high + c.low + c.close) / 3.0;
+		sumPriceVolume += price * c.volume;
+		sumVolume += c.volume;
+		sumPrice += price;
+		count++;
+		out[0] = vwap(sumPriceVolume, sumVolume, sumPrice, count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void evaluate(Candle c, double[] out) {
+		double price = (c.high + c.low + c.close) / 3.0;
+		if (dayOf(c.time) != day) {
+			out[0] = vwap(price * c.volume, c.volume, price, 1);
+		}
+		else {
+			out[0] = vwap(sumPriceVolume + price * c.volume, sumVolume + c.volume, sumPrice + price, count + 1);
+		}
+	}
+
+	// helper function: the local day of a unix timestamp
+	private long dayOf(long time) {
+		return Math.floorDiv(time + zoneRules.getOffset(Instant.ofEpochSecond(time)).getTotalSeconds(), 86400L);
+	}
+
+	// helper function
+	private static double vwap(double sumPriceVolume, double sumVolume, double sumPrice, int count) {
+		return (sumVolume > 0.0 ? sumPriceVolume / sumVolume : sumPrice / count); // without volumes: weighted equally
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return "VWAP";
+	}
+
+	/**
+	 * The provider of the VWAP (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider extends AbstractChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = {};
+
+		/**
+		 * Construct the provider.
+		 */
+		public Provider() {
+			super("VWAP", "Volumengewichteter Durchschnittspreis (VWAP)", SCHEMA);
+		}
+
+		/**
+		 * The average starts anew every day, so earlier candles are not needed.
+		 * @param params the parameters (none)
+		 * @return 0
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return 0;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorVWAP();
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package stocker.model;
+
+import stocker.util.Candle;
+
+/**
+ * Provides the traded volume per candle as a technical indicator for a chart, drawn as histogram in a pane of its
+ * own, together with the simple moving average of the volume over n candles (as a reference for unusually high or
+ * low volume). Updated in O(1) per candle (see {@link StreamingChartIndicator}). If the data provider does not
+ * report volumes (e.g. for forex), all values are 0.
+ *
+ * @author Marc S. Schneider
+ */
+public class ChartIndicatorVolume extends StreamingChartIndicator {
+
+	private SmaState average;
+
+	/**
+	 * Constructs a new volume chart indicator without assigning data candles and without setting parameters. These
+	 * need to be set later via {@link #setParameters(int[])} and {@link #setCandles(java.util.LinkedList)}.
+	 */
+	public ChartIndicatorVolume() {
+		super("Vol", 2, Provider.SCHEMA);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void reset() {
+		average = new SmaState(getParameter(0));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void commit(Candle c, double[] out) {
+		out[0] = c.volume;
+		out[1] = average.commit(c.volume);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void evaluate(Candle c, double[] out) {
+		out[0] = c.volume;
+		out[1] = average.peek(c.volume);
+	}
+
+	/**
+	 * The volume is drawn in a pane of its own.
+	 * @return false
+	 */
+	@Override
+	public boolean isOverlay() {
+		return false;
+	}
+
+	/**
+	 * The first value list (the volume) is drawn as histogram.
+	 * @param i the index of the value list
+	 * @return true for the volume, false for its average
+	 */
+	@Override
+	public boolean isHistogram(int i) {
+		return i == 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return "Volume";
+	}
+
+	/**
+	 * The provider of the volume (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider extends AbstractChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = {
+				new IndicatorParameter("n (Anz. Punkte Mittelwert)", 1, 10000, 20) };
+
+		/**
+		 * Construct the provider.
+		 */
+		public Provider() {
+			super("Volume", "Volumen", SCHEMA);
+		}
+
+		/**
+		 * The volume itself needs no warm-up; the average is not worth pulling additional candles.
+		 * @param params the parameters (n)
+		 * @return 0
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return 0;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorVolume();
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package stocker.model;
+
+import stocker.util.Candle;
+
+/**
+ * Provides Williams %R as a technical indicator for a chart: the distance of the close price from the highest high
+ * of the last n candles, relative to the range from the lowest low to the highest high (from -100 to 0). The highs
+ * and lows of the window are maintained with monotonic deques (see {@link WindowExtrema}), so the indicator is
+ * updated in amortised O(1) per candle (see {@link StreamingChartIndicator}); drawn in a pane of its own.
+ *
+ * @author Marc S. Schneider
+ */
+public class ChartIndicatorWilliamsR extends StreamingChartIndicator {
+
+	private WindowExtrema highest, lowest;
+
+	/**
+	 * Constructs a new Williams %R chart indicator without assigning data candles and without setting parameters.
+	 * These need to be set later via {@link #setParameters(int[])} and {@link #setCandles(java.util.LinkedList)}.
+	 */
+	public ChartIndicatorWilliamsR() {
+		super("%R", 1, Provider.SCHEMA);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void reset() {
+		highest = new WindowExtrema(getParameter(0), true);
+		lowest = new WindowExtrema(getParameter(0), false);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void commit(Candle c, double[] out) {
+		out[0] = percentR(c.close, highest.commit(c.high), lowest.commit(c.low));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void evaluate(Candle c, double[] out) {
+		out[0] = percentR(c.close, highest.peek(c.high), lowest.peek(c.low));
+	}
+
+	// helper function
+	private static double percentR(double close, double high, double low) {
+		if (Double.isNaN(high) || Double.isNaN(low)) {
+			return Double.NaN;
+		}
+		return (high == low ? -50.0 : -100.0 * (high - close) / (high - low)); // flat window: in the middle
+	}
+
+	/**
+	 * Williams %R is drawn in a pane of its own.
+	 * @return false
+	 */
+	@Override
+	public boolean isOverlay() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getType() {
+		return "WilliamsR";
+	}
+
+	/**
+	 * The provider of Williams %R (see {@link IChartIndicatorProvider}).
+	 */
+	public static class Provider extends AbstractChartIndicatorProvider {
+
+		private static final IndicatorParameter[] SCHEMA = {
+				new IndicatorParameter("n (Anz. Punkte)", 1, 10000, 14) };
+
+		/**
+		 * Construct the provider.
+		 */
+		public Provider() {
+			super("WilliamsR", "Williams %R", SCHEMA);
+		}
+
+		/**
+		 * The highest high and the lowest low need n candles.
+		 * @param params the parameters (n)
+		 * @return n-1
+		 */
+		@Override
+		public int getWarmup(int[] params) {
+			return Math.max(params[0] - 1, 0);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public ChartIndicator create() {
+			return new ChartIndicatorWilliamsR();
+		}
+	}
+}
@@ -16,7 +16,11 @@ import stocker.util.EChartInterval;
  */
 public class ChartWatchItem extends WatchItem {
 	
+	/** The interval of new charts */
+	public static final EChartInterval DEFAULT_INTERVAL = EChartInterval.I1DAY;
+	
 	private EChartInterval interval;
+	private int warmup = 0; // number of additional candles required by the indicators of the chart
 	private LinkedList<Candle> candleList = new LinkedList<Candle>();
 		// contains the candles for one resolution, one time period - is overwritten as soon as other data is requested
 
@@ -28,7 +32,7 @@ public class ChartWatchItem extends WatchItem {
 	 */
 	public ChartWatchItem(String key, String name) {
 		super(key, name);
-		this.interval = EChartInterval.I1DAY;
+		this.interval = DEFAULT_INTERVAL;
 	}
 	
 	/** 
@@ -58,6 +62,23 @@ public class ChartWatchItem extends WatchItem {
 		this.interval = interval;
 	}
 	
+	/**
+	 * Get the warm-up length of this item, i.e. the number of candles which are required in addition to the ones to
+	 * be shown, so that the indicators of the chart have valid values from the first shown candle on.
+	 * @return the number of additional candles
+	 */
+	public int getWarmup() {
+		return warmup;
+	}
+
+	/**
+	 * Set the warm-up length of this item (see {@link #getWarmup()}); it is taken into account by the next pull.
+	 * @param warmup the number of additional candles
+	 */
+	public void setWarmup(int warmup) {
+		this.warmup = warmup;
+	}
+	
 	/**
 	 * Get the start time for the data to be contained in a chart for this item.
 	 * @return the current start time 
@@ -99,10 +120,11 @@ public class ChartWatchItem extends WatchItem {
 	 * @param high the highest price during the period
 	 * @param open the opening price (at the begin of the period)
 	 * @param close the closing price (at the end of the period)
+	 * @param volume the traded volume during the period (0.0 if unknown)
 	 */
-	public void appendValues(long time, double low, double high, double open, double close) {
+	public void appendValues(long time, double low, double high, double open, double close, double volume) {
 		// append these values to the end and remove the first candle
-		candleList.add(new Candle(time, low, high, open, close, 0L));
+		candleList.add(new Candle(time, low, high, open, close, volume));
 		candleList.remove(0);
 	}
 
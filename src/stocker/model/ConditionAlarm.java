@@ -0,0 +1,344 @@
+package stocker.model;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import com.google.gson.JsonObject;
+
+import stocker.util.Candle;
+import stocker.util.EAlarmCondition;
+import stocker.util.EChartInterval;
+
+/**
+ * Represents a conditional alarm for one symbol, e.g. "price crosses SMA(20)" or "volume spike". Other than a
+ * {@link ChartAlarm}, which is bound to a fixed price level, a conditional alarm maintains its own sliding window
+ * of candles (built from push updates, optionally seeded with pulled history) and evaluates its
+ * {@link EAlarmCondition} on every tick or only when a candle is completed. The indicators are updated
+ * incrementally ({@link ChartIndicator#calculateLast()}, {@link ChartIndicator#removeFirstValue()}), so the cost
+ * of a tick depends only on the parameter n of the condition, not on the length of the history, and no chart
+ * needs to be open. An alarm is triggered only once.
+ *
+ * @author Marc S. Schneider
+ */
+public class ConditionAlarm {
+	private final String symbol;
+	private final EAlarmCondition condition;
+	private final EChartInterval interval;
+	private final int n;
+	private final double x;
+	private final boolean onClose; // evaluate only when a candle is completed (true) or on every tick (false)
+
+	private LinkedList<Candle> candles = new LinkedList<Candle>();
+	private ChartIndicator indicator;
+	private final int capacity;       // maximum number of candles in the sliding window
+	private double[] volumes;         // ring buffer of the volumes of the last n completed candles
+	private int volumeCount = 0;
+	private int volumePos = 0;
+	private double volumeSum = 0.0;
+	private int lastState = 0;        // position of the price relative to the indicator at the last evaluation
+	private boolean hasState = false; // whether lastState is valid
+	private boolean isTriggered = false;
+	private double triggerPrice = 0.0;
+
+	/**
+	 * Constructs a new conditional alarm.
+	 * @param symbol the symbol this alarm refers to
+	 * @param condition the condition which triggers this alarm
+	 * @param interval the interval of the candles on which the condition is evaluated
+	 * @param n the number of candles for moving averages and the like (at least 1)
+	 * @param x the threshold of the condition (see {@link EAlarmCondition#getThresholdName()})
+	 * @param onClose true if the condition should only be evaluated when a candle is completed, false if it
+	 * 		  should be evaluated on every tick
+	 */
+	public ConditionAlarm(String symbol, EAlarmCondition condition, EChartInterval interval, int n, double x,
+			boolean onClose) {
+		this.symbol = symbol;
+		this.condition = condition;
+		this.interval = interval;
+		this.n = Math.max(n, 1);
+		this.x = x;
+		this.onClose = onClose;
+		this.capacity = this.n + 2;
+		this.volumes = new double[this.n];
+		this.indicator = createIndicator(candles);
+	}
+
+	/**
+	 * Get the symbol this alarm refers to.
+	 * @return the symbol
+	 */
+	public String getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * Get the condition which triggers this alarm.
+	 * @return the condition
+	 */
+	public EAlarmCondition getCondition() {
+		return condition;
+	}
+
+	/**
+	 * Get the interval of the candles on which the condition is evaluated.
+	 * @return the interval
+	 */
+	public EChartInterval getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Get the number of candles for moving averages and the like.
+	 * @return the parameter n
+	 */
+	public int getN() {
+		return n;
+	}
+
+	/**
+	 * Get the threshold of the condition.
+	 * @return the parameter x
+	 */
+	public double getX() {
+		return x;
+	}
+
+	/**
+	 * Returns whether the condition is evaluated only when a candle is completed.
+	 * @return true if evaluated on candle completion, false if evaluated on every tick
+	 */
+	public boolean isOnClose() {
+		return onClose;
+	}
+
+	/**
+	 * Returns whether this alarm has been triggered.
+	 * @return true if triggered, false otherwise
+	 */
+	public synchronized boolean isTriggered() {
+		return isTriggered;
+	}
+
+	/**
+	 * Returns the price at which this alarm has been triggered.
+	 * @return the price at which this alarm has been triggered, or 0.0 if it has not been triggered
+	 */
+	public synchronized double getTriggerPrice() {
+		return triggerPrice;
+	}
+
+	/**
+	 * Seed the sliding window with historic candles (e.g. pulled from the data provider), so that the condition can
+	 * be evaluated right away instead of only after n candles have been built from push updates. Candles which have
+	 * already been built from push updates and which are more recent than the history are kept.
+	 * @param history the historic candles, sorted by time (they are copied, not modified)
+	 */
+	public synchronized void seed(LinkedList<Candle> history) {
+		if (history == null || history.isEmpty()) {
+			return;
+		}
+		LinkedList<Candle> newCandles = new LinkedList<Candle>();
+		Iterator<Candle> it = history.descendingIterator();
+		while (it.hasNext() && newCandles.size() < capacity) {
+			Candle c = it.next();
+			newCandles.addFirst(new Candle(c.time, c.low, c.high, c.open, c.close, c.volume));
+		}
+		long end = newCandles.getLast().time + interval.inSeconds();
+		for (Candle c : candles) { // keep candles from push updates after the end of the history
+			if (c.time >= end) {
+				newCandles.add(c);
+			}
+		}
+		while (newCandles.size() > capacity) {
+			newCandles.removeFirst();
+		}
+		candles = newCandles;
+		indicator = createIndicator(candles);
+		volumeCount = 0;
+		volumePos = 0;
+		volumeSum = 0.0;
+		Iterator<Candle> volIt = candles.iterator();
+		for (int i = 0; i < candles.size() - 1; i++) { // all candles but the last one are completed
+			addVolume(volIt.next().volume);
+		}
+		hasState = false; // the history must not trigger the alarm
+	}
+
+	/**
+	 * Process a push update: Update the current candle (or start a new one) and evaluate the condition.
+	 * @param time the unix timestamp of the update
+	 * @param price the price
+	 * @param volume the traded volume (0.0 if unknown)
+	 * @return true if the alarm has been triggered by this update, false otherwise
+	 */
+	public synchronized boolean onTick(long time, double price, double volume) {
+		if (isTriggered) {
+			return false;
+		}
+		boolean triggered = false;
+		if (candles.isEmpty() || time >= candles.getLast().time + interval.inSeconds()) {
+			if (!candles.isEmpty()) {
+				Candle completed = candles.getLast();
+				if (onClose) { // the indicators are still up to date for the completed candle
+					triggered = evaluate(completed);
+				}
+				addVolume(completed.volume);
+			}
+			candles.add(new Candle(time, price, price, price, price, volume));
+			if (candles.size() > capacity) {
+				candles.removeFirst();
+				if (indicator != null) {
+					indicator.removeFirstValue();
+				}
+			}
+		}
+		else {
+			Candle last = candles.getLast();
+			last.close = price;
+			last.volume += volume;
+			if (price < last.low) {
+				last.low = price;
+			}
+			else if (price > last.high) {
+				last.high = price;
+			}
+		}
+		if (indicator != null) {
+			indicator.calculateLast();
+		}
+		if (!onClose && !triggered) {
+			triggered = evaluate(candles.getLast());
+		}
+		if (triggered) {
+			isTriggered = true;
+			triggerPrice = price;
+		}
+		return triggered;
+	}
+
+	/**
+	 * Evaluate the condition for the given candle, which has to be the last candle for which the indicator has been
+	 * calculated.
+	 * @param c the candle
+	 * @return true if the condition is fulfilled, false otherwise
+	 */
+	private boolean evaluate(Candle c) {
+		int size = candles.size();
+		switch (condition) {
+		case CROSSES_SMA: {
+			if (size < n) {
+				return false;
+			}
+			double sma = indicator.getValues(0).getLast();
+			int state = (c.close > sma ? 1 : (c.close < sma ? -1 : 0));
+			boolean crossed = (hasState && state != 0 && state != lastState);
+			if (state != 0) { // touching the average is no crossing yet
+				lastState = state;
+				hasState = true;
+			}
+			return crossed;
+		}
+		case LEAVES_BOLLINGER: {
+			if (size < n) {
+				return false;
+			}
+			double lower = indicator.getValues(0).getLast();
+			double upper = indicator.getValues(2).getLast();
+			int state = (c.close > upper ? 1 : (c.close < lower ? -1 : 0));
+			boolean left = (hasState && lastState == 0 && state != 0);
+			lastState = state;
+			hasState = true;
+			return left;
+		}
+		case CHANGE_PERCENT: {
+			if (size < 2) {
+				return false;
+			}
+			double previousClose = candles.get(size - 2).close;
+			if (previousClose == 0.0) {
+				return false;
+			}
+			double change = (c.close / previousClose - 1.0) * 100.0;
+			return (x >= 0.0 ? change >= x : change <= x);
+		}
+		case VOLUME_SPIKE:
+			return volumeCount >= n && volumeSum > 0.0 && c.volume >= x * volumeSum / n;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Add the volume of a completed candle to the running sum of the last n volumes.
+	 * @param v the volume
+	 */
+	private void addVolume(double v) {
+		if (volumeCount == n) {
+			volumeSum -= volumes[volumePos];
+		} else {
+			volumeCount++;
+		}
+		volumes[volumePos] = v;
+		volumeSum += v;
+		volumePos = (volumePos + 1) % n;
+	}
+
+	/**
+	 * Create the indicator which is required to evaluate the condition on the given candles.
+	 * @param c the candles
+	 * @return the indicator, or null if the condition does not require one
+	 */
+	private ChartIndicator createIndicator(LinkedList<Candle> c) {
+		switch (condition) {
+		case CROSSES_SMA:
+			return new ChartIndicatorSMA(c, n);
+		case LEAVES_BOLLINGER:
+			return new ChartIndicatorBollingerBands(c, n, n, x);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Serialize this alarm into a {@link JsonObject} (the candles are not serialized, they are pulled again).
+	 * @return a JsonObject containing all information required to restore this alarm at a later time
+	 */
+	public JsonObject serializeToJson() {
+		JsonObject jo = new JsonObject();
+		jo.addProperty("symbol", symbol);
+		jo.addProperty("condition", condition.toObjectString());
+		jo.addProperty("interval", interval.toObjectString());
+		jo.addProperty("n", n);
+		jo.addProperty("x", x);
+		jo.addProperty("onClose", onClose);
+		return jo;
+	}
+
+	/**
+	 * Returns a human-readable description of this alarm.
+	 * @return a description of this alarm, e.g. "Kurs kreuzt GD(20), 1 min"
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		switch (condition) {
+		case CROSSES_SMA:
+			sb.append("Kurs kreuzt GD(").append(n).append(")");
+			break;
+		case LEAVES_BOLLINGER:
+			sb.append("Kurs verlässt BB(").append(n).append(", ").append(n).append(", ").append(x).append(")");
+			break;
+		case CHANGE_PERCENT:
+			sb.append("Änderung ").append(x >= 0.0 ? "≥ " : "≤ ").append(x).append(" %");
+			break;
+		case VOLUME_SPIKE:
+			sb.append("Volumen ≥ ").append(x).append(" · Mittel(").append(n).append(")");
+			break;
+		}
+		sb.append(", ").append(interval);
+		if (onClose) {
+			sb.append(", Kerzenschluss");
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,78 @@
+package stocker.model;
+
+/**
+ * The running state of an exponential moving average over n values: seeded with the simple average of the first
+ * n values, then <code>ema = alpha * x + (1 - alpha) * ema</code> with <code>alpha = 2 / (n + 1)</code>. Each value
+ * is processed in O(1). Used by the indicators of the exponential family, which chain several of these, and (with
+ * Wilder's smoothing factor, see {@link #wilder(int)}) by RSI and ATR.
+ *
+ * @author Marc S. Schneider
+ */
+class EmaState {
+
+	private final int n;
+	private final double alpha;
+	private int count;
+	private double sum;   // of the first values, until the average is seeded
+	private double value; // the current average (valid if count >= n)
+
+	/**
+	 * Construct a new, empty state.
+	 * @param n the number of values of the average (at least 1)
+	 */
+	EmaState(int n) {
+		this(n, 2.0 / (Math.max(n, 1) + 1.0));
+	}
+
+	// constructor with an arbitrary smoothing factor
+	private EmaState(int n, double alpha) {
+		this.n = Math.max(n, 1);
+		this.alpha = alpha;
+	}
+
+	/**
+	 * Construct a new, empty state of Wilder's smoothed average (as used by RSI and ATR), which is an exponential
+	 * average with <code>alpha = 1 / n</code>.
+	 * @param n the number of values of the average (at least 1)
+	 * @return the new state
+	 */
+	static EmaState wilder(int n) {
+		return new EmaState(n, 1.0 / Math.max(n, 1));
+	}
+
+	/**
+	 * Forget all values.
+	 */
+	void reset() {
+		count = 0;
+		sum = 0.0;
+		value = 0.0;
+	}
+
+	/**
+	 * Add the next value.
+	 * @param x the value
+	 * @return the average including this value, or NaN if fewer than n values have been added
+	 */
+	double commit(double x) {
+		count++;
+		if (count < n) {
+			sum += x;
+			return Double.NaN;
+		}
+		value = (count == n ? (sum + x) / n : alpha * x + (1.0 - alpha) * value);
+		return value;
+	}
+
+	/**
+	 * Get the average which would result from adding the given value, without adding it.
+	 * @param x the value
+	 * @return the average including this value, or NaN if that would still be fewer than n values
+	 */
+	double peek(double x) {
+		if (count + 1 < n) {
+			return Double.NaN;
+		}
+		return (count + 1 == n ? (sum + x) / n : alpha * x + (1.0 - alpha) * value);
+	}
+}
@@ -0,0 +1,52 @@
+package stocker.model;
+
+/**
+ * Service provider interface for types of chart indicators. Each type of indicator is made available to Stocker by
+ * a provider, which is found by the {@link java.util.ServiceLoader} (listed in
+ * <code>META-INF/services/stocker.model.IChartIndicatorProvider</code> of a jar on the class path), so new
+ * indicators can be added as separate modules without changing Stocker. See {@link ChartIndicatorRegistry}.
+ * <p>
+ * The indicators themselves are subclasses of {@link ChartIndicator}, which defines both compute contracts: the
+ * batch contract {@link ChartIndicator#calculate()} (all values at once) and the streaming contract
+ * {@link ChartIndicator#calculateLast()} and {@link ChartIndicator#removeFirstValue()} (the values at the last
+ * candle after a push update, and sliding the window of candles).
+ *
+ * @author Marc S. Schneider
+ */
+public interface IChartIndicatorProvider {
+
+	/**
+	 * Get the type of the indicators of this provider, which identifies them in saved sessions. It must be equal to
+	 * {@link ChartIndicator#getType()} of these indicators and must not change between versions.
+	 * @return the type
+	 */
+	public String getType();
+
+	/**
+	 * Get the name of this type of indicator.
+	 * @return the name, suitable for direct display to the user
+	 */
+	public String getName();
+
+	/**
+	 * Get the description of the parameters of the indicators, in the order of
+	 * {@link ChartIndicator#getParameters()}.
+	 * @return the parameters
+	 */
+	public IndicatorParameter[] getParameterSchema();
+
+	/**
+	 * Get the warm-up length of an indicator with the given parameters, i.e. the number of candles before the first
+	 * candle at which it has a valid value. The data manager pulls this many additional candles for a chart with
+	 * this indicator.
+	 * @param params the parameters, as returned by {@link ChartIndicator#getParameters()}
+	 * @return the number of candles required before the first valid value
+	 */
+	public int getWarmup(int[] params);
+
+	/**
+	 * Create a new, not yet parametrized indicator of this type (without candles).
+	 * @return the new indicator
+	 */
+	public ChartIndicator create();
+}
@@ -0,0 +1,72 @@
+package stocker.model;
+
+/**
+ * Describes one (integer) parameter of a type of chart indicator: its label for the parametrization dialog, its
+ * valid range and its default value. The parameters of an indicator are given in the order of the array of
+ * {@link ChartIndicator#getParameters()}.
+ *
+ * @author Marc S. Schneider
+ * @see IChartIndicatorProvider#getParameterSchema()
+ */
+public class IndicatorParameter {
+
+	private final String label;
+	private final int min;
+	private final int max;
+	private final int defaultValue;
+
+	/**
+	 * Construct a new IndicatorParameter.
+	 * @param label the label of the parameter, suitable for direct display to the user
+	 * @param min the minimum valid value
+	 * @param max the maximum valid value
+	 * @param defaultValue the default value
+	 */
+	public IndicatorParameter(String label, int min, int max, int defaultValue) {
+		this.label = label;
+		this.min = min;
+		this.max = max;
+		this.defaultValue = defaultValue;
+	}
+
+	/**
+	 * Get the label of this parameter.
+	 * @return the label, suitable for direct display to the user
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * Get the minimum valid value of this parameter.
+	 * @return the minimum valid value
+	 */
+	public int getMin() {
+		return min;
+	}
+
+	/**
+	 * Get the maximum valid value of this parameter.
+	 * @return the maximum valid value
+	 */
+	public int getMax() {
+		return max;
+	}
+
+	/**
+	 * Get the default value of this parameter.
+	 * @return the default value
+	 */
+	public int getDefaultValue() {
+		return defaultValue;
+	}
+
+	/**
+	 * Returns whether the given value is valid for this parameter.
+	 * @param value the value
+	 * @return true if the value is within the valid range, false otherwise
+	 */
+	public boolean isValid(int value) {
+		return value >= min && value <= max;
+	}
+}
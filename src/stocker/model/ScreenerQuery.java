@@ -0,0 +1,296 @@
+package stocker.model;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import stocker.util.Candle;
+import stocker.util.EScreenerComparator;
+
+/**
+ * A query of the screener: criteria which all have to be fulfilled, e.g. "Kurs &gt; SMA(200) und RSI(14) &lt; 30".
+ * Each criterion compares two operands with one of the {@link EScreenerComparator}s. An operand is the price (the
+ * close of the last candle, "Kurs"), a number, or the value of an indicator at the last candle. Indicators are given
+ * by their type (see {@link ChartIndicatorRegistry}), optionally followed by their parameters (the defaults of the
+ * parameter schema are used for missing ones) and by the line of a multi-line indicator, e.g.
+ * "BollingerBands(20, 20, 2)[2]" for the upper band.
+ * <p>
+ * A query is immutable: each call of {@link #evaluate(String, LinkedList)} creates indicators of its own, so a
+ * query can be evaluated for several symbols in parallel.
+ *
+ * @author Marc S. Schneider
+ */
+public class ScreenerQuery {
+
+	private static final Pattern SEPARATOR = Pattern.compile("(?i)\\s+(und|and)\\s+|&&");
+	private static final Pattern NUMBER = Pattern.compile("[-+]?\\d+([.,]\\d+)?");
+	private static final Pattern INDICATOR = Pattern.compile("([A-Za-z%][\\w%]*)\\s*(\\(([^)]*)\\))?\\s*(\\[(\\d+)\\])?");
+
+	private final ArrayList<Criterion> criteria = new ArrayList<Criterion>();
+	private final ArrayList<Operand> columns = new ArrayList<Operand>(); // the distinct indicator operands
+	private int warmup = 0;
+
+	/**
+	 * Construct an empty query (see {@link #parse(String)}).
+	 */
+	private ScreenerQuery() { }
+
+	/**
+	 * Parse a query.
+	 * @param text the criteria, separated by "und" (or "and", "&amp;&amp;"), e.g. "Kurs &gt; SMA(200) und RSI &lt; 30"
+	 * @return the query
+	 * @throws IllegalArgumentException if the text is not a valid query (the message is suitable for display to
+	 *         the user)
+	 */
+	public static ScreenerQuery parse(String text) {
+		ScreenerQuery q = new ScreenerQuery();
+		if (text == null || text.trim().isEmpty()) {
+			throw new IllegalArgumentException("Keine Kriterien angegeben");
+		}
+		for (String part : SEPARATOR.split(text.trim())) {
+			q.criteria.add(q.parseCriterion(part.trim()));
+		}
+		return q;
+	}
+
+	/**
+	 * Get the names of the indicators of this query, whose values are part of each {@link ScreenerResult}.
+	 * @return the names, e.g. "GD(200)" or "RSI(14)"
+	 */
+	public String[] getColumnNames() {
+		String[] names = new String[columns.size()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = columns.get(i).label;
+		}
+		return names;
+	}
+
+	/**
+	 * Get the number of criteria.
+	 * @return the number of criteria
+	 */
+	public int getNrOfCriteria() {
+		return criteria.size();
+	}
+
+	/**
+	 * Get the number of candles which the indicators of this query need before their first valid value.
+	 * @return the largest warm-up length of the indicators (see {@link IChartIndicatorProvider#getWarmup(int[])})
+	 */
+	public int getWarmup() {
+		return warmup;
+	}
+
+	/**
+	 * Evaluate this query at the last of the given candles. The indicators are calculated completely on the candles,
+	 * which are only read.
+	 * @param symbol the symbol of the candles
+	 * @param candles the candles, sorted by time
+	 * @return the result (a criterion with an indicator which has not enough candles is not fulfilled)
+	 */
+	public ScreenerResult evaluate(String symbol, LinkedList<Candle> candles) {
+		if (candles == null || candles.isEmpty()) {
+			return new ScreenerResult(symbol, columns.size(), criteria.size(), "Keine Daten");
+		}
+		double price = candles.getLast().close;
+		double[] values = new double[columns.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = columns.get(i).calculate(candles);
+		}
+		int fulfilled = 0;
+		for (Criterion c : criteria) {
+			if (c.comparator.test(c.left.valueOf(price, values), c.right.valueOf(price, values))) {
+				fulfilled++;
+			}
+		}
+		return new ScreenerResult(symbol, price, values, fulfilled, criteria.size());
+	}
+
+	/**
+	 * Get the query in a normalized form, e.g. "Kurs &gt; GD(200) und RSI(14) &lt; 30".
+	 * @return the query
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Criterion c : criteria) {
+			sb.append(sb.length() > 0 ? " und " : "").append(c.left.label).append(' ').append(c.comparator)
+					.append(' ').append(c.right.label);
+		}
+		return sb.toString();
+	}
+
+	// helper function: parse one criterion, e.g. "RSI(14) < 30"
+	private Criterion parseCriterion(String text) {
+		for (EScreenerComparator cmp : EScreenerComparator.values()) { // "<=" and ">=" are tried before "<" and ">"
+			int pos = text.indexOf(cmp.toString());
+			if (pos >= 0) {
+				String right = text.substring(pos + cmp.toString().length());
+				if (right.indexOf('<') >= 0 || right.indexOf('>') >= 0) {
+					break;
+				}
+				return new Criterion(parseOperand(text.substring(0, pos)), cmp, parseOperand(right));
+			}
+		}
+		throw new IllegalArgumentException("Ungültiges Kriterium (Vergleich mit <, <=, > oder >= erwartet): " + text);
+	}
+
+	// helper function: parse one operand, e.g. "Kurs", "30" or "BollingerBands(20, 20, 2)[2]"
+	private Operand parseOperand(String text) {
+		String s = text.trim();
+		if (s.isEmpty()) {
+			throw new IllegalArgumentException("Operand fehlt");
+		}
+		if (s.equalsIgnoreCase("Kurs") || s.equalsIgnoreCase("close")) {
+			return new Operand("Kurs", Double.NaN, null, null, 0, -1);
+		}
+		if (NUMBER.matcher(s).matches()) {
+			double x = Double.parseDouble(s.replace(',', '.'));
+			String label = (x == Math.rint(x) ? String.valueOf((long) x) : String.valueOf(x));
+			return new Operand(label, x, null, null, 0, -1);
+		}
+		Matcher m = INDICATOR.matcher(s);
+		if (!m.matches()) {
+			throw new IllegalArgumentException("Ungültiger Operand: " + s);
+		}
+		IChartIndicatorProvider provider = null;
+		for (IChartIndicatorProvider p : ChartIndicatorRegistry.getProviders()) {
+			if (p.getType().equalsIgnoreCase(m.group(1))) {
+				provider = p;
+				break;
+			}
+		}
+		if (provider == null) {
+			throw new IllegalArgumentException("Unbekannter Indikator: " + m.group(1));
+		}
+		int[] params = parseParameters(provider, m.group(3));
+		int line = (m.group(5) == null ? 0 : Integer.parseInt(m.group(5)));
+		ChartIndicator ci = provider.create();
+		ci.setParameters(params);
+		if (line >= ci.getNrOfValues()) {
+			throw new IllegalArgumentException(ci + " hat keine Linie " + line + " (0 bis " + (ci.getNrOfValues() - 1)
+					+ ")");
+		}
+		String label = ci.toString() + (ci.getNrOfValues() > 1 ? "[" + line + "]" : "");
+		for (Operand o : columns) { // the same indicator in another criterion: only calculate it once
+			if (o.label.equals(label)) {
+				return o;
+			}
+		}
+		Operand o = new Operand(label, Double.NaN, provider.getType(), params, line, columns.size());
+		columns.add(o);
+		warmup = Math.max(warmup, provider.getWarmup(params));
+		return o;
+	}
+
+	// helper function: parse the parameters of an indicator (missing ones get their default values)
+	private static int[] parseParameters(IChartIndicatorProvider provider, String text) {
+		IndicatorParameter[] schema = provider.getParameterSchema();
+		int[] params = new int[schema.length];
+		String[] values = (text == null || text.trim().isEmpty() ? new String[0] : text.split(","));
+		if (values.length > schema.length) {
+			throw new IllegalArgumentException(provider.getName() + ": höchstens " + schema.length
+					+ " Parameter erwartet");
+		}
+		for (int i = 0; i < schema.length; i++) {
+			if (i >= values.length) {
+				params[i] = schema[i].getDefaultValue();
+				continue;
+			}
+			try {
+				params[i] = Integer.parseInt(values[i].trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(provider.getName() + ": Parameter \"" + values[i].trim()
+						+ "\" ist keine ganze Zahl");
+			}
+			if (!schema[i].isValid(params[i])) {
+				throw new IllegalArgumentException(provider.getName() + ": " + schema[i].getLabel() + " muss zwischen "
+						+ schema[i].getMin() + " und " + schema[i].getMax() + " liegen");
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * A criterion: the comparison of two operands.
+	 */
+	private static class Criterion {
+		private final Operand left;
+		private final EScreenerComparator comparator;
+		private final Operand right;
+
+		/**
+		 * Construct a new criterion.
+		 * @param left the left operand
+		 * @param comparator the comparison
+		 * @param right the right operand
+		 */
+		private Criterion(Operand left, EScreenerComparator comparator, Operand right) {
+			this.left = left;
+			this.comparator = comparator;
+			this.right = right;
+		}
+	}
+
+	/**
+	 * An operand of a criterion: the price, a constant or the value of an indicator.
+	 */
+	private static class Operand {
+		private final String label;
+		private final double constant; // NaN for the price and for indicators
+		private final String type;     // the type of the indicator, null for the price and constants
+		private final int[] params;
+		private final int line;
+		private final int column;      // the index of the indicator in the values of a result, -1 if no indicator
+
+		/**
+		 * Construct a new operand.
+		 * @param label the label of the operand
+		 * @param constant the value of a constant, NaN otherwise
+		 * @param type the type of an indicator, null otherwise
+		 * @param params the parameters of an indicator, null otherwise
+		 * @param line the line of an indicator
+		 * @param column the index of an indicator in the values of a result, -1 otherwise
+		 */
+		private Operand(String label, double constant, String type, int[] params, int line, int column) {
+			this.label = label;
+			this.constant = constant;
+			this.type = type;
+			this.params = params;
+			this.line = line;
+			this.column = column;
+		}
+
+		/**
+		 * Get the value of this operand.
+		 * @param price the price
+		 * @param values the values of the indicators
+		 * @return the value
+		 */
+		private double valueOf(double price, double[] values) {
+			if (column >= 0) {
+				return values[column];
+			}
+			return (type == null && Double.isNaN(constant) ? price : constant);
+		}
+
+		/**
+		 * Calculate the indicator of this operand on the given candles.
+		 * @param candles the candles
+		 * @return the value of the indicator at the last candle, or NaN if there are not enough candles
+		 */
+		private double calculate(LinkedList<Candle> candles) {
+			IChartIndicatorProvider p = ChartIndicatorRegistry.getProvider(type);
+			if (candles.size() <= p.getWarmup(params)) {
+				return Double.NaN;
+			}
+			ChartIndicator ci = p.create();
+			ci.setParameters(params);
+			ci.setCandles(candles);
+			ci.calculate();
+			LinkedList<Double> values = ci.getValues(line);
+			return (values == null || values.isEmpty() ? Double.NaN : values.getLast());
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package stocker.model;
+
+import java.util.Arrays;
+
+/**
+ * The result of a screen for one symbol (see {@link ScreenerQuery#evaluate(String, java.util.LinkedList)}): the
+ * last price, the values of the indicators of the query and the number of fulfilled criteria, or the reason why the
+ * symbol could not be screened. Immutable, so it can be handed over between threads.
+ *
+ * @author Marc S. Schneider
+ */
+public class ScreenerResult {
+
+	private final String symbol;
+	private final double price;
+	private final double[] values;
+	private final int fulfilled;
+	private final int nCriteria;
+	private final String error;
+
+	/**
+	 * Construct the result of a symbol which has been screened.
+	 * @param symbol the symbol
+	 * @param price the last price (the close of the last candle)
+	 * @param values the values of the indicators at the last candle, in the order of
+	 *        {@link ScreenerQuery#getColumnNames()} (NaN if not enough candles are available)
+	 * @param fulfilled the number of fulfilled criteria
+	 * @param nCriteria the number of criteria of the query
+	 */
+	public ScreenerResult(String symbol, double price, double[] values, int fulfilled, int nCriteria) {
+		this.symbol = symbol;
+		this.price = price;
+		this.values = values.clone();
+		this.fulfilled = fulfilled;
+		this.nCriteria = nCriteria;
+		this.error = null;
+	}
+
+	/**
+	 * Construct the result of a symbol which could not be screened.
+	 * @param symbol the symbol
+	 * @param nColumns the number of indicator values of the query (see {@link ScreenerQuery#getColumnNames()})
+	 * @param nCriteria the number of criteria of the query
+	 * @param error the reason, suitable for display to the user
+	 */
+	public ScreenerResult(String symbol, int nColumns, int nCriteria, String error) {
+		this.symbol = symbol;
+		this.price = Double.NaN;
+		this.values = new double[nColumns];
+		Arrays.fill(values, Double.NaN);
+		this.fulfilled = 0;
+		this.nCriteria = nCriteria;
+		this.error = error;
+	}
+
+	/**
+	 * Get the symbol.
+	 * @return the symbol
+	 */
+	public String getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * Get the last price.
+	 * @return the close of the last candle, or NaN if the symbol could not be screened
+	 */
+	public double getPrice() {
+		return price;
+	}
+
+	/**
+	 * Get the value of an indicator of the query at the last candle.
+	 * @param i the index of the indicator (see {@link ScreenerQuery#getColumnNames()})
+	 * @return the value, or NaN if it is not available
+	 */
+	public double getValue(int i) {
+		return values[i];
+	}
+
+	/**
+	 * Get the number of indicator values.
+	 * @return the number of indicator values
+	 */
+	public int getNrOfValues() {
+		return values.length;
+	}
+
+	/**
+	 * Get the number of fulfilled criteria, e.g. for ranking.
+	 * @return the number of fulfilled criteria
+	 */
+	public int getFulfilled() {
+		return fulfilled;
+	}
+
+	/**
+	 * Returns whether all criteria of the query are fulfilled.
+	 * @return true if the symbol matches the query, false otherwise
+	 */
+	public boolean isMatch() {
+		return error == null && fulfilled == nCriteria;
+	}
+
+	/**
+	 * Get the reason why the symbol could not be screened.
+	 * @return the reason, or null if the symbol has been screened
+	 */
+	public String getError() {
+		return error;
+	}
+}
@@ -0,0 +1,64 @@
+package stocker.model;
+
+/**
+ * The running state of a simple moving average over the last n values, kept as a ring buffer and a running sum,
+ * so each value is processed in O(1). Used for smoothing lines of oscillators (e.g. %D of the Stochastic).
+ *
+ * @author Marc S. Schneider
+ */
+class SmaState {
+
+	private final double[] window;
+	private int count; // the number of values added so far (at most the window length)
+	private int next;  // the position of the oldest value in the ring buffer, to be replaced next
+	private double sum;
+
+	/**
+	 * Construct a new, empty state.
+	 * @param n the number of values of the average (at least 1)
+	 */
+	SmaState(int n) {
+		this.window = new double[Math.max(n, 1)];
+	}
+
+	/**
+	 * Forget all values.
+	 */
+	void reset() {
+		count = 0;
+		next = 0;
+		sum = 0.0;
+	}
+
+	/**
+	 * Add the next value.
+	 * @param x the value
+	 * @return the average of the last n values including this one, or NaN if fewer than n values have been added
+	 */
+	double commit(double x) {
+		double result = peek(x);
+		if (count == window.length) {
+			sum -= window[next];
+		}
+		else {
+			count++;
+		}
+		sum += x;
+		window[next] = x;
+		next = (next + 1) % window.length;
+		return result;
+	}
+
+	/**
+	 * Get the average which would result from adding the given value, without adding it.
+	 * @param x the value
+	 * @return the average of the last n values including this one, or NaN if that would still be fewer than n values
+	 */
+	double peek(double x) {
+		if (count + 1 < window.length) {
+			return Double.NaN;
+		}
+		double s = sum + x - (count == window.length ? window[next] : 0.0);
+		return s / window.length;
+	}
+}
@@ -0,0 +1,197 @@
+package stocker.model;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+import stocker.util.Candle;
+
+/**
+ * Base class for indicators whose values can be computed from a running state, candle by candle (e.g. exponential
+ * averages). The subclasses only define the state: {@link #commit(Candle, double[])} adds a completed candle to it,
+ * and {@link #evaluate(Candle, double[])} computes the values at a candle from the state without changing it.
+ * <p>
+ * This class implements both compute contracts of {@link ChartIndicator} on top of that: {@link #calculate()} (the
+ * batch path) computes all values in a single pass over the candles, and {@link #calculateLast()} (the streaming
+ * path) works in O(1) per update: an updated last candle is only evaluated, and when a new candle has been
+ * appended, the former last candle is committed (its values are corrected with its final prices) before the new
+ * one is evaluated. The state is not affected by {@link #removeFirstValue()}.
+ * <p>
+ * The parameters are described by a schema of {@link IndicatorParameter}s (the same as the one of the provider,
+ * from which the parametrization dialog is built). Values before the end of the warm-up are 0.0 (like those of {@link ChartIndicatorSMA}).
+ *
+ * @author Marc S. Schneider
+ */
+public abstract class StreamingChartIndicator extends ChartIndicator {
+
+	private final String shortName;
+	private final IndicatorParameter[] schema;
+	private final int[] params;
+	private final ArrayList<LinkedList<Double>> outputs;
+	private final double[] out;
+	private boolean isStateValid = false; // the state contains all candles but the last one
+
+	/**
+	 * Construct a new, not yet parametrized indicator (the parameters are set to their default values).
+	 * @param shortName the short name used in {@link #toString()}, e.g. "EMA"
+	 * @param nOutputs the number of value lists of this indicator
+	 * @param schema the parameters of this indicator
+	 */
+	protected StreamingChartIndicator(String shortName, int nOutputs, IndicatorParameter[] schema) {
+		super();
+		this.shortName = shortName;
+		this.schema = schema;
+		this.params = new int[schema.length];
+		for (int i = 0; i < schema.length; i++) {
+			params[i] = schema[i].getDefaultValue();
+		}
+		this.outputs = new ArrayList<LinkedList<Double>>(nOutputs);
+		for (int i = 0; i < nOutputs; i++) {
+			LinkedList<Double> valueList = new LinkedList<Double>();
+			outputs.add(valueList);
+			addValueList(valueList);
+		}
+		this.out = new double[nOutputs];
+	}
+
+	/**
+	 * Reset the state to the initial state for the current parameters (no candle committed).
+	 */
+	protected abstract void reset();
+
+	/**
+	 * Add a completed candle to the state and write the values at this candle into the given array.
+	 * @param c the candle
+	 * @param out the array for the values (one per value list; NaN if not defined yet)
+	 */
+	protected abstract void commit(Candle c, double[] out);
+
+	/**
+	 * Write the values at the given candle, which follows the committed candles, into the given array, without
+	 * changing the state.
+	 * @param c the candle
+	 * @param out the array for the values (one per value list; NaN if not defined yet)
+	 */
+	protected abstract void evaluate(Candle c, double[] out);
+
+	/**
+	 * Get the value of a parameter.
+	 * @param i the index of the parameter in the schema
+	 * @return the value
+	 */
+	protected int getParameter(int i) {
+		return params[i];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void calculate() {
+		if (!isParametrized()) { // nothing can be calculated unless parameters are set
+			return;
+		}
+		LinkedList<Candle> candles = getCandles();
+		LinkedList<Long> times = getTimes();
+		times.clear();
+		for (LinkedList<Double> valueList : outputs) {
+			valueList.clear();
+		}
+		reset();
+		int size = candles.size();
+		int i = 0;
+		for (Candle c : candles) {
+			if (++i < size) {
+				commit(c, out);
+			}
+			else { // the last candle might still change
+				evaluate(c, out);
+			}
+			times.add(c.time);
+			for (int j = 0; j < out.length; j++) {
+				outputs.get(j).add(Double.isNaN(out[j]) ? 0.0 : out[j]);
+			}
+		}
+		isStateValid = true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void calculateLast() {
+		if (!isParametrized()) {
+			return;
+		}
+		LinkedList<Candle> candles = getCandles();
+		LinkedList<Long> times = getTimes();
+		int size = candles.size();
+		if (!isStateValid || size == 0 || times.size() < size - 1 || times.size() > size) { // not in sync
+			calculate();
+			return;
+		}
+		if (times.size() == size - 1) { // a new candle has been appended: the former last one is complete now
+			if (size >= 2) {
+				commit(candles.get(size - 2), out); // near the end of the list, so O(1)
+				for (int j = 0; j < out.length; j++) {
+					outputs.get(j).set(size - 2, Double.isNaN(out[j]) ? 0.0 : out[j]);
+				}
+			}
+		}
+		else { // the last candle has been updated: replace its values
+			times.removeLast();
+			for (LinkedList<Double> valueList : outputs) {
+				valueList.removeLast();
+			}
+		}
+		Candle last = candles.getLast();
+		evaluate(last, out);
+		times.add(last.time);
+		for (int j = 0; j < out.length; j++) {
+			outputs.get(j).add(Double.isNaN(out[j]) ? 0.0 : out[j]);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setCandles(LinkedList<Candle> candles) {
+		super.setCandles(candles);
+		isStateValid = false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		if (params.length == 0) {
+			return shortName;
+		}
+		StringBuilder sb = new StringBuilder().append(shortName).append("(");
+		for (int i = 0; i < params.length; i++) {
+			sb.append(i > 0 ? ", " : "").append(params[i]);
+		}
+		return sb.append(")").toString();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int[] getParameters() {
+		return params.clone();
+	}
+
+	/**
+	 * {@inheritDoc} Missing parameters (e.g. of sessions of older versions) are set to their default values.
+	 */
+	@Override
+	public void setParameters(int[] params) {
+		for (int i = 0; i < schema.length; i++) {
+			this.params[i] = (i < params.length ? params[i] : schema[i].getDefaultValue());
+		}
+		isStateValid = false;
+		setParametrized(true);
+	}
+}
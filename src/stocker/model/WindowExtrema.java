@@ -0,0 +1,91 @@
+package stocker.model;
+
+/**
+ * The running maximum (or minimum) over the last n values, maintained with a monotonic deque: it holds only those
+ * values of the window which are larger (or smaller) than all later ones, so its first element is the extremum.
+ * Each value enters and leaves the deque at most once, which makes adding a value amortised O(1) instead of
+ * rescanning the window. The deque is a ring buffer of indices and values, so no objects are created per value.
+ *
+ * @author Marc S. Schneider
+ */
+class WindowExtrema {
+
+	private final int n;
+	private final boolean isMax;
+	private final long[] idx;   // the position of the values in the deque (counted from the first value ever added)
+	private final double[] val; // the values in the deque, decreasing (max) or increasing (min) from head to tail
+	private int head, size;
+	private long count;         // the number of values added so far
+
+	/**
+	 * Construct a new, empty window.
+	 * @param n the length of the window (at least 1)
+	 * @param isMax true for the maximum, false for the minimum
+	 */
+	WindowExtrema(int n, boolean isMax) {
+		this.n = Math.max(n, 1);
+		this.isMax = isMax;
+		this.idx = new long[this.n + 1];
+		this.val = new double[this.n + 1];
+	}
+
+	/**
+	 * Forget all values.
+	 */
+	void reset() {
+		head = 0;
+		size = 0;
+		count = 0;
+	}
+
+	/**
+	 * Add the next value.
+	 * @param x the value
+	 * @return the extremum of the last n values including this one, or NaN if fewer than n values have been added
+	 */
+	double commit(double x) {
+		while (size > 0 && !dominates(val[tail()], x)) { // those can never be the extremum any more
+			size--;
+		}
+		int t = (head + size) % val.length;
+		idx[t] = count;
+		val[t] = x;
+		size++;
+		count++;
+		while (idx[head] <= count - 1 - n) { // drop the value which has left the window
+			head = (head + 1) % val.length;
+			size--;
+		}
+		return (count < n ? Double.NaN : val[head]);
+	}
+
+	/**
+	 * Get the extremum which would result from adding the given value, without adding it.
+	 * @param x the value
+	 * @return the extremum of the last n values including this one, or NaN if that would still be fewer than n values
+	 */
+	double peek(double x) {
+		if (count + 1 < n) {
+			return Double.NaN;
+		}
+		double e = x;
+		for (int i = 0; i < size && i < 2; i++) { // only the head can have left the window, so the next one is enough
+			int k = (head + i) % val.length;
+			if (idx[k] > count - n) {
+				e = (isMax ? Math.max(e, val[k]) : Math.min(e, val[k]));
+				break;
+			}
+		}
+		return e;
+	}
+
+	// helper function: position of the last element of the deque
+	private int tail() {
+		return (head + size - 1) % val.length;
+	}
+
+	// helper function: whether a value in the deque stays relevant after the given value has been added
+	private boolean dominates(double inDeque, double x) {
+		return (isMax ? inDeque > x : inDeque < x);
+	}
+}
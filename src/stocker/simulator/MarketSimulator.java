@@ -0,0 +1,319 @@
+package stocker.simulator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.java_websocket.WebSocket;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process market data simulator which implements the pull API (<code>/stock/candle</code>, <code>/quote</code>,
+ * <code>/search</code>) and the push API (websocket trades) in the format of finnhub.io. By default, it serves the
+ * "Kursdatengenerator" data provider which Stocker knows from its default properties (http://localhost:8080 and
+ * ws://localhost:8090, token 3254631). The number of symbols, the tick rate, an artificial latency and error injection
+ * can be configured with a {@link MarketSimulatorConfig}, which makes it possible to benchmark and soak-test the
+ * client under load without any external service.
+ * <p>
+ * Can be started standalone via {@link #main(String[])}, or in-process together with Stocker by starting Stocker
+ * with the argument <code>--simulator</code>.
+ *
+ * @author Marc S. Schneider
+ */
+public class MarketSimulator {
+
+	private static final long PING_INTERVAL_MILLIS = 15000L;
+	private static final double MAX_CATCH_UP_MILLIS = 1000.0; // ticks missed during a longer delay are not made up
+
+	private MarketSimulatorConfig config;
+	private ArrayList<SimulatedSymbol> symbolList;
+	private HashMap<String, SimulatedSymbol> symbolMap;
+	private HttpServer httpServer;
+	private ExecutorService httpExecutor;
+	private SimulatorPushServer pushServer;
+	private ScheduledExecutorService scheduler;
+	private volatile boolean isRunning = false;
+
+	private AtomicLong pullRequests = new AtomicLong();
+	private AtomicLong pushedMessages = new AtomicLong();
+
+	/**
+	 * Construct a new MarketSimulator with the given configuration. The simulator needs to be started with
+	 * {@link #start()}.
+	 * @param config the configuration to be used
+	 */
+	public MarketSimulator(MarketSimulatorConfig config) {
+		this.config = config;
+		int n = config.getSymbolCount();
+		this.symbolList = new ArrayList<SimulatedSymbol>(n);
+		this.symbolMap = new HashMap<String, SimulatedSymbol>(2 * n);
+		int digits = Math.max(4, String.valueOf(n).length());
+		for (int i = 1; i <= n; i++) {
+			String symbol = String.format("SIM%0" + digits + "d", i);
+			SimulatedSymbol s = new SimulatedSymbol(symbol, "Simulierte Aktie " + i, config.getSeed() * 31L + i);
+			symbolList.add(s);
+			symbolMap.put(symbol, s);
+		}
+	}
+
+	/**
+	 * Start the pull and the push server and the generation of trades.
+	 * @throws IOException if the pull server could not be started (e.g. because the port is in use)
+	 */
+	public synchronized void start() throws IOException {
+		if (isRunning) {
+			return;
+		}
+		httpServer = HttpServer.create(new InetSocketAddress(config.getPullPort()), 0);
+		httpServer.createContext("/", new SimulatorHttpHandler(this, config));
+		httpExecutor = Executors.newFixedThreadPool(8); // several threads, so that injected latency doesn't serialize
+		httpServer.setExecutor(httpExecutor);
+		httpServer.start();
+
+		pushServer = new SimulatorPushServer(this, config);
+		pushServer.start();
+
+		scheduler = Executors.newScheduledThreadPool(2);
+		double periodMillis = Math.max(1.0, 1000.0 / config.getTicksPerSecond());
+		scheduler.scheduleAtFixedRate(new Runnable() {
+			private long lastRun = System.nanoTime();
+			private double remainder = 0.0; // the fraction of a tick which is carried over to the next period
+
+			@Override
+			public void run() {
+				// the number of ticks follows the time which has actually elapsed, so the configured rate is kept
+				// exactly even if it is not a multiple of the period, or if the scheduler is late
+				long now = System.nanoTime();
+				double elapsedMillis = Math.min((now - lastRun) / 1000000.0, periodMillis + MAX_CATCH_UP_MILLIS);
+				lastRun = now;
+				double due = config.getTicksPerSecond() * elapsedMillis / 1000.0 + remainder;
+				int ticks = (int) due;
+				remainder = due - ticks;
+				if (ticks == 0) {
+					return;
+				}
+				try {
+					pushServer.pushTicks(System.currentTimeMillis(), ticks, elapsedMillis);
+				} catch (Exception e) { // never let an exception end the periodic task
+					System.err.println("MarketSimulator: Error while pushing ticks: " + e.getMessage());
+				}
+			}
+		}, (long) (periodMillis * 1000.0), (long) (periodMillis * 1000.0), TimeUnit.MICROSECONDS);
+		scheduler.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				pushServer.pushPing();
+			}
+		}, PING_INTERVAL_MILLIS, PING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+		isRunning = true;
+	}
+
+	/**
+	 * Stop the simulator (servers and trade generation).
+	 */
+	public synchronized void stop() {
+		if (!isRunning) {
+			return;
+		}
+		scheduler.shutdownNow();
+		httpServer.stop(0);
+		httpExecutor.shutdownNow();
+		try {
+			pushServer.stop(1000);
+		} catch (InterruptedException e) { }
+		isRunning = false;
+	}
+
+	/**
+	 * Check whether the simulator is running.
+	 * @return true if running, false otherwise
+	 */
+	public boolean isRunning() {
+		return isRunning;
+	}
+
+	/**
+	 * Get the simulated symbol with the given ticker symbol.
+	 * @param symbol the ticker symbol
+	 * @return the simulated symbol, or null if the simulator doesn't offer this symbol
+	 */
+	public SimulatedSymbol getSymbol(String symbol) {
+		return (symbol == null ? null : symbolMap.get(symbol));
+	}
+
+	/**
+	 * Get all simulated symbols.
+	 * @return an unmodifiable list of all simulated symbols
+	 */
+	public List<SimulatedSymbol> getSymbols() {
+		return Collections.unmodifiableList(symbolList);
+	}
+
+	/**
+	 * Get the number of pull requests served so far.
+	 * @return the number of pull requests
+	 */
+	public long getPullRequestCount() {
+		return pullRequests.get();
+	}
+
+	/**
+	 * Get the number of push messages (trades) sent so far.
+	 * @return the number of push messages
+	 */
+	public long getPushedMessageCount() {
+		return pushedMessages.get();
+	}
+
+	/**
+	 * Get the number of push subscriptions over all connections.
+	 * @return the number of push subscriptions
+	 */
+	public int getSubscriptionCount() {
+		return (pushServer == null ? 0 : pushServer.getSubscriptionCount());
+	}
+
+	/**
+	 * Count a served pull request (used by the {@link SimulatorHttpHandler}).
+	 */
+	void countPullRequest() { // default visibility
+		pullRequests.incrementAndGet();
+	}
+
+	/**
+	 * Block the calling thread for the configured latency plus jitter (used by the {@link SimulatorHttpHandler}).
+	 */
+	void sleepLatency() { // default visibility
+		long delay = nextLatency();
+		if (delay > 0L) {
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) { }
+		}
+	}
+
+	/**
+	 * Send the given messages to a connection after the configured latency (used by the {@link SimulatorPushServer}).
+	 * @param conn the connection
+	 * @param messages the messages to be sent, in this order
+	 */
+	void sendDelayed(WebSocket conn, List<String> messages) { // default visibility
+		Runnable send = new Runnable() {
+			@Override
+			public void run() {
+				for (String m : messages) {
+					if (!pushServer.send(conn, m)) {
+						break;
+					}
+					pushedMessages.incrementAndGet();
+				}
+			}
+		};
+		long delay = nextLatency();
+		if (delay > 0L) {
+			scheduler.schedule(send, delay, TimeUnit.MILLISECONDS);
+		}
+		else {
+			send.run();
+		}
+	}
+
+	/**
+	 * Get the latency for the next answer (configured latency plus random jitter).
+	 * @return the latency in milliseconds
+	 */
+	private long nextLatency() {
+		long delay = config.getLatencyMillis();
+		if (config.getLatencyJitterMillis() > 0) {
+			delay += ThreadLocalRandom.current().nextInt(config.getLatencyJitterMillis() + 1);
+		}
+		return delay;
+	}
+
+	/**
+	 * Create a configuration from command line arguments of the form <code>key=value</code>. Known keys are
+	 * symbols, ticks (per second and symbol), latency, jitter (both in milliseconds), pullErrors, pushErrors (both
+	 * between 0.0 and 1.0), pullPort, pushPort, token, maxCandles and seed. Unknown arguments are ignored.
+	 * @param args the command line arguments
+	 * @return the configuration
+	 */
+	public static MarketSimulatorConfig parseArgs(String[] args) {
+		MarketSimulatorConfig config = new MarketSimulatorConfig();
+		for (String arg : args) {
+			int idx = arg.indexOf('=');
+			if (idx < 1) {
+				continue;
+			}
+			String key = arg.substring(0, idx);
+			String value = arg.substring(idx + 1);
+			try {
+				switch (key) {
+				case "symbols":
+					config.setSymbolCount(Integer.parseInt(value));
+					break;
+				case "ticks":
+					config.setTicksPerSecond(Double.parseDouble(value));
+					break;
+				case "latency":
+					config.setLatencyMillis(Integer.parseInt(value));
+					break;
+				case "jitter":
+					config.setLatencyJitterMillis(Integer.parseInt(value));
+					break;
+				case "pullErrors":
+					config.setPullErrorRate(Double.parseDouble(value));
+					break;
+				case "pushErrors":
+					config.setPushErrorRate(Double.parseDouble(value));
+					break;
+				case "pullPort":
+					config.setPullPort(Integer.parseInt(value));
+					break;
+				case "pushPort":
+					config.setPushPort(Integer.parseInt(value));
+					break;
+				case "token":
+					config.setToken(value);
+					break;
+				case "maxCandles":
+					config.setMaxCandles(Integer.parseInt(value));
+					break;
+				case "seed":
+					config.setSeed(Long.parseLong(value));
+					break;
+				}
+			} catch (NumberFormatException e) {
+				System.err.println("MarketSimulator: Ignoring invalid argument " + arg);
+			}
+		}
+		return config;
+	}
+
+	/**
+	 * Run the simulator standalone until the process is killed.
+	 * @param args the configuration, see {@link #parseArgs(String[])}
+	 */
+	public static void main(String[] args) {
+		MarketSimulatorConfig config = parseArgs(args);
+		MarketSimulator sim = new MarketSimulator(config);
+		try {
+			sim.start();
+		} catch (IOException e) {
+			System.err.println("MarketSimulator could not be started: " + e.getMessage());
+			System.exit(1);
+		}
+		System.out.println("MarketSimulator running: " + config.getSymbolCount() + " symbols, "
+				+ config.getTicksPerSecond() + " ticks/s per symbol, pull port " + config.getPullPort()
+				+ ", push port " + config.getPushPort());
+	}
+}
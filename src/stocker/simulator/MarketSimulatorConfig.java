@@ -0,0 +1,200 @@
+package stocker.simulator;
+
+/**
+ * Holds the settings of a {@link MarketSimulator}: ports, API token, number of simulated symbols, tick rate,
+ * artificial latency and error injection. All settings have reasonable defaults which match the
+ * "Kursdatengenerator" data provider that Stocker knows by default (localhost:8080 / ws://localhost:8090).
+ * Settings need to be made before the simulator is started; later changes have no effect.
+ *
+ * @author Marc S. Schneider
+ */
+public class MarketSimulatorConfig {
+
+	private int pullPort = 8080;
+	private int pushPort = 8090;
+	private String token = "3254631";   // the token of the default "Kursdatengenerator" provider
+	private int symbolCount = 100;
+	private double ticksPerSecond = 1.0; // per subscribed symbol
+	private int latencyMillis = 0;       // artificial latency for pull answers and push messages
+	private int latencyJitterMillis = 0; // random additional latency between 0 and this value
+	private double pullErrorRate = 0.0;  // share of pull requests which are answered with an HTTP error
+	private double pushErrorRate = 0.0;  // share of push messages which are sent malformed
+	private int maxCandles = 5000;       // the maximum number of candles returned by a single pull request
+	private long seed = 3254631L;        // seed for the price model, the same seed always gives the same prices
+
+	/**
+	 * Get the port on which the pull (REST) API is served.
+	 * @return the port of the pull API
+	 */
+	public int getPullPort() {
+		return pullPort;
+	}
+
+	/**
+	 * Set the port on which the pull (REST) API is served.
+	 * @param pullPort the port of the pull API
+	 */
+	public void setPullPort(int pullPort) {
+		this.pullPort = pullPort;
+	}
+
+	/**
+	 * Get the port on which the push (websocket) API is served.
+	 * @return the port of the push API
+	 */
+	public int getPushPort() {
+		return pushPort;
+	}
+
+	/**
+	 * Set the port on which the push (websocket) API is served.
+	 * @param pushPort the port of the push API
+	 */
+	public void setPushPort(int pushPort) {
+		this.pushPort = pushPort;
+	}
+
+	/**
+	 * Get the API token which clients have to provide.
+	 * @return the API token, or an empty string if any token is accepted
+	 */
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * Set the API token which clients have to provide.
+	 * @param token the API token; null or an empty string to accept any token
+	 */
+	public void setToken(String token) {
+		this.token = (token == null ? "" : token);
+	}
+
+	/**
+	 * Get the number of symbols offered by the simulator.
+	 * @return the number of simulated symbols
+	 */
+	public int getSymbolCount() {
+		return symbolCount;
+	}
+
+	/**
+	 * Set the number of symbols offered by the simulator (at least 1).
+	 * @param symbolCount the number of simulated symbols
+	 */
+	public void setSymbolCount(int symbolCount) {
+		this.symbolCount = Math.max(1, symbolCount);
+	}
+
+	/**
+	 * Get the number of trades pushed per second for each subscribed symbol.
+	 * @return the tick rate per symbol
+	 */
+	public double getTicksPerSecond() {
+		return ticksPerSecond;
+	}
+
+	/**
+	 * Set the number of trades pushed per second for each subscribed symbol.
+	 * @param ticksPerSecond the tick rate per symbol (values smaller than 0.01 are raised to 0.01)
+	 */
+	public void setTicksPerSecond(double ticksPerSecond) {
+		this.ticksPerSecond = Math.max(0.01, ticksPerSecond);
+	}
+
+	/**
+	 * Get the artificial latency which is added to every pull answer and every push message.
+	 * @return the latency in milliseconds
+	 */
+	public int getLatencyMillis() {
+		return latencyMillis;
+	}
+
+	/**
+	 * Set the artificial latency which is added to every pull answer and every push message.
+	 * @param latencyMillis the latency in milliseconds
+	 */
+	public void setLatencyMillis(int latencyMillis) {
+		this.latencyMillis = Math.max(0, latencyMillis);
+	}
+
+	/**
+	 * Get the maximum random jitter which is added on top of the artificial latency.
+	 * @return the maximum jitter in milliseconds
+	 */
+	public int getLatencyJitterMillis() {
+		return latencyJitterMillis;
+	}
+
+	/**
+	 * Set the maximum random jitter which is added on top of the artificial latency.
+	 * @param latencyJitterMillis the maximum jitter in milliseconds
+	 */
+	public void setLatencyJitterMillis(int latencyJitterMillis) {
+		this.latencyJitterMillis = Math.max(0, latencyJitterMillis);
+	}
+
+	/**
+	 * Get the share of pull requests which are answered with an HTTP error.
+	 * @return the pull error rate, between 0.0 and 1.0
+	 */
+	public double getPullErrorRate() {
+		return pullErrorRate;
+	}
+
+	/**
+	 * Set the share of pull requests which are answered with an HTTP error.
+	 * @param pullErrorRate the pull error rate, between 0.0 and 1.0
+	 */
+	public void setPullErrorRate(double pullErrorRate) {
+		this.pullErrorRate = Math.min(1.0, Math.max(0.0, pullErrorRate));
+	}
+
+	/**
+	 * Get the share of push messages which are sent malformed.
+	 * @return the push error rate, between 0.0 and 1.0
+	 */
+	public double getPushErrorRate() {
+		return pushErrorRate;
+	}
+
+	/**
+	 * Set the share of push messages which are sent malformed.
+	 * @param pushErrorRate the push error rate, between 0.0 and 1.0
+	 */
+	public void setPushErrorRate(double pushErrorRate) {
+		this.pushErrorRate = Math.min(1.0, Math.max(0.0, pushErrorRate));
+	}
+
+	/**
+	 * Get the maximum number of candles returned by a single pull request.
+	 * @return the maximum number of candles per request
+	 */
+	public int getMaxCandles() {
+		return maxCandles;
+	}
+
+	/**
+	 * Set the maximum number of candles returned by a single pull request.
+	 * @param maxCandles the maximum number of candles per request
+	 */
+	public void setMaxCandles(int maxCandles) {
+		this.maxCandles = Math.max(1, maxCandles);
+	}
+
+	/**
+	 * Get the seed of the price model.
+	 * @return the seed of the price model
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Set the seed of the price model. The same seed always results in the same prices for the same points in time.
+	 * @param seed the seed of the price model
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+}
@@ -0,0 +1,118 @@
+package stocker.simulator;
+
+import stocker.util.Candle;
+
+/**
+ * A symbol offered by the {@link MarketSimulator}. Prices follow a deterministic model (a superposition of waves with
+ * different periods plus a small pseudo-random noise), so the same point in time always has the same price. This keeps
+ * pulled history, quotes and pushed trades consistent with each other, no matter in which order they are requested.
+ *
+ * @author Marc S. Schneider
+ */
+public class SimulatedSymbol {
+
+	private static final double TWO_PI = 2.0 * Math.PI;
+	private static final double P1 = 45.0 * 24.0 * 60.0 * 60.0; // long-term wave: 45 days
+	private static final double P2 = 1.3 * 24.0 * 60.0 * 60.0;  // medium-term wave: 1.3 days
+	private static final double P3 = 23.0 * 60.0;               // short-term wave: 23 minutes
+	private static final int SAMPLES_PER_CANDLE = 12;           // prices sampled to determine a candle's high and low
+
+	private final String symbol;
+	private final String description;
+	private final long seed;
+	private final double base;           // the price around which this symbol oscillates
+	private final double phi1, phi2, phi3; // phases of the waves
+	private final double baseVolume;
+
+	/**
+	 * Construct a new simulated symbol.
+	 * @param symbol the ticker symbol
+	 * @param description the descriptive name, as returned by a search
+	 * @param seed the seed of the price model (usually derived from the simulator's seed and the symbol's number)
+	 */
+	public SimulatedSymbol(String symbol, String description, long seed) {
+		this.symbol = symbol;
+		this.description = description;
+		this.seed = seed;
+		this.base = 10.0 + 490.0 * (0.5 + 0.5 * noise(1L));
+		this.phi1 = Math.PI * (1.0 + noise(2L));
+		this.phi2 = Math.PI * (1.0 + noise(3L));
+		this.phi3 = Math.PI * (1.0 + noise(4L));
+		this.baseVolume = 1000.0 + 100000.0 * (0.5 + 0.5 * noise(5L));
+	}
+
+	/**
+	 * Get the ticker symbol.
+	 * @return the ticker symbol
+	 */
+	public String getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * Get the descriptive name.
+	 * @return the descriptive name
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Get the price at the given point in time.
+	 * @param t the unix timestamp in seconds (fractions of a second are allowed)
+	 * @return the price at time t
+	 */
+	public double priceAt(double t) {
+		double p = base * (1.0 + 0.12 * Math.sin(TWO_PI * t / P1 + phi1) + 0.04 * Math.sin(TWO_PI * t / P2 + phi2)
+				+ 0.01 * Math.sin(TWO_PI * t / P3 + phi3));
+		p += base * 0.002 * noise((long) Math.floor(t)); // noise changes once per second
+		return Math.round(p * 100.0) / 100.0;
+	}
+
+	/**
+	 * Get the volume of a single trade at the given point in time.
+	 * @param t the unix timestamp in seconds (fractions of a second are allowed)
+	 * @return the volume of a trade at time t
+	 */
+	public double tradeVolumeAt(double t) {
+		return Math.round(1.0 + 99.0 * (0.5 + 0.5 * noise((long) Math.floor(t * 1000.0) ^ 0x5DEECE66DL)));
+	}
+
+	/**
+	 * Build the candle which starts at the given time and covers the given length. If the candle reaches into the
+	 * future, only the part up to now is taken into account (just like an unfinished candle of a real provider).
+	 * @param start the unix timestamp at which the candle starts
+	 * @param length the length of the candle in seconds
+	 * @param now the current unix timestamp
+	 * @return the candle
+	 */
+	public Candle candle(long start, long length, long now) {
+		long end = Math.min(start + length, now + 1L);
+		double open = priceAt(start);
+		double close = open;
+		double high = open;
+		double low = open;
+		double step = Math.max(1.0, (double) (end - start) / SAMPLES_PER_CANDLE);
+		for (double t = start + step; t < end; t += step) {
+			close = priceAt(t);
+			high = Math.max(high, close);
+			low = Math.min(low, close);
+		}
+		double volume = Math.round(baseVolume * (end - start) / 60.0 * (0.75 + 0.25 * noise(start ^ 0x2545F491L)));
+		return new Candle(start, low, high, open, close, volume);
+	}
+
+	/**
+	 * Pseudo-random noise between -1.0 and 1.0 which depends only on this symbol's seed and the given key
+	 * (splitmix64 finalizer).
+	 * @param key the key for which noise is requested
+	 * @return a value between -1.0 and 1.0
+	 */
+	private double noise(long key) {
+		long z = seed + key * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		return (z >>> 11) * 0x1.0p-53 * 2.0 - 1.0;
+	}
+}
@@ -0,0 +1,223 @@
+package stocker.simulator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import stocker.util.Candle;
+import stocker.util.EChartInterval;
+
+/**
+ * Serves the pull API of the {@link MarketSimulator}: <code>/stock/candle</code>, <code>/quote</code> and
+ * <code>/search</code>, with the same parameters and the same answer format as finnhub.io. Every answer is written
+ * as one single line, as expected by {@link stocker.control.StockerDataManager}.
+ *
+ * @author Marc S. Schneider
+ */
+public class SimulatorHttpHandler implements HttpHandler {
+
+	private static final int MAX_SEARCH_RESULTS = 100;
+
+	private MarketSimulator simulator;
+	private MarketSimulatorConfig config;
+
+	/**
+	 * Construct a new SimulatorHttpHandler.
+	 * @param simulator the simulator which provides the symbols
+	 * @param config the configuration of the simulator
+	 */
+	public SimulatorHttpHandler(MarketSimulator simulator, MarketSimulatorConfig config) {
+		this.simulator = simulator;
+		this.config = config;
+	}
+
+	/**
+	 * Handle a request: check the token, inject latency and errors as configured, then dispatch by path.
+	 * @param exchange the exchange containing the request and the response
+	 */
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		try {
+			simulator.sleepLatency();
+			HashMap<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+			String path = exchange.getRequestURI().getPath();
+			simulator.countPullRequest();
+
+			if (!config.getToken().isEmpty() && !config.getToken().equals(params.get("token"))) {
+				reply(exchange, 401, "{\"error\":\"Invalid API key\"}");
+			}
+			else if (ThreadLocalRandom.current().nextDouble() < config.getPullErrorRate()) { // injected error
+				if (ThreadLocalRandom.current().nextBoolean()) {
+					reply(exchange, 429, "{\"error\":\"API limit reached. Please try again later.\"}");
+				}
+				else {
+					reply(exchange, 500, "{\"error\":\"Simulated server error\"}");
+				}
+			}
+			else if (path.startsWith("/stock/candle")) {
+				reply(exchange, 200, candles(params));
+			}
+			else if (path.startsWith("/quote")) {
+				reply(exchange, 200, quote(params));
+			}
+			else if (path.startsWith("/search")) {
+				reply(exchange, 200, search(params));
+			}
+			else {
+				reply(exchange, 404, "{\"error\":\"Unknown endpoint " + path + "\"}");
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Answer a candle request.
+	 * @param params the query parameters
+	 * @return the answer as a single-line JSON string
+	 */
+	private String candles(HashMap<String, String> params) {
+		SimulatedSymbol s = simulator.getSymbol(params.get("symbol"));
+		EChartInterval interval = intervalFromPullString(params.get("resolution"));
+		long now = Instant.now().getEpochSecond();
+		long from, to;
+		try {
+			from = Long.parseLong(params.get("from"));
+			to = Math.min(Long.parseLong(params.get("to")), now);
+		} catch (NumberFormatException e) {
+			return "{\"s\":\"no_data\"}";
+		}
+		if (s == null || interval == null || to < from) {
+			return "{\"s\":\"no_data\"}";
+		}
+
+		// align the first candle to the interval and skip the oldest candles if there are too many
+		long len = interval.inSeconds();
+		long first = (from + len - 1) / len * len;
+		long n = (to - first) / len + 1;
+		if (n > config.getMaxCandles()) {
+			first += (n - config.getMaxCandles()) * len;
+			n = config.getMaxCandles();
+		}
+		if (n <= 0) {
+			return "{\"s\":\"no_data\"}";
+		}
+
+		StringBuilder c = new StringBuilder("\"c\":[");
+		StringBuilder h = new StringBuilder("\"h\":[");
+		StringBuilder l = new StringBuilder("\"l\":[");
+		StringBuilder o = new StringBuilder("\"o\":[");
+		StringBuilder t = new StringBuilder("\"t\":[");
+		StringBuilder v = new StringBuilder("\"v\":[");
+		for (long i = 0; i < n; i++) {
+			Candle candle = s.candle(first + i * len, len, now);
+			String sep = (i == 0 ? "" : ",");
+			c.append(sep).append(candle.close);
+			h.append(sep).append(candle.high);
+			l.append(sep).append(candle.low);
+			o.append(sep).append(candle.open);
+			t.append(sep).append(candle.time);
+			v.append(sep).append((long) candle.volume);
+		}
+		return new StringBuilder("{").append(c).append("],").append(h).append("],").append(l).append("],")
+				.append(o).append("],\"s\":\"ok\",").append(t).append("],").append(v).append("]}").toString();
+	}
+
+	/**
+	 * Answer a quote request.
+	 * @param params the query parameters
+	 * @return the answer as a single-line JSON string
+	 */
+	private String quote(HashMap<String, String> params) {
+		SimulatedSymbol s = simulator.getSymbol(params.get("symbol"));
+		if (s == null) { // finnhub answers with zeros for unknown symbols
+			return "{\"c\":0,\"h\":0,\"l\":0,\"o\":0,\"pc\":0,\"t\":0}";
+		}
+		long now = Instant.now().getEpochSecond();
+		long day = EChartInterval.I1DAY.inSeconds();
+		long startOfDay = now / day * day;
+		Candle today = s.candle(startOfDay, day, now);
+		double previousClose = s.priceAt(startOfDay - 1L);
+		return new StringBuilder("{\"c\":").append(s.priceAt(now)).append(",\"h\":").append(today.high)
+				.append(",\"l\":").append(today.low).append(",\"o\":").append(today.open).append(",\"pc\":")
+				.append(previousClose).append(",\"t\":").append(now).append("}").toString();
+	}
+
+	/**
+	 * Answer a search request.
+	 * @param params the query parameters
+	 * @return the answer as a single-line JSON string
+	 */
+	private String search(HashMap<String, String> params) {
+		String q = params.getOrDefault("q", "").toLowerCase();
+		StringBuilder result = new StringBuilder();
+		int count = 0;
+		for (SimulatedSymbol s : simulator.getSymbols()) {
+			if (s.getSymbol().toLowerCase().contains(q) || s.getDescription().toLowerCase().contains(q)) {
+				result.append(count == 0 ? "" : ",").append("{\"description\":\"").append(s.getDescription())
+						.append("\",\"displaySymbol\":\"").append(s.getSymbol()).append("\",\"symbol\":\"")
+						.append(s.getSymbol()).append("\",\"type\":\"Common Stock\"}");
+				if (++count >= MAX_SEARCH_RESULTS) {
+					break;
+				}
+			}
+		}
+		return new StringBuilder("{\"count\":").append(count).append(",\"result\":[").append(result).append("]}")
+				.toString();
+	}
+
+	/**
+	 * Find the interval which belongs to the given resolution string of a pull request.
+	 * @param resolution the resolution string (like "1", "60", "D")
+	 * @return the matching interval, or null if there is none
+	 */
+	private EChartInterval intervalFromPullString(String resolution) {
+		for (EChartInterval i : EChartInterval.values()) {
+			if (i.toPullString().equals(resolution)) {
+				return i;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Parse the query string of a request into a map of parameters.
+	 * @param query the raw query string (may be null)
+	 * @return a map from parameter names to (decoded) values
+	 */
+	private HashMap<String, String> parseQuery(String query) {
+		HashMap<String, String> params = new HashMap<String, String>();
+		if (query != null) {
+			for (String pair : query.split("&")) {
+				int idx = pair.indexOf('=');
+				if (idx > 0) {
+					params.put(pair.substring(0, idx), URLDecoder.decode(pair.substring(idx + 1), StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * Send an answer.
+	 * @param exchange the exchange to answer
+	 * @param code the HTTP status code
+	 * @param body the body of the answer
+	 * @throws IOException
+	 */
+	private void reply(HttpExchange exchange, int code, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(code, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package stocker.simulator;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Serves the push API of the {@link MarketSimulator}. Clients subscribe and unsubscribe symbols with the same
+ * messages as at finnhub.io (<code>{"type":"subscribe","symbol":"..."}</code>) and receive trade messages for their
+ * subscribed symbols, plus a ping from time to time.
+ *
+ * @author Marc S. Schneider
+ */
+public class SimulatorPushServer extends WebSocketServer {
+
+	private MarketSimulator simulator;
+	private MarketSimulatorConfig config;
+	/**
+	 * The subscribed symbols for each connection
+	 */
+	private ConcurrentHashMap<WebSocket, Set<String>> subscriptions = new ConcurrentHashMap<WebSocket, Set<String>>();
+
+	/**
+	 * Construct a new SimulatorPushServer (which still needs to be started).
+	 * @param simulator the simulator which provides the symbols and the prices
+	 * @param config the configuration of the simulator
+	 */
+	public SimulatorPushServer(MarketSimulator simulator, MarketSimulatorConfig config) {
+		super(new InetSocketAddress(config.getPushPort()));
+		this.simulator = simulator;
+		this.config = config;
+		setReuseAddr(true);
+	}
+
+	/**
+	 * Accept a new connection if its token is valid, close it otherwise.
+	 */
+	@Override
+	public void onOpen(WebSocket conn, ClientHandshake handshake) {
+		String resource = handshake.getResourceDescriptor();
+		if (!config.getToken().isEmpty() && (resource == null || !resource.contains("token=" + config.getToken()))) {
+			conn.close(1008, "Invalid API key");
+			return;
+		}
+		subscriptions.put(conn, ConcurrentHashMap.<String>newKeySet());
+	}
+
+	/**
+	 * Forget all subscriptions of a closed connection.
+	 */
+	@Override
+	public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+		subscriptions.remove(conn);
+	}
+
+	/**
+	 * Process subscribe and unsubscribe messages; unknown symbols and malformed messages are silently ignored.
+	 */
+	@Override
+	public void onMessage(WebSocket conn, String message) {
+		Set<String> symbols = subscriptions.get(conn);
+		if (symbols == null) {
+			return;
+		}
+		try {
+			JsonObject jo = JsonParser.parseString(message).getAsJsonObject();
+			String type = jo.get("type").getAsString();
+			String symbol = jo.get("symbol").getAsString();
+			if (type.equals("subscribe") && simulator.getSymbol(symbol) != null) {
+				symbols.add(symbol);
+			}
+			else if (type.equals("unsubscribe")) {
+				symbols.remove(symbol);
+			}
+		} catch (Exception e) { } // just like the real thing: no answer on garbage
+	}
+
+	/**
+	 * Errors of single connections are of no interest for the simulation.
+	 */
+	@Override
+	public void onError(WebSocket conn, Exception ex) { }
+
+	/**
+	 * Nothing to do on start.
+	 */
+	@Override
+	public void onStart() { }
+
+	/**
+	 * Get the number of subscriptions over all connections.
+	 * @return the total number of subscriptions
+	 */
+	public int getSubscriptionCount() {
+		int count = 0;
+		for (Set<String> symbols : subscriptions.values()) {
+			count += symbols.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Create the trade messages for all subscriptions at the given time and send them (delayed by the configured
+	 * latency, if any). Each message contains one trade, as the client evaluates only the first trade of a message.
+	 * @param timeMillis the unix timestamp in milliseconds for which trades should be created
+	 * @param ticks the number of trades per subscribed symbol, spread evenly over the following tick period
+	 * @param periodMillis the tick period in milliseconds
+	 */
+	public void pushTicks(long timeMillis, int ticks, double periodMillis) {
+		for (Map.Entry<WebSocket, Set<String>> entry : subscriptions.entrySet()) {
+			ArrayList<String> frames = new ArrayList<String>(entry.getValue().size() * ticks);
+			for (String symbol : entry.getValue()) {
+				SimulatedSymbol s = simulator.getSymbol(symbol);
+				for (int k = 0; k < ticks; k++) {
+					long t = timeMillis + (long) (k * periodMillis / ticks);
+					frames.add(tradeMessage(s, t));
+				}
+			}
+			if (!frames.isEmpty()) {
+				simulator.sendDelayed(entry.getKey(), frames);
+			}
+		}
+	}
+
+	/**
+	 * Send a ping message to all connections.
+	 */
+	public void pushPing() {
+		for (WebSocket conn : subscriptions.keySet()) {
+			send(conn, "{\"type\":\"ping\"}");
+		}
+	}
+
+	/**
+	 * Send a message to a connection, ignoring connections which have been closed in the mean time.
+	 * @param conn the connection
+	 * @param message the message
+	 * @return true if the message has been sent, false otherwise
+	 */
+	boolean send(WebSocket conn, String message) { // default visibility, used by MarketSimulator
+		try {
+			conn.send(message);
+			return true;
+		} catch (Exception e) { // connection has been closed in the mean time
+			return false;
+		}
+	}
+
+	/**
+	 * Build a trade message for the given symbol and time (malformed at the configured push error rate).
+	 * @param s the symbol
+	 * @param timeMillis the unix timestamp in milliseconds
+	 * @return the trade message
+	 */
+	private String tradeMessage(SimulatedSymbol s, long timeMillis) {
+		double t = timeMillis / 1000.0;
+		String msg = new StringBuilder("{\"data\":[{\"c\":null,\"p\":").append(s.priceAt(t)).append(",\"s\":\"")
+				.append(s.getSymbol()).append("\",\"t\":").append(timeMillis).append(",\"v\":")
+				.append(s.tradeVolumeAt(t)).append("}],\"type\":\"trade\"}").toString();
+		if (config.getPushErrorRate() > 0.0 && ThreadLocalRandom.current().nextDouble() < config.getPushErrorRate()) {
+			msg = msg.substring(0, msg.length() / 2); // cut off: invalid JSON
+		}
+		return msg;
+	}
+}
@@ -0,0 +1,79 @@
+package stocker.util;
+
+import java.util.Collection;
+
+/**
+ * Provides the {@link IArrayKernels}: the vector kernels (see {@code VectorKernels} in the source folder
+ * {@code src-vector}) if they have been compiled in and the module {@code jdk.incubator.vector} is available at
+ * runtime ({@code --add-modules jdk.incubator.vector}, JDK 17 and later), otherwise the scalar kernels. The scalar
+ * kernels can be enforced with the system property {@code stocker.kernels=scalar}.
+ *
+ * @author Marc S. Schneider
+ */
+public final class ArrayKernels {
+
+	private static final StockerLogger log = StockerLogger.getLogger(ArrayKernels.class);
+	private static final String VECTOR_CLASS = "stocker.util.VectorKernels";
+
+	private static final IArrayKernels scalar = new ScalarKernels();
+	private static final IArrayKernels vector = loadVectorKernels();
+	private static final IArrayKernels kernels = (vector == null
+			|| "scalar".equalsIgnoreCase(System.getProperty("stocker.kernels")) ? scalar : vector);
+
+	private ArrayKernels() {
+		// private constructor in order to prevent instantiation
+	}
+
+	/**
+	 * Get the kernels to be used.
+	 * @return the vector kernels if they are available, the scalar kernels otherwise
+	 */
+	public static IArrayKernels get() {
+		return kernels;
+	}
+
+	/**
+	 * Get the scalar kernels.
+	 * @return the scalar kernels
+	 */
+	public static IArrayKernels scalar() {
+		return scalar;
+	}
+
+	/**
+	 * Get the vector kernels.
+	 * @return the vector kernels, or null if they are not available
+	 */
+	public static IArrayKernels vector() {
+		return vector;
+	}
+
+	/**
+	 * Copy the close prices of the given candles into an array.
+	 * @param candles the candles
+	 * @return the close prices, in the order of the candles
+	 */
+	public static double[] closes(Collection<Candle> candles) {
+		double[] closes = new double[candles.size()];
+		int i = 0;
+		for (Candle c : candles) {
+			closes[i++] = c.close;
+		}
+		return closes;
+	}
+
+	// helper function: the vector kernels, or null if they have not been compiled in or cannot be linked
+	private static IArrayKernels loadVectorKernels() {
+		try {
+			IArrayKernels k = (IArrayKernels) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+			log.info("Array kernels: {}", k);
+			return k;
+		} catch (ClassNotFoundException e) {
+			log.debug("Array kernels: scalar (vector kernels not compiled in)");
+		} catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+			// e.g. NoClassDefFoundError if jdk.incubator.vector has not been added
+			log.info("Array kernels: scalar (vector kernels not available: {})", e.toString());
+		}
+		return null;
+	}
+}
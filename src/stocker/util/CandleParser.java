@@ -3,6 +3,7 @@ package stocker.util;
 import java.util.LinkedList;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 /**
@@ -12,12 +13,15 @@ import com.google.gson.JsonObject;
  */
 public final class CandleParser {
 
+	private static final StockerLogger log = StockerLogger.getLogger(CandleParser.class);
+
 	private CandleParser() {
 		// private constructor in order to prevent instantiation
 	}
 
 	/**
-	 * Parse a LinkedList of candles from the given JsonObject.
+	 * Parse a LinkedList of candles from the given JsonObject. The volumes are optional: Some (e.g. forex) exchanges 
+	 * don't report them, then the volume of the candles is 0.
 	 * @param jo the JsonObject to parse from
 	 * @return a LinkedList containing the parsed candles
 	 */
@@ -27,13 +31,12 @@ public final class CandleParser {
 		double[] oarr = parseDoubleArrayFromJsonObject(jo, "o");
 		double[] carr = parseDoubleArrayFromJsonObject(jo, "c");
 		long[] tarr = parseLongArrayFromJsonObject(jo, "t");
-	 	//long[] varr = parseLongArrayFromJsonObject(jo, "v"); // problems with some (forex) exchanges which don't report that (and we don't use it anyway)
-
 		int nCandles = tarr.length;
+		double[] varr = parseOptionalDoubleArrayFromJsonObject(jo, "v", nCandles);
 		LinkedList<Candle> candles = new LinkedList<Candle>();
 
 		for (int i = 0; i < nCandles; i++) {
-			candles.add(new Candle(tarr[i], larr[i], harr[i], oarr[i], carr[i], 0));
+			candles.add(new Candle(tarr[i], larr[i], harr[i], oarr[i], carr[i], varr[i]));
 		}
 
 		return candles;
@@ -83,7 +86,26 @@ public final class CandleParser {
 				arr[i] = jarr.get(i).getAsDouble();
 			}
 		} catch (Exception e) {
-			System.err.println("Error: Got exception " + e.getClass() + " while trying to parse json content");
+			log.warn("Got exception {} while trying to parse json content", e.getClass().getName());
+		}
+		return arr;
+	}
+
+	// like parseDoubleArrayFromJsonObject, but for a property which may be missing or incomplete (then 0.0 is used)
+	private static double[] parseOptionalDoubleArrayFromJsonObject(JsonObject jo, String name, int size) {
+		double[] arr = new double[size];
+		JsonElement je = jo.get(name);
+		if (je == null || !je.isJsonArray()) {
+			return arr;
+		}
+		JsonArray jarr = je.getAsJsonArray();
+		for (int i = 0; i < size && i < jarr.size(); i++) {
+			JsonElement v = jarr.get(i);
+			try {
+				arr[i] = (v.isJsonNull() ? 0.0 : v.getAsDouble());
+			} catch (Exception e) { // e.g. a string which is not a number
+				arr[i] = 0.0;
+			}
 		}
 		return arr;
 	}
@@ -97,7 +119,7 @@ public final class CandleParser {
 				arr[i] = jarr.get(i).getAsLong();
 			}
 		} catch (Exception e) {
-			System.err.println("Error: Got exception " + e.getClass() + " while trying to parse json content");
+			log.warn("Got exception {} while trying to parse json content", e.getClass().getName());
 		}
 		return arr;
 	}
@@ -0,0 +1,53 @@
+package stocker.util;
+
+/**
+ * Defines the conditions of conditional alarms (see {@link stocker.model.ConditionAlarm}). Each condition is
+ * parametrized by a number of candles n and a threshold x, whose meaning depends on the condition.
+ *
+ * @author Marc S. Schneider
+ */
+public enum EAlarmCondition {
+	CROSSES_SMA("Kurs kreuzt GD(n)", "-"),
+	LEAVES_BOLLINGER("Kurs verlässt BB(n, n, x)", "Breite x"),
+	CHANGE_PERCENT("Änderung ggü. Vorkerze ≥ x %", "x [%]"),
+	VOLUME_SPIKE("Volumen ≥ x · Mittel(n)", "Faktor x");
+
+	private String repstring;
+	private String thresholdName;
+
+	/**
+	 * Private constructor.
+	 * @param repstring the string which is to be used for representation of this condition to the user
+	 * @param thresholdName the name of the threshold parameter x for this condition ("-" if it is not used)
+	 */
+	private EAlarmCondition(String repstring, String thresholdName) {
+		this.repstring = repstring;
+		this.thresholdName = thresholdName;
+	}
+
+	/**
+	 * Get a human-readable string describing this condition, suitable for direct display to the user.
+	 * @return a human-readable string describing this condition
+	 */
+	@Override
+	public String toString() {
+		return repstring;
+	}
+
+	/**
+	 * Get the String which Object.toString() returns. Useful e.g. for serialization or for use with
+	 * {@link #valueOf(String)}.
+	 * @return the result of Object's toString() method
+	 */
+	public String toObjectString() {
+		return super.toString();
+	}
+
+	/**
+	 * Get a human-readable name of the threshold parameter x of this condition.
+	 * @return the name of the threshold parameter, or "-" if this condition does not use it
+	 */
+	public String getThresholdName() {
+		return thresholdName;
+	}
+}
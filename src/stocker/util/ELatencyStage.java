@@ -0,0 +1,52 @@
+package stocker.util;
+
+/**
+ * Defines the stages of a pushed trade on its way from the websocket frame to the screen, as measured by
+ * {@link stocker.metrics.LatencyMonitor}. Except for {@link #RECEIVE}, all stages are measured from the moment
+ * the frame has been received, so the latency of a stage includes all stages before it.
+ *
+ * @author Marc S. Schneider
+ */
+public enum ELatencyStage {
+	/**
+	 * Age of the trade when its frame is received (trade timestamp of the data provider until
+	 * {@link stocker.control.WSPushClient#onMessage(String)}); only meaningful if the clocks are in sync, e.g. with
+	 * the embedded simulator
+	 */
+	RECEIVE("Empfang"),
+	/**
+	 * Frame received until the message has been parsed
+	 */
+	DECODE("Dekodierung"),
+	/**
+	 * Frame received until the message has been handed to all listeners (including their synchronous work)
+	 */
+	DISPATCH("Verteilung"),
+	/**
+	 * Frame received until a listener's model (watchlist row or chart candle) has been updated
+	 */
+	MODEL_UPDATE("Modell"),
+	/**
+	 * Frame received until the update has been rendered on the event dispatch thread
+	 */
+	RENDER("Darstellung");
+
+	private String repstring; // the string for representation e.g. in the diagnostics dialog
+
+	/**
+	 * Private constructor.
+	 * @param repstring the string which is to be used for representation of this stage to the user
+	 */
+	private ELatencyStage(String repstring) {
+		this.repstring = repstring;
+	}
+
+	/**
+	 * Get a human-readable string describing this stage, suitable for direct display to the user.
+	 * @return a human-readable string describing this stage
+	 */
+	@Override
+	public String toString() {
+		return repstring;
+	}
+}
@@ -0,0 +1,27 @@
+package stocker.util;
+
+/**
+ * Defines the levels of log messages for the {@link StockerLogger}, from the most verbose to the most severe.
+ *
+ * @author Marc S. Schneider
+ */
+public enum ELogLevel {
+	DEBUG, INFO, WARN, ERROR, OFF;
+
+	/**
+	 * Find the level with the given name, ignoring case.
+	 * @param name the name of the level (e.g. "debug")
+	 * @param defaultLevel the level to be returned if the name is null or unknown
+	 * @return the matching level, or defaultLevel if there is none
+	 */
+	public static ELogLevel fromString(String name, ELogLevel defaultLevel) {
+		if (name != null) {
+			for (ELogLevel l : values()) {
+				if (l.name().equalsIgnoreCase(name.trim())) {
+					return l;
+				}
+			}
+		}
+		return defaultLevel;
+	}
+}
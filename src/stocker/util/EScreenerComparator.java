@@ -0,0 +1,58 @@
+package stocker.util;
+
+/**
+ * Defines the comparisons of the criteria of a screener (see {@link stocker.model.ScreenerQuery}).
+ *
+ * @author Marc S. Schneider
+ */
+public enum EScreenerComparator {
+	// the two-character comparators first, so that they are found before their prefixes when parsing
+	LESS_EQUAL("<="), GREATER_EQUAL(">="), LESS("<"), GREATER(">");
+
+	private String repstring; // the symbol of the comparison, as it is entered and shown
+
+	/**
+	 * Private constructor.
+	 * @param repstring the symbol of the comparison
+	 */
+	private EScreenerComparator(String repstring) {
+		this.repstring = repstring;
+	}
+
+	/**
+	 * Compare two values.
+	 * @param left the left value
+	 * @param right the right value
+	 * @return true if the comparison holds, false otherwise (always false if one of the values is NaN)
+	 */
+	public boolean test(double left, double right) {
+		switch (this) {
+		case LESS_EQUAL:
+			return left <= right;
+		case GREATER_EQUAL:
+			return left >= right;
+		case LESS:
+			return left < right;
+		default:
+			return left > right;
+		}
+	}
+
+	/**
+	 * Get the symbol of this comparison, e.g. "&lt;=".
+	 * @return the symbol of this comparison
+	 */
+	@Override
+	public String toString() {
+		return repstring;
+	}
+
+	/**
+	 * Get the String which Object.toString() returns. Useful e.g. for serialization or for use with
+	 * {@link #valueOf(String)}.
+	 * @return the result of Object's toString() method
+	 */
+	public String toObjectString() {
+		return super.toString();
+	}
+}
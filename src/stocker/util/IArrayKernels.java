@@ -0,0 +1,65 @@
+package stocker.util;
+
+/**
+ * Kernels for batch computations over primitive arrays of candle values (e.g. the close prices of a long history),
+ * as they are needed for the full calculation of indicators and for the scaling of charts. Get an implementation
+ * from {@link ArrayKernels#get()}.
+ * <p>
+ * The rolling windows are calculated in one pass over the values (each window from the previous one), so their cost
+ * does not depend on the length of the window. All implementations share that code and return identical values;
+ * the values equal those of the incremental calculation of the indicators up to rounding.
+ *
+ * @author Marc S. Schneider
+ */
+public interface IArrayKernels {
+
+	/**
+	 * Calculate the sums over a rolling window: out[i] = x[i] + x[i-1] + ... + x[i-n+1], for all i &gt;= n-1. The
+	 * first n-1 values of out are not changed.
+	 * @param x the values
+	 * @param n the length of the window (at least 1)
+	 * @param out the array for the sums (at least as long as x)
+	 */
+	void rollingSum(double[] x, int n, double[] out);
+
+	/**
+	 * Calculate the variances over a rolling window around the given means: out[i] = ((x[i] - mean[i])^2 + ... +
+	 * (x[i-n+1] - mean[i])^2) / n, for all i &gt;= n-1. The means may be taken over another
+	 * window than n (as for the Bollinger Bands). The first n-1 values of out are not changed.
+	 * @param x the values
+	 * @param n the length of the window (at least 1)
+	 * @param mean the means (at least as long as x)
+	 * @param out the array for the variances (at least as long as x)
+	 */
+	void rollingVariance(double[] x, int n, double[] mean, double[] out);
+
+	/**
+	 * Get the minimum of a range of values (as by {@link Math#min(double, double)}).
+	 * @param x the values
+	 * @param from the index of the first value
+	 * @param to the index after the last value
+	 * @return the minimum, or positive infinity if the range is empty
+	 */
+	double min(double[] x, int from, int to);
+
+	/**
+	 * Get the maximum of a range of values (as by {@link Math#max(double, double)}).
+	 * @param x the values
+	 * @param from the index of the first value
+	 * @param to the index after the last value
+	 * @return the maximum, or negative infinity if the range is empty
+	 */
+	double max(double[] x, int from, int to);
+
+	/**
+	 * Scale a range of values linearly to integer coordinates: out[i] = (int) (ref * (x[i] - offset) / range).
+	 * @param x the values
+	 * @param from the index of the first value
+	 * @param to the index after the last value
+	 * @param offset the value which is scaled to 0
+	 * @param ref the length of the reference system (e.g. the height of a panel)
+	 * @param range the range of values which is scaled to ref
+	 * @param out the array for the scaled values (at the same indices as in x)
+	 */
+	void scale(double[] x, int from, int to, double offset, double ref, double range, int[] out);
+}
@@ -0,0 +1,157 @@
+package stocker.util;
+
+/**
+ * The plain Java implementation of the {@link IArrayKernels}, which is used if the vector kernels are not available
+ * (see {@link ArrayKernels}).
+ *
+ * @author Marc S. Schneider
+ */
+final class ScalarKernels implements IArrayKernels {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void rollingSum(double[] x, int n, double[] out) {
+		runningSum(x, n, out);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void rollingVariance(double[] x, int n, double[] mean, double[] out) {
+		runningVariance(x, n, mean, out);
+	}
+
+	/**
+	 * Calculate the sums over a rolling window in one pass (see {@link IArrayKernels#rollingSum(double[], int,
+	 * double[])}): the value entering the window is added to a running sum and the value leaving it is subtracted,
+	 * both with compensation of the rounding error (Neumaier), so the error does not grow with the number of values.
+	 * Also used by the vector kernels, as each sum depends on the previous one.
+	 * @param x the values
+	 * @param n the length of the window (at least 1)
+	 * @param out the array for the sums (at least as long as x)
+	 */
+	static void runningSum(double[] x, int n, double[] out) {
+		double sum = 0.0;
+		double c = 0.0; // the compensation: the low-order bits lost from sum
+		for (int i = 0; i < x.length; i++) {
+			double v = x[i];
+			double t = sum + v;
+			c += (Math.abs(sum) >= Math.abs(v) ? (sum - t) + v : (v - t) + sum);
+			sum = t;
+			if (i >= n) {
+				v = -x[i - n];
+				t = sum + v;
+				c += (Math.abs(sum) >= Math.abs(v) ? (sum - t) + v : (v - t) + sum);
+				sum = t;
+			}
+			if (i >= n - 1) {
+				out[i] = sum + c;
+			}
+		}
+	}
+
+	/**
+	 * Calculate the variances over a rolling window in one pass (see {@link IArrayKernels#rollingVariance(double[],
+	 * int, double[], double[])}): the sum of the squared deviations from the window's own mean is updated when the
+	 * window slides (Welford), and the deviation of the given mean from the window's mean is added (the sum of
+	 * squares around a mean u is the sum around the window's mean a plus n * (a - u)^2). Both avoid the cancellation
+	 * of a sum of squares minus a squared sum; the sum around the window's mean is recalculated once per window length,
+	 * so its rounding errors do not accumulate. Also used by the vector kernels.
+	 * @param x the values
+	 * @param n the length of the window (at least 1)
+	 * @param mean the means (at least as long as x)
+	 * @param out the array for the variances (at least as long as x)
+	 */
+	static void runningVariance(double[] x, int n, double[] mean, double[] out) {
+		if (x.length < n) {
+			return;
+		}
+		runningSum(x, n, out); // the window means first, then replaced by the variances
+		double a = out[n - 1] / n;
+		double m2 = 0.0;       // the sum of the squared deviations from a
+		for (int k = 0; k < n; k++) {
+			double d = x[k] - a;
+			m2 += d * d;
+		}
+		for (int i = n - 1; i < x.length; i++) {
+			if (i >= n && (i + 1) % n != 0) {
+				double aNew = out[i] / n;
+				m2 += (x[i] - x[i - n]) * (x[i] - aNew + x[i - n] - a);
+				m2 = Math.max(m2, 0.0); // against rounding below 0 for (almost) constant values
+				a = aNew;
+			}
+			else if (i >= n) { // once per window length: start over, so rounding errors (e.g. after a price jump)
+				a = out[i] / n;   // do not persist, at the cost of a second pass
+				m2 = 0.0;
+				for (int k = i - n + 1; k <= i; k++) {
+					double d = x[k] - a;
+					m2 += d * d;
+				}
+			}
+			double d = a - mean[i];
+			out[i] = (m2 + n * d * d) / n;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double min(double[] x, int from, int to) {
+		double min = Double.POSITIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			min = Math.min(min, x[i]);
+		}
+		return min;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double max(double[] x, int from, int to) {
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			max = Math.max(max, x[i]);
+		}
+		return max;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void scale(double[] x, int from, int to, double offset, double ref, double range, int[] out) {
+		scaleLinearly(x, from, to, offset, ref, range, out);
+	}
+
+	/**
+	 * Scale a range of values (see {@link IArrayKernels#scale(double[], int, int, double, double, double, int[])}).
+	 * Also used by the vector kernels: the conversion of double to int lanes (D2I) is not compiled to SIMD
+	 * instructions by the JDK yet, which makes a vectorized version several times slower, whereas the JIT compiler
+	 * vectorizes this simple loop itself.
+	 * @param x the values
+	 * @param from the index of the first value
+	 * @param to the index after the last value
+	 * @param offset the value which is scaled to 0
+	 * @param ref the length of the reference system (e.g. the height of a panel)
+	 * @param range the range of values which is scaled to ref
+	 * @param out the array for the scaled values (at the same indices as in x)
+	 */
+	static void scaleLinearly(double[] x, int from, int to, double offset, double ref, double range, int[] out) {
+		for (int i = from; i < to; i++) {
+			out[i] = (int) (ref * (x[i] - offset) / range);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return "scalar";
+	}
+}
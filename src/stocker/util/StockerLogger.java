@@ -0,0 +1,373 @@
+package stocker.util;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small logging facade with levels, lazy message construction and an asynchronous appender. Messages are
+ * patterns with <code>{}</code> placeholders which are only formatted if the level is enabled, and only on the
+ * appender thread; the calling thread merely puts the pattern and its arguments into a bounded queue (if the
+ * queue is full, the message is dropped and counted, so logging never blocks the push or network threads).
+ * A message whose last argument is a Throwable gets the Throwable's class and message appended.
+ * <p>
+ * The level is set with the system property {@value #LEVEL_PROPERTY} (DEBUG, INFO, WARN, ERROR or OFF; default
+ * INFO), or at runtime with {@link #setLevel(ELogLevel)}. WARN and ERROR go to System.err, everything else to
+ * System.out.
+ *
+ * @author Marc S. Schneider
+ */
+public final class StockerLogger {
+
+	/**
+	 * The name of the system property which sets the initial log level
+	 */
+	public static final String LEVEL_PROPERTY = "stocker.log.level";
+
+	private static final int QUEUE_CAPACITY = 4096;
+	private static final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+	private static volatile ELogLevel level = ELogLevel.fromString(System.getProperty(LEVEL_PROPERTY), ELogLevel.INFO);
+	private static final ArrayBlockingQueue<LogRecord> queue = new ArrayBlockingQueue<LogRecord>(QUEUE_CAPACITY);
+	private static final AtomicLong dropped = new AtomicLong();
+	private static final AtomicLong pending = new AtomicLong(); // queued or being written
+
+	static {
+		startAppender();
+	}
+
+	private final String name;
+
+	/**
+	 * Private constructor; loggers are obtained with {@link #getLogger(Class)}.
+	 * @param name the name of the logger (shown in every message)
+	 */
+	private StockerLogger(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Get a logger for the given class.
+	 * @param c the class which logs
+	 * @return a logger named after the class
+	 */
+	public static StockerLogger getLogger(Class<?> c) {
+		return new StockerLogger(c.getSimpleName());
+	}
+
+	/**
+	 * Set the level below which messages are discarded.
+	 * @param l the new level
+	 */
+	public static void setLevel(ELogLevel l) {
+		level = l;
+	}
+
+	/**
+	 * Get the level below which messages are discarded.
+	 * @return the current level
+	 */
+	public static ELogLevel getLevel() {
+		return level;
+	}
+
+	/**
+	 * Get the number of messages which have been dropped because the queue was full.
+	 * @return the number of dropped messages
+	 */
+	public static long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Write all queued messages, waiting at most the given time (e.g. before the application exits).
+	 * @param timeoutMillis the maximum time to wait in milliseconds
+	 */
+	public static void flush(long timeoutMillis) {
+		long end = System.currentTimeMillis() + timeoutMillis;
+		while (pending.get() > 0L && System.currentTimeMillis() < end) {
+			try {
+				Thread.sleep(5L);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Check whether messages of the given level are written.
+	 * @param l the level
+	 * @return true if messages of this level are written, false otherwise
+	 */
+	public boolean isEnabled(ELogLevel l) {
+		return l != ELogLevel.OFF && l.compareTo(level) >= 0;
+	}
+
+	/**
+	 * Check whether debug messages are written.
+	 * @return true if debug messages are written, false otherwise
+	 */
+	public boolean isDebugEnabled() {
+		return isEnabled(ELogLevel.DEBUG);
+	}
+
+	////////////////////
+	// Logging methods (fixed-arity variants avoid the allocation of an argument array)
+	////////////////////
+	/**
+	 * Log a debug message.
+	 * @param msg the message
+	 */
+	public void debug(String msg) {
+		if (isEnabled(ELogLevel.DEBUG)) {
+			enqueue(ELogLevel.DEBUG, msg, null);
+		}
+	}
+
+	/**
+	 * Log a debug message with one argument.
+	 * @param pattern the message pattern with a <code>{}</code> placeholder
+	 * @param arg the argument
+	 */
+	public void debug(String pattern, Object arg) {
+		if (isEnabled(ELogLevel.DEBUG)) {
+			enqueue(ELogLevel.DEBUG, pattern, new Object[] { arg });
+		}
+	}
+
+	/**
+	 * Log a debug message with two arguments.
+	 * @param pattern the message pattern with <code>{}</code> placeholders
+	 * @param arg1 the first argument
+	 * @param arg2 the second argument
+	 */
+	public void debug(String pattern, Object arg1, Object arg2) {
+		if (isEnabled(ELogLevel.DEBUG)) {
+			enqueue(ELogLevel.DEBUG, pattern, new Object[] { arg1, arg2 });
+		}
+	}
+
+	/**
+	 * Log a debug message with an arbitrary number of arguments.
+	 * @param pattern the message pattern with <code>{}</code> placeholders
+	 * @param args the arguments
+	 */
+	public void debug(String pattern, Object... args) {
+		if (isEnabled(ELogLevel.DEBUG)) {
+			enqueue(ELogLevel.DEBUG, pattern, args);
+		}
+	}
+
+	/**
+	 * Log an info message.
+	 * @param msg the message
+	 */
+	public void info(String msg) {
+		if (isEnabled(ELogLevel.INFO)) {
+			enqueue(ELogLevel.INFO, msg, null);
+		}
+	}
+
+	/**
+	 * Log an info message with one argument.
+	 * @param pattern the message pattern with a <code>{}</code> placeholder
+	 * @param arg the argument
+	 */
+	public void info(String pattern, Object arg) {
+		if (isEnabled(ELogLevel.INFO)) {
+			enqueue(ELogLevel.INFO, pattern, new Object[] { arg });
+		}
+	}
+
+	/**
+	 * Log an info message with an arbitrary number of arguments.
+	 * @param pattern the message pattern with <code>{}</code> placeholders
+	 * @param args the arguments
+	 */
+	public void info(String pattern, Object... args) {
+		if (isEnabled(ELogLevel.INFO)) {
+			enqueue(ELogLevel.INFO, pattern, args);
+		}
+	}
+
+	/**
+	 * Log a warning.
+	 * @param msg the message
+	 */
+	public void warn(String msg) {
+		if (isEnabled(ELogLevel.WARN)) {
+			enqueue(ELogLevel.WARN, msg, null);
+		}
+	}
+
+	/**
+	 * Log a warning with one argument.
+	 * @param pattern the message pattern with a <code>{}</code> placeholder
+	 * @param arg the argument
+	 */
+	public void warn(String pattern, Object arg) {
+		if (isEnabled(ELogLevel.WARN)) {
+			enqueue(ELogLevel.WARN, pattern, new Object[] { arg });
+		}
+	}
+
+	/**
+	 * Log a warning with an arbitrary number of arguments.
+	 * @param pattern the message pattern with <code>{}</code> placeholders
+	 * @param args the arguments
+	 */
+	public void warn(String pattern, Object... args) {
+		if (isEnabled(ELogLevel.WARN)) {
+			enqueue(ELogLevel.WARN, pattern, args);
+		}
+	}
+
+	/**
+	 * Log an error.
+	 * @param msg the message
+	 */
+	public void error(String msg) {
+		if (isEnabled(ELogLevel.ERROR)) {
+			enqueue(ELogLevel.ERROR, msg, null);
+		}
+	}
+
+	/**
+	 * Log an error with one argument.
+	 * @param pattern the message pattern with a <code>{}</code> placeholder
+	 * @param arg the argument
+	 */
+	public void error(String pattern, Object arg) {
+		if (isEnabled(ELogLevel.ERROR)) {
+			enqueue(ELogLevel.ERROR, pattern, new Object[] { arg });
+		}
+	}
+
+	/**
+	 * Log an error with an arbitrary number of arguments.
+	 * @param pattern the message pattern with <code>{}</code> placeholders
+	 * @param args the arguments
+	 */
+	public void error(String pattern, Object... args) {
+		if (isEnabled(ELogLevel.ERROR)) {
+			enqueue(ELogLevel.ERROR, pattern, args);
+		}
+	}
+
+	////////////////////
+	// Asynchronous appender
+	////////////////////
+	/**
+	 * Put a message into the queue of the appender, or drop it if the queue is full.
+	 * @param l the level of the message
+	 * @param pattern the message pattern
+	 * @param args the arguments (may be null)
+	 */
+	private void enqueue(ELogLevel l, String pattern, Object[] args) {
+		pending.incrementAndGet();
+		if (!queue.offer(new LogRecord(System.currentTimeMillis(), l, name, Thread.currentThread().getName(), pattern, args))) {
+			pending.decrementAndGet();
+			dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Start the daemon thread which formats and writes the queued messages.
+	 */
+	private static void startAppender() {
+		Thread t = new Thread("StockerLogger appender") {
+			@Override
+			public void run() {
+				ArrayList<LogRecord> batch = new ArrayList<LogRecord>(64);
+				long reportedDropped = 0L;
+				while (true) {
+					try {
+						LogRecord first = queue.poll(1L, TimeUnit.SECONDS);
+						if (first == null) {
+							continue;
+						}
+						batch.add(first);
+						queue.drainTo(batch, 63);
+						for (LogRecord r : batch) {
+							PrintStream out = (r.level.compareTo(ELogLevel.WARN) >= 0 ? System.err : System.out);
+							out.println(r.format());
+						}
+						pending.addAndGet(-batch.size());
+						batch.clear();
+						long d = dropped.get();
+						if (d > reportedDropped) {
+							System.err.println("StockerLogger: " + (d - reportedDropped) + " messages dropped (queue full)");
+							reportedDropped = d;
+						}
+					} catch (InterruptedException e) {
+						return;
+					} catch (RuntimeException e) { // e.g. a failing toString() of an argument; never let the appender die
+						pending.addAndGet(-batch.size());
+						batch.clear();
+					}
+				}
+			}
+		};
+		t.setDaemon(true);
+		t.start();
+	}
+
+	/**
+	 * A queued log message, formatted only when it is written.
+	 */
+	private static class LogRecord {
+		private final long time;
+		private final ELogLevel level;
+		private final String logger;
+		private final String thread;
+		private final String pattern;
+		private final Object[] args;
+
+		/**
+		 * Construct a new LogRecord.
+		 * @param time the time of the message (System.currentTimeMillis())
+		 * @param level the level of the message
+		 * @param logger the name of the logger
+		 * @param thread the name of the logging thread
+		 * @param pattern the message pattern
+		 * @param args the arguments (may be null)
+		 */
+		private LogRecord(long time, ELogLevel level, String logger, String thread, String pattern, Object[] args) {
+			this.time = time;
+			this.level = level;
+			this.logger = logger;
+			this.thread = thread;
+			this.pattern = pattern;
+			this.args = args;
+		}
+
+		/**
+		 * Format this message, replacing the placeholders by the arguments.
+		 * @return the formatted message including time, level, thread and logger
+		 */
+		private String format() {
+			StringBuilder sb = new StringBuilder(64 + pattern.length());
+			sb.append(LocalTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault()).format(dtf));
+			sb.append(' ').append(level).append(" [").append(thread).append("] ").append(logger).append(": ");
+			int argIdx = 0;
+			int from = 0;
+			int n = (args == null ? 0 : args.length);
+			int pos;
+			while (argIdx < n && (pos = pattern.indexOf("{}", from)) >= 0) {
+				sb.append(pattern, from, pos).append(args[argIdx++]);
+				from = pos + 2;
+			}
+			sb.append(pattern, from, pattern.length());
+			if (n > 0 && args[n - 1] instanceof Throwable && argIdx < n) { // a Throwable which was no placeholder
+				Throwable t = (Throwable) args[n - 1];
+				sb.append(" (").append(t.getClass().getName()).append(": ").append(t.getMessage()).append(")");
+			}
+			return sb.toString();
+		}
+	}
+}
@@ -15,22 +15,33 @@ import java.awt.image.BufferedImage;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 
 import javax.swing.JPanel;
 
-import stocker.model.ChartAlarm;
+import stocker.metrics.LatencyMonitor;
 import stocker.model.ChartIndicator;
 import stocker.model.ChartWatchItem;
+import stocker.util.ArrayKernels;
 import stocker.util.Candle;
 import stocker.util.ECandleScheme;
 import stocker.util.EChartInterval;
 import stocker.util.EChartType;
+import stocker.util.ELatencyStage;
+import stocker.util.IArrayKernels;
 
 /**
  * A specialized JPanel to draw charts within the Stocker application.
+ * <p>
+ * The data and the scaling of the panel are confined to the {@link ChartWorker}: all methods which set data or
+ * settings, scale or render are to be called on the worker (or, for a panel without parent chart, on one thread of
+ * the owner's choice). Each change results in a new {@link Snapshot} (the rendered image and the scale needed for 
+ * hit tests), which is published atomically to the EDT; {@link #paintComponent(Graphics)} and the queries for mouse
+ * positions only copy and read the latest snapshot, so they never wait for calculations and never see data which is
+ * being modified.
  * 
  * @author Marc S. Schneider
  */
@@ -45,10 +56,13 @@ public class ChartPanel extends JPanel {
 	//     inversion of the y (vertical) axis
 
 	private static final long serialVersionUID = -1552462768763963452L;
+	// formatters used if there is no parent chart (e.g. in benchmarks); same format as in StockerChart
+	private static final DateTimeFormatter defaultDtfDate = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+	private static final DateTimeFormatter defaultDtfTime = DateTimeFormatter.ofPattern("HH:mm");
 	
 	// basic information and settings
 	private StockerChart parent;
-	private EChartType chartType;
+	private volatile EChartType chartType; // also read on the EDT
 	private ECandleScheme candleScheme;
 	private EChartInterval chartInterval;
 	private Color alarmColor;
@@ -60,6 +74,7 @@ public class ChartPanel extends JPanel {
 	private final int maxCandles = 100; // the maximum number of candles to be plotted
 	private final int decreaseFontSizeX = 800;
 	private final int decreaseFontSizeY = 600;
+	private int width, height;    // the size of the panel, as handed over to the worker (see updateSize())
 	private int vmargin, hmargin; // set later, dependent on reference size (xref, yref)
 	private int cw; // candle width, set later, dependent on reference size (xref)
 
@@ -74,7 +89,7 @@ public class ChartPanel extends JPanel {
 	private int[] xs, ysclose, ysopen, yshigh, yslow; // scaled x and y values
 	private int yslowmin, yshighmax; // scaled minimum and maximum values
 	private int xref = 0, yref = 0;  // reference values used for normalization of coordinates (will be set to panel height and width)
-	private int mouseposx = -1, mouseposy = -1;  // current mouse position
+	private int mouseposx = -1, mouseposy = -1;  // current mouse position (only used on the EDT)
 	private double xscale, yscale, yminmaxScale; // scale factors which make sure that the chart fits into the panel
 	private double yOffsetFactor = 0.0;          // shift everything by this times yref towards the top
 	private double[] xtickvalues, ytickvalues;  // values where the ticks at the axes sit
@@ -82,41 +97,54 @@ public class ChartPanel extends JPanel {
 	private double xspacing, yspacing;          // the spacing of the ticks and labels along the axes
 
 	// The indicator and alarm values to be drawn
+	private ArrayList<ChartIndicator> indicators = new ArrayList<ChartIndicator>(); // of the parent chart (a copy)
+	private String[] alarmNames = new String[0]; // names and values of the active alarms of the parent chart
+	private double[] alarmValues = new double[0];
 	private int[][] xsIndicators;     // scaled x coordinates of indicators 
 	private int[][] ysIndicators;     // scaled y coordinates of indicators
 	private String[] indicatorNames;  // the names of the indicators
 	private String[] indicatorTypes;  // the types of the indicators
 	private Color[] indicatorColors;  // the colors of the indicators
+	private ArrayList<IndicatorPane> panes = new ArrayList<IndicatorPane>(); // indicators in panes below the prices
+	private int paneHeight = 0;       // the height of each of these panes
 	private int[] ysAlarms;           // y values of the alarms (always a horizontal line)
-	private String[] alarmNames;      // names of the alarms
 
 	/**
 	 * Flag indicating whether grid lines will be drawn (default visibility).
 	 */
-	boolean drawFullGrid = true; // this and the following booleans: default visibility as these are set by the StockerChart
+	volatile boolean drawFullGrid = true; // this and the following booleans: default visibility as these are set by the StockerChart
 	/**
 	 * Flag indicating whether this panel has already been initialized (default visibility).
 	 */
-	boolean isInitialized = false;
+	volatile boolean isInitialized = false;
 	/**
 	 * Flag indicating if an error occured during initalization of this panel (default visibility).
 	 */
-	boolean initializeFailed = false;
+	volatile boolean initializeFailed = false;
 	/**
 	 * Flag indicating if an error due to missing privileges occured during initialization of this panel (default visibility).
 	 */
-	boolean notPrivilegedError = false;
+	volatile boolean notPrivilegedError = false;
 	
 	/**
-	 * An image which will be used as a buffer for drawing. It is redrawn after every data change.
+	 * The latest published snapshot, which contains the buffer image. The image is rendered after every data change.
 	 * When the panel is redrawn by {@link #paintComponent(Graphics)}, only this buffer image will be drawn.
 	 * This saves a lot of time when many charts are open, compared to redrawing all the content every time.
 	 */
-	private BufferedImage image;
+	private volatile Snapshot snapshot;
+	private long version = 0L;               // the version of the latest snapshot
+	private boolean isImageRequested = false; // a rendering task has been submitted to the worker, but not run yet
+	private long blittedVersion = 0L;        // the version of the snapshot which has been drawn last (on the EDT)
+	/**
+	 * Start time of the oldest pushed frame whose data has been set, but not yet rendered into a snapshot (0 if there
+	 * is none); used for latency measurement
+	 */
+	private long pendingFrame = 0L;
 
 	/**
 	 * Construct a new {@link ChartPanel} using the provided parameters.
-	 * @param parent the parent window (a {@link StockerChart}) of this panel
+	 * @param parent the parent window (a {@link StockerChart}) of this panel. May be null, then the panel will be drawn
+	 *        without indicators and alarms (which is only useful for standalone use, e.g. in benchmarks)
 	 * @param w the {@link ChartWatchItem} to be drawn on this panel. Can later be changed with {@link #setData(ChartWatchItem)}
 	 * @param chartType the {@link stocker.util.EChartType} of this chart. May be null, then the default chart type
 	 *        will be used. Can be changed later by using {@link #switchChartType(EChartType)}
@@ -132,7 +160,31 @@ public class ChartPanel extends JPanel {
 		addComponentListener(new ComponentAdapter() { // re-calculate reference values on every resize event
 			@Override
 			public void componentResized(ComponentEvent e) {
-				setSizeReferenceParameters();
+				updateSize();
+			}
+		});
+	}
+
+	/**
+	 * Hand the current size of the panel over to the worker, which re-calculates the reference values and renders
+	 * the image anew. To be called on the EDT whenever the size might have changed. Does nothing for a panel without
+	 * parent chart, which takes its size when data are set (see {@link #setData(ChartWatchItem, boolean)}).
+	 */
+	void updateSize() {
+		if (parent == null) {
+			return;
+		}
+		final int w = getWidth();
+		final int h = getHeight();
+		ChartWorker.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (w != width || h != height) {
+					width = w;
+					height = h;
+					setSizeReferenceParameters();
+					requestImage();
+				}
 			}
 		});
 	}
@@ -143,6 +195,17 @@ public class ChartPanel extends JPanel {
 	 * @param w the {@link ChartWatchItem} to be drawn on this panel
 	 */
 	public void setData(ChartWatchItem w) {
+		setData(w, true);
+	}
+
+	/**
+	 * Set this panel to show the data within the provided {@link ChartWatchItem}. 
+	 * Overrides the previously set data. The item and the indicators are only read during this call.
+	 * @param w the {@link ChartWatchItem} to be drawn on this panel
+	 * @param recalculateIndicators true if the indicators of the parent chart are to be recalculated completely from
+	 *        the candles of w; false if they are already up to date (e.g. because they have been updated incrementally)
+	 */
+	public void setData(ChartWatchItem w, boolean recalculateIndicators) {
 		// Fill the internal data structure based on the values from the ChartWatchItem
 		int nCandles = w.getCandles().size();
 		if (nCandles > 0) { // non-empty candle list in w
@@ -177,16 +240,18 @@ public class ChartPanel extends JPanel {
 			this.chartInterval = w.getInterval();
 			this.isInitialized = true;
 			// update the StockerChart's indicators now - otherwise we will run into trouble during setSizeReferenceParameters()
-			Iterator<ChartIndicator> indIt = parent.getChartIndicators().iterator();
-			while(indIt.hasNext()) { // recalculate all indicators
+			Iterator<ChartIndicator> indIt = indicators.iterator();
+			while(recalculateIndicators && indIt.hasNext()) { // recalculate all indicators
 				ChartIndicator ci = indIt.next();
 				ci.setCandles(w.getCandles());
 				ci.calculate();
 			}
+			if (parent == null) { // no worker which is told about the size, so take it now (see updateSize())
+				width = getWidth();
+				height = getHeight();
+			}
 			setSizeReferenceParameters(); // re-calculate reference sizes
-			paintImage();                 // redraw image based on the new data
-			repaint();
-			
+			requestImage();               // redraw image based on the new data
 		}
 		else { // candle list is empty
 			this.isInitialized = false;
@@ -207,8 +272,44 @@ public class ChartPanel extends JPanel {
 			ylow[N] = low;
 			yhigh[N] = high;
 			setSizeReferenceParameters();
-			paintImage();
-			repaint();
+			requestImage();
+		}
+	}
+
+	/**
+	 * Remove the data of this panel (e.g. because new data are being loaded), so that neither the last snapshot nor
+	 * snapshots which are still being rendered are shown any more.
+	 */
+	void clearData() {
+		this.isInitialized = false;
+		this.snapshot = null;
+		repaint();
+	}
+
+	/**
+	 * Set the indicators which are drawn on this panel (the indicators of the parent chart). The indicators need to be
+	 * calculated by the caller.
+	 * @param indicators the indicators; the list must not be modified any more by the caller
+	 */
+	void setIndicators(ArrayList<ChartIndicator> indicators) {
+		this.indicators = indicators;
+		if (isInitialized) {
+			setSizeReferenceParameters(); // the number of panes might have changed
+			requestImage();
+		}
+	}
+
+	/**
+	 * Set the alarms which are drawn on this panel (the active alarms of the parent chart).
+	 * @param names the names of the alarms
+	 * @param values the values of the alarms
+	 */
+	void setAlarms(String[] names, double[] values) {
+		this.alarmNames = names;
+		this.alarmValues = values;
+		if (isInitialized) {
+			calculateScaledAlarms();
+			requestImage();
 		}
 	}
 	
@@ -220,8 +321,7 @@ public class ChartPanel extends JPanel {
 		this.chartType = type;
 		calculateScaledValues();
 		calculateTickValues();
-		paintImage();
-		repaint();
+		requestImage();
 	}
 	
 	/**
@@ -280,18 +380,45 @@ public class ChartPanel extends JPanel {
 	}
 
 	/**
-	 * Paints the buffer image for this panel. This method needs to be called for a data change to become visible
-	 * (calling {@link #repaint()} or {@link #paintComponent(Graphics)} is not sufficient as this will only repaint 
-	 * the buffered image).
+	 * Request the buffer image to be painted anew (see {@link #paintImage()}). On the worker, the image is painted by a
+	 * task of its own, so that any number of changes which are handed over to the worker in the meantime result in
+	 * one image only. A panel without parent chart paints it right away.
+	 */
+	void requestImage() {
+		if (parent == null) {
+			paintImage();
+			return;
+		}
+		if (!isImageRequested) {
+			isImageRequested = true;
+			ChartWorker.execute(new Runnable() {
+				@Override
+				public void run() {
+					isImageRequested = false;
+					paintImage();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Paints the buffer image for this panel and publishes it with a new {@link Snapshot}, which is then drawn by 
+	 * {@link #paintComponent(Graphics)} (which does not paint anything else than copying the buffered image).
 	 * All actual painting is done here into the buffer image (except for the crosslines, which are drawn in 
 	 * {@link #paintComponent(Graphics)} on top of the image, and except for the loading / error messages which might 
 	 * already be required before the panel is initialized. 
-	 * This method requires the panel to be fully initialized (if it is not, it will do nothing).
+	 * This method requires the panel to be fully initialized and to have a size (if it is not, it will do nothing).
 	 */
 	public void paintImage() {
-		if (isInitialized) {
-			final GraphicsConfiguration gfxConf = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
-			image =  gfxConf.createCompatibleImage( getWidth(), getHeight());
+		if (isInitialized && width > 0 && height > 0) {
+			BufferedImage image;
+			if (GraphicsEnvironment.isHeadless()) { // no screen device available (e.g. in benchmarks)
+				image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			}
+			else {
+				final GraphicsConfiguration gfxConf = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+				image =  gfxConf.createCompatibleImage(width, height);
+			}
 			
 			Graphics2D gimg = image.createGraphics();
 			gimg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -310,7 +437,14 @@ public class ChartPanel extends JPanel {
 				drawDataCandles(gimg);
 			}
 			drawIndicators(gimg);
+			IndicatorPane.Scale[] paneScales = drawSubPanes(gimg);
 			drawAlarms(gimg);
+			gimg.dispose();
+
+			// publish the image (it is not modified any more) together with the scale it has been painted with
+			snapshot = new Snapshot(this, image, ++version, paneScales, pendingFrame);
+			pendingFrame = 0L;
+			repaint();
 		}
 	}
 	
@@ -325,14 +459,19 @@ public class ChartPanel extends JPanel {
 		Graphics2D g2D = (Graphics2D) g.create();
 		g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 		
-		if (isInitialized) {
-			g2D.drawImage(image, 0, 0, this);
+		Snapshot s = snapshot; // the same snapshot for everything drawn now
+		if (isInitialized && s != null) {
+			g2D.drawImage(s.image, 0, 0, this);
 			
-			if (parent.isSelected()) { // only in active window as this is quite expensive
-				drawCrosslines(g2D);
+			if (parent != null && parent.isSelected()) { // only in active window as this is quite expensive
+				drawCrosslines(g2D, s);
+			}
+			if (s.version != blittedVersion) { // drawn for the first time
+				blittedVersion = s.version;
+				LatencyMonitor.record(ELatencyStage.RENDER, s.frameStart);
 			}
 		}
-		else if (!isInitialized && xref > 0) { // if window is already shown (has a size) but data is not yet initialized
+		else if (getWidth() > 0) { // if window is already shown (has a size) but data is not yet initialized or rendered
 			g2D.setFont(new Font("Sans-Serif", Font.PLAIN, 18));
 			if (initializeFailed) {
 				if (notPrivilegedError) {
@@ -353,12 +492,22 @@ public class ChartPanel extends JPanel {
 	}
 
 	/**
-	 * Sets the reference width and height of this panel according to the size of the window, and 
-	 * triggers the re-calculation of all scales values (which are based to the reference size).
+	 * Sets the reference width and height of this panel according to the size of the panel (as handed over by 
+	 * {@link #updateSize()}), and triggers the re-calculation of all scales values (which are based to the 
+	 * reference size).
 	 */
 	public void setSizeReferenceParameters() {
-		this.xref = getSize().width;
-		this.yref = getSize().height;
+		this.xref = width;
+		// the prices get the upper part of the panel, each indicator with a pane of its own gets a part of the rest
+		int nPanes = 0;
+		for (ChartIndicator ci : indicators) {
+			if (ci.isActive() && !ci.isOverlay()) {
+				nPanes++;
+			}
+		}
+		this.paneHeight = (nPanes == 0 ? 0 : Math.min(Math.max(80, (int) (0.2 * height)), 
+				(int) (0.5 * height / nPanes)));
+		this.yref = height - nPanes * paneHeight;
 		
 		calculateScaledValues();
 		calculateTickValues();
@@ -394,18 +543,11 @@ public class ChartPanel extends JPanel {
 			tmax = time[nx - 1];
 	
 			// get minimum and maximum for the scaled y values
-			double[] ysorted = yclose.clone();
-			Arrays.sort(ysorted);
-			yclosemax = ysorted[ny - 1];
-			yclosemin = ysorted[0];
-	
-			ysorted = yhigh.clone();
-			Arrays.sort(ysorted);
-			yhighmax = ysorted[ny - 1];
-	
-			ysorted = ylow.clone();
-			Arrays.sort(ysorted);
-			ylowmin = ysorted[0];
+			IArrayKernels kernels = ArrayKernels.get();
+			yclosemax = kernels.max(yclose, 0, ny);
+			yclosemin = kernels.min(yclose, 0, ny);
+			yhighmax = kernels.max(yhigh, 0, ny);
+			ylowmin = kernels.min(ylow, 0, ny);
 	
 			// calculate scaled x values
 			for (int i = 0; i < nx; i++) {
@@ -413,12 +555,10 @@ public class ChartPanel extends JPanel {
 			}
 
 			// calculate scaled y values
-			for (int i = 0; i < ny; i++) {
-				ysclose[i] = (int) (yref * (yclose[i] - yclosemin) / (yclosemax - yclosemin));
-				ysopen[i]  = (int) (yref * (yopen[i]  - yclosemin) / (yclosemax - yclosemin));
-				yshigh[i]  = (int) (yref * (yhigh[i]  - yclosemin) / (yclosemax - yclosemin));
-				yslow[i]   = (int) (yref * (ylow[i]   - yclosemin) / (yclosemax - yclosemin));
-			}
+			kernels.scale(yclose, 0, ny, yclosemin, yref, yclosemax - yclosemin, ysclose);
+			kernels.scale(yopen,  0, ny, yclosemin, yref, yclosemax - yclosemin, ysopen);
+			kernels.scale(yhigh,  0, ny, yclosemin, yref, yclosemax - yclosemin, yshigh);
+			kernels.scale(ylow,   0, ny, yclosemin, yref, yclosemax - yclosemin, yslow);
 	
 			// scale factors between our chart (panel minus margin) and the panel
 			// this ensures that there is enough margin around the chart
@@ -482,18 +622,22 @@ public class ChartPanel extends JPanel {
 	public void calculateScaledIndicators() {
 		if (isInitialized) {
 			// Get the indicators and store their scaled versions
-			ArrayList<ChartIndicator> indList = parent.getChartIndicators();
-			Iterator<ChartIndicator> indIt = indList.iterator();
+			Iterator<ChartIndicator> indIt = indicators.iterator();
 			
-			// we have to count first how many indicators we need in the linear list
+			// we have to count first how many indicators we need in the linear list (and how many separate panes)
 			int arraySize = 0;
+			int nPanes = 0;
 			while (indIt.hasNext()) { 
 				ChartIndicator ci = indIt.next();
-				if (ci.isActive()) {
+				if (ci.isActive() && ci.isOverlay()) {
 					arraySize += ci.getNrOfValues();
 				}
+				else if (ci.isActive()) {
+					nPanes++;
+				}
 			}
-			indIt = indList.iterator(); // reset iterator after counting
+			indIt = indicators.iterator(); // reset iterator after counting
+			ArrayList<IndicatorPane> newPanes = new ArrayList<IndicatorPane>(nPanes);
 			
 			// define arrays for scaled indicators
 			xsIndicators = new int[arraySize][];
@@ -507,7 +651,18 @@ public class ChartPanel extends JPanel {
 			int i = 0;
 			while (indIt.hasNext()) { // for each active indicator
 				ChartIndicator ci = indIt.next();
-				if (ci.isActive()) {
+				if (ci.isActive() && !ci.isOverlay()) { // keep the existing pane (and its cached layers) if there is one
+					IndicatorPane pane = null;
+					for (IndicatorPane old : panes) {
+						if (old.getIndicator() == ci) {
+							pane = old;
+						}
+					}
+					pane = (pane == null ? new IndicatorPane(ci) : pane);
+					pane.update(ysclose.length);
+					newPanes.add(pane);
+				}
+				else if (ci.isActive()) {
 					for (int j = 0; j < ci.getNrOfValues(); j++) {
 						int nDisplayValues = ysclose.length; // ci.getValues(j).size();
 						xsIndicators[i + o + j]    = new int[nDisplayValues];
@@ -519,12 +674,12 @@ public class ChartPanel extends JPanel {
 						Iterator<Double> valueIt   = ci.getValueIterator(j);
 						int nValues = ci.getAllValues().get(j).size();
 						int count = 0;
-						while (count < nValues - maxCandles) { // skip those which are before the plot range
+						while (count < nValues - nDisplayValues) { // skip those before the plotted candles (the series may be longer)
 							valueIt.next();
 							timeIt.next();
 							count++;
 						}
-						for (int k = 0; valueIt.hasNext(); k++) { // walk through timesteps of this indicator value and assign scaled values
+						for (int k = 0; k < nDisplayValues && valueIt.hasNext(); k++) { // walk through timesteps of this indicator value and assign scaled values
 							xsIndicators[i + o + j][k] = (int) (xref * (double) (timeIt.next() - tmin) / (double) (tmax - tmin));
 							ysIndicators[i + o + j][k] = (int) (yref * (valueIt.next() - yclosemin) / (yclosemax - yclosemin));
 						}
@@ -533,6 +688,7 @@ public class ChartPanel extends JPanel {
 					o += ci.getNrOfValues() - 1; // offset += 0 if indicator has 1 value, += N-1 if N values
 				}
 			}
+			panes = newPanes;
 		}
 	}
 
@@ -541,32 +697,10 @@ public class ChartPanel extends JPanel {
 	 * Scales from the data coordinate system to the panel reference system with size (xref, yref) = this.getSize().
 	 */
 	public void calculateScaledAlarms() {
-		// Get the alarms and store their scaled versions
-		ArrayList<ChartAlarm> alarmList = parent.getChartAlarms();
-		ArrayList<Boolean> alarmActivity = parent.getChartAlarmActivities();
-		Iterator<ChartAlarm> alarmIt = alarmList.iterator();
-		Iterator<Boolean> alarmActivityIt = alarmActivity.iterator();
-
-		// first, count the active alarms
-		int nInd = 0; 
-		while (alarmActivityIt.hasNext()) {
-			if (alarmActivityIt.next() == true) {
-				nInd += 1;
-			}
-		}
-
-		// then, go through the alarms and write their scaled versions
-		ysAlarms = new int[nInd];
-		alarmNames = new String[nInd];
-		alarmActivityIt = alarmActivity.iterator();
-		int i = 0;
-		while (alarmIt.hasNext()) {
-			ChartAlarm ca = alarmIt.next();
-			if (alarmActivityIt.next() == true) { // for each active indicator
-				alarmNames[i] = ca.toString();
-				ysAlarms[i] = (int) (yref * (ca.getValue() - yclosemin) / (yclosemax - yclosemin));
-				i++;
-			}
+		// store the scaled versions of the (active) alarms
+		ysAlarms = new int[alarmValues.length];
+		for (int i = 0; i < alarmValues.length; i++) {
+			ysAlarms[i] = (int) (yref * (alarmValues[i] - yclosemin) / (yclosemax - yclosemin));
 		}
 	}
 
@@ -588,45 +722,40 @@ public class ChartPanel extends JPanel {
 	}
 	
 	/**
-	 * Get data coordinate values from panel coordinate values (inverse coordinate lookup).
+	 * Get data coordinate values from panel coordinate values (inverse coordinate lookup) in the image which is
+	 * currently shown. The y coordinate is looked up in the scale of the pane at that position: a price, or the value
+	 * of an indicator in a pane of its own (see {@link #getPaneName(int)}).
 	 * @param x the queried x coordinate of the panel
 	 * @param y the queried y coordinate of the panel
 	 * @return array containing the x and y coordinates in the data coordinate frame
 	 */
 	public double[] inverseCoordinateLookup(int x, int y) {
-		long closestx = 0L;
-		double ydata = 0.0;
-		
-		if (isInitialized) {
-			// Step 1: convert from window frame to chart frame (origin where the chart axes meet)
-			double xchart = (x - hmargin) / xscale; // from 0 (= first candle) to xref (= last candle)
-			double ychart = -(y - yref + vmargin + yOffsetFactor * yref) / (yscale * yminmaxScale);
-			
-			// Step 2: convert from pixel-based chart frame to data frame
-			ydata = yclosemin + ychart / yref * (yclosemax - yclosemin);
-			
-			// don't return the exact (interpolated) x value, but the closest data time
-			double offset = 1.1 * cw/2.0; // return the next candle time already half a candle width before it
-			int index = (int) ( (xchart+offset) / xref * (time.length-1));
-			index = (index < 0 ? 0 : index);
-			index = (index >= time.length ? time.length-1 : index);
-			closestx = time[index];
+		Snapshot s = snapshot;
+		if (isInitialized && s != null) {
+			return s.inverseCoordinateLookup(x, y);
 		}
-				
-		return new double[] { closestx, ydata };
+		return new double[] { 0L, 0.0 };
+	}
+
+	/**
+	 * Get the name of the indicator whose pane is at the given position in the image which is currently shown (hit
+	 * test).
+	 * @param y the queried y coordinate of the panel
+	 * @return the name of the indicator, or null if the position is within the prices
+	 */
+	public String getPaneName(int y) {
+		Snapshot s = snapshot;
+		IndicatorPane.Scale pane = (s == null ? null : s.getPaneAt(y));
+		return (pane == null ? null : pane.getName());
 	}
 
 	/**
-	 * Get the last closing price from the data drawn on this panel.
+	 * Get the last closing price from the data drawn on this panel (in the image which is currently shown).
 	 * @return the close value of the last candle associated with this panel
 	 */
 	public double getLastPrice() {
-		if (yclose != null && yclose.length > 0) {
-			return yclose[yclose.length - 1];
-		}
-		else { // if there is not data, e.g. because data with 0 candles have been pulled and set, return 0.0
-			return 0.0;
-		}
+		Snapshot s = snapshot;
+		return (s == null ? 0.0 : s.lastPrice); // 0.0 if there are no data (yet), e.g. because no candles have been pulled
 	}
 
 	/**
@@ -685,15 +814,15 @@ public class ChartPanel extends JPanel {
 			StringBuilder ts = new StringBuilder();
 			// use complete date and time for long ranges, date w/o year + time for medium, and only time for short ranges
 			if (this.chartInterval == EChartInterval.I1MONTH || this.chartInterval == EChartInterval.I1WEEK) {
-				ts.append(zdt.toLocalDateTime().format(parent.getDtfDate()));
+				ts.append(zdt.toLocalDateTime().format(getDtfDate()));
 			} else if (this.chartInterval == EChartInterval.I1DAY || this.chartInterval == EChartInterval.I1H
 					|| this.chartInterval == EChartInterval.I30MIN) {
-				ts.append(zdt.toLocalDateTime().format(parent.getDtfDate()).substring(0, 6));
+				ts.append(zdt.toLocalDateTime().format(getDtfDate()).substring(0, 6));
 				ts.append(" ");
-				ts.append(zdt.toLocalDateTime().format(parent.getDtfTime()));
+				ts.append(zdt.toLocalDateTime().format(getDtfTime()));
 			}
 			else {
-				ts.append(zdt.toLocalDateTime().format(parent.getDtfTime()));
+				ts.append(zdt.toLocalDateTime().format(getDtfTime()));
 			}
 
 			// draw the date/time label under the axis
@@ -871,6 +1000,43 @@ public class ChartPanel extends JPanel {
 		g2D.dispose();
 	}
 
+	/**
+	 * Draw the indicators which are not drawn over the prices, each in a pane of its own below the prices (see
+	 * {@link IndicatorPane}), with the same x positions of the candles and grid lines as the prices.
+	 * @param g2Dorig the graphics object
+	 * @return the scales of the panes, as they have been drawn
+	 */
+	private IndicatorPane.Scale[] drawSubPanes(Graphics2D g2Dorig) {
+		IndicatorPane.Scale[] scales = new IndicatorPane.Scale[panes.size()];
+		if (panes.isEmpty()) {
+			return scales;
+		}
+		Graphics2D g2D = (Graphics2D) g2Dorig.create();
+		// the positions on the shared x axis, calculated the same way as for the candles and the ticks
+		int[] xpos = new int[ysclose.length];
+		int k = 0;
+		for (double curx = 0.0; curx <= xref + epsilon && k < xpos.length; curx += xspacing) {
+			xpos[k++] = x((int) Math.round(curx));
+		}
+		int[] gridx = null;
+		if (drawFullGrid) {
+			gridx = new int[(int) (xref / (xskip * xspacing) + epsilon) + 1];
+			k = 0;
+			for (double curx = 0.0; curx <= xref + epsilon && k < gridx.length; curx += xskip*xspacing) {
+				gridx[k++] = x((int) Math.round(curx));
+			}
+			gridx = Arrays.copyOf(gridx, k);
+		}
+		for (int p = 0; p < panes.size(); p++) {
+			IndicatorPane pane = panes.get(p);
+			pane.layout(yref + p * paneHeight, width, paneHeight, x(-cw), x(xref + cw), cw, xpos, gridx);
+			pane.paint(g2D);
+			scales[p] = pane.getScale();
+		}
+		g2D.dispose();
+		return scales;
+	}
+
 	/**
 	 * Draw the alarms as a line.
 	 * @param g2Dorig the graphics object
@@ -892,15 +1058,20 @@ public class ChartPanel extends JPanel {
 	/**
 	 * Draw the crosslines at the current mouse pointer position.
 	 * @param g2Dorig the graphics object
+	 * @param s the snapshot which is shown
 	 */
-	private void drawCrosslines(Graphics2D g2Dorig) {
+	private void drawCrosslines(Graphics2D g2Dorig, Snapshot s) {
 		Graphics2D g2D = (Graphics2D) g2Dorig.create();
 		if (mouseposx != -1) {
 			BasicStroke strokeDashed = new BasicStroke(1.0f, 0, 0, 1.0f, new float[] { 5.0f }, 0.0f);
 			g2D.setStroke(strokeDashed);
 
-			g2D.drawLine(mouseposx, 0, mouseposx, yref);
-			g2D.drawLine(0, mouseposy, xref, mouseposy);
+			g2D.drawLine(mouseposx, 0, mouseposx, getHeight()); // through all panes
+			g2D.drawLine(0, mouseposy, s.xref, mouseposy);
+			// label with the value at the pointer, in the scale of the pane below it
+			double value = s.inverseCoordinateLookup(mouseposx, mouseposy)[1];
+			g2D.setFont(new Font("Sans-Serif", Font.PLAIN, 14));
+			g2D.drawString(String.format("%.2f", value), s.labelx, mouseposy - 3);
 		}
 		g2D.dispose();
 	}
@@ -917,8 +1088,125 @@ public class ChartPanel extends JPanel {
 		this.mouseposy = y;
 		// try to repaint only the surrounding of the crosslines (although this doesn't really help,
 		// because the size and shape of the regions seems to cause a complete redraw)
-		repaint(mouseposx - 50, 0, 100, yref); 
-		repaint(0, mouseposy - 50, xref, 100); 
+		repaint(mouseposx - 50, 0, 100, getHeight()); 
+		repaint(0, mouseposy - 50, getWidth(), 100); 
+	}
+
+	/**
+	 * Remember the pushed frame whose data are set next, so its latency can be recorded as soon as the panel has
+	 * been painted. If there is already a frame waiting, the older one is kept.
+	 * @param frameStart the start time of the frame (see {@link LatencyMonitor#currentFrame()}), or 0 if none
+	 */
+	void markPendingFrame(long frameStart) {
+		if (frameStart != 0L && pendingFrame == 0L) {
+			pendingFrame = frameStart;
+		}
+	}
+
+	/**
+	 * Get the date formatter of the parent chart.
+	 * @return the parent chart's date formatter, or a default one if this panel has no parent
+	 */
+	private DateTimeFormatter getDtfDate() {
+		return (parent == null ? defaultDtfDate : parent.getDtfDate());
+	}
+
+	/**
+	 * Get the time formatter of the parent chart.
+	 * @return the parent chart's time formatter, or a default one if this panel has no parent
+	 */
+	private DateTimeFormatter getDtfTime() {
+		return (parent == null ? defaultDtfTime : parent.getDtfTime());
+	}
+
+	/**
+	 * An immutable snapshot of a panel: the rendered buffer image together with the scale it has been rendered with,
+	 * so that the EDT can draw the image and look up mouse positions without accessing the state of the panel,
+	 * which is confined to the worker. The snapshots of a panel are numbered (versions) in the order of rendering.
+	 */
+	private static final class Snapshot {
+		private final long version;
+		private final BufferedImage image;  // not modified any more after publication
+		private final long frameStart;      // the oldest pushed frame which is shown first with this snapshot (or 0)
+		private final double lastPrice;
+		private final long[] time;          // not modified any more (new data come with new arrays)
+		private final int xref, yref, hmargin, vmargin, cw, labelx;
+		private final double xscale, yscale, yminmaxScale, yOffsetFactor, yclosemin, yclosemax;
+		private final IndicatorPane.Scale[] paneScales;
+
+		/**
+		 * Construct a new snapshot of the current scale of the given panel.
+		 * @param p the panel (on the worker)
+		 * @param image the rendered image
+		 * @param version the version of the snapshot
+		 * @param paneScales the scales of the indicator panes
+		 * @param frameStart the start time of the oldest pushed frame which is shown first with this snapshot, or 0
+		 */
+		private Snapshot(ChartPanel p, BufferedImage image, long version, IndicatorPane.Scale[] paneScales, 
+				long frameStart) {
+			this.version = version;
+			this.image = image;
+			this.frameStart = frameStart;
+			this.lastPrice = p.yclose[p.yclose.length - 1];
+			this.time = p.time;
+			this.xref = p.xref;
+			this.yref = p.yref;
+			this.hmargin = p.hmargin;
+			this.vmargin = p.vmargin;
+			this.cw = p.cw;
+			this.labelx = p.x(p.xref + p.cw + p.ticklength + 5);
+			this.xscale = p.xscale;
+			this.yscale = p.yscale;
+			this.yminmaxScale = p.yminmaxScale;
+			this.yOffsetFactor = p.yOffsetFactor;
+			this.yclosemin = p.yclosemin;
+			this.yclosemax = p.yclosemax;
+			this.paneScales = paneScales;
+		}
+
+		/**
+		 * Get data coordinate values from panel coordinate values (see 
+		 * {@link ChartPanel#inverseCoordinateLookup(int, int)}).
+		 * @param x the queried x coordinate of the panel
+		 * @param y the queried y coordinate of the panel
+		 * @return array containing the x and y coordinates in the data coordinate frame
+		 */
+		private double[] inverseCoordinateLookup(int x, int y) {
+			// Step 1: convert from window frame to chart frame (origin where the chart axes meet)
+			double xchart = (x - hmargin) / xscale; // from 0 (= first candle) to xref (= last candle)
+			double ychart = -(y - yref + vmargin + yOffsetFactor * yref) / (yscale * yminmaxScale);
+			
+			// Step 2: convert from pixel-based chart frame to data frame
+			double ydata = yclosemin + ychart / yref * (yclosemax - yclosemin);
+			IndicatorPane.Scale pane = getPaneAt(y);
+			if (pane != null) { // below the prices: scale of the indicator's pane
+				ydata = pane.valueAt(y);
+			}
+			
+			// don't return the exact (interpolated) x value, but the closest data time
+			double offset = 1.1 * cw/2.0; // return the next candle time already half a candle width before it
+			int index = (int) ( (xchart+offset) / xref * (time.length-1));
+			index = (index < 0 ? 0 : index);
+			index = (index >= time.length ? time.length-1 : index);
+			return new double[] { time[index], ydata };
+		}
+
+		/**
+		 * Get the scale of the indicator pane at the given y coordinate.
+		 * @param y the queried y coordinate of the panel
+		 * @return the scale of the pane, or null if the position is within the prices
+		 */
+		private IndicatorPane.Scale getPaneAt(int y) {
+			if (y < yref) {
+				return null;
+			}
+			for (IndicatorPane.Scale pane : paneScales) {
+				if (pane.contains(y)) {
+					return pane;
+				}
+			}
+			return null;
+		}
 	}
 
 }
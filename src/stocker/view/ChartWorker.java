@@ -0,0 +1,54 @@
+package stocker.view;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import stocker.util.StockerLogger;
+
+/**
+ * The thread which updates the charts. The data of the charts (their candles and indicators) and the state of their
+ * {@link ChartPanel}s are confined to it: pushed bars, pulled data, new indicators and alarms, resizing etc. are
+ * handed over as tasks, the worker calculates the indicators, scales and renders the charts, and the results are
+ * published to the EDT as immutable snapshots, which the EDT only copies to the screen. So the EDT is never blocked by
+ * calculations, and no locking is required.
+ * <p>
+ * There is one worker for all charts, as charts of the same symbol and interval share their indicator series (see
+ * {@link stocker.control.IndicatorCache}). The tasks are run in the order they have been submitted.
+ *
+ * @author Marc S. Schneider
+ */
+final class ChartWorker {
+
+	private static final StockerLogger log = StockerLogger.getLogger(ChartWorker.class);
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Stocker chart worker");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	private ChartWorker() {
+		// private constructor in order to prevent instantiation
+	}
+
+	/**
+	 * Run the given task on the worker (after all tasks which have been submitted before). An exception thrown by the
+	 * task is logged, and the worker continues with the next task.
+	 * @param task the task
+	 */
+	static void execute(final Runnable task) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					task.run();
+				} catch (RuntimeException e) {
+					log.error("Chart update failed", e);
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,288 @@
+package stocker.view;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import stocker.model.ChartIndicator;
+
+/**
+ * A pane of a {@link ChartPanel} below the prices, which shows one indicator with a y scale of its own (which always
+ * includes zero), on the x axis shared with the prices (the x positions of the candles and of the grid lines are
+ * provided by the {@link ChartPanel}).
+ * <p>
+ * The pane is rendered in two cached layers: the background (frame, grid, zero line and scale labels), which only
+ * changes with the layout or the range of the values, and the content (the lines and histograms of the indicator),
+ * which only changes with the values. Each layer is only rendered again if its input has changed, so a repaint of
+ * the {@link ChartPanel} mostly consists of copying the cached images of the panes.
+ * <p>
+ * Like the state of the {@link ChartPanel}, a pane is confined to the {@link ChartWorker}; hit tests on the EDT use
+ * its immutable {@link Scale}.
+ *
+ * @author Marc S. Schneider
+ */
+class IndicatorPane {
+
+	private static final int pad = 8;  // vertical distance of the values from the pane's frame
+	private static final BasicStroke stroke = new BasicStroke(1.5f);
+	private static final BasicStroke thinstroke = new BasicStroke(1.0f, 0, 0, 1.0f, new float[] { 10 }, 0);
+	private static final Font font = new Font("Sans-Serif", Font.PLAIN, 14);
+
+	private final ChartIndicator ci;
+	private String name;
+	private Color color;
+	private double[][] values = new double[0][]; // per value list of the indicator, one value per plotted candle
+	private boolean[] histogram;                 // per value list: drawn as histogram instead of a line
+	private double min, max;
+
+	// the layout, as set by the ChartPanel
+	private int top, width, height, left, right, cw;
+	private int[] xpos = new int[0];  // x positions of the candles
+	private int[] gridx = new int[0]; // x positions of the vertical grid lines (null: no grid)
+
+	// the cached layers
+	private BufferedImage background, content;
+	private boolean isBackgroundValid = false, isContentValid = false;
+
+	/**
+	 * Construct a new pane for the given indicator. The values need to be set with {@link #update(int)} and the
+	 * layout with {@link #layout(int, int, int, int, int, int, int[], int[])} before it can be painted.
+	 * @param ci the indicator
+	 */
+	IndicatorPane(ChartIndicator ci) {
+		this.ci = ci;
+	}
+
+	/**
+	 * Get the indicator shown in this pane.
+	 * @return the indicator
+	 */
+	ChartIndicator getIndicator() {
+		return ci;
+	}
+
+	/**
+	 * Copy the values of the indicator for the plotted candles and determine their range. The cached layers are only
+	 * invalidated if anything has changed.
+	 * @param n the number of plotted candles (the values are aligned with the last candles)
+	 */
+	void update(int n) {
+		String newName = ci.toString();
+		Color newColor = ci.getColor().toColor();
+		double[][] newValues = new double[ci.getNrOfValues()][n];
+		boolean[] newHistogram = new boolean[newValues.length];
+		double newMin = 0.0, newMax = 0.0;
+		for (int j = 0; j < newValues.length; j++) {
+			newHistogram[j] = ci.isHistogram(j);
+			Iterator<Double> valueIt = ci.getValueIterator(j);
+			int nValues = ci.getValues(j).size();
+			for (int count = 0; count < nValues - n; count++) { // skip those before the plotted candles (the series may be longer)
+				valueIt.next();
+			}
+			for (int k = 0; k < n && valueIt.hasNext(); k++) {
+				double v = valueIt.next();
+				newValues[j][k] = v;
+				newMin = Math.min(newMin, v);
+				newMax = Math.max(newMax, v);
+			}
+		}
+		if (newMin != min || newMax != max) {
+			isBackgroundValid = false;
+			isContentValid = false;
+		}
+		if (!newName.equals(name) || !newColor.equals(color) || !Arrays.equals(newHistogram, histogram)
+				|| !Arrays.deepEquals(newValues, values)) {
+			isContentValid = false;
+		}
+		name = newName;
+		color = newColor;
+		values = newValues;
+		histogram = newHistogram;
+		min = newMin;
+		max = newMax;
+	}
+
+	/**
+	 * Set the layout of this pane within the {@link ChartPanel}. The cached layers are only invalidated if anything
+	 * has changed.
+	 * @param top the y position of the top of this pane
+	 * @param width the width of this pane (the width of the panel)
+	 * @param height the height of this pane
+	 * @param left the x position of the left axis
+	 * @param right the x position of the right axis
+	 * @param cw the width of a candle
+	 * @param xpos the x positions of the candles
+	 * @param gridx the x positions of the vertical grid lines, or null for no grid
+	 */
+	void layout(int top, int width, int height, int left, int right, int cw, int[] xpos, int[] gridx) {
+		if (top != this.top || width != this.width || height != this.height || left != this.left
+				|| right != this.right || !Arrays.equals(gridx, this.gridx)) {
+			isBackgroundValid = false;
+		}
+		if (width != this.width || height != this.height || cw != this.cw || !Arrays.equals(xpos, this.xpos)) {
+			isContentValid = false;
+		}
+		this.top = top;
+		this.width = width;
+		this.height = height;
+		this.left = left;
+		this.right = right;
+		this.cw = cw;
+		this.xpos = xpos;
+		this.gridx = gridx;
+	}
+
+	/**
+	 * Paint this pane, rendering only those layers again which are not valid any more.
+	 * @param g the graphics object of the panel
+	 */
+	void paint(Graphics2D g) {
+		if (width <= 0 || height <= 2 * pad) {
+			return;
+		}
+		if (!isBackgroundValid) {
+			background = renderBackground();
+			isBackgroundValid = true;
+		}
+		if (!isContentValid) {
+			content = renderContent();
+			isContentValid = true;
+		}
+		g.drawImage(background, 0, top, null);
+		g.drawImage(content, 0, top, null);
+	}
+
+	/**
+	 * Get the position and the y scale of this pane as they are now, for hit tests on the EDT.
+	 * @return the scale
+	 */
+	Scale getScale() {
+		return new Scale(name, top, height, max, range());
+	}
+
+	// helper function: render the background layer
+	private BufferedImage renderBackground() {
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2D = img.createGraphics();
+		g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g2D.setFont(font);
+		g2D.setColor(Color.BLACK);
+		int h = height - 2 * pad;
+		int yzero = y(0.0);
+		g2D.setStroke(stroke);
+		g2D.drawRect(left, pad, right - left, h);
+		g2D.setStroke(thinstroke);
+		if (gridx != null) {
+			for (int x : gridx) {
+				g2D.drawLine(x, pad, x, pad + h);
+			}
+		}
+		g2D.drawLine(left, yzero, right, yzero);
+		g2D.drawString(String.format("%.2f", max), right + 13, pad + 12);
+		g2D.drawString(String.format("%.2f", min), right + 13, pad + h);
+		g2D.dispose();
+		return img;
+	}
+
+	// helper function: render the content layer
+	private BufferedImage renderContent() {
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2D = img.createGraphics();
+		g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g2D.setFont(font);
+		g2D.setStroke(stroke);
+		int yzero = y(0.0);
+		for (int j = 0; j < values.length; j++) {
+			// lines in the indicator's color (the further ones darker), histograms transparent
+			Color c = color;
+			for (int d = 0; d < j && !histogram[j]; d++) {
+				c = c.darker();
+			}
+			if (histogram[j]) {
+				c = new Color(c.getRed(), c.getGreen(), c.getBlue(), 90);
+			}
+			g2D.setColor(c);
+			int n = Math.min(values[j].length, xpos.length);
+			for (int k = 0; k < n; k++) {
+				int yk = y(values[j][k]);
+				if (histogram[j]) {
+					g2D.fillRect(xpos[k] - cw / 2, Math.min(yk, yzero), Math.max(cw, 1), Math.abs(yk - yzero));
+				}
+				else if (k > 0) {
+					g2D.drawLine(xpos[k - 1], y(values[j][k - 1]), xpos[k], yk);
+				}
+			}
+		}
+		g2D.setColor(color);
+		g2D.drawString(name, left + 10, pad + 16);
+		g2D.dispose();
+		return img;
+	}
+
+	// helper function: the y position of a value within the pane
+	private int y(double v) {
+		return pad + (int) Math.round((height - 2 * pad) * (max - v) / range());
+	}
+
+	// helper function: the range of the values (never 0)
+	private double range() {
+		return (max - min == 0.0 ? 1.0 : max - min);
+	}
+
+	/**
+	 * The position and the y scale of a pane at the time it was rendered (immutable).
+	 */
+	static final class Scale {
+		private final String name;
+		private final int top, height;
+		private final double max, range;
+
+		/**
+		 * Construct a new scale.
+		 * @param name the name of the indicator
+		 * @param top the y position of the top of the pane
+		 * @param height the height of the pane
+		 * @param max the maximum value
+		 * @param range the range of the values (not 0)
+		 */
+		private Scale(String name, int top, int height, double max, double range) {
+			this.name = name;
+			this.top = top;
+			this.height = height;
+			this.max = max;
+			this.range = range;
+		}
+
+		/**
+		 * Get the name of the indicator shown in the pane.
+		 * @return the name
+		 */
+		String getName() {
+			return name;
+		}
+
+		/**
+		 * Query whether the given y position of the panel is within the pane.
+		 * @param y the y position
+		 * @return true if it is within the pane
+		 */
+		boolean contains(int y) {
+			return y >= top && y < top + height;
+		}
+
+		/**
+		 * Get the indicator value at the given y position of the panel (inverse lookup of the y scale).
+		 * @param y the y position
+		 * @return the value
+		 */
+		double valueAt(int y) {
+			int h = height - 2 * pad;
+			return max - (y - top - pad) * range / (h > 0 ? h : 1);
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package stocker.view;
 
 import java.awt.BorderLayout;
+import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
@@ -23,7 +24,9 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.AbstractButton;
 import javax.swing.BoxLayout;
@@ -46,26 +49,39 @@ import javax.swing.border.BevelBorder;
 import javax.swing.event.InternalFrameAdapter;
 import javax.swing.event.InternalFrameEvent;
 
+import stocker.control.CandleAggregator;
+import stocker.control.IBarListener;
 import stocker.control.StockerControl;
-import stocker.control.StockerDataManager;
 import stocker.dialog.StockerAlarmDialog;
 import stocker.dialog.StockerIndicatorDialog;
+import stocker.metrics.LatencyMonitor;
+import stocker.metrics.MetricsRegistry;
 import stocker.model.ChartAlarm;
 import stocker.model.ChartIndicator;
+import stocker.model.ChartIndicatorRegistry;
 import stocker.model.ChartWatchItem;
 import stocker.util.Candle;
+import stocker.util.ECandleScheme;
 import stocker.util.EChartInterval;
 import stocker.util.EChartType;
+import stocker.util.ELatencyStage;
 import stocker.util.StockerDataManagerException;
+import stocker.util.StockerLogger;
 
 /**
  * An internal frame showing data from a {@link ChartWatchItem} in a chart.
+ * <p>
+ * The candles and the indicator values of the chart are confined to the {@link ChartWorker}, which also scales and
+ * renders the {@link ChartPanel}: data are pulled into a new item on a background thread and then handed over to the 
+ * worker, as are pushed bars and the indicators and alarms defined on the EDT. The item of the chart itself only
+ * describes the chart (symbol, interval and warm-up).
  * 
  * @author Marc S. Schneider
  */
-public class StockerChart extends JInternalFrame implements IStockerDataListener, ActionListener {
+public class StockerChart extends JInternalFrame implements IStockerDataListener, IBarListener, ActionListener {
 
 	private static final long serialVersionUID = 4474624613394916525L;
+	private static final StockerLogger log = StockerLogger.getLogger(StockerChart.class);
 
 	// basics and window content
 	private StockerFrame parent;
@@ -81,8 +97,18 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 	private final int flowLayoutGaps = 5;
 
 	// some status information
-	private boolean isInitialized;
+	private volatile boolean isInitialized;
+	private AtomicBoolean isDeferred = new AtomicBoolean(false); // data not pulled yet, waiting for demand
+	private ArrayList<Runnable> onInitialized = new ArrayList<Runnable>(); // run on the EDT after initialization
+	private final AtomicLong pullVersion = new AtomicLong(); // incremented with every pull; only the latest is shown
+	
+	// the data of the chart, confined to the ChartWorker
+	private ChartWatchItem data; // the item of the latest pull, updated with the pushed bars
+	private ArrayList<ChartIndicator> workerIndicators = new ArrayList<ChartIndicator>(); // copy of chartIndicators
 	private long lastPushUpdate;
+	private long volumeBarTime = -1L; // start time of the last bar applied to the last candle, and its volume then
+	private double volumeBarSeen;
+	private EChartInterval barInterval; // the interval for which bars are subscribed (null: none)
 	private Dimension previousSize; // in order to restore original size after maximizing
 	private Point previousLocation; // in order to restore original location after maximizing
 	private DateTimeFormatter dtfDate, dtfTime; // formatter for date and time, e.g. provided to the ChartPanel 
@@ -192,8 +218,7 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 			@Override
 			public void componentResized(ComponentEvent e) {
 				adaptChartPanelSize();
-				panel.setSizeReferenceParameters();
-				panel.paintImage();
+				panel.updateSize();
 				if (!isMaximum) { // save values for restoring after maximizing
 					previousSize = getSize(); 
 					previousLocation = getLocation();
@@ -226,8 +251,7 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 									statusBar.setSize(new Dimension(getWidth(), 25)); // needs a fixed size when maximized, no idea why
 									panel.setSize(getWidth(), getHeight()-83);
 									adaptChartPanelSize();
-									panel.setSizeReferenceParameters();
-									panel.paintImage();
+									panel.updateSize();
 									repaint();
 								};
 							});
@@ -243,10 +267,28 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 			@Override
 			public void internalFrameClosing(InternalFrameEvent e) {
 				control.removeChartListenerFromDataManager(StockerChart.this);
+				if (barInterval != null) {
+					control.unsubscribeBars(w.getKey(), barInterval, StockerChart.this);
+				}
 				control.removeSymbolFromPush(w.getKey());
 				control.unregisterAlarmListener(StockerChart.this, w.getKey());
+				pullVersion.incrementAndGet(); // pulls which are still running are not shown any more
+				for (ChartIndicator ci : chartIndicators) {
+					control.getIndicatorCache().release(ci);
+				}
 				parent.onChildWindowClosing(StockerChart.this.getTitle());
 			}
+
+			// a deferred chart is initialized as soon as the user looks at it
+			@Override
+			public void internalFrameDeiconified(InternalFrameEvent e) {
+				initializeDeferredData();
+			}
+
+			@Override
+			public void internalFrameActivated(InternalFrameEvent e) {
+				initializeDeferredData();
+			}
 		});
 
 		// when mouse has left panel: reset mouse position in panel so crosslines are not drawn 
@@ -278,38 +320,136 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 	
 	/**
 	 * Initialize the data within this chart, i.e. pull the historic data from the data provider.
+	 * @return the {@link SwingWorker} which pulls the data (already executed)
 	 */
-	public void initializeData() {
+	public SwingWorker<ChartWatchItem, Object> initializeData() {
+		subscribeBars();
+		final long version = pullVersion.incrementAndGet();
 		// Use a SwingWorker to pull the data in background, then complete the setup (in done()) as soon as 
 		// the data is available
-		(new SwingWorker<ChartWatchItem, Object>() {
+		SwingWorker<ChartWatchItem, Object> worker = new SwingWorker<ChartWatchItem, Object>() {
 			@Override
 			protected ChartWatchItem doInBackground() throws Exception {
 				try {
-					control.getPlotData(w);
-					StockerChart.this.isInitialized = true;
+					ChartWatchItem pulled = pullData();
 					panel.initializeFailed = false;
 					panel.notPrivilegedError = false;
+					return pulled;
 				} catch (StockerDataManagerException e) {
 					if (e.getMessage().contains("403")) {
 						StockerChart.this.notPrivilegedError = true;
 						panel.notPrivilegedError = true;
-						StockerChart.this.notPrivilegedError = true;
 					}
 					panel.initializeFailed = true;
 					StockerChart.this.isInitialized = false;
 				}
-				return w;
+				return null;
 			}
 
 			@Override
 			protected void done() {
-				if (StockerChart.this.isInitialized) {
-					panel.setData(w);
-					statusLastPrice.setText(String.format("Letzter Kurs: %.2f", panel.getLastPrice()));
+				try {
+					ChartWatchItem pulled = get();
+					if (pulled != null) {
+						showData(pulled, version);
+					}
+				} catch (InterruptedException | ExecutionException e) {
+					log.warn("{}: Pulling the data failed: {}", w.getKey(), e.getMessage());
+				}
+			}
+		};
+		worker.execute();
+		return worker;
+	}
+
+	/**
+	 * Pull the data of the current interval on the calling thread, into a new item (the data of the chart are only
+	 * modified by the {@link ChartWorker}, see {@link #showData(ChartWatchItem, long)}).
+	 * @return the item with the pulled candles
+	 * @throws StockerDataManagerException if pulling fails
+	 */
+	private ChartWatchItem pullData() throws StockerDataManagerException {
+		ChartWatchItem pulled = new ChartWatchItem(w.getKey(), w.getName(), w.getInterval());
+		pulled.setWarmup(w.getWarmup());
+		control.getPlotData(pulled);
+		return pulled;
+	}
+
+	/**
+	 * Hand pulled data over to the {@link ChartWorker}, which sets them as the data of the chart and calculates the 
+	 * indicators and the image with them; then complete the initialization on the EDT. Nothing is done if a later
+	 * pull has been started meanwhile (e.g. because the interval has been switched again).
+	 * @param pulled the item with the pulled candles
+	 * @param version the version of the pull
+	 */
+	private void showData(final ChartWatchItem pulled, final long version) {
+		ChartWorker.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (version != pullVersion.get() || pulled.getCandles().size() == 0) {
+					return;
 				}
+				data = pulled;
+				volumeBarTime = -1L;
+				isInitialized = true;
+				panel.setData(data); // recalculates the indicators
+				final double lastPrice = data.getCandles().getLast().close;
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						statusLastPrice.setText(String.format("Letzter Kurs: %.2f", lastPrice));
+						prefetchAdjacentIntervals();
+						runInitializedCallbacks();
+					}
+				});
 			}
-		}).execute();
+		});
+	}
+
+	/**
+	 * Mark this chart as deferred: Its data is not pulled until {@link #initializeDeferredData()} is called, which
+	 * happens automatically when the chart window is deiconified or activated.
+	 */
+	void setDeferred() {
+		isDeferred.set(true);
+	}
+
+	/**
+	 * Initialize the data of this chart if it is still deferred (see {@link #setDeferred()}); does nothing otherwise,
+	 * so it is safe to call this more than once. Has to be called on the EDT, like {@link #initializeData()}.
+	 * @return the {@link SwingWorker} which pulls the data, or null if the chart has not been deferred (any more) or
+	 * 		   has been closed
+	 */
+	public SwingWorker<ChartWatchItem, Object> initializeDeferredData() {
+		if (isClosed() || !isDeferred.compareAndSet(true, false)) {
+			return null;
+		}
+		return parent.initializeChart(this);
+	}
+
+	/**
+	 * Run the given task on the EDT as soon as this chart has been initialized (immediately if it already is), e.g.
+	 * to add indicators which require the data. Has to be called on the EDT.
+	 * @param r the task
+	 */
+	public void whenInitialized(Runnable r) {
+		if (isInitialized) {
+			r.run();
+		}
+		else {
+			onInitialized.add(r);
+		}
+	}
+
+	/**
+	 * Run (and forget) the tasks which are waiting for the initialization. Has to be called on the EDT.
+	 */
+	private void runInitializedCallbacks() {
+		ArrayList<Runnable> tasks = onInitialized;
+		onInitialized = new ArrayList<Runnable>();
+		for (Runnable r : tasks) {
+			r.run();
+		}
 	}
 
 	/**
@@ -322,12 +462,19 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 	
 	/**
 	 * Reset all data in this {@link StockerChart} (e.g. because the data interval has changed and a new initialization 
-	 * with data pull is required).
+	 * with data pull is required). Pulls which are still running are not shown any more.
 	 */
 	public void resetData() {
-		w = new ChartWatchItem(w.getKey(), w.getName());
-		panel.setData(w);
+		pullVersion.incrementAndGet();
 		isInitialized = false;
+		panel.isInitialized = false;
+		ChartWorker.execute(new Runnable() {
+			@Override
+			public void run() {
+				data = null;
+				panel.clearData();
+			}
+		});
 	}
 	
 	/**
@@ -338,7 +485,7 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 		super.setSize(d);
 		if (panel != null) { // if already initialized
 			adaptChartPanelSize();
-			panel.setSizeReferenceParameters();
+			panel.updateSize();
 			repaint();
 		}
 	}
@@ -364,81 +511,186 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 	 * Trigger asynchronous data update (run in background), e.g. after switching intervals or plot types.
 	 */
 	public void updateData() {
-		panel.isInitialized = false;
+		resetData();
 		panel.repaint(); // paint the "loading..." message
-		this.isInitialized = false;
+		subscribeBars(); // the interval might have changed
+		final long version = pullVersion.incrementAndGet();
 		
 		// trigger asynchronous data pull in a separate thread
 		new Thread() {
 			@Override
 			public void run() {
+				ChartWatchItem pulled;
 				try {
-					control.getPlotData(w);
+					pulled = pullData();
 				} catch (StockerDataManagerException e) {
 					panel.initializeFailed = true;
 					panel.repaint();
 					return;
 				}
 				panel.initializeFailed = false;
-				panel.setData(w);
-				statusLastPrice.setText(String.format("Letzter Kurs: %.2f", panel.getLastPrice()));
-				StockerChart.this.isInitialized = true;
+				showData(pulled, version);
 			}
 		}.start();
 	}
 
 	/**
-	 * Called by {@link StockerDataManager} whenever a push update is available. Updates data for the watchlist
-	 * as well as for charts and their indicators.
+	 * Ask for the data of the neighbouring intervals of the current one to be prefetched, as they are the most 
+	 * likely ones to be switched to.
+	 */
+	private void prefetchAdjacentIntervals() {
+		EChartInterval[] intervals = EChartInterval.values();
+		int i = w.getInterval().ordinal();
+		if (i > 0 && i < intervals.length - 1) {
+			control.prefetchPlotData(w.getKey(), intervals[i + 1], intervals[i - 1]);
+		}
+		else if (i > 0) {
+			control.prefetchPlotData(w.getKey(), intervals[i - 1]);
+		}
+		else {
+			control.prefetchPlotData(w.getKey(), intervals[i + 1]);
+		}
+	}
+
+	/**
+	 * Subscribe to the bars of the current interval at the {@link CandleAggregator} (and unsubscribe from those of
+	 * the previous interval, if it has changed).
+	 */
+	private void subscribeBars() {
+		if (w.getInterval() == barInterval) {
+			return;
+		}
+		if (barInterval != null) {
+			control.unsubscribeBars(w.getKey(), barInterval, this);
+		}
+		barInterval = w.getInterval();
+		control.subscribeBars(w.getKey(), barInterval, this);
+		for (ChartIndicator ci : chartIndicators) { // the indicators now show the series of the new interval
+			control.getIndicatorCache().rebind(ci, w.getKey(), barInterval);
+		}
+	}
+
+	/**
+	 * Not used for the chart data: The ticks are aggregated into bars only once per symbol by the 
+	 * {@link CandleAggregator}, which calls {@link #onBarUpdate(String, EChartInterval, Candle)}. Only required 
+	 * because charts are registered as alarm listeners.
 	 */
 	@Override
-	public void onPushUpdate(String key, long time, double price) {
-		// Only if it's our key, and only if the last update is more than 5 seconds ago (in order to avoid too much repainting)
-		if (key.equals(w.getKey()) && Instant.now().getEpochSecond() - lastPushUpdate > 5) {
-			lastPushUpdate = Instant.now().getEpochSecond();
-			
-			if (isInitialized && w.getCandles().size() > 0) {
-				// A new candle is created and filled step by step with the pushed data until it's "full"
-				boolean newCandle = false;
-				statusLastPrice.setText(String.format("Letzter Kurs: %.2f", price));
-				Candle last = w.getCandles().getLast();
-				
-				// start new candle if the old one is "full"
-				if (time >= last.time + w.getInterval().inSeconds()) { 
-					newCandle = true;
-					// start new candle
-					double pc = last.close;
-					w.appendValues(time, pc, pc, pc, pc);
-					last = w.getCandles().getLast();
-					last.open = price;
-					
-					// Update indicators for the completed candle
-					Iterator<ChartIndicator> indIt = StockerChart.this.chartIndicators.iterator();
-					while (indIt.hasNext()) { // update indicators 
-						ChartIndicator ci = indIt.next();
-						ci.setCandles(w.getCandles());
-						ci.calculate();
-					}
-				}
-				
-				last.close = price;
-				if (price < last.low) {
-					last.low = price;
-				}
-				else if (price > last.high) {
-					last.high = price;
-				}
-					
-				if (newCandle) {
-					panel.setData(w); // set data completely if a new candle was added 
-				}
-				else {
-					panel.setLatestData(last.close, last.low, last.high); // only modify the last data in the panel, without rescaling etc.
-				}
+	public void onPushUpdate(String key, long time, double price) { }
+
+	/**
+	 * Called by the {@link CandleAggregator} after each push update: Hands the bar over to the {@link ChartWorker}
+	 * (see {@link #applyBar(EChartInterval, Candle, long)}).
+	 * @param symbol the symbol
+	 * @param interval the interval of the bar
+	 * @param bar the current bar
+	 */
+	@Override
+	public void onBarUpdate(String symbol, final EChartInterval interval, final Candle bar) {
+		final long frameStart = LatencyMonitor.currentFrame();
+		ChartWorker.execute(new Runnable() {
+			@Override
+			public void run() {
+				applyBar(interval, bar, frameStart);
+			}
+		});
+	}
+
+	/**
+	 * Updates the last candle with the bar, or starts a new candle if the bar belongs to a later interval than the
+	 * last candle (on the {@link ChartWorker}). The indicators are updated incrementally (see 
+	 * {@link ChartIndicator#calculateLast()}). The panel is repainted completely when a new candle has been started,
+	 * otherwise the last candle is repainted at most every 5 seconds (in order to avoid too much repainting).
+	 * @param interval the interval of the bar
+	 * @param bar the current bar
+	 * @param frameStart the start time of the pushed frame which contained the bar (see {@link LatencyMonitor})
+	 */
+	private void applyBar(EChartInterval interval, Candle bar, long frameStart) {
+		if (!isInitialized || data == null || interval != data.getInterval() || data.getCandles().size() == 0) {
+			return;
+		}
+		Candle last = data.getCandles().getLast();
+		long lastStart = CandleAggregator.barStart(last.time, interval); // pulled candles might not be aligned
+		if (bar.time < lastStart) { // the pulled data are more recent than the bar
+			return;
+		}
+		
+		boolean newCandle = false;
+		if (bar.time > lastStart) { // start new candle
+			newCandle = true;
+			// Update the indicators incrementally: complete their values at the former last candle, then slide
+			// their window along with the candles (the first candle is removed when a new one is appended)
+			for (ChartIndicator ci : workerIndicators) {
+				ci.calculateLast();
+			}
+			data.appendValues(bar.time, bar.low, bar.high, bar.open, bar.close, bar.volume);
+			last = data.getCandles().getLast();
+			volumeBarTime = bar.time;
+			volumeBarSeen = bar.volume;
+			for (ChartIndicator ci : workerIndicators) {
+				ci.removeFirstValue();
+				ci.calculateLast();
+			}
+		}
+		else {
+			last.close = bar.close;
+			if (bar.low < last.low) {
+				last.low = bar.low;
+			}
+			if (bar.high > last.high) {
+				last.high = bar.high;
+			}
+			// the pulled candle already contains the volume up to the first bar we see for it, so add only the
+			// volume of the ticks since then
+			if (volumeBarTime == bar.time) {
+				last.volume += bar.volume - volumeBarSeen;
 			}
+			volumeBarTime = bar.time;
+			volumeBarSeen = bar.volume;
+		}
+		LatencyMonitor.record(ELatencyStage.MODEL_UPDATE, frameStart);
+		
+		long now = Instant.now().getEpochSecond();
+		if (newCandle) {
+			lastPushUpdate = now;
+			showLastPrice(bar.close);
+			panel.markPendingFrame(frameStart);
+			panel.setData(data, false); // set data completely if a new candle was added (indicators are up to date)
+		}
+		else if (now - lastPushUpdate > 5) {
+			lastPushUpdate = now;
+			showLastPrice(bar.close);
+			for (ChartIndicator ci : workerIndicators) { // O(1) per indicator
+				ci.calculateLast();
+			}
+			panel.markPendingFrame(frameStart);
+			panel.setLatestData(last.close, last.low, last.high); // only modify the last data in the panel, without rescaling etc.
+		}
+		else { // repaint skipped because of the throttling above
+			MetricsRegistry.getInstance().counter(MetricsRegistry.CHART_TICKS_THROTTLED).increment();
 		}
 	}
 
+	// helper function: show the last price in the status bar (on the EDT)
+	private void showLastPrice(final double price) {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				statusLastPrice.setText(String.format("Letzter Kurs: %.2f", price));
+			}
+		});
+	}
+
+	/**
+	 * Called by the {@link CandleAggregator} when a bar is completed. Nothing to do, as the completed bar has already 
+	 * been applied with its last update, and the indicators are updated when the next candle is started.
+	 * @param symbol the symbol
+	 * @param interval the interval of the bar
+	 * @param bar the completed bar
+	 */
+	@Override
+	public void onBarClose(String symbol, EChartInterval interval, Candle bar) { }
+
 	/**
 	 * Mouse Listener method, required to tell the {@link ChartPanel} of this StockerChart the current
 	 * mouse position, so that the crosslines can be drawn.
@@ -453,8 +705,10 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 		else {
 			ZonedDateTime zdt = ZonedDateTime.ofInstant(Instant.ofEpochSecond((long) Math.round(pos[0])),
 					ZoneId.systemDefault());
+			String paneName = panel.getPaneName(p.y); // null within the prices
 			statusMousePos.setText(new StringBuilder().append("Cursor: ").append(dtfDate.format(zdt)).append(" ")
-					.append(dtfTime.format(zdt)).append("  ").append(String.format("%.2f", pos[1])).append(" ").toString());
+					.append(dtfTime.format(zdt)).append("  ").append(paneName == null ? "" : paneName + ": ")
+					.append(String.format("%.2f", pos[1])).append(" ").toString());
 		}
 		panel.setMousePos(p.x, p.y);
 	}
@@ -469,13 +723,13 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 		String titlenew = "";
 		switch (btntext) {
 		case "Kerzen":
-			panel.switchChartType(EChartType.CANDLE);
+			switchChartType(EChartType.CANDLE);
 			titlenew = parent.getUniqueTitle(this.getTitle().replace("Linie", "Kerzen"));
 			parent.windowRenamed(getTitle(), titlenew);
 			this.setTitle(titlenew);
 			break;
 		case "Linie":
-			panel.switchChartType(EChartType.LINE);
+			switchChartType(EChartType.LINE);
 			titlenew = parent.getUniqueTitle(this.getTitle().replace("Kerzen", "Linie"));
 			parent.windowRenamed(getTitle(), titlenew);
 			this.setTitle(titlenew);
@@ -524,12 +778,26 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 			break;
 		case "Gitterlinien":
 			panel.drawFullGrid = !panel.drawFullGrid;
-			panel.paintImage();
-			panel.repaint();
+			ChartWorker.execute(new Runnable() {
+				@Override
+				public void run() {
+					panel.requestImage();
+				}
+			});
 			break;
 		}
 	}
 
+	// helper function: switch the chart type of the panel (on the worker)
+	private void switchChartType(final EChartType type) {
+		ChartWorker.execute(new Runnable() {
+			@Override
+			public void run() {
+				panel.switchChartType(type);
+			}
+		});
+	}
+
 	/** 
 	 * Get a {@link DateTimeFormatter} object which is configured for suitable formatting of dates for plotting.
 	 * @return a {@link DateTimeFormatter} object to be used for formatting 
@@ -574,7 +842,8 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 	// Indicator management
 	//////////////
 	/**
-	 * Adds the provided {@link ChartIndicator} to this chart.
+	 * Adds the provided {@link ChartIndicator} to this chart. The chart shows the series of the indicator which is
+	 * shared by all charts of this symbol and interval (see {@link stocker.control.IndicatorCache}).
 	 * @param ci the {@link ChartIndicator} to be added
 	 */
 	public void addChartIndicator(ChartIndicator ci) {
@@ -588,9 +857,9 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 		}
 		// if this indicator is not there yet, add it
 		if (same == null) { 
-			ci.setCandles(this.w.getCandles());
-			ci.calculate();
+			ci = control.getIndicatorCache().acquire(w.getKey(), w.getInterval(), ci);
 			this.chartIndicators.add(ci);
+			updateWarmup();
 			JCheckBoxMenuItem cbmi = new JCheckBoxMenuItem(ci.toString());
 			cbmi.addActionListener(new ActionListener() {
 				@Override
@@ -609,20 +878,16 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 						} else {
 							ci.setActive(false);
 						}
-						panel.calculateScaledIndicators();
-						panel.paintImage();
-						panel.repaint();
-					} else { // DEBUG
-						System.err.println("Action Listener Menu: Indicator not found");
+						publishIndicators(null);
+					} else {
+						log.debug("Action listener menu: Indicator not found");
 					}
 				}
 			});
 			menuIndicators.add(cbmi);
 			indicatorMenuItems.add(cbmi); // list in order to be able to remove it later
 			cbmi.setSelected(ci.isActive());
-			panel.calculateScaledIndicators();
-			panel.paintImage();
-			panel.repaint();
+			publishIndicators(ci);
 		} 
 		else { // same != null; i.e. if this indicator is already there, activate it
 			for (int i = 0; i < indicatorMenuItems.size(); i++) { // set check in menu
@@ -632,9 +897,7 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 				}
 			}
 			same.setActive(true);
-			panel.calculateScaledIndicators();
-			panel.paintImage();
-			panel.repaint();
+			publishIndicators(null);
 		}
 	}
 
@@ -645,6 +908,7 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 	public void removeChartIndicator(ChartIndicator ci) {
 		ci.setActive(false);
 		this.chartIndicators.remove(ci);
+		updateWarmup();
 		for (int i = 0; i < indicatorMenuItems.size(); i++) { // remove menu entry
 			if (indicatorMenuItems.get(i).getText().equals(ci.toString())) {
 				menuIndicators.remove(indicatorMenuItems.get(i));
@@ -652,9 +916,40 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 				break;
 			}
 		}
-		panel.calculateScaledIndicators();
-		panel.paintImage();
-		panel.repaint();
+		control.getIndicatorCache().release(ci);
+		publishIndicators(null);
+	}
+
+	/**
+	 * Hand a copy of the list of indicators over to the {@link ChartWorker}, which calculates a new indicator and
+	 * renders the panel with the indicators (to be called on the EDT after any change of the indicators).
+	 * @param added a new indicator which is to be calculated, or null
+	 */
+	private void publishIndicators(final ChartIndicator added) {
+		final ArrayList<ChartIndicator> copy = new ArrayList<ChartIndicator>(chartIndicators);
+		ChartWorker.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (added != null && data != null) { // otherwise it is calculated when the data are set
+					added.setCandles(data.getCandles());
+					added.calculate();
+				}
+				workerIndicators = copy;
+				panel.setIndicators(copy);
+			}
+		});
+	}
+
+	/**
+	 * Set the warm-up length of the chart's item to the longest one of the indicators, so that the next pull
+	 * provides enough candles for them (see {@link ChartIndicatorRegistry#getWarmup(ChartIndicator)}).
+	 */
+	private void updateWarmup() {
+		int warmup = 0;
+		for (ChartIndicator ci : chartIndicators) {
+			warmup = Math.max(warmup, ChartIndicatorRegistry.getWarmup(ci));
+		}
+		w.setWarmup(warmup);
 	}
 
 	/**
@@ -671,12 +966,16 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 	 * the application-wide properties have change (in particular, on confirming changes in the property dialog).
 	 */
 	public void updateChartProperties() {
-		panel.setCandleScheme(control.getPropertyCandleScheme());
-		panel.setAlarmColor(control.getPropertyAlarmColor().toColor());
-		if (isInitialized) {
-			panel.paintImage();
-			panel.repaint();
-		}
+		final ECandleScheme scheme = control.getPropertyCandleScheme();
+		final Color alarmColor = control.getPropertyAlarmColor().toColor();
+		ChartWorker.execute(new Runnable() {
+			@Override
+			public void run() {
+				panel.setCandleScheme(scheme);
+				panel.setAlarmColor(alarmColor);
+				panel.requestImage();
+			}
+		});
 	}
 
 	//////////////
@@ -707,9 +1006,7 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 					} else {
 						chartAlarmsActiveFlag.set(idx, false);
 					}
-					panel.calculateScaledAlarms();
-					panel.paintImage();
-					panel.repaint();
+					publishAlarms();
 				}
 			}
 		});
@@ -722,9 +1019,7 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 		if (addToModel) {
 			control.addAlarm(ca, w.getKey(), this);
 		}
-		panel.calculateScaledAlarms();
-		panel.paintImage();
-		panel.repaint();
+		publishAlarms();
 	}
 
 	/**
@@ -745,15 +1040,40 @@ public class StockerChart extends JInternalFrame implements IStockerDataListener
 					break;
 				}
 			}
-			panel.calculateScaledAlarms();
-			panel.paintImage();
-			panel.repaint();
+			publishAlarms();
 			if (removeFromModel) {
 				control.removeAlarm(w.getKey(), ca.getValue(), this);
 			}
 		}
 	}
 
+	/**
+	 * Hand the names and values of the active alarms over to the {@link ChartWorker}, which renders the panel with
+	 * them (to be called after any change of the alarms).
+	 */
+	private void publishAlarms() {
+		int n = 0;
+		for (Boolean active : chartAlarmsActiveFlag) {
+			n += (active ? 1 : 0);
+		}
+		final String[] names = new String[n];
+		final double[] values = new double[n];
+		int i = 0;
+		for (int k = 0; k < chartAlarms.size(); k++) {
+			if (chartAlarmsActiveFlag.get(k)) {
+				names[i] = chartAlarms.get(k).toString();
+				values[i] = chartAlarms.get(k).getValue();
+				i++;
+			}
+		}
+		ChartWorker.execute(new Runnable() {
+			@Override
+			public void run() {
+				panel.setAlarms(names, values);
+			}
+		});
+	}
+
 	/**
 	 * Get an {@link ArrayList} with all chart alarms.
 	 * @return an {@link ArrayList} containing all chart alarms
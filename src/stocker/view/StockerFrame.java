@@ -27,6 +27,7 @@ import javax.swing.JRadioButtonMenuItem;
 import javax.swing.JSeparator;
 import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 import javax.swing.UIManager.LookAndFeelInfo;
 import javax.swing.event.InternalFrameAdapter;
@@ -38,6 +39,7 @@ import stocker.model.ChartWatchItem;
 import stocker.model.WatchlistItem;
 import stocker.util.EChartType;
 import stocker.util.JMenuItemFixed;
+import stocker.util.StockerLogger;
 
 /**
  * The main frame of the application.
@@ -46,6 +48,7 @@ import stocker.util.JMenuItemFixed;
  */
 public class StockerFrame extends JFrame {
 	private static final long serialVersionUID = 7687506805635328463L;
+	private static final StockerLogger log = StockerLogger.getLogger(StockerFrame.class);
 
 	private StockerControl control;
 	private Watchlist watchlist;
@@ -79,8 +82,7 @@ public class StockerFrame extends JFrame {
 			try {
 				UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 			} catch (Exception e) {
-				System.err.println("Error while setting Swing look and feel!");
-				e.printStackTrace();
+				log.warn("Error while setting Swing look and feel: {}", e.getMessage());
 			}
 		}
 
@@ -158,10 +160,28 @@ public class StockerFrame extends JFrame {
 	 * @param type the type of chart (an instance of {@link EChartType}), or null to use the default type
 	 * @param position the position at which this window should be place, or null to use a default position
 	 * @param size the desired size of the new window, or null to use a default size
+	 * @param gridlinesShown whether the gridlines are shown in the new chart
 	 * @return the newly created {@link StockerChart}
 	 */
 	public StockerChart openChartWindow(ChartWatchItem item, EChartType type, Point position, Dimension size,
 			boolean gridlinesShown) {
+		return openChartWindow(item, type, position, size, gridlinesShown, false);
+	}
+
+	/**
+	 * Open a new chart window, optionally without pulling its data yet (e.g. when restoring a session: the data of a
+	 * deferred chart is pulled by {@link StockerChart#initializeDeferredData()}, which is called on demand when the
+	 * chart is deiconified or activated).
+	 * @param item the {@link ChartWatchItem} to be shown in the new chart window
+	 * @param type the type of chart (an instance of {@link EChartType}), or null to use the default type
+	 * @param position the position at which this window should be place, or null to use a default position
+	 * @param size the desired size of the new window, or null to use a default size
+	 * @param gridlinesShown whether the gridlines are shown in the new chart
+	 * @param isDeferred true if the data should not be pulled yet, false to initialize the chart immediately
+	 * @return the newly created {@link StockerChart}
+	 */
+	public StockerChart openChartWindow(ChartWatchItem item, EChartType type, Point position, Dimension size,
+			boolean gridlinesShown, boolean isDeferred) {
 		// Get the title for the new chart
 		String windowName = getUniqueTitle(item.getName() + ", Kerzen, I = " + item.getInterval().toString());
 
@@ -222,10 +242,27 @@ public class StockerFrame extends JFrame {
 		
 		// now, initialize (in particular, pull data, which might take a while)
 		chart.setVisible(true);
-		chart.initializeData();
+		if (isDeferred) {
+			chart.setDeferred();
+		}
+		else {
+			initializeChart(chart);
+		}
+		
+		return chart;
+	}
+
+	/**
+	 * Initialize the data of a chart, i.e. start pulling its data, and start a thread which retries if the first 
+	 * attempt is not successful.
+	 * @param chart the chart to be initialized
+	 * @return the {@link SwingWorker} of the first attempt (completed when the data has been pulled or pulling failed)
+	 */
+	SwingWorker<ChartWatchItem, Object> initializeChart(StockerChart chart) {
+		SwingWorker<ChartWatchItem, Object> worker = chart.initializeData();
 		
 		// if initialization was not successful on the first try: start thread for retries
-		// called in a usual thread, not by invokeLater, as the only swing operation called is repaint(), which is thread-safe
+		// the thread only waits, the retries themselves are started on the EDT like the first attempt
 		new Thread() { 
 			@Override
 			public void run() {
@@ -234,15 +271,20 @@ public class StockerFrame extends JFrame {
 					try {
 						Thread.sleep(7000);
 					} catch (InterruptedException e) { }
-					if (!chart.isInitialized()) { // if still not initialized (maybe background process has completed in the mean time)
-						chart.initializeData();
-						chart.repaint();
-					}
+					SwingUtilities.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							if (!chart.isInitialized()) { // if still not initialized (maybe background process has completed in the mean time)
+								chart.initializeData();
+								chart.repaint();
+							}
+						}
+					});
 				}
 			}
 		}.start();
 		
-		return chart;
+		return worker;
 	}
 
 	/**
@@ -490,7 +532,7 @@ public class StockerFrame extends JFrame {
 					watchlist.moveToFront();
 					watchlist.setSelected(true);
 				} catch (PropertyVetoException e) { 
-					System.err.println("Watchlist: PropertyVetoException!");
+					log.debug("Watchlist: PropertyVetoException");
 				} // ignore if it doesn't want
 			}
 		});
@@ -508,6 +550,25 @@ public class StockerFrame extends JFrame {
 		// Menu Bar: Datei
 		JMenu menu_file = new JMenu("Datei");
 		menu_file.setMnemonic(KeyEvent.getExtendedKeyCodeForChar('d'));
+		JMenuItem menuItem_diagnostics = new JMenuItem("Diagnose");
+		menuItem_diagnostics.setMnemonic(KeyEvent.getExtendedKeyCodeForChar('g'));
+		menuItem_diagnostics.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				control.showDiagnosticsDialog();
+			}
+		});
+		menu_file.add(menuItem_diagnostics);
+		JMenuItem menuItem_alarms = new JMenuItem("Alarmmeldungen");
+		menuItem_alarms.setMnemonic(KeyEvent.getExtendedKeyCodeForChar('a'));
+		menuItem_alarms.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				control.showAlarmNotifications();
+			}
+		});
+		menu_file.add(menuItem_alarms);
+		menu_file.addSeparator();
 		JMenuItem menuItem_exit = new JMenuItem("Beenden");
 		menuItem_exit.setMnemonic(KeyEvent.getExtendedKeyCodeForChar('b'));
 		menuItem_exit.addActionListener(new ActionListener() {
@@ -533,6 +594,15 @@ public class StockerFrame extends JFrame {
 			}
 		});
 		menu_search.add(menu_searchStock);
+		JMenuItem menu_screener = new JMenuItem("Screener");
+		menu_screener.setMnemonic(KeyEvent.getExtendedKeyCodeForChar('c'));
+		menu_screener.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				control.showScreenerDialog();
+			}
+		});
+		menu_search.add(menu_screener);
 		menubar.add(menu_search);
 
 		// Menu Bar: Einstellungen
@@ -6,6 +6,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseMotionAdapter;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -24,6 +25,8 @@ import javax.swing.JScrollPane;
 import javax.swing.RowSorter;
 import javax.swing.SortOrder;
 import javax.swing.SwingUtilities;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
 import javax.swing.event.PopupMenuEvent;
 import javax.swing.event.PopupMenuListener;
 import javax.swing.event.TableModelEvent;
@@ -34,8 +37,11 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 import stocker.control.StockerControl;
+import stocker.dialog.StockerConditionAlarmDialog;
+import stocker.metrics.LatencyMonitor;
 import stocker.model.ChartWatchItem;
 import stocker.model.WatchlistItem;
+import stocker.util.ELatencyStage;
 import stocker.util.StockerDataManagerException;
 
 /** 
@@ -53,6 +59,7 @@ public class Watchlist extends JInternalFrame implements IStockerDataListener {
 	private WatchlistTable table;
 	private HashMap<String, WatchlistItem> itemMap;
 	private ArrayList<String> keyList; // required for iterating over keys (what the HashMap doesn't support)
+	private int hoveredRow = -1; // the row (view index) under the mouse pointer
 	
 	/**
 	 * Construct a new {@link Watchlist}.
@@ -176,6 +183,18 @@ public class Watchlist extends JInternalFrame implements IStockerDataListener {
 			}
 		});
 		popupMenu.add(deleteItem);
+		JMenuItem conditionAlarmItem = new JMenuItem("Bedingte Alarme...");
+		conditionAlarmItem.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				int viewrow = table.getSelectedRow();
+				if (viewrow > -1) {
+					String key = tableModel.getValueAtAsString(table.getRowSorter().convertRowIndexToModel(viewrow), 0);
+					new StockerConditionAlarmDialog(parent, control, key);
+				}
+			}
+		});
+		popupMenu.add(conditionAlarmItem);
 		table.setComponentPopupMenu(popupMenu);
 		popupMenu.addPopupMenuListener(new PopupMenuListener() {
 			@Override
@@ -206,6 +225,26 @@ public class Watchlist extends JInternalFrame implements IStockerDataListener {
 			public void popupMenuCanceled(PopupMenuEvent e) { }
 		});
 
+		// Prefetch the chart data of selected and hovered rows, so that opening the chart is quick
+		table.getSelectionModel().addListSelectionListener(new ListSelectionListener() {
+			@Override
+			public void valueChanged(ListSelectionEvent e) {
+				if (!e.getValueIsAdjusting()) {
+					prefetchChartData(table.getSelectedRow());
+				}
+			}
+		});
+		table.addMouseMotionListener(new MouseMotionAdapter() {
+			@Override
+			public void mouseMoved(MouseEvent e) {
+				int row = table.rowAtPoint(e.getPoint());
+				if (row != hoveredRow) {
+					hoveredRow = row;
+					prefetchChartData(row);
+				}
+			}
+		});
+
 		// Add mouse listener for double click in the table (to open chart)
 		table.addMouseListener(new MouseAdapter() {
 			@Override
@@ -332,6 +371,7 @@ public class Watchlist extends JInternalFrame implements IStockerDataListener {
 		
 		if (time >= 0L) { // otherwise an error code is reported with time
 			w.setData(time, price, w.getCloseYesterday());
+			LatencyMonitor.record(ELatencyStage.MODEL_UPDATE);
 			Double changeToday = Math.round(
 					(w.getPrice() - w.getCloseYesterday()) / w.getCloseYesterday() * 100 * 100 ) / 100.0;
 			String changeTodayString = (changeToday >= 0.0 ? "+" : "") + changeToday.toString();
@@ -385,8 +425,8 @@ public class Watchlist extends JInternalFrame implements IStockerDataListener {
 	}
 	
 	/**
-	 * Get an array of all keys within the watchlist. Not used within Stocker, but required to satisfy the
-	 * requirements from IStockerTester.
+	 * Get an array of all keys within the watchlist (e.g. the symbols to be screened, see
+	 * {@link stocker.control.Screener}; also required to satisfy the requirements from IStockerTester).
 	 * @return an array containing the keys of all items in the watchlist
 	 */
 	public String[] getAllKeys() {
@@ -422,6 +462,18 @@ public class Watchlist extends JInternalFrame implements IStockerDataListener {
 		parent.openChartWindow(cwi, null, null, null, true);
 	}
 
+	/**
+	 * Ask for the chart data of the item in the given row to be prefetched (in the interval of new charts).
+	 * @param viewrow the row in the {@link WatchlistTable} (view index, -1 for none)
+	 */
+	private void prefetchChartData(int viewrow) {
+		if (viewrow < 0 || viewrow >= table.getRowCount()) {
+			return;
+		}
+		String key = tableModel.getValueAtAsString(table.getRowSorter().convertRowIndexToModel(viewrow), 0);
+		control.prefetchPlotData(key, ChartWatchItem.DEFAULT_INTERVAL);
+	}
+
 	/**
 	 * Convert a unix timestamp into a human-readable time string.
 	 * @param t the unix timestamp
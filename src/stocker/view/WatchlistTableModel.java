@@ -10,7 +10,10 @@ import javax.swing.SwingUtilities;
 import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 
+import stocker.metrics.LatencyMonitor;
 import stocker.model.WatchlistItem;
+import stocker.util.ELatencyStage;
+import stocker.util.StockerLogger;
 
 /** 
  * Table model for the {@link WatchlistTable}. This is a customized version of the {@link AbstractTableModel}.
@@ -20,6 +23,7 @@ import stocker.model.WatchlistItem;
 public class WatchlistTableModel extends AbstractTableModel {
 
 	private static final long serialVersionUID = 8552801053704668025L;
+	private static final StockerLogger log = StockerLogger.getLogger(WatchlistTableModel.class);
 
 	private int ncols;
 	private String[] columns = { "Symbol", "Name", "Zeit", "Kurs", "heute" };
@@ -62,8 +66,7 @@ public class WatchlistTableModel extends AbstractTableModel {
 			} catch (NumberFormatException e) { 
 				if (!( rows.get(idx)[3].equals("lade...") || rows.get(idx)[3].equals("keine Daten")
 						|| rows.get(idx)[3].equals("keine Berechtigung"))) { // this is to be expected; everything else shouldn't ever happen
-					System.err.println("tableModel, updateRow: Number Format Exception!");
-					System.err.println(cols[3] + " " + rows.get(idx)[3]);
+					log.warn("updateRow: Number format exception for {} (old value: {})", cols[3], rows.get(idx)[3]);
 				}
 			}
 			rows.set(idx, cols);
@@ -75,10 +78,12 @@ public class WatchlistTableModel extends AbstractTableModel {
 				rowColors.set(idx, new Color(255, 100, 100, 255));
 				setResetTimer = true;
 			}
+			final long frameStart = LatencyMonitor.currentFrame(); // 0 if this update has not been pushed
 			SwingUtilities.invokeLater(new Runnable() {
 				@Override
 				public void run() {
 					fireTableRowsUpdated(idx, idx);
+					LatencyMonitor.record(ELatencyStage.RENDER, frameStart);
 				}
 			});
 